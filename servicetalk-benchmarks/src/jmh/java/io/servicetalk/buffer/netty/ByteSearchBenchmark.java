@@ -0,0 +1,86 @@
+/*
+ * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.buffer.netty;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.util.ByteProcessor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+
+import static io.netty.buffer.Unpooled.directBuffer;
+import static io.netty.buffer.Unpooled.wrappedBuffer;
+
+/**
+ * Compares the byte at a time search of {@link ByteBuf#indexOf(int, int, byte)} with the word at a time search of
+ * {@link BufferUtil#indexOf(ByteBuf, int, int, byte)}, for a delimiter found after {@code length} bytes. Header lines
+ * are typically a few dozen bytes long, which is where most of the searches of the codecs end.
+ */
+@Fork(value = 1)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 3)
+public class ByteSearchBenchmark {
+
+    private static final byte LF = '\n';
+
+    @Param({"7", "32", "128", "1024"})
+    public int length;
+
+    @Param({"true", "false"})
+    public boolean direct;
+
+    private ByteBuf buffer;
+
+    @Setup
+    public void setup() {
+        byte[] bytes = new byte[length + 1];
+        Arrays.fill(bytes, (byte) 'a');
+        bytes[length] = LF;
+        buffer = direct ? directBuffer(bytes.length).writeBytes(bytes) : wrappedBuffer(bytes);
+        if (buffer.indexOf(0, bytes.length, LF) != length || BufferUtil.indexOf(buffer, 0, bytes.length, LF) != length) {
+            throw new IllegalStateException("delimiter not found at index " + length);
+        }
+    }
+
+    @TearDown
+    public void teardown() {
+        buffer.release();
+    }
+
+    @Benchmark
+    public int byteProcessor() {
+        return buffer.forEachByte(ByteProcessor.FIND_LF);
+    }
+
+    @Benchmark
+    public int byteBufIndexOf() {
+        return buffer.indexOf(buffer.readerIndex(), buffer.writerIndex(), LF);
+    }
+
+    @Benchmark
+    public int swarIndexOf() {
+        return BufferUtil.indexOf(buffer, buffer.readerIndex(), buffer.writerIndex(), LF);
+    }
+}
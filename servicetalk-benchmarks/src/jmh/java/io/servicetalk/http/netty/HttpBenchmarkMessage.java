@@ -0,0 +1,208 @@
+/*
+ * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.netty;
+
+import io.servicetalk.http.api.HttpHeaders;
+import io.servicetalk.http.api.HttpPayloadChunk;
+import io.servicetalk.http.api.HttpRequestMetaData;
+import io.servicetalk.http.api.HttpResponseMetaData;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map.Entry;
+
+import static io.servicetalk.buffer.netty.BufferAllocators.DEFAULT_ALLOCATOR;
+import static io.servicetalk.http.api.DefaultHttpHeadersFactory.INSTANCE;
+import static io.servicetalk.http.api.HttpHeaderNames.CONTENT_LENGTH;
+import static io.servicetalk.http.api.HttpHeaderNames.TRANSFER_ENCODING;
+import static io.servicetalk.http.api.HttpHeaderValues.CHUNKED;
+import static io.servicetalk.http.api.HttpPayloadChunks.newLastPayloadChunk;
+import static io.servicetalk.http.api.HttpPayloadChunks.newPayloadChunk;
+import static io.servicetalk.http.api.HttpProtocolVersions.HTTP_1_1;
+import static io.servicetalk.http.api.HttpRequestMetaDataFactory.newRequestMetaData;
+import static io.servicetalk.http.api.HttpRequestMethods.GET;
+import static io.servicetalk.http.api.HttpRequestMethods.POST;
+import static io.servicetalk.http.api.HttpResponseMetaDataFactory.newResponseMetaData;
+import static io.servicetalk.http.api.HttpResponseStatuses.OK;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+/**
+ * Shapes of HTTP/1.1 messages used by the codec benchmarks. Each shape can be created as raw bytes as they would be
+ * read from the wire, and as the objects which are written by the HTTP connections, so the encoder and decoder
+ * benchmarks operate on the same messages.
+ */
+public enum HttpBenchmarkMessage {
+    /**
+     * A message with a 64 byte content-length body.
+     */
+    SMALL(0, 1, 64, false, 0),
+    /**
+     * A message with a 16 KiB content-length body.
+     */
+    LARGE_BODY(0, 1, 16 * 1024, false, 0),
+    /**
+     * A message with a chunked body made of 8 chunks of 1 KiB each.
+     */
+    CHUNKED_BODY(0, 8, 1024, true, 0),
+    /**
+     * A message with 64 additional headers of about 64 bytes each, and no body.
+     */
+    LARGE_HEADERS(64, 0, 0, false, 0),
+    /**
+     * A message with a chunked body made of 4 chunks of 256 bytes each, followed by 16 trailers.
+     */
+    CHUNKED_TRAILERS(0, 4, 256, true, 16);
+
+    private static final String HEADER_VALUE = "a5b1cf8e4e16c4fd7a6c2e50b3c9e2a14d27f6d8e9b0a1c2";
+
+    private final int extraHeaders;
+    private final int chunks;
+    private final int chunkSize;
+    private final boolean chunked;
+    private final int trailers;
+
+    HttpBenchmarkMessage(final int extraHeaders, final int chunks, final int chunkSize, final boolean chunked,
+                         final int trailers) {
+        this.extraHeaders = extraHeaders;
+        this.chunks = chunks;
+        this.chunkSize = chunkSize;
+        this.chunked = chunked;
+        this.trailers = trailers;
+    }
+
+    /**
+     * Creates a new {@link HttpRequestMetaData} with the headers of this shape.
+     *
+     * @return a new {@link HttpRequestMetaData}.
+     */
+    HttpRequestMetaData newRequest() {
+        final HttpHeaders headers = INSTANCE.newHeaders();
+        headers.add("host", "servicetalk.io")
+                .add("user-agent", "servicetalk-benchmark")
+                .add("accept", "*/*");
+        addPayloadHeaders(headers, false);
+        return newRequestMetaData(HTTP_1_1, hasPayload() ? POST : GET, "/benchmark/path?query=value", headers);
+    }
+
+    /**
+     * Creates a new {@link HttpResponseMetaData} with the headers of this shape.
+     *
+     * @return a new {@link HttpResponseMetaData}.
+     */
+    HttpResponseMetaData newResponse() {
+        final HttpHeaders headers = INSTANCE.newHeaders();
+        headers.add("server", "servicetalk")
+                .add("content-type", "text/plain");
+        // Responses without a length are delimited by closing the connection, which would prevent pipelining.
+        addPayloadHeaders(headers, true);
+        return newResponseMetaData(HTTP_1_1, OK, headers);
+    }
+
+    /**
+     * Creates the payload body of this shape. The last element is always a
+     * {@link io.servicetalk.http.api.LastHttpPayloadChunk} which carries the trailers.
+     *
+     * @return the payload body of this shape.
+     */
+    List<HttpPayloadChunk> newPayload() {
+        final List<HttpPayloadChunk> payload = new ArrayList<>(chunks + 1);
+        for (int i = 0; i < chunks; ++i) {
+            payload.add(newPayloadChunk(DEFAULT_ALLOCATOR.wrap(newContent())));
+        }
+        final HttpHeaders trailers = INSTANCE.newTrailers();
+        for (int i = 0; i < this.trailers; ++i) {
+            trailers.add("x-benchmark-trailer-" + i, HEADER_VALUE);
+        }
+        payload.add(newLastPayloadChunk(DEFAULT_ALLOCATOR.newBuffer(0), trailers));
+        return payload;
+    }
+
+    /**
+     * Returns the wire representation of a request of this shape.
+     *
+     * @return the wire representation of a request of this shape.
+     */
+    byte[] requestBytes() {
+        final HttpRequestMetaData metaData = newRequest();
+        final StringBuilder sb = new StringBuilder(256);
+        sb.append(metaData.getMethod().getName()).append(' ').append(metaData.getRequestTarget())
+                .append(" HTTP/1.1\r\n");
+        return toBytes(sb, metaData.getHeaders());
+    }
+
+    /**
+     * Returns the wire representation of a response of this shape.
+     *
+     * @return the wire representation of a response of this shape.
+     */
+    byte[] responseBytes() {
+        final StringBuilder sb = new StringBuilder(256);
+        sb.append("HTTP/1.1 200 OK\r\n");
+        return toBytes(sb, newResponse().getHeaders());
+    }
+
+    private boolean hasPayload() {
+        return chunks > 0;
+    }
+
+    private void addPayloadHeaders(final HttpHeaders headers, final boolean requireLength) {
+        for (int i = 0; i < extraHeaders; ++i) {
+            headers.add("x-benchmark-header-" + i, HEADER_VALUE);
+        }
+        if (chunked) {
+            headers.add(TRANSFER_ENCODING, CHUNKED);
+        } else if (hasPayload() || requireLength) {
+            headers.add(CONTENT_LENGTH, Integer.toString(chunks * chunkSize));
+        }
+    }
+
+    private byte[] newContent() {
+        final byte[] content = new byte[chunkSize];
+        Arrays.fill(content, (byte) 'a');
+        return content;
+    }
+
+    private byte[] toBytes(final StringBuilder sb, final HttpHeaders headers) {
+        appendHeaders(sb, headers);
+        sb.append("\r\n");
+        final char[] content = new char[chunkSize];
+        Arrays.fill(content, 'a');
+        if (chunked) {
+            for (int i = 0; i < chunks; ++i) {
+                sb.append(Integer.toHexString(chunkSize)).append("\r\n").append(content).append("\r\n");
+            }
+            sb.append("0\r\n");
+            final HttpHeaders trailers = INSTANCE.newTrailers();
+            for (int i = 0; i < this.trailers; ++i) {
+                trailers.add("x-benchmark-trailer-" + i, HEADER_VALUE);
+            }
+            appendHeaders(sb, trailers);
+            sb.append("\r\n");
+        } else {
+            for (int i = 0; i < chunks; ++i) {
+                sb.append(content);
+            }
+        }
+        return sb.toString().getBytes(US_ASCII);
+    }
+
+    private static void appendHeaders(final StringBuilder sb, final HttpHeaders headers) {
+        for (Entry<CharSequence, CharSequence> header : headers) {
+            sb.append(header.getKey()).append(": ").append(header.getValue()).append("\r\n");
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.netty;
+
+import io.servicetalk.http.api.HttpMetaData;
+import io.servicetalk.http.api.HttpRequestMethod;
+import io.servicetalk.http.api.LastHttpPayloadChunk;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+import static io.netty.buffer.Unpooled.directBuffer;
+import static io.netty.buffer.Unpooled.unreleasableBuffer;
+import static io.servicetalk.http.api.DefaultHttpHeadersFactory.INSTANCE;
+import static io.servicetalk.http.api.HttpRequestMethods.GET;
+
+/**
+ * Benchmark of {@link HttpRequestDecoder} and {@link HttpResponseDecoder} which decode {@code pipelined} messages of
+ * a given {@link HttpBenchmarkMessage shape} read from the network in a single buffer.
+ * <p>
+ * Allocation rates are reported by the GC profiler, which is enabled in the {@code jmh} configuration of this module.
+ */
+@Fork(value = 1)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 3)
+public class HttpObjectDecoderBenchmark {
+
+    @Param({"SMALL", "LARGE_BODY", "CHUNKED_BODY", "LARGE_HEADERS", "CHUNKED_TRAILERS"})
+    public HttpBenchmarkMessage message;
+
+    @Param({"1", "16"})
+    public int pipelined;
+
+    private final Queue<HttpRequestMethod> methodQueue = new ArrayDeque<>();
+    private EmbeddedChannel requestChannel;
+    private EmbeddedChannel responseChannel;
+    private ByteBuf requests;
+    private ByteBuf responses;
+
+    @Setup
+    public void setup() {
+        requests = repeat(message.requestBytes(), pipelined);
+        responses = repeat(message.responseBytes(), pipelined);
+        requestChannel = new EmbeddedChannel(new HttpRequestDecoder(methodQueue, INSTANCE, 4096, 8192));
+        responseChannel = new EmbeddedChannel(new HttpResponseDecoder(methodQueue, INSTANCE, 4096, 8192));
+
+        // Make sure every message is decoded completely, otherwise the results would be meaningless.
+        verifyDecoded(requestChannel, requests);
+        methodQueue.clear();
+        for (int i = 0; i < pipelined; ++i) {
+            methodQueue.offer(GET);
+        }
+        verifyDecoded(responseChannel, responses);
+    }
+
+    @TearDown
+    public void tearDown() {
+        requestChannel.finishAndReleaseAll();
+        responseChannel.finishAndReleaseAll();
+    }
+
+    @Benchmark
+    public void decodeRequests(Blackhole bh) {
+        requestChannel.writeInbound(requests.duplicate());
+        drain(requestChannel, bh);
+        // The decoder remembers the method of each request for the response encoder.
+        methodQueue.clear();
+    }
+
+    @Benchmark
+    public void decodeResponses(Blackhole bh) {
+        for (int i = 0; i < pipelined; ++i) {
+            methodQueue.offer(GET);
+        }
+        responseChannel.writeInbound(responses.duplicate());
+        drain(responseChannel, bh);
+    }
+
+    private void verifyDecoded(EmbeddedChannel channel, ByteBuf input) {
+        channel.writeInbound(input.duplicate());
+        int metaData = 0;
+        int last = 0;
+        Object msg;
+        while ((msg = channel.readInbound()) != null) {
+            if (msg instanceof HttpMetaData) {
+                ++metaData;
+            } else if (msg instanceof LastHttpPayloadChunk) {
+                ++last;
+            }
+        }
+        if (metaData != pipelined || last != pipelined) {
+            throw new IllegalStateException("Decoded " + metaData + " messages and " + last +
+                    " last chunks, expected " + pipelined + " of " + message);
+        }
+    }
+
+    private static void drain(EmbeddedChannel channel, Blackhole bh) {
+        Object msg;
+        while ((msg = channel.readInbound()) != null) {
+            bh.consume(msg);
+        }
+    }
+
+    private static ByteBuf repeat(byte[] message, int times) {
+        // The decoders slice the content and headers out of the buffer they read, which makes it simple to reuse an
+        // unreleasable buffer for each invocation.
+        final ByteBuf buf = directBuffer(message.length * times);
+        for (int i = 0; i < times; ++i) {
+            buf.writeBytes(message);
+        }
+        return unreleasableBuffer(buf);
+    }
+}
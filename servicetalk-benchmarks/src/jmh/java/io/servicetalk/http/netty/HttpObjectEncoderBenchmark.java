@@ -0,0 +1,117 @@
+/*
+ * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.netty;
+
+import io.servicetalk.http.api.HttpPayloadChunk;
+import io.servicetalk.http.api.HttpRequestMetaData;
+import io.servicetalk.http.api.HttpRequestMethod;
+import io.servicetalk.http.api.HttpResponseMetaData;
+
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
+
+import static io.netty.util.ReferenceCountUtil.release;
+import static io.servicetalk.http.api.HttpRequestMethods.GET;
+
+/**
+ * Benchmark of {@link HttpRequestEncoder} and {@link HttpResponseEncoder} which encode {@code pipelined} messages of
+ * a given {@link HttpBenchmarkMessage shape} before flushing them.
+ * <p>
+ * Allocation rates are reported by the GC profiler, which is enabled in the {@code jmh} configuration of this module.
+ */
+@Fork(value = 1)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 3)
+public class HttpObjectEncoderBenchmark {
+
+    @Param({"SMALL", "LARGE_BODY", "CHUNKED_BODY", "LARGE_HEADERS", "CHUNKED_TRAILERS"})
+    public HttpBenchmarkMessage message;
+
+    @Param({"1", "16"})
+    public int pipelined;
+
+    private final Queue<HttpRequestMethod> methodQueue = new ArrayDeque<>();
+    private EmbeddedChannel requestChannel;
+    private EmbeddedChannel responseChannel;
+    private HttpRequestMetaData request;
+    private HttpResponseMetaData response;
+    private List<HttpPayloadChunk> payload;
+
+    @Setup
+    public void setup() {
+        request = message.newRequest();
+        response = message.newResponse();
+        payload = message.newPayload();
+        requestChannel = new EmbeddedChannel(new HttpRequestEncoder(methodQueue, 256, 256));
+        responseChannel = new EmbeddedChannel(new HttpResponseEncoder(methodQueue, 256, 256));
+    }
+
+    @TearDown
+    public void tearDown() {
+        requestChannel.finishAndReleaseAll();
+        responseChannel.finishAndReleaseAll();
+    }
+
+    @Benchmark
+    public void encodeRequests(Blackhole bh) {
+        for (int i = 0; i < pipelined; ++i) {
+            write(requestChannel, request);
+        }
+        requestChannel.flush();
+        drain(requestChannel, bh);
+        // The encoder remembers the method of each request for the response decoder.
+        methodQueue.clear();
+    }
+
+    @Benchmark
+    public void encodeResponses(Blackhole bh) {
+        for (int i = 0; i < pipelined; ++i) {
+            methodQueue.offer(GET);
+            write(responseChannel, response);
+        }
+        responseChannel.flush();
+        drain(responseChannel, bh);
+    }
+
+    private void write(EmbeddedChannel channel, Object metaData) {
+        channel.write(metaData);
+        for (HttpPayloadChunk chunk : payload) {
+            channel.write(chunk);
+        }
+    }
+
+    private static void drain(EmbeddedChannel channel, Blackhole bh) {
+        Object msg;
+        while ((msg = channel.readOutbound()) != null) {
+            bh.consume(msg);
+            release(msg);
+        }
+    }
+}
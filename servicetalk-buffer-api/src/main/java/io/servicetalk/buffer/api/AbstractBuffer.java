@@ -531,12 +531,42 @@ abstract class AbstractBuffer implements Buffer {
 
     @Override
     public final int indexOf(int fromIndex, int toIndex, byte value) {
-        return fromIndex > toIndex ? firstIndexOf(fromIndex, toIndex, value) :
+        return fromIndex <= toIndex ? firstIndexOf(fromIndex, toIndex, value) :
                 lastIndexOf(fromIndex, toIndex, value);
     }
 
     protected int firstIndexOf(int fromIndex, int toIndex, byte value) {
-        return forEachByte(fromIndex, toIndex - fromIndex, new IndexOfByteProcessor(value));
+        checkIndex0(fromIndex, toIndex - fromIndex);
+        // Compare 8 bytes at a time, and only visit the remaining tail byte by byte.
+        final long pattern = compilePattern(value);
+        for (; fromIndex <= toIndex - Long.BYTES; fromIndex += Long.BYTES) {
+            final long matches = markMatchingBytes(getLongNoBounds(fromIndex), pattern);
+            if (matches != 0) {
+                // getLongNoBounds is big endian, so the first byte is the most significant one.
+                return fromIndex + (Long.numberOfLeadingZeros(matches) >>> 3);
+            }
+        }
+        for (; fromIndex < toIndex; ++fromIndex) {
+            if (getByteNoBounds(fromIndex) == value) {
+                return fromIndex;
+            }
+        }
+        return -1;
+    }
+
+    private static long compilePattern(byte value) {
+        return (value & 0xFFL) * 0x0101010101010101L;
+    }
+
+    /**
+     * Sets the most significant bit of each byte of {@code word} that is equal to the corresponding byte of
+     * {@code pattern}, and clears all other bits. The well known {@code (x - 0x01..) & ~x & 0x80..} may also mark bytes
+     * which precede a match in a big endian word, this variant does not propagate borrows across bytes.
+     */
+    private static long markMatchingBytes(long word, long pattern) {
+        final long input = word ^ pattern;
+        final long tmp = (input & 0x7F7F7F7F7F7F7F7FL) + 0x7F7F7F7F7F7F7F7FL;
+        return ~(tmp | input | 0x7F7F7F7F7F7F7F7FL);
     }
 
     protected int lastIndexOf(int fromIndex, int toIndex, byte value) {
@@ -1805,6 +1805,48 @@ public interface Buffer {
      */
     Buffer asReadOnly();
 
+    /**
+     * Increases the reference count of this buffer by {@code 1}.
+     * <p>
+     * Only buffers allocated from a pooled {@link BufferAllocator} are reference counted, for all other buffers
+     * (including those created via {@link BufferAllocator#wrap(byte[])} of a pooled {@link BufferAllocator}) this is a
+     * noop as their memory is reclaimed by the garbage collector.
+     *
+     * @return itself.
+     * @see #release()
+     */
+    default Buffer retain() {
+        return this;
+    }
+
+    /**
+     * Decreases the reference count of this buffer by {@code 1} and returns its memory to the pool if the reference
+     * count reaches {@code 0}.
+     * <p>
+     * A buffer allocated from a pooled {@link BufferAllocator} is owned by the code that allocated it until it is
+     * either released or handed over to a transport for writing. Accessing a buffer after it was released results in
+     * undefined behavior. For all other buffers this is a noop as their memory is reclaimed by the garbage collector.
+     *
+     * @return {@code true} if and only if the reference count became {@code 0} and the memory of this buffer was
+     * returned to the pool.
+     */
+    default boolean release() {
+        return false;
+    }
+
+    /**
+     * Records {@code hint} as the last access location of this buffer, which is reported alongside the allocation
+     * location if this buffer leaks, i.e. is garbage collected without being released.
+     * <p>
+     * This is a noop for buffers which are not reference counted, or if leak detection is disabled.
+     *
+     * @param hint an object describing the current access location, its {@link Object#toString()} is reported.
+     * @return itself.
+     */
+    default Buffer touch(Object hint) {
+        return this;
+    }
+
     /**
      * Returns {@code true} if the buffer is direct and so not allocated on the heap.
      *
@@ -17,6 +17,7 @@ package io.servicetalk.buffer.api;
 
 import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
+import javax.annotation.Nullable;
 
 /**
  * An API to allocate {@link Buffer}s.
@@ -153,4 +154,14 @@ public interface BufferAllocator {
      * @return a new buffer.
      */
     Buffer wrap(ByteBuffer buffer);
+
+    /**
+     * Returns the {@link BufferAllocatorMetrics} of this allocator.
+     *
+     * @return the {@link BufferAllocatorMetrics} of this allocator, or {@code null} if it does not record metrics.
+     */
+    @Nullable
+    default BufferAllocatorMetrics getMetrics() {
+        return null;
+    }
 }
@@ -0,0 +1,94 @@
+/*
+ * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.buffer.api;
+
+/**
+ * Metrics of the memory allocated by a {@link BufferAllocator}.
+ * <p>
+ * Counters are cumulative since the creation of the {@link BufferAllocator}, allocation rates can be derived by
+ * sampling them periodically. Sizes are the initial capacities of the allocated buffers, growing a buffer is not
+ * accounted for. Memory which is only referenced by a {@link Buffer}, e.g. a wrapped {@code byte[]}, is not allocated
+ * by the {@link BufferAllocator} and so is not included.
+ */
+public interface BufferAllocatorMetrics {
+
+    /**
+     * Returns the number of heap buffers allocated.
+     *
+     * @return the number of heap buffers allocated.
+     */
+    long getHeapAllocations();
+
+    /**
+     * Returns the number of bytes allocated for heap buffers.
+     *
+     * @return the number of bytes allocated for heap buffers.
+     */
+    long getHeapBytesAllocated();
+
+    /**
+     * Returns the number of direct buffers allocated.
+     *
+     * @return the number of direct buffers allocated.
+     */
+    long getDirectAllocations();
+
+    /**
+     * Returns the number of bytes allocated for direct buffers.
+     *
+     * @return the number of bytes allocated for direct buffers.
+     */
+    long getDirectBytesAllocated();
+
+    /**
+     * Returns the size in bytes of the largest allocation.
+     *
+     * @return the size in bytes of the largest allocation, or {@code 0} if nothing was allocated yet.
+     */
+    long getLargestAllocation();
+
+    /**
+     * Returns a histogram of the allocation sizes. The element at index {@code i} is the number of allocations whose
+     * size in bytes is in the range {@code [2^(i-1), 2^i)}, index {@code 0} counts empty allocations.
+     *
+     * @return a snapshot of the histogram of the allocation sizes.
+     */
+    long[] getAllocationSizeHistogram();
+
+    /**
+     * Returns the number of bytes of heap memory which are currently retained by the {@link BufferAllocator}.
+     *
+     * @return the number of bytes of heap memory which are currently retained, or {@code -1} if unknown because the
+     * memory is reclaimed by the garbage collector.
+     */
+    long getUsedHeapMemory();
+
+    /**
+     * Returns the number of bytes of direct memory which are currently retained by the {@link BufferAllocator}.
+     *
+     * @return the number of bytes of direct memory which are currently retained, or {@code -1} if unknown because the
+     * memory is reclaimed by the garbage collector.
+     */
+    long getUsedDirectMemory();
+
+    /**
+     * Returns the number of buffers which were allocated and not yet released.
+     *
+     * @return the number of buffers which were allocated and not yet released, or {@code -1} if unknown because
+     * buffers are not released explicitly.
+     */
+    long getActiveBuffers();
+}
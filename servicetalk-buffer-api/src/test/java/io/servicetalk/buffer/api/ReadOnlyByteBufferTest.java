@@ -53,4 +53,16 @@ public class ReadOnlyByteBufferTest {
         Buffer buffer1 = DEFAULT_RO_ALLOCATOR.wrap(expectedBuffer);
         assertEquals(Long.MAX_VALUE, buffer1.getLong(buffer1.getReaderIndex()));
     }
+
+    @Test
+    public void indexOf() {
+        Buffer buffer = DEFAULT_RO_ALLOCATOR.fromAscii("Host: servicetalk.io\r\nAccept: */*\r\n");
+        assertEquals(4, buffer.indexOf(0, buffer.getWriterIndex(), (byte) ':'));
+        assertEquals(28, buffer.indexOf(5, buffer.getWriterIndex(), (byte) ':'));
+        assertEquals(21, buffer.indexOf(0, buffer.getWriterIndex(), (byte) '\n'));
+        assertEquals(34, buffer.indexOf(buffer.getWriterIndex(), 0, (byte) '\n'));
+        assertEquals(-1, buffer.indexOf(0, 20, (byte) '\r'));
+        assertEquals(20, buffer.bytesBefore((byte) '\r'));
+        assertEquals(14, buffer.bytesBefore(6, 20, (byte) '\r'));
+    }
 }
@@ -42,4 +42,40 @@ public final class BufferAllocators {
     private BufferAllocators() {
         // no instances
     }
+
+    /**
+     * Creates a new {@link BufferAllocator} which pools memory in per-thread caches backed by shared arenas.
+     * <p>
+     * Unlike the default allocators, {@link Buffer}s allocated from the returned allocator are reference counted:
+     * their memory is only returned to the pool once {@link Buffer#release()} is called by their owner, or once they
+     * are written to a transport which takes ownership of them. Allocations are sampled by netty's resource leak
+     * detector, use {@link Buffer#touch(Object)} to add access records to leak reports. When used as the allocator of
+     * a transport, pooled memory is used for the I/O of the connection but is copied to memory managed by the garbage
+     * collector before it is handed out of the transport, so reads do not need to be released.
+     * <p>
+     * Every allocator has its own arenas, so the returned instance is expected to be shared.
+     *
+     * @param preferDirect {@code true} to allocate direct memory when otherwise not specified, {@code false} to
+     * allocate heap memory.
+     * @return a new pooled {@link BufferAllocator}.
+     */
+    public static BufferAllocator newPooledAllocator(boolean preferDirect) {
+        return new PooledServiceTalkBufferAllocator(preferDirect);
+    }
+
+    /**
+     * Creates a new {@link BufferAllocator} which behaves like {@link #DEFAULT_ALLOCATOR} but records its own
+     * {@link BufferAllocator#getMetrics() metrics}.
+     * <p>
+     * All allocators record metrics, but the shared ones aggregate all their users. Using a new allocator for each
+     * {@code ExecutionContext} attributes the memory allocated by connections, codecs and user code of that
+     * {@code ExecutionContext} to it.
+     *
+     * @param preferDirect {@code true} to allocate direct memory when otherwise not specified, {@code false} to
+     * allocate heap memory.
+     * @return a new {@link BufferAllocator}.
+     */
+    public static BufferAllocator newAllocator(boolean preferDirect) {
+        return new ServiceTalkBufferAllocator(preferDirect);
+    }
 }
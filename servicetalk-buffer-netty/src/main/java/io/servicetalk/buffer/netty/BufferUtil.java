@@ -22,11 +22,16 @@ import io.servicetalk.buffer.api.EmptyBuffer;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufAllocator;
 import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.buffer.Unpooled;
+import io.netty.util.IllegalReferenceCountException;
+import io.netty.util.internal.PlatformDependent;
 
 import javax.annotation.Nullable;
 
 import static io.netty.buffer.Unpooled.EMPTY_BUFFER;
+import static io.netty.util.internal.PlatformDependent.BIG_ENDIAN_NATIVE_ORDER;
+import static java.lang.Math.max;
 
 /**
  * Internal utilities for {@link Buffer}s.
@@ -36,6 +41,8 @@ public final class BufferUtil {
     public static final BufferAllocator PREFER_HEAP_ALLOCATOR = new ServiceTalkBufferAllocator(false);
     public static final BufferAllocator PREFER_DIRECT_ALLOCATOR = new ServiceTalkBufferAllocator(true);
 
+    private static final boolean UNALIGNED_ACCESS = PlatformDependent.hasUnsafe() && PlatformDependent.isUnaligned();
+
     private BufferUtil() {
         // no instances
     }
@@ -56,6 +63,10 @@ public final class BufferUtil {
 
     /**
      * Converts the passed {@code buffer} to {@link ByteBuf}, creating a new {@link ByteBuf} instance if required.
+     * <p>
+     * The memory of {@code buffer} is wrapped rather than copied whenever it is accessible. A {@code buffer} which is
+     * only accessible via {@link Buffer#toNioBuffers()} is wrapped as a {@link ByteBuf} of its readable bytes, which
+     * is composed of multiple segments if {@code buffer} is, so it is written with a single gathering write.
      *
      * @param buffer the buffer.
      * @return a {@link ByteBuf}.
@@ -67,6 +78,8 @@ public final class BufferUtil {
                 ByteBuf byteBuf = Unpooled.wrappedBuffer(buffer.getArray(), buffer.getArrayOffset(), buffer.getCapacity());
                 byteBuf.readerIndex(buffer.getReaderIndex()).writerIndex(buffer.getWriterIndex());
                 return byteBuf;
+            } else if (buffer.getNioBufferCount() > 0) {
+                return Unpooled.wrappedBuffer(buffer.toNioBuffers());
             } else {
                 byte[] data = new byte[buffer.getCapacity()];
                 buffer.getBytes(0, data, 0, data.length);
@@ -104,8 +117,7 @@ public final class BufferUtil {
      * @return the {@link ByteBufAllocator} to use.
      */
     public static ByteBufAllocator getByteBufAllocator(BufferAllocator allocator) {
-        return allocator instanceof ServiceTalkBufferAllocator ?
-                (ServiceTalkBufferAllocator) allocator : ByteBufAllocator.DEFAULT;
+        return allocator instanceof ByteBufAllocator ? (ByteBufAllocator) allocator : ByteBufAllocator.DEFAULT;
     }
 
     /**
@@ -118,6 +130,86 @@ public final class BufferUtil {
         return new NettyBuffer<>(buffer);
     }
 
+    /**
+     * Return a {@link Buffer} for the given {@link ByteBuf} which can be handed out of netty's pipeline without being
+     * released. The returned {@link Buffer} takes ownership of {@code buffer}: if {@code buffer} references pooled
+     * memory, its readable bytes are copied to memory managed by the garbage collector and {@code buffer} is released,
+     * otherwise it is wrapped as-is.
+     *
+     * @param buffer the buffer to wrap or copy.
+     * @return the created buffer.
+     */
+    public static Buffer newUnpooledBufferFrom(ByteBuf buffer) {
+        if (!isPooled(buffer)) {
+            return new NettyBuffer<>(buffer);
+        }
+        try {
+            return PREFER_HEAP_ALLOCATOR.wrap(ByteBufUtil.getBytes(buffer));
+        } finally {
+            buffer.release();
+        }
+    }
+
+    /**
+     * Returns {@code true} if the memory of the given {@link ByteBuf} is allocated from a pool and so must be
+     * released explicitly.
+     *
+     * @param buffer the buffer to check.
+     * @return {@code true} if the memory of {@code buffer} is pooled.
+     */
+    public static boolean isPooled(ByteBuf buffer) {
+        return buffer.alloc() instanceof PooledByteBufAllocator;
+    }
+
+    /**
+     * Locates the first occurrence of {@code value} in {@code buffer}, with the same semantics as
+     * {@link ByteBuf#indexOf(int, int, byte)}.
+     * <p>
+     * Ascending searches over heap or direct memory which can be accessed directly compare 8 bytes at a time instead
+     * of visiting each byte through a {@link io.netty.util.ByteProcessor}, which makes the delimiter scans of the
+     * codecs cheaper.
+     *
+     * @param buffer the buffer to search.
+     * @param fromIndex the start index (inclusive).
+     * @param toIndex the end index (exclusive), the search is performed in reversed order if it is less than
+     * {@code fromIndex}.
+     * @param value the value to search for.
+     * @return the absolute index of the first occurrence of {@code value}, or {@code -1} if it was not found.
+     */
+    public static int indexOf(ByteBuf buffer, int fromIndex, int toIndex, byte value) {
+        if (fromIndex > toIndex || !UNALIGNED_ACCESS || !(buffer.hasMemoryAddress() || buffer.hasArray())) {
+            return buffer.indexOf(fromIndex, toIndex, value);
+        }
+        fromIndex = max(fromIndex, 0);
+        if (fromIndex >= toIndex || buffer.capacity() == 0) {
+            return -1;
+        }
+        checkIndex(buffer, fromIndex, toIndex - fromIndex);
+        if (buffer.refCnt() == 0) {
+            // The memory is accessed directly, so we have to do the check which ByteBuf does on every access.
+            throw new IllegalReferenceCountException(0);
+        }
+        return buffer.hasMemoryAddress() ? firstIndexOf(buffer.memoryAddress(), fromIndex, toIndex, value) :
+                firstIndexOf(buffer.array(), buffer.arrayOffset(), fromIndex, toIndex, value);
+    }
+
+    /**
+     * Returns the number of bytes between {@code index} and the first occurrence of {@code value} in the next
+     * {@code length} bytes of {@code buffer}, with the same semantics as {@link ByteBuf#bytesBefore(int, int, byte)}.
+     *
+     * @param buffer the buffer to search.
+     * @param index the index to start the search from.
+     * @param length the number of bytes to search.
+     * @param value the value to search for.
+     * @return the number of bytes before the first occurrence of {@code value}, or {@code -1} if it was not found.
+     * @see #indexOf(ByteBuf, int, int, byte)
+     */
+    public static int bytesBefore(ByteBuf buffer, int index, int length, byte value) {
+        checkIndex(buffer, index, length);
+        final int endIndex = indexOf(buffer, index, index + length, value);
+        return endIndex < 0 ? -1 : endIndex - index;
+    }
+
     /**
      * Calculate the max bytes length of UTF8 character sequence.
      * @param data the data to be encoded in UTF8.
@@ -126,4 +218,64 @@ public final class BufferUtil {
     public static int maxUtf8Bytes(CharSequence data) {
         return ByteBufUtil.utf8MaxBytes(data);
     }
+
+    private static int firstIndexOf(long address, int fromIndex, int toIndex, byte value) {
+        final long pattern = compilePattern(value);
+        for (; fromIndex <= toIndex - Long.BYTES; fromIndex += Long.BYTES) {
+            final long matches = markMatchingBytes(PlatformDependent.getLong(address + fromIndex), pattern);
+            if (matches != 0) {
+                return fromIndex + firstMatchingByte(matches);
+            }
+        }
+        for (; fromIndex < toIndex; ++fromIndex) {
+            if (PlatformDependent.getByte(address + fromIndex) == value) {
+                return fromIndex;
+            }
+        }
+        return -1;
+    }
+
+    private static int firstIndexOf(byte[] array, int arrayOffset, int fromIndex, int toIndex, byte value) {
+        final long pattern = compilePattern(value);
+        for (; fromIndex <= toIndex - Long.BYTES; fromIndex += Long.BYTES) {
+            final long matches = markMatchingBytes(PlatformDependent.getLong(array, arrayOffset + fromIndex), pattern);
+            if (matches != 0) {
+                return fromIndex + firstMatchingByte(matches);
+            }
+        }
+        for (; fromIndex < toIndex; ++fromIndex) {
+            if (array[arrayOffset + fromIndex] == value) {
+                return fromIndex;
+            }
+        }
+        return -1;
+    }
+
+    private static void checkIndex(ByteBuf buffer, int index, int length) {
+        if (index < 0 || length < 0 || index > buffer.capacity() - length) {
+            throw new IndexOutOfBoundsException("index: " + index + ", length: " + length + " (expected: range(0, " +
+                    buffer.capacity() + "))");
+        }
+    }
+
+    /**
+     * Sets the most significant bit of each byte of {@code word} that is equal to the corresponding byte of
+     * {@code pattern}, and clears all other bits. Unlike the well known {@code (x - 0x01..) & ~x & 0x80..} this has no
+     * false positives, so the result can be scanned in either byte order.
+     */
+    private static long markMatchingBytes(long word, long pattern) {
+        final long input = word ^ pattern;
+        final long tmp = (input & 0x7F7F7F7F7F7F7F7FL) + 0x7F7F7F7F7F7F7F7FL;
+        return ~(tmp | input | 0x7F7F7F7F7F7F7F7FL);
+    }
+
+    private static long compilePattern(byte value) {
+        return (value & 0xFFL) * 0x0101010101010101L;
+    }
+
+    private static int firstMatchingByte(long matches) {
+        // Words are read in native byte order, so the first byte of a little endian word is the least significant one.
+        return (BIG_ENDIAN_NATIVE_ORDER ? Long.numberOfLeadingZeros(matches) :
+                Long.numberOfTrailingZeros(matches)) >>> 3;
+    }
 }
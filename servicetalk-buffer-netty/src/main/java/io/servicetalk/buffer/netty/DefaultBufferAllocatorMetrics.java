@@ -0,0 +1,155 @@
+/*
+ * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.buffer.netty;
+
+import io.servicetalk.buffer.api.BufferAllocatorMetrics;
+
+import io.netty.buffer.PoolArenaMetric;
+import io.netty.buffer.PooledByteBufAllocatorMetric;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.Nullable;
+
+import static java.lang.Integer.numberOfLeadingZeros;
+
+/**
+ * {@link BufferAllocatorMetrics} which are recorded on every allocation. Counters are striped to keep contention low
+ * when many threads allocate concurrently, so recording is cheap enough to be always enabled.
+ */
+final class DefaultBufferAllocatorMetrics implements BufferAllocatorMetrics {
+    private static final int HISTOGRAM_BUCKETS = Integer.SIZE;
+    private static final AtomicLongFieldUpdater<DefaultBufferAllocatorMetrics> largestAllocationUpdater =
+            AtomicLongFieldUpdater.newUpdater(DefaultBufferAllocatorMetrics.class, "largestAllocation");
+
+    private final LongAdder heapAllocations = new LongAdder();
+    private final LongAdder heapBytes = new LongAdder();
+    private final LongAdder directAllocations = new LongAdder();
+    private final LongAdder directBytes = new LongAdder();
+    private final LongAdder[] histogram = new LongAdder[HISTOGRAM_BUCKETS];
+    @Nullable
+    private final PooledByteBufAllocatorMetric pooledMetric;
+    @SuppressWarnings("unused")
+    private volatile long largestAllocation;
+
+    /**
+     * Create a new instance.
+     *
+     * @param pooledMetric the metrics of the pool to retrieve the retained memory from, or {@code null} if the memory
+     * is reclaimed by the garbage collector.
+     */
+    DefaultBufferAllocatorMetrics(@Nullable PooledByteBufAllocatorMetric pooledMetric) {
+        this.pooledMetric = pooledMetric;
+        for (int i = 0; i < histogram.length; ++i) {
+            histogram[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records an allocation.
+     *
+     * @param direct {@code true} if direct memory was allocated.
+     * @param size the number of bytes allocated.
+     */
+    void recordAllocation(boolean direct, int size) {
+        if (direct) {
+            directAllocations.increment();
+            directBytes.add(size);
+        } else {
+            heapAllocations.increment();
+            heapBytes.add(size);
+        }
+        histogram[HISTOGRAM_BUCKETS - numberOfLeadingZeros(size)].increment();
+        // Only contend on the maximum when it actually changes, which becomes rare quickly.
+        long largest;
+        while (size > (largest = largestAllocation)) {
+            if (largestAllocationUpdater.compareAndSet(this, largest, size)) {
+                break;
+            }
+        }
+    }
+
+    @Override
+    public long getHeapAllocations() {
+        return heapAllocations.sum();
+    }
+
+    @Override
+    public long getHeapBytesAllocated() {
+        return heapBytes.sum();
+    }
+
+    @Override
+    public long getDirectAllocations() {
+        return directAllocations.sum();
+    }
+
+    @Override
+    public long getDirectBytesAllocated() {
+        return directBytes.sum();
+    }
+
+    @Override
+    public long getLargestAllocation() {
+        return largestAllocation;
+    }
+
+    @Override
+    public long[] getAllocationSizeHistogram() {
+        final long[] snapshot = new long[histogram.length];
+        for (int i = 0; i < histogram.length; ++i) {
+            snapshot[i] = histogram[i].sum();
+        }
+        return snapshot;
+    }
+
+    @Override
+    public long getUsedHeapMemory() {
+        return pooledMetric == null ? -1 : pooledMetric.usedHeapMemory();
+    }
+
+    @Override
+    public long getUsedDirectMemory() {
+        return pooledMetric == null ? -1 : pooledMetric.usedDirectMemory();
+    }
+
+    @Override
+    public long getActiveBuffers() {
+        return pooledMetric == null ? -1 :
+                activeAllocations(pooledMetric.heapArenas()) + activeAllocations(pooledMetric.directArenas());
+    }
+
+    private static long activeAllocations(List<PoolArenaMetric> arenas) {
+        long active = 0;
+        for (PoolArenaMetric arena : arenas) {
+            active += arena.numActiveAllocations();
+        }
+        return active;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{heapAllocations=" + getHeapAllocations() +
+                ", heapBytesAllocated=" + getHeapBytesAllocated() +
+                ", directAllocations=" + getDirectAllocations() +
+                ", directBytesAllocated=" + getDirectBytesAllocated() +
+                ", largestAllocation=" + getLargestAllocation() +
+                ", usedHeapMemory=" + getUsedHeapMemory() +
+                ", usedDirectMemory=" + getUsedDirectMemory() +
+                ", activeBuffers=" + getActiveBuffers() + '}';
+    }
+}
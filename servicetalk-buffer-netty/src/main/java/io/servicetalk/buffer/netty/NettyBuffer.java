@@ -26,6 +26,8 @@ import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 
+import static io.servicetalk.buffer.netty.BufferUtil.isPooled;
+
 class NettyBuffer<T extends ByteBuf> implements Buffer {
 
     final T buffer;
@@ -703,22 +705,26 @@ class NettyBuffer<T extends ByteBuf> implements Buffer {
 
     @Override
     public int indexOf(int fromIndex, int toIndex, byte value) {
-        return buffer.indexOf(fromIndex, toIndex, value);
+        return BufferUtil.indexOf(buffer, fromIndex, toIndex, value);
     }
 
     @Override
     public int bytesBefore(byte value) {
-        return buffer.bytesBefore(value);
+        return BufferUtil.bytesBefore(buffer, buffer.readerIndex(), buffer.readableBytes(), value);
     }
 
     @Override
     public int bytesBefore(int length, byte value) {
-        return buffer.bytesBefore(length, value);
+        if (length > buffer.readableBytes()) {
+            throw new IndexOutOfBoundsException("length: " + length + " (expected: <= " + buffer.readableBytes() +
+                    ")");
+        }
+        return BufferUtil.bytesBefore(buffer, buffer.readerIndex(), length, value);
     }
 
     @Override
     public int bytesBefore(int index, int length, byte value) {
-        return buffer.bytesBefore(index, length, value);
+        return BufferUtil.bytesBefore(buffer, index, length, value);
     }
 
     @Override
@@ -781,6 +787,29 @@ class NettyBuffer<T extends ByteBuf> implements Buffer {
         return new ReadOnlyBuffer(this);
     }
 
+    @Override
+    public Buffer retain() {
+        // Only pooled memory is reference counted, see Buffer#release(). Wrapped memory (e.g. via
+        // BufferAllocator#wrap(byte[])) is reclaimed by the garbage collector even if the allocator is pooled.
+        if (isPooled(buffer)) {
+            buffer.retain();
+        }
+        return this;
+    }
+
+    @Override
+    public boolean release() {
+        return isPooled(buffer) && buffer.release();
+    }
+
+    @Override
+    public Buffer touch(Object hint) {
+        if (isPooled(buffer)) {
+            buffer.touch(hint);
+        }
+        return this;
+    }
+
     @Override
     public boolean isDirect() {
         return buffer.isDirect();
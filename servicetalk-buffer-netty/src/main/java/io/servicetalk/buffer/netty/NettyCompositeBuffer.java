@@ -30,7 +30,9 @@ final class NettyCompositeBuffer extends NettyBuffer<CompositeByteBuf> implement
 
     @Override
     public CompositeBuffer addBuffer(Buffer buf, boolean incrementWriterIndex) {
-        buffer.addComponent(incrementWriterIndex, BufferUtil.toByteBuf(buf));
+        // Buffers which are not backed by netty are wrapped rather than rejected, so any buffer can be composed
+        // without copying it.
+        buffer.addComponent(incrementWriterIndex, BufferUtil.extractByteBufOrCreate(buf));
         return this;
     }
 
@@ -0,0 +1,130 @@
+/*
+ * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.buffer.netty;
+
+import io.servicetalk.buffer.api.Buffer;
+import io.servicetalk.buffer.api.BufferAllocator;
+import io.servicetalk.buffer.api.BufferAllocatorMetrics;
+import io.servicetalk.buffer.api.CompositeBuffer;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.PooledByteBufAllocator;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+
+import static io.netty.buffer.Unpooled.wrappedBuffer;
+import static io.servicetalk.buffer.api.EmptyBuffer.EMPTY_BUFFER;
+
+/**
+ * A {@link PooledByteBufAllocator} which allocates reference counted {@link Buffer}s from per-thread caches backed by
+ * shared arenas. Unlike {@link ServiceTalkBufferAllocator}, the memory of the returned {@link Buffer}s is only
+ * returned to the pool once {@link Buffer#release()} is called, and allocations are sampled by netty's leak detector.
+ * {@link Buffer}s created via {@code wrap(...)} reference memory which is not owned by this allocator and are not
+ * pooled.
+ */
+final class PooledServiceTalkBufferAllocator extends PooledByteBufAllocator implements BufferAllocator {
+    private final ByteBufAllocator forceHeapAllocator = new ForceTypeByteBufAllocator(this, false);
+    private final ByteBufAllocator forceDirectAllocator = new ForceTypeByteBufAllocator(this, true);
+    private final DefaultBufferAllocatorMetrics metrics;
+
+    PooledServiceTalkBufferAllocator(boolean preferDirect) {
+        super(preferDirect);
+        metrics = new DefaultBufferAllocatorMetrics(metric());
+    }
+
+    @Override
+    protected ByteBuf newHeapBuffer(int initialCapacity, int maxCapacity) {
+        metrics.recordAllocation(false, initialCapacity);
+        return super.newHeapBuffer(initialCapacity, maxCapacity);
+    }
+
+    @Override
+    protected ByteBuf newDirectBuffer(int initialCapacity, int maxCapacity) {
+        metrics.recordAllocation(true, initialCapacity);
+        return super.newDirectBuffer(initialCapacity, maxCapacity);
+    }
+
+    @Override
+    public BufferAllocatorMetrics getMetrics() {
+        return metrics;
+    }
+
+    @Override
+    public Buffer fromUtf8(CharSequence data) {
+        return data.length() == 0 ? EMPTY_BUFFER : new NettyBuffer<>(ByteBufUtil.writeUtf8(this, data));
+    }
+
+    @Override
+    public Buffer fromUtf8(CharSequence data, boolean direct) {
+        return data.length() == 0 ? EMPTY_BUFFER : new NettyBuffer<>(ByteBufUtil.writeUtf8(direct ? forceDirectAllocator : forceHeapAllocator, data));
+    }
+
+    @Override
+    public Buffer fromAscii(CharSequence data) {
+        return data.length() == 0 ? EMPTY_BUFFER : new NettyBuffer<>(ByteBufUtil.writeAscii(this, data));
+    }
+
+    @Override
+    public Buffer fromAscii(CharSequence data, boolean direct) {
+        return data.length() == 0 ? EMPTY_BUFFER : new NettyBuffer<>(ByteBufUtil.writeAscii(direct ? forceDirectAllocator : forceHeapAllocator, data));
+    }
+
+    @Override
+    public Buffer fromSequence(CharSequence data, Charset charset) {
+        return data.length() == 0 ? EMPTY_BUFFER : new NettyBuffer<>(ByteBufUtil.encodeString(this,
+                data instanceof CharBuffer ? (CharBuffer) data : CharBuffer.wrap(data), charset));
+    }
+
+    @Override
+    public Buffer fromSequence(CharSequence data, Charset charset, boolean direct) {
+        return data.length() == 0 ? EMPTY_BUFFER : new NettyBuffer<>(ByteBufUtil.encodeString(direct ? forceDirectAllocator : forceHeapAllocator,
+                data instanceof CharBuffer ? (CharBuffer) data : CharBuffer.wrap(data), charset));
+    }
+
+    @Override
+    public Buffer newBuffer(int initialCapacity) {
+        return new NettyBuffer<>(buffer(initialCapacity));
+    }
+
+    @Override
+    public Buffer newBuffer(int initialCapacity, boolean direct) {
+        return new NettyBuffer<>(direct ? directBuffer(initialCapacity) : heapBuffer(initialCapacity));
+    }
+
+    @Override
+    public CompositeBuffer newCompositeBuffer() {
+        return new NettyCompositeBuffer(compositeBuffer());
+    }
+
+    @Override
+    public CompositeBuffer newCompositeBuffer(int maxComponents) {
+        return new NettyCompositeBuffer(compositeBuffer(maxComponents));
+    }
+
+    @Override
+    public Buffer wrap(byte[] bytes) {
+        return bytes.length == 0 ? EMPTY_BUFFER : new NettyBuffer<>(wrappedBuffer(bytes));
+    }
+
+    @Override
+    public Buffer wrap(ByteBuffer buffer) {
+        return buffer.hasRemaining() ? new NettyBuffer<>(wrappedBuffer(buffer)) : EMPTY_BUFFER;
+    }
+}
@@ -17,6 +17,7 @@ package io.servicetalk.buffer.netty;
 
 import io.servicetalk.buffer.api.Buffer;
 import io.servicetalk.buffer.api.BufferAllocator;
+import io.servicetalk.buffer.api.BufferAllocatorMetrics;
 import io.servicetalk.buffer.api.CompositeBuffer;
 
 import io.netty.buffer.AbstractByteBufAllocator;
@@ -30,6 +31,8 @@ import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
 import java.nio.charset.Charset;
 
+import static io.netty.buffer.Unpooled.unreleasableBuffer;
+import static io.netty.buffer.Unpooled.wrappedBuffer;
 import static io.servicetalk.buffer.api.EmptyBuffer.EMPTY_BUFFER;
 
 /**
@@ -39,6 +42,7 @@ import static io.servicetalk.buffer.api.EmptyBuffer.EMPTY_BUFFER;
 final class ServiceTalkBufferAllocator extends AbstractByteBufAllocator implements BufferAllocator {
     private final ByteBufAllocator forceHeapAllocator = new ForceTypeByteBufAllocator(this, false);
     private final ByteBufAllocator forceDirectAllocator = new ForceTypeByteBufAllocator(this, true);
+    private final DefaultBufferAllocatorMetrics metrics = new DefaultBufferAllocatorMetrics(null);
 
     ServiceTalkBufferAllocator(boolean preferDirect) {
         super(preferDirect);
@@ -46,11 +50,13 @@ final class ServiceTalkBufferAllocator extends AbstractByteBufAllocator implemen
 
     @Override
     protected ByteBuf newHeapBuffer(int initialCapacity, int maxCapacity) {
+        metrics.recordAllocation(false, initialCapacity);
         return new UnreleasableHeapByteBuf(this, initialCapacity, maxCapacity);
     }
 
     @Override
     protected ByteBuf newDirectBuffer(int initialCapacity, int maxCapacity) {
+        metrics.recordAllocation(true, initialCapacity);
         return PlatformDependent.hasUnsafe() ?
                 new UnreleasableUnsafeDirectByteBuf(this, initialCapacity, maxCapacity) :
                 new UnreleasableDirectByteBuf(this, initialCapacity, maxCapacity);
@@ -71,6 +77,11 @@ final class ServiceTalkBufferAllocator extends AbstractByteBufAllocator implemen
         return false;
     }
 
+    @Override
+    public BufferAllocatorMetrics getMetrics() {
+        return metrics;
+    }
+
     @Override
     public Buffer fromUtf8(CharSequence data) {
         return data.length() == 0 ? EMPTY_BUFFER : new NettyBuffer<>(ByteBufUtil.writeUtf8(this, data));
@@ -133,6 +144,10 @@ final class ServiceTalkBufferAllocator extends AbstractByteBufAllocator implemen
         final Buffer buf;
         if (!buffer.hasRemaining()) {
             buf = EMPTY_BUFFER;
+        } else if (buffer.isReadOnly()) {
+            // Neither the array nor the writable direct ByteBuf implementations accept read-only buffers (e.g. a
+            // read-only MappedByteBuffer), so let netty pick its read-only implementation.
+            buf = new NettyBuffer<>(unreleasableBuffer(wrappedBuffer(buffer)));
         } else if (buffer.hasArray()) {
             buf = wrap(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
         } else if (buffer.isDirect() && PlatformDependent.hasUnsafe()) {
@@ -140,117 +155,6 @@ final class ServiceTalkBufferAllocator extends AbstractByteBufAllocator implemen
         } else {
             buf = new NettyBuffer<>(new UnreleasableDirectByteBuf(this, buffer, buffer.remaining()));
         }
-        return buffer.isReadOnly() ? buf.asReadOnly() : buf;
-    }
-
-    private static final class ForceTypeByteBufAllocator implements ByteBufAllocator {
-
-        private final ByteBufAllocator allocator;
-        private final boolean direct;
-
-        ForceTypeByteBufAllocator(ByteBufAllocator allocator, boolean direct) {
-            this.allocator = allocator;
-            this.direct = direct;
-        }
-
-        @Override
-        public ByteBuf buffer() {
-            return direct ? directBuffer() : heapBuffer();
-        }
-
-        @Override
-        public ByteBuf buffer(int initialCapacity) {
-            return direct ? directBuffer(initialCapacity) : heapBuffer(initialCapacity);
-        }
-
-        @Override
-        public ByteBuf buffer(int initialCapacity, int maxCapacity) {
-            return direct ? directBuffer(initialCapacity, maxCapacity) : heapBuffer(initialCapacity, maxCapacity);
-        }
-
-        @Override
-        public ByteBuf ioBuffer() {
-            return allocator.ioBuffer();
-        }
-
-        @Override
-        public ByteBuf ioBuffer(int initialCapacity) {
-            return allocator.ioBuffer(initialCapacity);
-        }
-
-        @Override
-        public ByteBuf ioBuffer(int initialCapacity, int maxCapacity) {
-            return allocator.ioBuffer(initialCapacity, maxCapacity);
-        }
-
-        @Override
-        public ByteBuf heapBuffer() {
-            return allocator.heapBuffer();
-        }
-
-        @Override
-        public ByteBuf heapBuffer(int initialCapacity) {
-            return allocator.heapBuffer(initialCapacity);
-        }
-
-        @Override
-        public ByteBuf heapBuffer(int initialCapacity, int maxCapacity) {
-            return allocator.heapBuffer(initialCapacity, maxCapacity);
-        }
-
-        @Override
-        public ByteBuf directBuffer() {
-            return allocator.directBuffer();
-        }
-
-        @Override
-        public ByteBuf directBuffer(int initialCapacity) {
-            return allocator.directBuffer(initialCapacity);
-        }
-
-        @Override
-        public ByteBuf directBuffer(int initialCapacity, int maxCapacity) {
-            return allocator.directBuffer(initialCapacity, maxCapacity);
-        }
-
-        @Override
-        public CompositeByteBuf compositeBuffer() {
-            return direct ? compositeDirectBuffer() : compositeHeapBuffer();
-        }
-
-        @Override
-        public CompositeByteBuf compositeBuffer(int maxNumComponents) {
-            return direct ? compositeDirectBuffer(maxNumComponents) : compositeHeapBuffer(maxNumComponents);
-        }
-
-        @Override
-        public CompositeByteBuf compositeHeapBuffer() {
-            return allocator.compositeHeapBuffer();
-        }
-
-        @Override
-        public CompositeByteBuf compositeHeapBuffer(int maxNumComponents) {
-            return allocator.compositeHeapBuffer(maxNumComponents);
-        }
-
-        @Override
-        public CompositeByteBuf compositeDirectBuffer() {
-            return allocator.compositeDirectBuffer();
-        }
-
-        @Override
-        public CompositeByteBuf compositeDirectBuffer(int maxNumComponents) {
-            return allocator.compositeDirectBuffer(maxNumComponents);
-        }
-
-        @Override
-        public boolean isDirectBufferPooled() {
-            return allocator.isDirectBufferPooled();
-        }
-
-        @Override
-        public int calculateNewCapacity(int minNewCapacity, int maxCapacity) {
-            return allocator.calculateNewCapacity(minNewCapacity, maxCapacity);
-        }
+        return buf;
     }
 }
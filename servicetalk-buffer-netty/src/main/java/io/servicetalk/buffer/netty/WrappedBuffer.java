@@ -732,6 +732,23 @@ class WrappedBuffer implements Buffer {
         return buffer.asReadOnly();
     }
 
+    @Override
+    public Buffer retain() {
+        buffer.retain();
+        return this;
+    }
+
+    @Override
+    public boolean release() {
+        return buffer.release();
+    }
+
+    @Override
+    public Buffer touch(Object hint) {
+        buffer.touch(hint);
+        return this;
+    }
+
     @Override
     public boolean isDirect() {
         return buffer.isDirect();
@@ -0,0 +1,74 @@
+/*
+ * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.buffer.netty;
+
+import io.servicetalk.buffer.api.Buffer;
+import io.servicetalk.buffer.api.BufferAllocator;
+import io.servicetalk.buffer.api.BufferAllocatorMetrics;
+
+import org.junit.Test;
+
+import static io.servicetalk.buffer.netty.BufferAllocators.newAllocator;
+import static io.servicetalk.buffer.netty.BufferAllocators.newPooledAllocator;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class BufferAllocatorMetricsTest {
+
+    @Test
+    public void testAllocationsRecorded() {
+        BufferAllocator allocator = newAllocator(true);
+        BufferAllocatorMetrics metrics = allocator.getMetrics();
+        assertNotNull(metrics);
+        allocator.newBuffer(100, false);
+        allocator.newBuffer(1000, true);
+        allocator.newBuffer(1000, true);
+        allocator.wrap(new byte[10]);
+
+        assertEquals(1, metrics.getHeapAllocations());
+        assertEquals(100, metrics.getHeapBytesAllocated());
+        assertEquals(2, metrics.getDirectAllocations());
+        assertEquals(2000, metrics.getDirectBytesAllocated());
+        assertEquals(1000, metrics.getLargestAllocation());
+        long[] histogram = metrics.getAllocationSizeHistogram();
+        assertEquals(1, histogram[7]); // [64, 128)
+        assertEquals(2, histogram[10]); // [512, 1024)
+        assertEquals(-1, metrics.getUsedDirectMemory());
+        assertEquals(-1, metrics.getActiveBuffers());
+    }
+
+    @Test
+    public void testAllocatorsHaveIndependentMetrics() {
+        BufferAllocator first = newAllocator(false);
+        BufferAllocator second = newAllocator(false);
+        first.newBuffer(10);
+        assertEquals(1, first.getMetrics().getHeapAllocations());
+        assertEquals(0, second.getMetrics().getHeapAllocations());
+    }
+
+    @Test
+    public void testPooledMetrics() {
+        BufferAllocator allocator = newPooledAllocator(true);
+        BufferAllocatorMetrics metrics = allocator.getMetrics();
+        assertNotNull(metrics);
+        Buffer buffer = allocator.newBuffer(100);
+        assertEquals(1, metrics.getDirectAllocations());
+        assertTrue(metrics.getUsedDirectMemory() > 0);
+        buffer.release();
+        assertTrue(metrics.getActiveBuffers() >= 0);
+    }
+}
@@ -130,6 +130,7 @@ public class BufferAllocatorsTest {
     }
 
     private static void assertByteBufIsUnreleasable(Buffer buffer) {
+        assertFalse(buffer.release());
         ByteBuf byteBuf = BufferUtil.toByteBuf(buffer);
         assertByteBufIsUnreleasable(byteBuf);
         assertByteBufIsUnreleasable(byteBuf.slice());
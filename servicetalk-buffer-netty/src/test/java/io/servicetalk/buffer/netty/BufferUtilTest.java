@@ -17,16 +17,28 @@ package io.servicetalk.buffer.netty;
 
 import io.servicetalk.buffer.api.Buffer;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.util.IllegalReferenceCountException;
 import org.junit.Test;
 
 import static io.servicetalk.buffer.api.EmptyBuffer.EMPTY_BUFFER;
+import static io.servicetalk.buffer.api.ReadOnlyBufferAllocators.PREFER_DIRECT_RO_ALLOCATOR;
+import static io.servicetalk.buffer.netty.BufferAllocators.DEFAULT_ALLOCATOR;
+import static io.servicetalk.buffer.netty.BufferUtil.extractByteBufOrCreate;
+import static io.servicetalk.buffer.netty.BufferUtil.indexOf;
 import static io.servicetalk.buffer.netty.BufferUtil.toByteBufNoThrow;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 
 public class BufferUtilTest {
 
+    private static final byte LF = '\n';
+
     @Test
     public void toByteBufNoThrowWrapped() {
         Buffer buffer = mock(Buffer.class);
@@ -34,8 +46,69 @@ public class BufferUtilTest {
         assertNull(toByteBufNoThrow(wrapped));
     }
 
+    @Test
+    public void extractByteBufWrapsNioBuffers() {
+        Buffer buffer = PREFER_DIRECT_RO_ALLOCATOR.fromAscii("ServiceTalk");
+        ByteBuf byteBuf = extractByteBufOrCreate(buffer);
+        assertEquals("ServiceTalk", byteBuf.toString(US_ASCII));
+        assertTrue(byteBuf.isDirect());
+    }
+
+    @Test
+    public void compositeAcceptsNonNettyBuffer() {
+        Buffer composite = DEFAULT_ALLOCATOR.newCompositeBuffer()
+                .addBuffer(PREFER_DIRECT_RO_ALLOCATOR.fromAscii("Service"))
+                .addBuffer(DEFAULT_ALLOCATOR.fromAscii("Talk"));
+        assertEquals("ServiceTalk", composite.toString(US_ASCII));
+        assertEquals(2, composite.getNioBufferCount());
+    }
+
     @Test
     public void emptyBufferCanBeConvertedToByteBuf() {
         assertNotNull(toByteBufNoThrow(EMPTY_BUFFER));
     }
+
+    @Test
+    public void indexOfMatchesByteWiseSearch() {
+        // Include bytes with the most significant bit set, which are the corner cases of word at a time comparisons.
+        byte[] bytes = new byte[27];
+        for (int i = 0; i < bytes.length; ++i) {
+            bytes[i] = (byte) (i % 3 == 0 ? LF : i % 3 == 1 ? 0x80 : 0xFF);
+        }
+        bytes[21] = 0x7F;
+        byte[] padded = new byte[bytes.length + 3];
+        System.arraycopy(bytes, 0, padded, 3, bytes.length);
+        ByteBuf heapWithOffset = Unpooled.wrappedBuffer(padded).slice(3, bytes.length);
+        ByteBuf direct = Unpooled.directBuffer(bytes.length).writeBytes(bytes);
+        ByteBuf composite = Unpooled.wrappedBuffer(Unpooled.wrappedBuffer(bytes, 0, 10),
+                Unpooled.wrappedBuffer(bytes, 10, bytes.length - 10));
+        for (ByteBuf buffer : new ByteBuf[] {heapWithOffset, direct, composite}) {
+            for (byte value : new byte[] {LF, (byte) 0x80, (byte) 0xFF, 0x7F}) {
+                for (int fromIndex = -1; fromIndex <= bytes.length; ++fromIndex) {
+                    for (int toIndex = 0; toIndex <= bytes.length; ++toIndex) {
+                        assertEquals("fromIndex: " + fromIndex + ", toIndex: " + toIndex + ", value: " + value,
+                                buffer.indexOf(fromIndex, toIndex, value), indexOf(buffer, fromIndex, toIndex, value));
+                    }
+                }
+            }
+        }
+        direct.release();
+    }
+
+    @Test(expected = IllegalReferenceCountException.class)
+    public void indexOfReleasedBuffer() {
+        ByteBuf direct = Unpooled.directBuffer(16).writeZero(16);
+        direct.release();
+        indexOf(direct, 0, 16, LF);
+    }
+
+    @Test
+    public void bytesBeforeFindsDelimiter() {
+        Buffer buffer = DEFAULT_ALLOCATOR.fromAscii("GET /service/talk HTTP/1.1\r\n");
+        assertEquals(26, buffer.bytesBefore((byte) '\r'));
+        assertEquals(3, buffer.bytesBefore((byte) ' '));
+        assertEquals(-1, buffer.bytesBefore(26, (byte) '\r'));
+        assertEquals(7, buffer.bytesBefore(5, 20, (byte) '/'));
+        assertEquals(-1, buffer.bytesBefore((byte) ':'));
+    }
 }
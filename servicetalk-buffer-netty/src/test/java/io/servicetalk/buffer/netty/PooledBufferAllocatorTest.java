@@ -0,0 +1,113 @@
+/*
+ * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.buffer.netty;
+
+import io.servicetalk.buffer.api.Buffer;
+import io.servicetalk.buffer.api.BufferAllocator;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import org.junit.Test;
+
+import static io.servicetalk.buffer.netty.BufferAllocators.PREFER_HEAP_ALLOCATOR;
+import static io.servicetalk.buffer.netty.BufferAllocators.newPooledAllocator;
+import static io.servicetalk.buffer.netty.BufferUtil.getByteBufAllocator;
+import static io.servicetalk.buffer.netty.BufferUtil.isPooled;
+import static io.servicetalk.buffer.netty.BufferUtil.newUnpooledBufferFrom;
+import static io.servicetalk.buffer.netty.BufferUtil.toByteBuf;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class PooledBufferAllocatorTest {
+
+    private final BufferAllocator allocator = newPooledAllocator(true);
+
+    @Test
+    public void testReleaseReturnsMemoryToPool() {
+        Buffer buffer = allocator.newBuffer(16);
+        ByteBuf byteBuf = toByteBuf(buffer);
+        assertTrue(isPooled(byteBuf));
+        assertTrue(buffer.isDirect());
+        assertSame(buffer, buffer.retain());
+        assertEquals(2, byteBuf.refCnt());
+        assertFalse(buffer.release());
+        assertTrue(buffer.release());
+        assertEquals(0, byteBuf.refCnt());
+    }
+
+    @Test
+    public void testForcedHeap() {
+        Buffer buffer = allocator.fromAscii("test", false);
+        assertFalse(buffer.isDirect());
+        assertTrue(isPooled(toByteBuf(buffer)));
+        assertEquals("test", buffer.toString(US_ASCII));
+        assertTrue(buffer.release());
+    }
+
+    @Test
+    public void testSliceSharesReferenceCount() {
+        Buffer buffer = allocator.fromAscii("test");
+        Buffer slice = buffer.slice(1, 2);
+        assertTrue(slice.release());
+        assertEquals(0, toByteBuf(buffer).refCnt());
+    }
+
+    @Test
+    public void testWrapIsNotPooled() {
+        assertFalse(isPooled(toByteBuf(allocator.wrap(new byte[] {1, 2}))));
+    }
+
+    @Test
+    public void testWrapIsNotReferenceCounted() {
+        Buffer buffer = allocator.wrap(new byte[] {1, 2});
+        assertSame(buffer, buffer.retain());
+        assertFalse(buffer.release());
+        assertFalse(buffer.release());
+        assertEquals(1, toByteBuf(buffer).refCnt());
+        assertEquals(1, buffer.getByte(0));
+        Buffer readOnly = buffer.asReadOnly();
+        assertFalse(readOnly.release());
+        assertEquals(2, readOnly.getByte(1));
+    }
+
+    @Test
+    public void testByteBufAllocator() {
+        ByteBufAllocator byteBufAllocator = getByteBufAllocator(allocator);
+        assertSame(allocator, byteBufAllocator);
+        assertTrue(byteBufAllocator.isDirectBufferPooled());
+        assertFalse(getByteBufAllocator(PREFER_HEAP_ALLOCATOR).isDirectBufferPooled());
+    }
+
+    @Test
+    public void testNewUnpooledBufferFromCopiesAndReleases() {
+        ByteBuf byteBuf = toByteBuf(allocator.fromAscii("test"));
+        Buffer copy = newUnpooledBufferFrom(byteBuf);
+        assertEquals(0, byteBuf.refCnt());
+        assertEquals("test", copy.toString(US_ASCII));
+        assertFalse(isPooled(toByteBuf(copy)));
+        assertFalse(copy.release());
+    }
+
+    @Test
+    public void testNewUnpooledBufferFromWrapsUnpooled() {
+        Buffer buffer = PREFER_HEAP_ALLOCATOR.fromAscii("test");
+        ByteBuf byteBuf = toByteBuf(buffer);
+        assertSame(byteBuf, toByteBuf(newUnpooledBufferFrom(byteBuf)));
+    }
+}
@@ -15,6 +15,8 @@
  */
 package io.servicetalk.client.api;
 
+import javax.annotation.Nullable;
+
 import static java.util.Objects.requireNonNull;
 
 /**
@@ -24,6 +26,9 @@ import static java.util.Objects.requireNonNull;
 public final class DefaultServiceDiscovererEvent<T> implements ServiceDiscoverer.Event<T> {
     private final T address;
     private final boolean isAvailable;
+    private final int weight;
+    @Nullable
+    private final String locality;
 
     /**
      * Create a new instance.
@@ -31,8 +36,24 @@ public final class DefaultServiceDiscovererEvent<T> implements ServiceDiscoverer
      * @param isAvailable Value returned by {@link #isAvailable}.
      */
     public DefaultServiceDiscovererEvent(T address, boolean isAvailable) {
+        this(address, isAvailable, 1, null);
+    }
+
+    /**
+     * Create a new instance.
+     * @param address The address returned by {@link #getAddress()}.
+     * @param isAvailable Value returned by {@link #isAvailable}.
+     * @param weight Value returned by {@link #getWeight()}.
+     * @param locality Value returned by {@link #getLocality()}.
+     */
+    public DefaultServiceDiscovererEvent(T address, boolean isAvailable, int weight, @Nullable String locality) {
+        if (weight < 0) {
+            throw new IllegalArgumentException("weight: " + weight + " (expected >=0)");
+        }
         this.address = requireNonNull(address);
         this.isAvailable = isAvailable;
+        this.weight = weight;
+        this.locality = locality;
     }
 
     @Override
@@ -44,4 +65,15 @@ public final class DefaultServiceDiscovererEvent<T> implements ServiceDiscoverer
     public boolean isAvailable() {
         return isAvailable;
     }
+
+    @Override
+    public int getWeight() {
+        return weight;
+    }
+
+    @Override
+    @Nullable
+    public String getLocality() {
+        return locality;
+    }
 }
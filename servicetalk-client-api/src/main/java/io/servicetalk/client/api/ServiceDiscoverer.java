@@ -20,6 +20,8 @@ import io.servicetalk.concurrent.api.Publisher;
 
 import org.reactivestreams.Subscription;
 
+import javax.annotation.Nullable;
+
 /**
  * Represents the interaction pattern with a service discovery system. It is assumed that once {@link #discover(Object)}
  * is called that the service discovery system will push data updates or implementations of this interface will poll for data updates.
@@ -60,5 +62,24 @@ public interface ServiceDiscoverer<UnresolvedAddress, ResolvedAddress> extends L
          * @return {@code true} if {@link #getAddress()} is now available or false if the {@link #getAddress()} is now unavailable.
          */
         boolean isAvailable();
+
+        /**
+         * Get the weight of {@link #getAddress()} relative to the other addresses discovered for the same service.
+         * Load balancers which support weights send traffic to addresses in proportion to their weights.
+         * @return a non-negative weight. {@code 0} indicates that {@link #getAddress()} should not receive traffic.
+         */
+        default int getWeight() {
+            return 1;
+        }
+
+        /**
+         * Get the locality (e.g. zone or data center) of {@link #getAddress()}. Load balancers which support
+         * locality may prefer addresses in the same locality as the client.
+         * @return the locality of {@link #getAddress()} or {@code null} if unknown.
+         */
+        @Nullable
+        default String getLocality() {
+            return null;
+        }
     }
 }
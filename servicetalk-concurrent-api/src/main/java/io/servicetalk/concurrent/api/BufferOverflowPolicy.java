@@ -0,0 +1,39 @@
+/*
+ * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.concurrent.api;
+
+import io.servicetalk.concurrent.internal.QueueFullException;
+
+import org.reactivestreams.Subscriber;
+
+/**
+ * Determines what {@link Publisher#onBackpressureBuffer(int, BufferOverflowPolicy)} does with an item which is
+ * emitted while its buffer is full.
+ */
+public enum BufferOverflowPolicy {
+    /**
+     * Cancel the original {@link Publisher} and terminate the {@link Subscriber} with a {@link QueueFullException}.
+     */
+    FAIL,
+    /**
+     * Discard the oldest item in the buffer to make room for the new item.
+     */
+    DROP_OLDEST,
+    /**
+     * Discard the new item and keep the buffer unchanged.
+     */
+    DROP_LATEST
+}
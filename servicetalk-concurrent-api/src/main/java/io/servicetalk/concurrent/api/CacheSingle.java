@@ -0,0 +1,261 @@
+/*
+ * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.concurrent.api;
+
+import io.servicetalk.concurrent.Cancellable;
+import io.servicetalk.concurrent.internal.DelayedCancellable;
+import io.servicetalk.concurrent.internal.SignalOffloader;
+
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import javax.annotation.Nullable;
+
+import static java.lang.System.nanoTime;
+import static java.util.Arrays.copyOf;
+
+/**
+ * As returned by {@link Single#cache()} and {@link Single#cache(java.time.Duration)}.
+ * <p>
+ * All {@link Subscriber}s which arrive while the original {@link Single} is in progress share a single subscription to
+ * it, and {@link Subscriber}s which arrive after it succeeded receive the cached result until it expires. Errors are
+ * not cached, the next {@link Subscriber} subscribes to the original {@link Single} again. Subscribing is lock-free, it
+ * only requires a CAS on {@link #state}.
+ *
+ * @param <T> Type of the result of the single.
+ */
+final class CacheSingle<T> extends AbstractNoHandleSubscribeSingle<T> {
+    /**
+     * Used as {@link #ttlNs} if the result never expires.
+     */
+    static final long NO_EXPIRY = -1;
+
+    private static final AtomicReferenceFieldUpdater<CacheSingle, Object> stateUpdater =
+            AtomicReferenceFieldUpdater.newUpdater(CacheSingle.class, Object.class, "state");
+
+    /**
+     * One of:
+     * <ul>
+     *     <li>{@code null} - The original {@link Single} needs to be subscribed.</li>
+     *     <li>{@link InProgress} - The original {@link Single} is subscribed and has not terminated yet.</li>
+     *     <li>{@link Cached} - The original {@link Single} succeeded.</li>
+     * </ul>
+     */
+    @Nullable
+    @SuppressWarnings("unused")
+    private volatile Object state;
+
+    private final Single<T> original;
+    private final long ttlNs;
+
+    CacheSingle(Single<T> original, long ttlNs, Executor executor) {
+        super(executor);
+        if (ttlNs <= 0 && ttlNs != NO_EXPIRY) {
+            throw new IllegalArgumentException("ttlNs: " + ttlNs + " (expected > 0)");
+        }
+        this.original = original;
+        this.ttlNs = ttlNs;
+    }
+
+    @Override
+    void handleSubscribe(Subscriber<? super T> subscriber, SignalOffloader signalOffloader) {
+        final CacheSubscription<T> subscription = new CacheSubscription<>(this, subscriber);
+        // onSubscribe is called before the subscription is visible to the original Single, so it always happens
+        // before the result is delivered.
+        subscriber.onSubscribe(subscription);
+        if (subscription.cancelled) {
+            return;
+        }
+        for (;;) {
+            final Object currentState = state;
+            if (currentState instanceof Cached) {
+                final Cached cached = (Cached) currentState;
+                if (ttlNs == NO_EXPIRY || nanoTime() - cached.createdNs < ttlNs) {
+                    @SuppressWarnings("unchecked")
+                    final T result = (T) cached.result;
+                    subscriber.onSuccess(result);
+                    return;
+                }
+            }
+            if (currentState instanceof InProgress) {
+                @SuppressWarnings("unchecked")
+                final InProgress<T> inProgress = (InProgress<T>) currentState;
+                if (stateUpdater.compareAndSet(this, inProgress, inProgress.add(subscription))) {
+                    if (subscription.cancelled) {
+                        inProgress.source.remove(subscription);
+                    }
+                    return;
+                }
+            } else {
+                // Either nothing was subscribed yet or the cached result expired.
+                final CacheSubscriber<T> source = new CacheSubscriber<>(this);
+                if (stateUpdater.compareAndSet(this, currentState, new InProgress<>(source, subscription))) {
+                    original.subscribe(source, signalOffloader);
+                    if (subscription.cancelled) {
+                        source.remove(subscription);
+                    }
+                    return;
+                }
+            }
+        }
+    }
+
+    private static final class CacheSubscription<T> implements Cancellable {
+        private final CacheSingle<T> parent;
+        private final Subscriber<? super T> target;
+        private volatile boolean cancelled;
+
+        CacheSubscription(CacheSingle<T> parent, Subscriber<? super T> target) {
+            this.parent = parent;
+            this.target = target;
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            final Object currentState = parent.state;
+            if (currentState instanceof InProgress) {
+                ((InProgress<?>) currentState).source.remove(this);
+            }
+        }
+    }
+
+    /**
+     * Subscribes to the original {@link Single} on behalf of all {@link CacheSubscription}s of one
+     * {@link InProgress} state.
+     */
+    private static final class CacheSubscriber<T> implements Subscriber<T> {
+        private final DelayedCancellable cancellable = new DelayedCancellable();
+        private final CacheSingle<T> parent;
+
+        CacheSubscriber(CacheSingle<T> parent) {
+            this.parent = parent;
+        }
+
+        @Override
+        public void onSubscribe(Cancellable cancellable) {
+            this.cancellable.setDelayedCancellable(cancellable);
+        }
+
+        @Override
+        public void onSuccess(@Nullable T result) {
+            final InProgress<T> inProgress = complete(new Cached(result, nanoTime()));
+            if (inProgress != null) {
+                for (CacheSubscription<T> subscription : inProgress.subscriptions) {
+                    subscription.target.onSuccess(result);
+                }
+            }
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            final InProgress<T> inProgress = complete(null);
+            if (inProgress != null) {
+                for (CacheSubscription<T> subscription : inProgress.subscriptions) {
+                    subscription.target.onError(t);
+                }
+            }
+        }
+
+        @Nullable
+        private InProgress<T> complete(@Nullable Cached newState) {
+            for (;;) {
+                final Object currentState = parent.state;
+                if (!(currentState instanceof InProgress) || ((InProgress<?>) currentState).source != this) {
+                    // All subscriptions were cancelled.
+                    return null;
+                }
+                if (stateUpdater.compareAndSet(parent, currentState, newState)) {
+                    @SuppressWarnings("unchecked")
+                    final InProgress<T> inProgress = (InProgress<T>) currentState;
+                    return inProgress;
+                }
+            }
+        }
+
+        void remove(CacheSubscription<?> toRemove) {
+            for (;;) {
+                final Object currentState = parent.state;
+                if (!(currentState instanceof InProgress) || ((InProgress<?>) currentState).source != this) {
+                    return;
+                }
+                @SuppressWarnings("unchecked")
+                final InProgress<T> inProgress = (InProgress<T>) currentState;
+                final InProgress<T> next = inProgress.remove(toRemove);
+                if (next == inProgress) {
+                    return;
+                }
+                if (stateUpdater.compareAndSet(parent, inProgress, next)) {
+                    if (next == null) {
+                        // No Subscriber is interested in the result anymore, the next one subscribes again.
+                        cancellable.cancel();
+                    }
+                    return;
+                }
+            }
+        }
+    }
+
+    private static final class InProgress<T> {
+        final CacheSubscriber<T> source;
+        final CacheSubscription<T>[] subscriptions;
+
+        @SuppressWarnings("unchecked")
+        InProgress(CacheSubscriber<T> source, CacheSubscription<T> subscription) {
+            this(source, new CacheSubscription[] {subscription});
+        }
+
+        private InProgress(CacheSubscriber<T> source, CacheSubscription<T>[] subscriptions) {
+            this.source = source;
+            this.subscriptions = subscriptions;
+        }
+
+        InProgress<T> add(CacheSubscription<T> subscription) {
+            final CacheSubscription<T>[] next = copyOf(subscriptions, subscriptions.length + 1);
+            next[subscriptions.length] = subscription;
+            return new InProgress<>(source, next);
+        }
+
+        /**
+         * Returns {@code this} if {@code toRemove} is not found, and {@code null} if no subscriptions are left.
+         */
+        @Nullable
+        InProgress<T> remove(CacheSubscription<?> toRemove) {
+            for (int i = 0; i < subscriptions.length; ++i) {
+                if (subscriptions[i] == toRemove) {
+                    if (subscriptions.length == 1) {
+                        return null;
+                    }
+                    @SuppressWarnings("unchecked")
+                    final CacheSubscription<T>[] next = new CacheSubscription[subscriptions.length - 1];
+                    System.arraycopy(subscriptions, 0, next, 0, i);
+                    System.arraycopy(subscriptions, i + 1, next, i, subscriptions.length - i - 1);
+                    return new InProgress<>(source, next);
+                }
+            }
+            return this;
+        }
+    }
+
+    private static final class Cached {
+        @Nullable
+        final Object result;
+        final long createdNs;
+
+        Cached(@Nullable Object result, long createdNs) {
+            this.result = result;
+            this.createdNs = createdNs;
+        }
+    }
+}
@@ -100,6 +100,18 @@ final class DefaultExecutor extends AbstractOffloaderAwareExecutor implements Co
         this(jdkExecutor, newScheduler(scheduler, interruptOnCancel), interruptOnCancel);
     }
 
+    /**
+     * Creates a new instance which schedules on the passed {@link HashedWheelTimer}s.
+     *
+     * @param jdkExecutor {@link java.util.concurrent.Executor} to use for executing tasks.
+     * @param timers {@link HashedWheelTimer}s, each thread always schedules on the same one.
+     * @param stopTimersOnClose {@code true} if {@code timers} are owned by this {@link Executor}.
+     */
+    DefaultExecutor(java.util.concurrent.Executor jdkExecutor, HashedWheelTimer[] timers, boolean stopTimersOnClose) {
+        // Since we run blocking task, we should try interrupt when cancelled.
+        this(jdkExecutor, newScheduler(timers, stopTimersOnClose), true);
+    }
+
     private DefaultExecutor(@Nullable java.util.concurrent.Executor jdkExecutor, @Nullable InternalScheduler scheduler,
                             boolean interruptOnCancel) {
         if (jdkExecutor == null) {
@@ -201,6 +213,31 @@ final class DefaultExecutor extends AbstractOffloaderAwareExecutor implements Co
         };
     }
 
+    private static InternalScheduler newScheduler(HashedWheelTimer[] timers, boolean stopTimersOnClose) {
+        if (timers.length == 0) {
+            throw new IllegalArgumentException("timers: 0 (expected > 0)");
+        }
+        return new InternalScheduler() {
+            @Override
+            public void run() {
+                if (stopTimersOnClose) {
+                    for (HashedWheelTimer timer : timers) {
+                        timer.stop();
+                    }
+                }
+            }
+
+            @Override
+            public Cancellable apply(final Runnable task, final long delay, final TimeUnit unit) {
+                // Spread threads over the timers, while keeping each thread on the same timer to avoid contention on
+                // the queues of other timers.
+                final HashedWheelTimer timer = timers.length == 1 ? timers[0] :
+                        timers[(int) (Thread.currentThread().getId() % timers.length)];
+                return timer.schedule(task, delay, unit);
+            }
+        };
+    }
+
     private static InternalScheduler newScheduler(ScheduledExecutorService service, boolean interruptOnCancel) {
         return new InternalScheduler() {
             @Override
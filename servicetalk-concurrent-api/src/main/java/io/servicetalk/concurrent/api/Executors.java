@@ -20,18 +20,24 @@ import io.servicetalk.concurrent.internal.SignalOffloader;
 import io.servicetalk.concurrent.internal.SignalOffloaderFactory;
 import io.servicetalk.concurrent.internal.SignalOffloaders;
 
+import java.time.Duration;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 
 import static io.servicetalk.concurrent.api.ImmediateExecutor.IMMEDIATE_EXECUTOR;
+import static java.lang.Thread.NORM_PRIORITY;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 
 /**
  * Utility methods to create various {@link Executor}s.
  */
 public final class Executors {
 
+    private static final long DEFAULT_HASHED_WHEEL_TICK_MS = 1;
+    private static final int DEFAULT_TICKS_PER_WHEEL = 512;
+
     private Executors() {
         // no instances
     }
@@ -242,4 +248,77 @@ public final class Executors {
     public static Executor from(java.util.concurrent.Executor jdkExecutor, ScheduledExecutorService scheduledExecutorService, boolean mayInterruptOnCancel) {
         return new DefaultExecutor(jdkExecutor, scheduledExecutorService, mayInterruptOnCancel);
     }
+
+    /**
+     * Creates a new {@link Executor} from the provided {@code jdkExecutor} which schedules delayed tasks on a global
+     * hashed wheel timer instead of the global scheduler.
+     * <p>
+     * The global hashed wheel timer is sharded into one wheel per available processor, with a tick of 1ms. Scheduling
+     * and cancelling a task are O(1) and do not contend on a lock, which makes it a better fit for a large number of
+     * short lived timers, e.g. a timeout for every request. Delayed tasks run up to one tick late.
+     * <p>
+     * Task execution will not honor cancellations unless passed {@link java.util.concurrent.Executor}
+     * is an instance of {@link ExecutorService}.
+     *
+     * @param jdkExecutor {@link java.util.concurrent.Executor} to use for executing tasks.
+     * The lifetime of this object is transferred to the return value. In other words {@link Executor#closeAsync()} will
+     * call {@link ExecutorService#shutdown()} (if possible).
+     * @return {@link Executor} that wraps the passed {@code jdkExecutor} and schedules on the global hashed wheel timer.
+     */
+    public static Executor newHashedWheelTimerExecutor(java.util.concurrent.Executor jdkExecutor) {
+        return new DefaultExecutor(jdkExecutor, GlobalHashedWheelTimers.TIMERS, false);
+    }
+
+    /**
+     * Creates a new {@link Executor} from the provided {@code jdkExecutor} which schedules delayed tasks on its own
+     * hashed wheel timers.
+     * <p>
+     * Scheduling and cancelling a task are O(1) and do not contend on a lock. Each thread which schedules a task always
+     * uses the same wheel out of {@code shards} wheels, and each wheel has its own thread which runs expired tasks.
+     * Delayed tasks run up to one {@code tick} late.
+     *
+     * @param jdkExecutor {@link java.util.concurrent.Executor} to use for executing tasks.
+     * The lifetime of this object is transferred to the return value. In other words {@link Executor#closeAsync()} will
+     * call {@link ExecutorService#shutdown()} (if possible) and stop the timers.
+     * @param tick The duration of a tick, which is the precision of the timers.
+     * @param ticksPerWheel The number of ticks in each wheel, rounded up to a power of two. Tasks which are delayed by
+     * more than {@code tick * ticksPerWheel} are visited once per revolution of the wheel.
+     * @param shards The number of wheels.
+     * @return {@link Executor} that wraps the passed {@code jdkExecutor} and schedules on hashed wheel timers.
+     */
+    public static Executor newHashedWheelTimerExecutor(java.util.concurrent.Executor jdkExecutor, Duration tick,
+                                                       int ticksPerWheel, int shards) {
+        return new DefaultExecutor(jdkExecutor, newHashedWheelTimers("servicetalk-timer-", tick.toNanos(),
+                ticksPerWheel, shards), true);
+    }
+
+    private static HashedWheelTimer[] newHashedWheelTimers(String threadNamePrefix, long tickNs, int ticksPerWheel,
+                                                           int shards) {
+        if (shards <= 0) {
+            throw new IllegalArgumentException("shards: " + shards + " (expected > 0)");
+        }
+        final ThreadFactory threadFactory = new DefaultThreadFactory(threadNamePrefix, true, NORM_PRIORITY);
+        final HashedWheelTimer[] timers = new HashedWheelTimer[shards];
+        for (int i = 0; i < shards; ++i) {
+            timers[i] = new HashedWheelTimer(threadFactory, tickNs, ticksPerWheel);
+        }
+        return timers;
+    }
+
+    /**
+     * Holds the global hashed wheel timers, so they are only created when used.
+     */
+    private static final class GlobalHashedWheelTimers {
+        /**
+         * This is a shared timer and hence there is no clear lifetime, the timers are never stopped. Since they use
+         * daemon threads, the threads will be shutdown on JVM shutdown.
+         */
+        static final HashedWheelTimer[] TIMERS = newHashedWheelTimers("servicetalk-global-timer-",
+                MILLISECONDS.toNanos(DEFAULT_HASHED_WHEEL_TICK_MS), DEFAULT_TICKS_PER_WHEEL,
+                Runtime.getRuntime().availableProcessors());
+
+        private GlobalHashedWheelTimers() {
+            // No instances.
+        }
+    }
 }
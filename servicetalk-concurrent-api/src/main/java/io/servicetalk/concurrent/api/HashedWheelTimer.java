@@ -0,0 +1,357 @@
+/*
+ * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.concurrent.api;
+
+import io.servicetalk.concurrent.Cancellable;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Queue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+import javax.annotation.Nullable;
+
+import static io.servicetalk.concurrent.internal.PlatformDependent.newUnboundedMpscQueue;
+import static java.lang.System.nanoTime;
+
+/**
+ * A timer which keeps scheduled tasks in a hashed wheel of buckets, each covering one tick.
+ * <p>
+ * Scheduling only enqueues the task into a lock-free queue and cancelling only flips the state of the task, both are
+ * O(1) and never contend on a lock. A single worker thread advances the wheel once per tick, moves queued tasks into
+ * their bucket, runs the expired tasks of the current bucket and unlinks cancelled ones. Tasks therefore run up to one
+ * tick late, which is the trade-off compared to a {@link java.util.concurrent.ScheduledExecutorService}.
+ * <p>
+ * The worker does not wake up for ticks whose buckets are empty. It parks until the end of the tick of the next
+ * non-empty bucket, or until a task is scheduled if the wheel is empty, so an idle timer does not consume CPU. A
+ * schedule wakes the worker only if the new task expires before the worker would otherwise wake up.
+ * <p>
+ * The worker thread is started on the first {@link #schedule(Runnable, long, TimeUnit)}, and the tasks it runs must not
+ * block.
+ */
+final class HashedWheelTimer {
+    private static final Logger LOGGER = LoggerFactory.getLogger(HashedWheelTimer.class);
+    private static final AtomicIntegerFieldUpdater<HashedWheelTimer> stateUpdater =
+            AtomicIntegerFieldUpdater.newUpdater(HashedWheelTimer.class, "state");
+    /**
+     * Value of {@link #wakeupTick} while the worker is not parked.
+     */
+    private static final long NOT_PARKED = Long.MIN_VALUE;
+    /**
+     * Value of {@link #wakeupTick} while the worker is parked until a task is scheduled.
+     */
+    private static final long PARKED_UNTIL_SCHEDULE = Long.MAX_VALUE;
+
+    private static final int STATE_INIT = 0;
+    private static final int STATE_STARTED = 1;
+    private static final int STATE_STOPPED = 2;
+    /**
+     * Bounds the tasks moved into the wheel on each tick, so that a burst of schedules does not delay expiry.
+     */
+    private static final int MAX_TRANSFERS_PER_TICK = 100_000;
+
+    @SuppressWarnings("unused")
+    private volatile int state;
+    /**
+     * The tick at the end of which the parked worker wakes up, or {@link #NOT_PARKED}.
+     */
+    private volatile long wakeupTick = NOT_PARKED;
+
+    /**
+     * All deadlines are relative to this time, so they do not overflow for any practical uptime.
+     */
+    private final long startNs;
+    private final long tickNs;
+    private final int mask;
+    private final Bucket[] wheel;
+    private final Queue<TimerTask> pending = newUnboundedMpscQueue(64);
+    private final Thread worker;
+    /**
+     * The number of tasks in the {@link #wheel}, only accessed from the worker thread.
+     */
+    private int wheelSize;
+
+    HashedWheelTimer(ThreadFactory threadFactory, long tickNs, int ticksPerWheel) {
+        if (tickNs <= 0) {
+            throw new IllegalArgumentException("tickNs: " + tickNs + " (expected > 0)");
+        }
+        if (ticksPerWheel <= 0 || ticksPerWheel > 1 << 30) {
+            throw new IllegalArgumentException("ticksPerWheel: " + ticksPerWheel + " (expected > 0 and <= 2^30)");
+        }
+        this.tickNs = tickNs;
+        final int wheelLength = ticksPerWheel == 1 ? 1 : Integer.highestOneBit(ticksPerWheel - 1) << 1;
+        mask = wheelLength - 1;
+        wheel = new Bucket[wheelLength];
+        for (int i = 0; i < wheel.length; ++i) {
+            wheel[i] = new Bucket();
+        }
+        worker = threadFactory.newThread(this::runWorker);
+        startNs = nanoTime();
+    }
+
+    /**
+     * Runs {@code task} on the worker thread after {@code delay}.
+     *
+     * @param task The task to run, it must not block.
+     * @param delay The time to wait before running {@code task}.
+     * @param unit The {@link TimeUnit} of {@code delay}.
+     * @return A {@link Cancellable} which prevents {@code task} from running if it has not run yet.
+     * @throws RejectedExecutionException If this timer is stopped.
+     */
+    Cancellable schedule(Runnable task, long delay, TimeUnit unit) {
+        final int state = this.state;
+        if (state == STATE_STOPPED) {
+            throw new RejectedExecutionException("Timer stopped");
+        }
+        if (state == STATE_INIT && stateUpdater.compareAndSet(this, STATE_INIT, STATE_STARTED)) {
+            worker.start();
+        }
+        final long delayNs = unit.toNanos(delay);
+        long deadlineNs = nanoTime() - startNs + delayNs;
+        if (delayNs > 0 && deadlineNs < 0) {
+            deadlineNs = Long.MAX_VALUE;
+        }
+        final TimerTask timerTask = new TimerTask(task, deadlineNs);
+        pending.offer(timerTask);
+        if (this.state == STATE_STOPPED && timerTask.reject()) {
+            // The timer was stopped concurrently and the worker may already have discarded the pending tasks, so the
+            // task may never run. If the worker ran it before stopping, the schedule succeeded.
+            throw new RejectedExecutionException("Timer stopped");
+        }
+        // Pairs with the write of wakeupTick followed by the read of pending in waitForTick, so either the worker sees
+        // the new task or this sees the tick at which the worker would wake up.
+        if (deadlineNs / tickNs < wakeupTick) {
+            LockSupport.unpark(worker);
+        }
+        return timerTask;
+    }
+
+    /**
+     * Stops the worker thread, tasks which have not run yet are discarded.
+     */
+    void stop() {
+        if (stateUpdater.getAndSet(this, STATE_STOPPED) == STATE_STARTED) {
+            LockSupport.unpark(worker);
+        }
+    }
+
+    private void runWorker() {
+        // The first tick which has not been expired yet.
+        long tick = (nanoTime() - startNs) / tickNs;
+        while (state == STATE_STARTED) {
+            final long nowNs = waitForTick(nextTickToExpire(tick));
+            if (nowNs < 0) {
+                break;
+            }
+            transferPending(tick);
+            // The worker may have been woken up early by a schedule, or may have overslept several ticks.
+            final long endedTicks = nowNs / tickNs - tick;
+            if (endedTicks > 0) {
+                final long expireTicks = Math.min(endedTicks, wheel.length);
+                for (long i = 0; i < expireTicks; ++i) {
+                    wheelSize -= wheel[(int) ((tick + i) & mask)].expire(nowNs);
+                }
+                tick += endedTicks;
+            }
+        }
+        pending.clear();
+    }
+
+    /**
+     * Finds the first tick starting from {@code tick} whose bucket is not empty.
+     *
+     * @return The first tick whose bucket is not empty, or {@link #PARKED_UNTIL_SCHEDULE} if the wheel is empty.
+     */
+    private long nextTickToExpire(long tick) {
+        if (wheelSize == 0) {
+            return PARKED_UNTIL_SCHEDULE;
+        }
+        for (int i = 0; i < wheel.length; ++i) {
+            if (!wheel[(int) ((tick + i) & mask)].isEmpty()) {
+                return tick + i;
+            }
+        }
+        return PARKED_UNTIL_SCHEDULE;
+    }
+
+    /**
+     * Waits until the end of {@code wakeupTick}, or until a task which expires earlier is scheduled.
+     *
+     * @return The current time relative to {@link #startNs}, or {@code -1} if this timer was stopped.
+     */
+    private long waitForTick(long wakeupTick) {
+        this.wakeupTick = wakeupTick;
+        try {
+            for (;;) {
+                final long nowNs = nanoTime() - startNs;
+                if (!pending.isEmpty()) {
+                    return nowNs;
+                }
+                if (wakeupTick == PARKED_UNTIL_SCHEDULE) {
+                    LockSupport.park(this);
+                } else {
+                    final long sleepNs = (wakeupTick + 1) * tickNs - nowNs;
+                    if (sleepNs <= 0) {
+                        return nowNs;
+                    }
+                    LockSupport.parkNanos(this, sleepNs);
+                }
+                if (state != STATE_STARTED) {
+                    return -1;
+                }
+            }
+        } finally {
+            this.wakeupTick = NOT_PARKED;
+        }
+    }
+
+    private void transferPending(long tick) {
+        for (int i = 0; i < MAX_TRANSFERS_PER_TICK; ++i) {
+            final TimerTask task = pending.poll();
+            if (task == null) {
+                return;
+            }
+            if (task.state == TimerTask.STATE_CANCELLED) {
+                continue;
+            }
+            // A deadline which has already passed is expired on the current tick.
+            final long deadlineTick = Math.max(task.deadlineNs / tickNs, tick);
+            wheel[(int) (deadlineTick & mask)].add(task);
+            ++wheelSize;
+        }
+    }
+
+    /**
+     * A doubly linked list of {@link TimerTask}s which is only accessed from the worker thread.
+     */
+    private static final class Bucket {
+        @Nullable
+        private TimerTask head;
+        @Nullable
+        private TimerTask tail;
+
+        boolean isEmpty() {
+            return head == null;
+        }
+
+        void add(TimerTask task) {
+            if (tail == null) {
+                head = tail = task;
+            } else {
+                tail.next = task;
+                task.prev = tail;
+                tail = task;
+            }
+        }
+
+        /**
+         * Runs the expired tasks and unlinks them and the cancelled tasks.
+         *
+         * @return The number of tasks which were unlinked.
+         */
+        int expire(long nowNs) {
+            int removed = 0;
+            TimerTask task = head;
+            while (task != null) {
+                final TimerTask next = task.next;
+                if (task.state == TimerTask.STATE_CANCELLED) {
+                    remove(task);
+                    ++removed;
+                } else if (task.deadlineNs <= nowNs) {
+                    // Tasks for later revolutions of the wheel share the bucket and stay until their deadline.
+                    remove(task);
+                    ++removed;
+                    task.expire();
+                }
+                task = next;
+            }
+            return removed;
+        }
+
+        private void remove(TimerTask task) {
+            final TimerTask prev = task.prev;
+            final TimerTask next = task.next;
+            if (prev == null) {
+                head = next;
+            } else {
+                prev.next = next;
+            }
+            if (next == null) {
+                tail = prev;
+            } else {
+                next.prev = prev;
+            }
+            task.prev = task.next = null;
+        }
+    }
+
+    private static final class TimerTask implements Cancellable {
+        private static final AtomicIntegerFieldUpdater<TimerTask> stateUpdater =
+                AtomicIntegerFieldUpdater.newUpdater(TimerTask.class, "state");
+
+        private static final int STATE_SCHEDULED = 0;
+        private static final int STATE_CANCELLED = 1;
+        private static final int STATE_EXPIRED = 2;
+
+        private volatile int state;
+
+        private final Runnable task;
+        private final long deadlineNs;
+
+        /**
+         * These variables are only accessed from the worker thread.
+         */
+        @Nullable
+        private TimerTask prev;
+        @Nullable
+        private TimerTask next;
+
+        TimerTask(Runnable task, long deadlineNs) {
+            this.task = task;
+            this.deadlineNs = deadlineNs;
+        }
+
+        @Override
+        public void cancel() {
+            // The worker unlinks the task once it visits its bucket.
+            stateUpdater.compareAndSet(this, STATE_SCHEDULED, STATE_CANCELLED);
+        }
+
+        /**
+         * Prevents this task from running if the timer was stopped before it ran.
+         *
+         * @return {@code true} if this task will not run.
+         */
+        boolean reject() {
+            return stateUpdater.compareAndSet(this, STATE_SCHEDULED, STATE_CANCELLED);
+        }
+
+        void expire() {
+            if (!stateUpdater.compareAndSet(this, STATE_SCHEDULED, STATE_EXPIRED)) {
+                return;
+            }
+            try {
+                task.run();
+            } catch (Throwable cause) {
+                LOGGER.warn("Timer task {} threw an exception.", task, cause);
+            }
+        }
+    }
+}
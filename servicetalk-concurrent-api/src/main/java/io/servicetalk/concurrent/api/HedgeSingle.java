@@ -0,0 +1,177 @@
+/*
+ * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.concurrent.api;
+
+import io.servicetalk.concurrent.Cancellable;
+import io.servicetalk.concurrent.internal.DelayedCancellable;
+import io.servicetalk.concurrent.internal.SignalOffloader;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import javax.annotation.Nullable;
+
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * As returned by {@link Single#hedge(java.time.Duration)} and its variants.
+ * <p>
+ * The original {@link Single} is subscribed to immediately, and subscribed to a second time if it has not terminated
+ * once the hedge delay elapsed. The first attempt which succeeds wins and the other attempt is cancelled. An error of
+ * one attempt is only delivered if no other attempt is in progress, otherwise the result of the other attempt is
+ * awaited.
+ *
+ * @param <T> Type of the result of the single.
+ */
+final class HedgeSingle<T> extends AbstractNoHandleSubscribeSingle<T> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(HedgeSingle.class);
+
+    private final Single<T> original;
+    private final LongSupplier hedgeDelayNs;
+    private final Executor timerExecutor;
+    @Nullable
+    private final Consumer<? super T> onDiscard;
+
+    HedgeSingle(Single<T> original, LongSupplier hedgeDelayNs, Executor timerExecutor,
+                @Nullable Consumer<? super T> onDiscard, Executor executor) {
+        super(executor);
+        this.original = requireNonNull(original);
+        this.hedgeDelayNs = requireNonNull(hedgeDelayNs);
+        this.timerExecutor = requireNonNull(timerExecutor);
+        this.onDiscard = onDiscard;
+    }
+
+    @Override
+    void handleSubscribe(Subscriber<? super T> subscriber, SignalOffloader signalOffloader) {
+        final HedgeCancellable<T> hedgeCancellable = new HedgeCancellable<>(this, subscriber, signalOffloader);
+        subscriber.onSubscribe(hedgeCancellable);
+        // A negative delay disables hedging for this subscription, e.g. while there is no latency estimate yet.
+        final long delayNs = hedgeDelayNs.getAsLong();
+        if (delayNs >= 0) {
+            try {
+                hedgeCancellable.timer.setDelayedCancellable(
+                        timerExecutor.schedule(hedgeCancellable::onTimer, delayNs, NANOSECONDS));
+            } catch (Throwable cause) {
+                LOGGER.debug("Failed to schedule the hedge timer, continuing without hedging.", cause);
+            }
+        }
+        original.subscribe(hedgeCancellable.first, signalOffloader);
+    }
+
+    private static final class HedgeCancellable<T> implements Cancellable {
+        private static final AtomicIntegerFieldUpdater<HedgeCancellable> inProgressUpdater =
+                AtomicIntegerFieldUpdater.newUpdater(HedgeCancellable.class, "inProgress");
+        private static final AtomicIntegerFieldUpdater<HedgeCancellable> terminatedUpdater =
+                AtomicIntegerFieldUpdater.newUpdater(HedgeCancellable.class, "terminated");
+
+        /**
+         * Number of attempts which are started and have not failed yet.
+         */
+        @SuppressWarnings("unused")
+        private volatile int inProgress = 1;
+        @SuppressWarnings("unused")
+        private volatile int terminated;
+
+        private final DelayedCancellable timer = new DelayedCancellable();
+        private final AttemptSubscriber<T> first;
+        private final AttemptSubscriber<T> hedge;
+        private final HedgeSingle<T> source;
+        private final Subscriber<? super T> target;
+        private final SignalOffloader signalOffloader;
+
+        HedgeCancellable(HedgeSingle<T> source, Subscriber<? super T> target, SignalOffloader signalOffloader) {
+            this.source = source;
+            this.target = target;
+            this.signalOffloader = signalOffloader;
+            first = new AttemptSubscriber<>(this);
+            hedge = new AttemptSubscriber<>(this);
+        }
+
+        @Override
+        public void cancel() {
+            if (terminatedUpdater.compareAndSet(this, 0, 1)) {
+                timer.cancel();
+                first.cancel();
+                hedge.cancel();
+            }
+        }
+
+        void onTimer() {
+            if (terminated != 0) {
+                return;
+            }
+            inProgressUpdater.incrementAndGet(this);
+            // If we terminate concurrently, the hedge is cancelled as soon as it is subscribed.
+            // Both attempts deliver to the same target, so they use the same offloader.
+            source.original.subscribe(hedge, signalOffloader);
+        }
+
+        void onSuccess(AttemptSubscriber<T> attempt, @Nullable T result) {
+            if (!terminatedUpdater.compareAndSet(this, 0, 1)) {
+                // The other attempt won, the result of the loser may still hold resources.
+                if (source.onDiscard != null) {
+                    source.onDiscard.accept(result);
+                }
+                return;
+            }
+            timer.cancel();
+            (attempt == first ? hedge : first).cancel();
+            target.onSuccess(result);
+        }
+
+        void onError(Throwable t) {
+            if (inProgressUpdater.decrementAndGet(this) != 0) {
+                LOGGER.debug("Hedged attempt failed, waiting for the other attempt.", t);
+                return;
+            }
+            if (!terminatedUpdater.compareAndSet(this, 0, 1)) {
+                LOGGER.debug("Already terminated/cancelled, ignoring error notification.", t);
+                return;
+            }
+            timer.cancel();
+            // A hedge may have been started concurrently with the failure of the last attempt in progress.
+            hedge.cancel();
+            target.onError(t);
+        }
+    }
+
+    private static final class AttemptSubscriber<T> extends DelayedCancellable implements Subscriber<T> {
+        private final HedgeCancellable<T> parent;
+
+        AttemptSubscriber(HedgeCancellable<T> parent) {
+            this.parent = parent;
+        }
+
+        @Override
+        public void onSubscribe(Cancellable cancellable) {
+            setDelayedCancellable(cancellable);
+        }
+
+        @Override
+        public void onSuccess(@Nullable T result) {
+            parent.onSuccess(this, result);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            parent.onError(t);
+        }
+    }
+}
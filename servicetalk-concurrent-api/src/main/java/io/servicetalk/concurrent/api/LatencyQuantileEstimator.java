@@ -0,0 +1,118 @@
+/*
+ * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.concurrent.api;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.function.LongSupplier;
+
+import static java.lang.Math.max;
+
+/**
+ * Estimates a quantile of observed latencies in constant space, for example to use the p95 latency of a service as
+ * the delay of {@link Single#hedge(LongSupplier, Executor)}.
+ * <p>
+ * Each recorded latency moves the estimate up with probability {@code quantile} if it is above the estimate, and
+ * down with probability {@code 1 - quantile} if it is below, so the estimate settles where a {@code quantile} fraction
+ * of latencies are below it. Every step is a small fraction of the current estimate which lets it follow latencies
+ * of any magnitude. Concurrent updates may be lost, which only slows down convergence.
+ * <p>
+ * When the estimate is used as a hedge delay, recording only the latency of the attempts which win biases the
+ * estimate low: a slow attempt is cancelled once its hedge wins, so the slowest latencies are never observed. The
+ * latency of the first attempt should therefore be recorded whether or not it wins, with
+ * {@link #recordAtLeast(long)} if it was cancelled before it completed.
+ */
+public final class LatencyQuantileEstimator implements LongSupplier {
+    private static final AtomicLongFieldUpdater<LatencyQuantileEstimator> estimateNsUpdater =
+            AtomicLongFieldUpdater.newUpdater(LatencyQuantileEstimator.class, "estimateNs");
+
+    /**
+     * Each step changes the estimate by {@code 1/2^STEP_SHIFT} of its value.
+     */
+    private static final int STEP_SHIFT = 6;
+
+    private final double quantile;
+    private volatile long estimateNs;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param quantile The quantile to estimate, for example {@code 0.95} for the p95 latency.
+     * @param initialEstimate The estimate to use until enough latencies have been recorded.
+     */
+    public LatencyQuantileEstimator(double quantile, Duration initialEstimate) {
+        if (quantile <= 0 || quantile >= 1) {
+            throw new IllegalArgumentException("quantile: " + quantile + " (expected > 0 and < 1)");
+        }
+        final long initialEstimateNs = initialEstimate.toNanos();
+        if (initialEstimateNs <= 0) {
+            throw new IllegalArgumentException("initialEstimate: " + initialEstimate + " (expected > 0)");
+        }
+        this.quantile = quantile;
+        this.estimateNs = initialEstimateNs;
+    }
+
+    /**
+     * Records an observed latency.
+     *
+     * @param latencyNs The observed latency in nanoseconds.
+     */
+    public void record(long latencyNs) {
+        final long estimateNs = this.estimateNs;
+        final long step = max(1, estimateNs >>> STEP_SHIFT);
+        final long next;
+        if (latencyNs > estimateNs) {
+            if (ThreadLocalRandom.current().nextDouble() >= quantile) {
+                return;
+            }
+            next = estimateNs + step;
+        } else if (latencyNs < estimateNs) {
+            if (ThreadLocalRandom.current().nextDouble() < quantile) {
+                return;
+            }
+            next = max(1, estimateNs - step);
+        } else {
+            return;
+        }
+        estimateNsUpdater.compareAndSet(this, estimateNs, next);
+    }
+
+    /**
+     * Records a latency which is only known to be at least {@code latencyNs}, for example of a request which was
+     * cancelled before it completed.
+     * <p>
+     * Such a latency only moves the estimate up if {@code latencyNs} is already above the estimate, because otherwise
+     * it is unknown on which side of the estimate the actual latency is.
+     *
+     * @param latencyNs The time in nanoseconds which elapsed before the latency could be observed.
+     */
+    public void recordAtLeast(long latencyNs) {
+        if (latencyNs > estimateNs) {
+            record(latencyNs);
+        }
+    }
+
+    /**
+     * Returns the current estimate of the quantile in nanoseconds.
+     *
+     * @return The current estimate of the quantile in nanoseconds.
+     */
+    @Override
+    public long getAsLong() {
+        return estimateNs;
+    }
+}
@@ -29,6 +29,7 @@ import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.concurrent.CompletionStage;
 import java.util.concurrent.Future;
@@ -45,6 +46,7 @@ import java.util.function.LongConsumer;
 import java.util.function.LongSupplier;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
 
 import static io.servicetalk.concurrent.api.EmptyPublisher.emptyPublisher;
 import static io.servicetalk.concurrent.api.Executors.immediate;
@@ -56,7 +58,9 @@ import static io.servicetalk.concurrent.api.PublisherDoOnUtils.doOnErrorSupplier
 import static io.servicetalk.concurrent.api.PublisherDoOnUtils.doOnNextSupplier;
 import static io.servicetalk.concurrent.api.PublisherDoOnUtils.doOnRequestSupplier;
 import static io.servicetalk.concurrent.api.PublisherDoOnUtils.doOnSubscribeSupplier;
+import static java.lang.Math.max;
 import static java.util.Objects.requireNonNull;
+import static java.util.function.Function.identity;
 
 /**
  * An asynchronous computation that produces 0, 1 or more elements and may or may not terminate successfully or with an error.
@@ -334,6 +338,98 @@ public abstract class Publisher<T> implements org.reactivestreams.Publisher<T> {
         return new PublisherFlatMapSingle<>(this, mapper, maxConcurrency, true, executor);
     }
 
+    /**
+     * Turns every item emitted by this {@link Publisher} into a {@link Publisher} and emits the items emitted by each
+     * of those {@link Publisher}s, merging them as they become available.
+     * <p>
+     * To control the amount of concurrent processing done by this operator see
+     * {@link #flatMapMerge(Function, int)}.
+     * <p>
+     * This method is similar to {@link #flatMapSingle(Function)} but each item can be expanded into any number of
+     * results, and provides a data transformation in sequential programming similar to:
+     * <pre>{@code
+     *     List<R> results = ...; // assume this is thread safe
+     *     for (T t : resultOfThisPublisher()) {
+     *         // Note that flatMapMerge processes results in parallel.
+     *         for (R r : mapper.apply(t)) {
+     *             // This is an approximation, this operator does not provide any ordering guarantees for results
+     *             // from different Publishers.
+     *             results.add(r);
+     *         }
+     *     }
+     *     return results;
+     * }</pre>
+     *
+     * @param mapper Function to convert each item emitted by this {@link Publisher} into another {@link Publisher}.
+     * @param <R> Type of items emitted by the returned {@link Publisher}.
+     * @return A new {@link Publisher} that emits all items emitted by each {@link Publisher} produced by
+     * {@code mapper}.
+     *
+     * @see <a href="http://reactivex.io/documentation/operators/flatmap.html">ReactiveX flatMap operator.</a>
+     * @see #flatMapMerge(Function, int)
+     */
+    public final <R> Publisher<R> flatMapMerge(Function<T, Publisher<R>> mapper) {
+        return flatMapMerge(mapper, PublisherFlatMapMerge.DEFAULT_MAX_CONCURRENCY);
+    }
+
+    /**
+     * Turns every item emitted by this {@link Publisher} into a {@link Publisher} and emits the items emitted by each
+     * of those {@link Publisher}s, merging them as they become available.
+     * <p>
+     * This method is similar to {@link #flatMapSingle(Function, int)} but each item can be expanded into any number
+     * of results, and provides a data transformation in sequential programming similar to:
+     * <pre>{@code
+     *     List<R> results = ...; // assume this is thread safe
+     *     for (T t : resultOfThisPublisher()) {
+     *         // Note that flatMapMerge processes results in parallel.
+     *         for (R r : mapper.apply(t)) {
+     *             // This is an approximation, this operator does not provide any ordering guarantees for results
+     *             // from different Publishers.
+     *             results.add(r);
+     *         }
+     *     }
+     *     return results;
+     * }</pre>
+     *
+     * @param mapper Function to convert each item emitted by this {@link Publisher} into another {@link Publisher}.
+     * @param maxConcurrency Maximum active {@link Publisher}s at any time.
+     * Even if the number of items requested by a {@link Subscriber} is more than this number, this will never request
+     * more than this number from this {@link Publisher} at any point.
+     * @param <R> Type of items emitted by the returned {@link Publisher}.
+     * @return A new {@link Publisher} that emits all items emitted by each {@link Publisher} produced by
+     * {@code mapper}.
+     *
+     * @see <a href="http://reactivex.io/documentation/operators/flatmap.html">ReactiveX flatMap operator.</a>
+     * @see #flatMapMerge(Function, int, int)
+     */
+    public final <R> Publisher<R> flatMapMerge(Function<T, Publisher<R>> mapper, int maxConcurrency) {
+        return flatMapMerge(mapper, maxConcurrency, PublisherFlatMapMerge.DEFAULT_PREFETCH);
+    }
+
+    /**
+     * Turns every item emitted by this {@link Publisher} into a {@link Publisher} and emits the items emitted by each
+     * of those {@link Publisher}s, merging them as they become available.
+     * <p>
+     * This is the same as {@link #flatMapMerge(Function, int)} but also controls how many items are requested ahead
+     * from each {@link Publisher} produced by {@code mapper}. Items are requested again from a {@link Publisher} once
+     * three quarters of its prefetched items have been delivered to the {@link Subscriber}.
+     *
+     * @param mapper Function to convert each item emitted by this {@link Publisher} into another {@link Publisher}.
+     * @param maxConcurrency Maximum active {@link Publisher}s at any time.
+     * Even if the number of items requested by a {@link Subscriber} is more than this number, this will never request
+     * more than this number from this {@link Publisher} at any point.
+     * @param prefetch Maximum number of items outstanding from, and queued for, each {@link Publisher} produced by
+     * {@code mapper}.
+     * @param <R> Type of items emitted by the returned {@link Publisher}.
+     * @return A new {@link Publisher} that emits all items emitted by each {@link Publisher} produced by
+     * {@code mapper}.
+     *
+     * @see <a href="http://reactivex.io/documentation/operators/flatmap.html">ReactiveX flatMap operator.</a>
+     */
+    public final <R> Publisher<R> flatMapMerge(Function<T, Publisher<R>> mapper, int maxConcurrency, int prefetch) {
+        return new PublisherFlatMapMerge<>(this, mapper, maxConcurrency, prefetch, executor);
+    }
+
     /**
      * Create a {@link Publisher} that flattens each element returned by the {@link Iterable#iterator()} from
      * {@code mapper}.
@@ -940,6 +1036,193 @@ public abstract class Publisher<T> implements org.reactivestreams.Publisher<T> {
         return new TakeUntilPublisher<>(this, until, executor);
     }
 
+    /**
+     * Collects items emitted by this {@link Publisher} into {@link List}s of at most {@code maxCount} items each.
+     * <p>
+     * Each {@link Subscription#request(long)} from the {@link Subscriber} is for a number of batches, and items are
+     * only requested from this {@link Publisher} to fill the batch in progress. A batch that is not full is emitted
+     * when this {@link Publisher} completes, and discarded if it fails.
+     * <p>
+     * This method provides a means to batch items and in sequential programming is similar to:
+     * <pre>{@code
+     *     List<List<T>> results = ...;
+     *     List<T> batch = new ArrayList<>(maxCount);
+     *     for (T t : resultOfThisPublisher()) {
+     *         batch.add(t);
+     *         if (batch.size() == maxCount) {
+     *             results.add(batch);
+     *             batch = new ArrayList<>(maxCount);
+     *         }
+     *     }
+     *     if (!batch.isEmpty()) {
+     *         results.add(batch);
+     *     }
+     *     return results;
+     * }</pre>
+     *
+     * @param maxCount Maximum number of items in each emitted {@link List}.
+     * @return A {@link Publisher} that emits the items of this {@link Publisher} in {@link List}s of at most
+     * {@code maxCount} items.
+     *
+     * @see <a href="http://reactivex.io/documentation/operators/buffer.html">ReactiveX buffer operator.</a>
+     * @see #buffer(int, Duration)
+     */
+    public final Publisher<List<T>> buffer(int maxCount) {
+        return new PublisherBuffer<>(this, maxCount, executor);
+    }
+
+    /**
+     * Collects items emitted by this {@link Publisher} into {@link List}s of at most {@code maxCount} items each, and
+     * emits a {@link List} at most {@code maxDelay} after its first item was emitted by this {@link Publisher}, even if
+     * it is not full.
+     * <p>
+     * Each {@link Subscription#request(long)} from the {@link Subscriber} is for a number of batches, and items are
+     * only requested from this {@link Publisher} to fill the batch in progress. A batch which times out while the
+     * {@link Subscriber} has no demand is emitted as soon as demand arrives.
+     *
+     * @param maxCount Maximum number of items in each emitted {@link List}.
+     * @param maxDelay Maximum time to wait for more items after the first item of a {@link List} was emitted.
+     * @return A {@link Publisher} that emits the items of this {@link Publisher} in {@link List}s which are bounded by
+     * count and time.
+     *
+     * @see <a href="http://reactivex.io/documentation/operators/buffer.html">ReactiveX buffer operator.</a>
+     * @see #buffer(int, Duration, Executor)
+     */
+    public final Publisher<List<T>> buffer(int maxCount, Duration maxDelay) {
+        return buffer(maxCount, maxDelay, executor);
+    }
+
+    /**
+     * Collects items emitted by this {@link Publisher} into {@link List}s of at most {@code maxCount} items each, and
+     * emits a {@link List} at most {@code maxDelay} after its first item was emitted by this {@link Publisher}, even if
+     * it is not full.
+     * <p>
+     * Each {@link Subscription#request(long)} from the {@link Subscriber} is for a number of batches, and items are
+     * only requested from this {@link Publisher} to fill the batch in progress. A batch which times out while the
+     * {@link Subscriber} has no demand is emitted as soon as demand arrives.
+     *
+     * @param maxCount Maximum number of items in each emitted {@link List}.
+     * @param maxDelay Maximum time to wait for more items after the first item of a {@link List} was emitted.
+     * @param timerExecutor The {@link Executor} to use for managing the timer notifications.
+     * @return A {@link Publisher} that emits the items of this {@link Publisher} in {@link List}s which are bounded by
+     * count and time.
+     *
+     * @see <a href="http://reactivex.io/documentation/operators/buffer.html">ReactiveX buffer operator.</a>
+     */
+    public final Publisher<List<T>> buffer(int maxCount, Duration maxDelay, Executor timerExecutor) {
+        return new PublisherBuffer<>(this, maxCount, Long.MAX_VALUE, null, maxDelay.toNanos(),
+                requireNonNull(timerExecutor), executor);
+    }
+
+    /**
+     * Collects items emitted by this {@link Publisher} into {@link List}s which are emitted once they hold
+     * {@code maxCount} items, once the sum of {@code sizeFunction} over their items reaches {@code maxSize}, or
+     * {@code maxDelay} after their first item was emitted by this {@link Publisher}, whichever happens first.
+     * <p>
+     * This is useful to bound batches by their encoded size, for example the number of bytes of a bulk write.
+     * Each {@link Subscription#request(long)} from the {@link Subscriber} is for a number of batches, and items are
+     * only requested from this {@link Publisher} to fill the batch in progress.
+     *
+     * @param maxCount Maximum number of items in each emitted {@link List}.
+     * @param maxSize A {@link List} is emitted as soon as the accumulated size of its items reaches this value.
+     * @param sizeFunction Computes the size of each item.
+     * @param maxDelay Maximum time to wait for more items after the first item of a {@link List} was emitted.
+     * @return A {@link Publisher} that emits the items of this {@link Publisher} in {@link List}s which are bounded by
+     * count, size and time.
+     *
+     * @see <a href="http://reactivex.io/documentation/operators/buffer.html">ReactiveX buffer operator.</a>
+     * @see #buffer(int, long, ToLongFunction, Duration, Executor)
+     */
+    public final Publisher<List<T>> buffer(int maxCount, long maxSize, ToLongFunction<? super T> sizeFunction,
+                                           Duration maxDelay) {
+        return buffer(maxCount, maxSize, sizeFunction, maxDelay, executor);
+    }
+
+    /**
+     * Collects items emitted by this {@link Publisher} into {@link List}s which are emitted once they hold
+     * {@code maxCount} items, once the sum of {@code sizeFunction} over their items reaches {@code maxSize}, or
+     * {@code maxDelay} after their first item was emitted by this {@link Publisher}, whichever happens first.
+     * <p>
+     * This is useful to bound batches by their encoded size, for example the number of bytes of a bulk write.
+     * Each {@link Subscription#request(long)} from the {@link Subscriber} is for a number of batches, and items are
+     * only requested from this {@link Publisher} to fill the batch in progress.
+     *
+     * @param maxCount Maximum number of items in each emitted {@link List}.
+     * @param maxSize A {@link List} is emitted as soon as the accumulated size of its items reaches this value.
+     * @param sizeFunction Computes the size of each item.
+     * @param maxDelay Maximum time to wait for more items after the first item of a {@link List} was emitted.
+     * @param timerExecutor The {@link Executor} to use for managing the timer notifications.
+     * @return A {@link Publisher} that emits the items of this {@link Publisher} in {@link List}s which are bounded by
+     * count, size and time.
+     *
+     * @see <a href="http://reactivex.io/documentation/operators/buffer.html">ReactiveX buffer operator.</a>
+     */
+    public final Publisher<List<T>> buffer(int maxCount, long maxSize, ToLongFunction<? super T> sizeFunction,
+                                           Duration maxDelay, Executor timerExecutor) {
+        return new PublisherBuffer<>(this, maxCount, maxSize, requireNonNull(sizeFunction), maxDelay.toNanos(),
+                requireNonNull(timerExecutor), executor);
+    }
+
+    /**
+     * Splits items emitted by this {@link Publisher} into windows of at most {@code maxCount} items each, and emits
+     * every window as a {@link Publisher} of its items.
+     * <p>
+     * This has the same batching and flow control behavior as {@link #buffer(int)}, a window is emitted once it is
+     * closed.
+     *
+     * @param maxCount Maximum number of items in each window.
+     * @return A {@link Publisher} that emits a {@link Publisher} for each window of items of this {@link Publisher}.
+     *
+     * @see <a href="http://reactivex.io/documentation/operators/window.html">ReactiveX window operator.</a>
+     * @see #buffer(int)
+     */
+    public final Publisher<Publisher<T>> window(int maxCount) {
+        return buffer(maxCount).map(Publisher::from);
+    }
+
+    /**
+     * Splits items emitted by this {@link Publisher} into windows of at most {@code maxCount} items each, which are
+     * closed at most {@code maxDelay} after their first item was emitted by this {@link Publisher}, and emits every
+     * window as a {@link Publisher} of its items.
+     * <p>
+     * This has the same batching and flow control behavior as {@link #buffer(int, Duration)}, a window is emitted
+     * once it is closed.
+     *
+     * @param maxCount Maximum number of items in each window.
+     * @param maxDelay Maximum time to wait for more items after the first item of a window was emitted.
+     * @return A {@link Publisher} that emits a {@link Publisher} for each window of items of this {@link Publisher}.
+     *
+     * @see <a href="http://reactivex.io/documentation/operators/window.html">ReactiveX window operator.</a>
+     * @see #buffer(int, Duration)
+     */
+    public final Publisher<Publisher<T>> window(int maxCount, Duration maxDelay) {
+        return buffer(maxCount, maxDelay).map(Publisher::from);
+    }
+
+    /**
+     * Splits items emitted by this {@link Publisher} into windows which are closed once they hold {@code maxCount}
+     * items, once the sum of {@code sizeFunction} over their items reaches {@code maxSize}, or {@code maxDelay} after
+     * their first item was emitted by this {@link Publisher}, and emits every window as a {@link Publisher} of its
+     * items.
+     * <p>
+     * This has the same batching and flow control behavior as
+     * {@link #buffer(int, long, ToLongFunction, Duration, Executor)}, a window is emitted once it is closed.
+     *
+     * @param maxCount Maximum number of items in each window.
+     * @param maxSize A window is closed as soon as the accumulated size of its items reaches this value.
+     * @param sizeFunction Computes the size of each item.
+     * @param maxDelay Maximum time to wait for more items after the first item of a window was emitted.
+     * @param timerExecutor The {@link Executor} to use for managing the timer notifications.
+     * @return A {@link Publisher} that emits a {@link Publisher} for each window of items of this {@link Publisher}.
+     *
+     * @see <a href="http://reactivex.io/documentation/operators/window.html">ReactiveX window operator.</a>
+     * @see #buffer(int, long, ToLongFunction, Duration, Executor)
+     */
+    public final Publisher<Publisher<T>> window(int maxCount, long maxSize, ToLongFunction<? super T> sizeFunction,
+                                                Duration maxDelay, Executor timerExecutor) {
+        return buffer(maxCount, maxSize, sizeFunction, maxDelay, timerExecutor).map(Publisher::from);
+    }
+
     /**
      * Splits items from this {@link Publisher} into dynamically generated {@link GroupedPublisher}s.
      * Item to group association is done by {@code keySelector} {@link Function}. If the selector selects a key which is
@@ -1186,6 +1469,155 @@ public abstract class Publisher<T> implements org.reactivestreams.Publisher<T> {
         return new MulticastPublisher<>(this, expectedSubscribers, maxQueueSize, executor);
     }
 
+    /**
+     * Create a {@link Publisher} which subscribes to this {@link Publisher} once, when it is first
+     * {@link #subscribe(Subscriber) subscribed}, and emits its items to any number of {@link Subscriber}s. A
+     * {@link Subscriber} which subscribes late first receives up to the last {@code maxHistory} items emitted by this
+     * {@link Publisher}, followed by all subsequent items and the terminal signal.
+     * <p>
+     * Unlike {@link #multicast(int)} the number of {@link Subscriber}s does not need to be known upfront. Items are
+     * requested from this {@link Publisher} as soon as any {@link Subscriber} has demand for them, and are retained
+     * until the slowest {@link Subscriber} that has not cancelled received them. This {@link Publisher} is never
+     * {@link Subscription#cancel() cancelled} by the returned {@link Publisher}, see
+     * {@link #replay(int, boolean)} to cancel it once all {@link Subscriber}s cancelled.
+     * <p>
+     * In sequential programming this is similar to the following:
+     * <pre>{@code
+     *     if (history == null) {
+     *         history = resultOfThisPublisher();
+     *     }
+     *     return history.subList(max(0, history.size() - maxHistory), history.size());
+     * }</pre>
+     *
+     * @param maxHistory The maximum number of items replayed to a {@link Subscriber} which subscribes late.
+     * @return A {@link Publisher} which shares a single subscription to this {@link Publisher} and replays up to
+     * {@code maxHistory} items to late {@link Subscriber}s.
+     * @see <a href="http://reactivex.io/documentation/operators/replay.html">ReactiveX replay operator.</a>
+     * @see #cache()
+     */
+    public final Publisher<T> replay(int maxHistory) {
+        return replay(maxHistory, false);
+    }
+
+    /**
+     * Create a {@link Publisher} which subscribes to this {@link Publisher} once, when it is first
+     * {@link #subscribe(Subscriber) subscribed}, and replays up to the last {@code maxHistory} items to any number of
+     * {@link Subscriber}s, like {@link #replay(int)}.
+     * <p>
+     * If {@code cancelWhenUnsubscribed} is {@code true}, this {@link Publisher} is
+     * {@link Subscription#cancel() cancelled} as soon as all {@link Subscriber}s which did not terminate have
+     * {@link Subscription#cancel() cancelled}. {@link Subscriber}s which subscribe after that receive up to the last
+     * {@code maxHistory} items followed by a {@link java.util.concurrent.CancellationException}.
+     *
+     * @param maxHistory The maximum number of items replayed to a {@link Subscriber} which subscribes late.
+     * @param cancelWhenUnsubscribed {@code true} to cancel this {@link Publisher} once no {@link Subscriber} is left.
+     * @return A {@link Publisher} which shares a single subscription to this {@link Publisher} and replays up to
+     * {@code maxHistory} items to late {@link Subscriber}s.
+     * @see <a href="http://reactivex.io/documentation/operators/replay.html">ReactiveX replay operator.</a>
+     * @see #replay(int)
+     */
+    public final Publisher<T> replay(int maxHistory, boolean cancelWhenUnsubscribed) {
+        return new ReplayPublisher<>(this, maxHistory, cancelWhenUnsubscribed, executor);
+    }
+
+    /**
+     * Create a {@link Publisher} which subscribes to this {@link Publisher} once, when it is first
+     * {@link #subscribe(Subscriber) subscribed}, and replays all of its items and its terminal signal to any number
+     * of {@link Subscriber}s.
+     * <p>
+     * All items are retained for as long as the returned {@link Publisher} is reachable, this is meant for
+     * {@link Publisher}s which emit a bounded number of items. Use {@link #replay(int)} to bound the history.
+     * <p>
+     * In sequential programming this is similar to the following:
+     * <pre>{@code
+     *     if (history == null) {
+     *         history = resultOfThisPublisher();
+     *     }
+     *     return history;
+     * }</pre>
+     *
+     * @return A {@link Publisher} which shares a single subscription to this {@link Publisher} and replays all of its
+     * items to every {@link Subscriber}.
+     * @see <a href="http://reactivex.io/documentation/operators/replay.html">ReactiveX replay operator.</a>
+     * @see #replay(int)
+     */
+    public final Publisher<T> cache() {
+        return replay(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Requests all items from this {@link Publisher} and buffers up to {@code capacity} items until they are
+     * requested by the {@link Subscriber}. If the buffer is full this {@link Publisher} is
+     * {@link Subscription#cancel() cancelled} and the {@link Subscriber} is terminated with a
+     * {@link io.servicetalk.concurrent.internal.QueueFullException}.
+     * <p>
+     * This is useful if this {@link Publisher} can not slow down, but the {@link Subscriber} is expected to catch up
+     * after a bounded burst of items.
+     *
+     * @param capacity The maximum number of items to buffer.
+     * @return A {@link Publisher} which buffers up to {@code capacity} items requested by the {@link Subscriber}.
+     * @see <a href="http://reactivex.io/documentation/operators/backpressure.html">ReactiveX backpressure operators.</a>
+     * @see #onBackpressureBuffer(int, BufferOverflowPolicy)
+     */
+    public final Publisher<T> onBackpressureBuffer(int capacity) {
+        return onBackpressureBuffer(capacity, BufferOverflowPolicy.FAIL);
+    }
+
+    /**
+     * Requests all items from this {@link Publisher} and buffers up to {@code capacity} items until they are
+     * requested by the {@link Subscriber}. Items emitted while the buffer is full are handled according to
+     * {@code overflowPolicy}.
+     * <p>
+     * Completion is delivered after all buffered items were emitted, errors are delivered without waiting for demand
+     * and discard the buffered items.
+     *
+     * @param capacity The maximum number of items to buffer.
+     * @param overflowPolicy Determines what happens to an item which is emitted while the buffer is full.
+     * @return A {@link Publisher} which buffers up to {@code capacity} items requested by the {@link Subscriber}.
+     * @see <a href="http://reactivex.io/documentation/operators/backpressure.html">ReactiveX backpressure operators.</a>
+     */
+    public final Publisher<T> onBackpressureBuffer(int capacity, BufferOverflowPolicy overflowPolicy) {
+        return new PublisherOnBackpressureBuffer<>(this, capacity, overflowPolicy, executor);
+    }
+
+    /**
+     * Requests all items from this {@link Publisher} and discards items which are emitted while the {@link Subscriber}
+     * has no demand.
+     *
+     * @return A {@link Publisher} which discards items for which the {@link Subscriber} has no demand.
+     * @see <a href="http://reactivex.io/documentation/operators/backpressure.html">ReactiveX backpressure operators.</a>
+     * @see #onBackpressureDrop(Consumer)
+     */
+    public final Publisher<T> onBackpressureDrop() {
+        return onBackpressureDrop(t -> { });
+    }
+
+    /**
+     * Requests all items from this {@link Publisher} and passes items which are emitted while the {@link Subscriber}
+     * has no demand to {@code onDrop} instead of the {@link Subscriber}.
+     *
+     * @param onDrop Invoked for every discarded item, for example to release resources or to count dropped items.
+     * @return A {@link Publisher} which discards items for which the {@link Subscriber} has no demand.
+     * @see <a href="http://reactivex.io/documentation/operators/backpressure.html">ReactiveX backpressure operators.</a>
+     */
+    public final Publisher<T> onBackpressureDrop(Consumer<? super T> onDrop) {
+        return new PublisherOnBackpressureDrop<>(this, onDrop, executor);
+    }
+
+    /**
+     * Requests all items from this {@link Publisher} and only keeps the latest item emitted while the
+     * {@link Subscriber} has no demand, which is emitted as soon as the {@link Subscriber} requests more.
+     * <p>
+     * This is the same as {@code onBackpressureBuffer(1, BufferOverflowPolicy.DROP_OLDEST)} and is useful for
+     * {@link Publisher}s which emit the current state of something, where only the most recent state matters.
+     *
+     * @return A {@link Publisher} which only keeps the latest item for which the {@link Subscriber} has no demand.
+     * @see <a href="http://reactivex.io/documentation/operators/backpressure.html">ReactiveX backpressure operators.</a>
+     */
+    public final Publisher<T> onBackpressureLatest() {
+        return onBackpressureBuffer(1, BufferOverflowPolicy.DROP_OLDEST);
+    }
+
     /**
      * Invokes the {@code onSubscribe} {@link Consumer} argument <strong>before</strong>
      * {@link Subscriber#onSubscribe(Subscription)} is called for {@link Subscriber}s of the returned {@link Publisher}.
@@ -2172,6 +2604,95 @@ public abstract class Publisher<T> implements org.reactivestreams.Publisher<T> {
         return new PublisherDefer<>(publisherSupplier);
     }
 
+    /**
+     * Merges all items emitted by {@code publishers} into the returned {@link Publisher}. All {@code publishers} are
+     * subscribed to concurrently, and the returned {@link Publisher} completes once all of them completed.
+     * <p>
+     * This is the same as {@code from(publishers).flatMapMerge(identity(), publishers.length)}, items are emitted in
+     * the order they arrive and the first error cancels all other {@code publishers}.
+     *
+     * @param publishers The {@link Publisher}s to merge.
+     * @param <T> Type of items emitted by the returned {@link Publisher}.
+     * @return A {@link Publisher} which emits all items emitted by {@code publishers}.
+     * @see <a href="http://reactivex.io/documentation/operators/merge.html">ReactiveX merge operator.</a>
+     * @see #flatMapMerge(Function, int)
+     */
+    @SafeVarargs
+    public static <T> Publisher<T> merge(Publisher<T>... publishers) {
+        return from(publishers).flatMapMerge(identity(), max(1, publishers.length));
+    }
+
+    /**
+     * Merges all items emitted by {@code publishers} into the returned {@link Publisher}. If {@code publishers} is a
+     * {@link Collection} all of them are subscribed to concurrently, otherwise as many are subscribed to at a time
+     * as by {@link #flatMapMerge(Function)}.
+     *
+     * @param publishers The {@link Publisher}s to merge.
+     * @param <T> Type of items emitted by the returned {@link Publisher}.
+     * @return A {@link Publisher} which emits all items emitted by {@code publishers}.
+     * @see <a href="http://reactivex.io/documentation/operators/merge.html">ReactiveX merge operator.</a>
+     * @see #flatMapMerge(Function, int)
+     */
+    public static <T> Publisher<T> merge(Iterable<Publisher<T>> publishers) {
+        return from(publishers).flatMapMerge(identity(), publishers instanceof Collection ?
+                max(1, ((Collection<?>) publishers).size()) : PublisherFlatMapMerge.DEFAULT_MAX_CONCURRENCY);
+    }
+
+    /**
+     * Combines the items emitted by {@code first} and {@code second} pairwise using {@code zipper}. Both
+     * {@link Publisher}s are subscribed to concurrently, and the returned {@link Publisher} completes as soon as one of
+     * them completed and all its items were combined.
+     * <p>
+     * In sequential programming this is similar to the following:
+     * <pre>{@code
+     *     List<R> results = ...;
+     *     Iterator<T1> firstItr = resultOfFirst().iterator();
+     *     Iterator<T2> secondItr = resultOfSecond().iterator();
+     *     while (firstItr.hasNext() && secondItr.hasNext()) {
+     *         results.add(zipper.apply(firstItr.next(), secondItr.next()));
+     *     }
+     *     return results;
+     * }</pre>
+     *
+     * @param first The first {@link Publisher} to combine.
+     * @param second The second {@link Publisher} to combine.
+     * @param zipper Combines an item of {@code first} with the item of {@code second} at the same position.
+     * @param <T1> Type of items emitted by {@code first}.
+     * @param <T2> Type of items emitted by {@code second}.
+     * @param <R> Type of items emitted by the returned {@link Publisher}.
+     * @return A {@link Publisher} which emits the combined items of {@code first} and {@code second}.
+     * @see <a href="http://reactivex.io/documentation/operators/zip.html">ReactiveX zip operator.</a>
+     */
+    public static <T1, T2, R> Publisher<R> zip(Publisher<T1> first, Publisher<T2> second,
+                                               BiFunction<? super T1, ? super T2, ? extends R> zipper) {
+        requireNonNull(zipper);
+        return new PublisherZip<>(new Publisher<?>[] {first, second}, values -> {
+            @SuppressWarnings("unchecked")
+            final T1 t1 = (T1) values[0];
+            @SuppressWarnings("unchecked")
+            final T2 t2 = (T2) values[1];
+            return zipper.apply(t1, t2);
+        }, PublisherZip.DEFAULT_PREFETCH);
+    }
+
+    /**
+     * Combines the items emitted by {@code publishers} using {@code zipper}, which receives one item of each
+     * {@link Publisher} in the same order as {@code publishers}. All {@code publishers} are subscribed to
+     * concurrently, and the returned {@link Publisher} completes as soon as one of them completed and all its items
+     * were combined.
+     * <p>
+     * The array passed to {@code zipper} is reused for every combination and <strong>MUST NOT</strong> be retained.
+     *
+     * @param zipper Combines one item of each {@link Publisher}.
+     * @param publishers The {@link Publisher}s to combine.
+     * @param <R> Type of items emitted by the returned {@link Publisher}.
+     * @return A {@link Publisher} which emits the combined items of {@code publishers}.
+     * @see <a href="http://reactivex.io/documentation/operators/zip.html">ReactiveX zip operator.</a>
+     */
+    public static <R> Publisher<R> zip(Function<? super Object[], ? extends R> zipper, Publisher<?>... publishers) {
+        return new PublisherZip<>(publishers, zipper, PublisherZip.DEFAULT_PREFETCH);
+    }
+
     /**
      * Returns a {@link Publisher} that wraps a {@link org.reactivestreams.Publisher}.
      *
@@ -0,0 +1,350 @@
+/*
+ * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.concurrent.api;
+
+import io.servicetalk.concurrent.Cancellable;
+import io.servicetalk.concurrent.internal.ConcurrentSubscription;
+import io.servicetalk.concurrent.internal.FlowControlUtil;
+import io.servicetalk.concurrent.internal.TerminalNotification;
+
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.function.ToLongFunction;
+import javax.annotation.Nullable;
+
+import static io.servicetalk.concurrent.internal.PlatformDependent.newUnboundedMpscQueue;
+import static io.servicetalk.concurrent.internal.SubscriberUtils.NULL_TOKEN;
+import static io.servicetalk.concurrent.internal.SubscriberUtils.checkDuplicateSubscription;
+import static io.servicetalk.concurrent.internal.SubscriberUtils.isRequestNValid;
+import static io.servicetalk.concurrent.internal.TerminalNotification.complete;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * As returned by {@link Publisher#buffer(int)} and its variants.
+ * <p>
+ * A batch is closed once it holds {@code maxCount} items, once the accumulated size of its items reaches
+ * {@code maxSize}, or {@code maxDelayNs} after its first item was added, whichever happens first. Items are only
+ * requested from the source to fill the current batch, and only while the {@link Subscriber} has demand for batches,
+ * so at most {@code maxCount} items are ever outstanding.
+ *
+ * @param <T> Type of items emitted by the source {@link Publisher}.
+ */
+final class PublisherBuffer<T> extends AbstractAsynchronousPublisherOperator<T, List<T>> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PublisherBuffer.class);
+
+    /**
+     * Used to size the first batch, subsequent batches are sized like the previous one.
+     */
+    private static final int INITIAL_BATCH_CAPACITY = 16;
+
+    private final int maxCount;
+    private final long maxSize;
+    @Nullable
+    private final ToLongFunction<? super T> sizeFunction;
+    private final long maxDelayNs;
+    @Nullable
+    private final Executor timerExecutor;
+
+    PublisherBuffer(Publisher<T> original, int maxCount, Executor executor) {
+        this(original, maxCount, Long.MAX_VALUE, null, 0, null, executor);
+    }
+
+    PublisherBuffer(Publisher<T> original, int maxCount, long maxSize, @Nullable ToLongFunction<? super T> sizeFunction,
+                    long maxDelayNs, @Nullable Executor timerExecutor, Executor executor) {
+        super(original, executor);
+        if (maxCount <= 0) {
+            throw new IllegalArgumentException("maxCount: " + maxCount + " (expected > 0)");
+        }
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize: " + maxSize + " (expected > 0)");
+        }
+        if (timerExecutor != null && maxDelayNs <= 0) {
+            throw new IllegalArgumentException("maxDelayNs: " + maxDelayNs + " (expected > 0)");
+        }
+        this.maxCount = maxCount;
+        this.maxSize = maxSize;
+        this.sizeFunction = sizeFunction;
+        this.maxDelayNs = maxDelayNs;
+        this.timerExecutor = timerExecutor;
+    }
+
+    @Override
+    public Subscriber<? super T> apply(Subscriber<? super List<T>> subscriber) {
+        return new BufferSubscriber<>(this, subscriber);
+    }
+
+    private static final class BufferSubscriber<T> implements Subscriber<T>, Subscription {
+        private static final AtomicIntegerFieldUpdater<BufferSubscriber> wipUpdater =
+                AtomicIntegerFieldUpdater.newUpdater(BufferSubscriber.class, "wip");
+        private static final AtomicLongFieldUpdater<BufferSubscriber> requestedUpdater =
+                AtomicLongFieldUpdater.newUpdater(BufferSubscriber.class, "requested");
+        private static final AtomicLongFieldUpdater<BufferSubscriber> timedOutBatchIdUpdater =
+                AtomicLongFieldUpdater.newUpdater(BufferSubscriber.class, "timedOutBatchId");
+
+        @SuppressWarnings("unused")
+        private volatile int wip;
+        @SuppressWarnings("unused")
+        private volatile long requested;
+        /**
+         * The highest {@link #batchId} for which the timer fired.
+         */
+        private volatile long timedOutBatchId = -1;
+        private volatile boolean cancelled;
+        @Nullable
+        private volatile Subscription subscription;
+        @Nullable
+        private volatile TerminalNotification terminalNotification;
+
+        /**
+         * These variables are only accessed while draining, and the "wip" counter provides visibility to other threads.
+         */
+        private List<T> current;
+        private long currentSize;
+        private long batchId;
+        @Nullable
+        private Cancellable batchTimer;
+        private long sourceOutstanding;
+        private long emitted;
+        private boolean targetTerminated;
+        private final Queue<List<T>> closedBatches = new ArrayDeque<>(2);
+
+        /**
+         * Items delivered while another thread was draining.
+         */
+        private final Queue<Object> pending;
+        private final PublisherBuffer<T> source;
+        private final Subscriber<? super List<T>> target;
+
+        BufferSubscriber(PublisherBuffer<T> source, Subscriber<? super List<T>> target) {
+            this.source = source;
+            this.target = target;
+            current = new ArrayList<>(min(source.maxCount, INITIAL_BATCH_CAPACITY));
+            pending = newUnboundedMpscQueue(min(source.maxCount, INITIAL_BATCH_CAPACITY));
+        }
+
+        @Override
+        public void request(long n) {
+            final Subscription s = subscription;
+            assert s != null : "Subscription can not be null in request(n).";
+            if (!isRequestNValid(n)) {
+                s.request(n);
+                return;
+            }
+            requestedUpdater.accumulateAndGet(this, n, FlowControlUtil::addWithOverflowProtection);
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            final Subscription s = subscription;
+            assert s != null : "Subscription can not be null in cancel().";
+            s.cancel();
+            // Drain to stop the timer and discard any items queued so far.
+            drain();
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            if (!checkDuplicateSubscription(subscription, s)) {
+                return;
+            }
+            // The source is requested from the downstream Subscriber's thread and from the timer thread.
+            subscription = ConcurrentSubscription.wrap(s);
+            target.onSubscribe(this);
+        }
+
+        @Override
+        public void onNext(@Nullable T t) {
+            // Add the item directly if no other thread is draining, which is the common case unless a timer fires
+            // concurrently.
+            if (wip == 0 && wipUpdater.compareAndSet(this, 0, 1)) {
+                addToBatch(t);
+            } else {
+                pending.offer(t == null ? NULL_TOKEN : t);
+                if (wipUpdater.getAndIncrement(this) != 0) {
+                    return;
+                }
+            }
+            drainLoop();
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            if (cancelled || terminalNotification != null) {
+                LOGGER.debug("Already terminated/cancelled, ignoring error notification.", t);
+                return;
+            }
+            terminalNotification = TerminalNotification.error(t);
+            drain();
+        }
+
+        @Override
+        public void onComplete() {
+            if (cancelled || terminalNotification != null) {
+                return;
+            }
+            terminalNotification = complete();
+            drain();
+        }
+
+        private void onTimer(long timedOutBatchId) {
+            // A timer of an earlier batch may fire late even though it was cancelled, it must not hide the timeout of
+            // a later batch.
+            timedOutBatchIdUpdater.accumulateAndGet(this, timedOutBatchId, Math::max);
+            drain();
+        }
+
+        private void drain() {
+            if (wipUpdater.getAndIncrement(this) == 0) {
+                drainLoop();
+            }
+        }
+
+        private void drainLoop() {
+            int missed = 1;
+            for (;;) {
+                Object item;
+                while ((item = pending.poll()) != null) {
+                    @SuppressWarnings("unchecked")
+                    final T t = (T) (item == NULL_TOKEN ? null : item);
+                    addToBatch(t);
+                }
+                emitClosedBatches();
+                missed = wipUpdater.addAndGet(this, -missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+        private void addToBatch(@Nullable T t) {
+            if (targetTerminated || cancelled) {
+                return;
+            }
+            --sourceOutstanding;
+            if (current.isEmpty() && source.timerExecutor != null) {
+                startBatchTimer(source.timerExecutor);
+            }
+            current.add(t);
+            if (source.sizeFunction != null) {
+                currentSize += source.sizeFunction.applyAsLong(t);
+            }
+            if (current.size() >= source.maxCount || currentSize >= source.maxSize) {
+                closeBatch();
+            }
+        }
+
+        private void startBatchTimer(Executor timerExecutor) {
+            final long id = batchId;
+            try {
+                batchTimer = timerExecutor.schedule(() -> onTimer(id), source.maxDelayNs, NANOSECONDS);
+            } catch (Throwable cause) {
+                LOGGER.debug("Failed to schedule the timer for batch {}, it will be emitted once full.", id, cause);
+            }
+        }
+
+        private void closeBatch() {
+            final Cancellable batchTimer = this.batchTimer;
+            if (batchTimer != null) {
+                this.batchTimer = null;
+                batchTimer.cancel();
+            }
+            final List<T> closed = current;
+            closedBatches.add(closed);
+            // The batch is handed over to the Subscriber so we can not reuse it, but we size the next one like it to
+            // avoid growing the backing array.
+            current = new ArrayList<>(max(1, closed.size()));
+            currentSize = 0;
+            ++batchId;
+        }
+
+        private void emitClosedBatches() {
+            for (;;) {
+                if (targetTerminated) {
+                    return;
+                }
+                if (cancelled) {
+                    terminate(null);
+                    return;
+                }
+                final TerminalNotification terminal = terminalNotification;
+                if (terminal != null && terminal.getCause() != null) {
+                    terminate(terminal);
+                    return;
+                }
+                if (!current.isEmpty() && (terminal != null || timedOutBatchId == batchId)) {
+                    closeBatch();
+                }
+                final List<T> batch = closedBatches.peek();
+                if (batch == null) {
+                    if (terminal != null) {
+                        terminate(terminal);
+                    } else {
+                        requestSourceIfNecessary();
+                    }
+                    return;
+                }
+                if (emitted == requested) {
+                    return;
+                }
+                closedBatches.poll();
+                ++emitted;
+                target.onNext(batch);
+            }
+        }
+
+        private void requestSourceIfNecessary() {
+            // Only request items for the batch which is currently filled, and only if the Subscriber has demand for it.
+            if (emitted == requested) {
+                return;
+            }
+            final long toRequest = source.maxCount - current.size() - sourceOutstanding;
+            if (toRequest > 0) {
+                sourceOutstanding += toRequest;
+                final Subscription s = subscription;
+                assert s != null;
+                s.request(toRequest);
+            }
+        }
+
+        private void terminate(@Nullable TerminalNotification terminal) {
+            targetTerminated = true;
+            final Cancellable batchTimer = this.batchTimer;
+            if (batchTimer != null) {
+                this.batchTimer = null;
+                batchTimer.cancel();
+            }
+            closedBatches.clear();
+            current.clear();
+            pending.clear();
+            if (terminal != null) {
+                terminal.terminate(target);
+            }
+        }
+    }
+}
@@ -0,0 +1,354 @@
+/*
+ * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.concurrent.api;
+
+import io.servicetalk.concurrent.Cancellable;
+import io.servicetalk.concurrent.internal.ConcurrentSubscription;
+import io.servicetalk.concurrent.internal.DelayedSubscription;
+import io.servicetalk.concurrent.internal.FlowControlUtil;
+import io.servicetalk.concurrent.internal.QueueFullException;
+import io.servicetalk.concurrent.internal.TerminalNotification;
+
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.Function;
+import javax.annotation.Nullable;
+
+import static io.servicetalk.concurrent.internal.PlatformDependent.newSpscQueue;
+import static io.servicetalk.concurrent.internal.PlatformDependent.newUnboundedMpscQueue;
+import static io.servicetalk.concurrent.internal.SubscriberUtils.NULL_TOKEN;
+import static io.servicetalk.concurrent.internal.SubscriberUtils.checkDuplicateSubscription;
+import static io.servicetalk.concurrent.internal.SubscriberUtils.isRequestNValid;
+import static io.servicetalk.concurrent.internal.SubscriberUtils.trySetTerminal;
+import static io.servicetalk.concurrent.internal.TerminalNotification.complete;
+import static java.lang.Math.min;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.atomic.AtomicReferenceFieldUpdater.newUpdater;
+
+/**
+ * As returned by {@link Publisher#flatMapMerge(Function, int, int)} and its variants.
+ * <p>
+ * Each inner {@link Publisher} buffers up to {@code prefetch} items in its own single-producer queue and announces
+ * every item (and its completion) by enqueueing itself on a shared multi-producer "ready" queue. A single thread at a
+ * time drains the "ready" queue, so items from the same inner {@link Publisher} keep their relative order while items
+ * from different inner {@link Publisher}s are interleaved in arrival order, without locking or per-item allocation.
+ *
+ * @param <T> Type of items emitted by source {@link Publisher}
+ * @param <R> Type of items emitted by this {@link Publisher}
+ */
+final class PublisherFlatMapMerge<T, R> extends AbstractAsynchronousPublisherOperator<T, R> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PublisherFlatMapMerge.class);
+
+    static final int DEFAULT_MAX_CONCURRENCY = 16;
+    static final int DEFAULT_PREFETCH = 32;
+
+    private final Function<T, Publisher<R>> mapper;
+    private final int maxConcurrency;
+    private final int prefetch;
+
+    PublisherFlatMapMerge(Publisher<T> original, Function<T, Publisher<R>> mapper, int maxConcurrency, int prefetch,
+                          Executor executor) {
+        super(original, executor);
+        this.mapper = requireNonNull(mapper);
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("maxConcurrency: " + maxConcurrency + " (expected > 0)");
+        }
+        if (prefetch <= 0) {
+            throw new IllegalArgumentException("prefetch: " + prefetch + " (expected > 0)");
+        }
+        this.maxConcurrency = maxConcurrency;
+        this.prefetch = prefetch;
+    }
+
+    @Override
+    public Subscriber<? super T> apply(Subscriber<? super R> subscriber) {
+        return new FlatMapMergeSubscriber<>(this, subscriber);
+    }
+
+    private static final class FlatMapMergeSubscriber<T, R> implements Subscriber<T>, Subscription {
+        private static final AtomicIntegerFieldUpdater<FlatMapMergeSubscriber> wipUpdater =
+                AtomicIntegerFieldUpdater.newUpdater(FlatMapMergeSubscriber.class, "wip");
+        private static final AtomicIntegerFieldUpdater<FlatMapMergeSubscriber> activeUpdater =
+                AtomicIntegerFieldUpdater.newUpdater(FlatMapMergeSubscriber.class, "active");
+        private static final AtomicIntegerFieldUpdater<FlatMapMergeSubscriber> sourceRequestSentUpdater =
+                AtomicIntegerFieldUpdater.newUpdater(FlatMapMergeSubscriber.class, "sourceRequestSent");
+        private static final AtomicLongFieldUpdater<FlatMapMergeSubscriber> requestedUpdater =
+                AtomicLongFieldUpdater.newUpdater(FlatMapMergeSubscriber.class, "requested");
+        private static final AtomicReferenceFieldUpdater<FlatMapMergeSubscriber, TerminalNotification>
+                terminalNotificationUpdater = newUpdater(FlatMapMergeSubscriber.class, TerminalNotification.class,
+                "terminalNotification");
+
+        @SuppressWarnings("unused")
+        private volatile int wip;
+        @SuppressWarnings("unused")
+        private volatile int active; // Number of inner Publishers which have not yet been drained completely.
+        @SuppressWarnings("unused")
+        private volatile int sourceRequestSent;
+        @SuppressWarnings("unused")
+        private volatile long requested;
+        private volatile boolean cancelled;
+        @Nullable
+        private volatile Subscription subscription;
+        @SuppressWarnings("unused")
+        @Nullable
+        private volatile TerminalNotification terminalNotification;
+
+        /**
+         * These variables are only accessed while draining, and the "wip" counter provides visibility to other threads.
+         */
+        private long emitted;
+        private boolean targetTerminated;
+
+        /**
+         * Contains an {@link InnerSubscriber} for every item it has queued, and once more after it has completed.
+         */
+        private final Queue<InnerSubscriber> ready;
+        private final DynamicCompositeCancellable cancellable = new MapDynamicCompositeCancellable();
+        private final PublisherFlatMapMerge<T, R> source;
+        private final Subscriber<? super R> target;
+
+        FlatMapMergeSubscriber(PublisherFlatMapMerge<T, R> source, Subscriber<? super R> target) {
+            this.source = source;
+            this.target = target;
+            // Up to maxConcurrency * prefetch entries may be queued, but start with a small capacity as that can be large.
+            ready = newUnboundedMpscQueue((int) min(256L, (long) source.maxConcurrency * source.prefetch));
+        }
+
+        @Override
+        public void request(long n) {
+            final Subscription s = subscription;
+            assert s != null : "Subscription can not be null in request(n).";
+            if (!isRequestNValid(n)) {
+                s.request(n);
+                return;
+            }
+            requestedUpdater.accumulateAndGet(this, n, FlowControlUtil::addWithOverflowProtection);
+            // Source items are only requested once there is demand, and then only to keep maxConcurrency inner
+            // Publishers active.
+            if (sourceRequestSent == 0 && sourceRequestSentUpdater.compareAndSet(this, 0, 1)) {
+                s.request(source.maxConcurrency);
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            final Subscription s = subscription;
+            assert s != null : "Subscription can not be null in cancel().";
+            s.cancel();
+            cancellable.cancel();
+            // Drain to discard any items queued so far.
+            drain();
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            if (!checkDuplicateSubscription(subscription, s)) {
+                return;
+            }
+            // Requests to the source come from the downstream Subscriber and from the draining thread.
+            subscription = ConcurrentSubscription.wrap(s);
+            target.onSubscribe(this);
+        }
+
+        @Override
+        public void onNext(T t) {
+            if (terminalNotification != null || cancelled) {
+                // An inner Publisher failed or we are cancelled, the source may still emit items while processing the
+                // cancel.
+                return;
+            }
+            // If Function.apply(...) throws we just propagate it to the caller which is responsible to terminate
+            // its subscriber and cancel the subscription.
+            final Publisher<R> next = requireNonNull(source.mapper.apply(t));
+            final InnerSubscriber inner = new InnerSubscriber(source.prefetch);
+            activeUpdater.incrementAndGet(this);
+            if (cancellable.add(inner)) {
+                next.subscribe(inner);
+            }
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            if (cancelled || !onError0(t, false)) {
+                LOGGER.debug("Already terminated/cancelled, ignoring error notification.", t);
+            }
+        }
+
+        @Override
+        public void onComplete() {
+            if (!cancelled && trySetTerminal(complete(), false, terminalNotificationUpdater, this)) {
+                drain();
+            }
+        }
+
+        private boolean onError0(Throwable cause, boolean cancelSubscription) {
+            if (!trySetTerminal(TerminalNotification.error(cause), true, terminalNotificationUpdater, this)) {
+                return false;
+            }
+            cancellable.cancel();
+            if (cancelSubscription) {
+                final Subscription s = subscription;
+                assert s != null;
+                s.cancel();
+            }
+            drain();
+            return true;
+        }
+
+        private void drain() {
+            if (wipUpdater.getAndIncrement(this) != 0) {
+                return;
+            }
+            int missed = 1;
+            for (;;) {
+                drainReady();
+                missed = wipUpdater.addAndGet(this, -missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+        private void drainReady() {
+            final long requested = this.requested;
+            long emitted = this.emitted;
+            for (;;) {
+                if (targetTerminated || cancelled) {
+                    // No notifications past terminal/cancelled.
+                    ready.clear();
+                    return;
+                }
+                final TerminalNotification terminal = terminalNotification;
+                if (terminal != null && terminal.getCause() != null) {
+                    terminateTarget(terminal);
+                    return;
+                }
+                final InnerSubscriber inner = ready.peek();
+                if (inner == null) {
+                    // onNext of the source increments active before onComplete sets the terminal notification, and
+                    // active is only decremented here, so if it is 0 now there is nothing left to emit.
+                    if (terminal != null && active == 0) {
+                        terminateTarget(terminal);
+                        return;
+                    }
+                    break;
+                }
+                final Object item = inner.queue.peek();
+                if (item == null) {
+                    // Items are always queued before the InnerSubscriber is put in the ready queue, so an empty queue
+                    // means this entry signals that the inner Publisher completed. This requires no demand.
+                    ready.poll();
+                    onInnerComplete(inner);
+                    continue;
+                }
+                if (emitted == requested) {
+                    break;
+                }
+                ready.poll();
+                inner.queue.poll();
+                ++emitted;
+                @SuppressWarnings("unchecked")
+                final R r = (R) (item == NULL_TOKEN ? null : item);
+                target.onNext(r);
+                inner.itemEmitted();
+            }
+            this.emitted = emitted;
+        }
+
+        private void onInnerComplete(InnerSubscriber inner) {
+            cancellable.remove(inner);
+            activeUpdater.decrementAndGet(this);
+            // Replace the completed inner Publisher to keep maxConcurrency active.
+            final Subscription s = subscription;
+            assert s != null;
+            s.request(1);
+        }
+
+        private void terminateTarget(TerminalNotification terminal) {
+            targetTerminated = true;
+            ready.clear();
+            terminal.terminate(target);
+        }
+
+        private final class InnerSubscriber implements Subscriber<R>, Cancellable {
+            private final DelayedSubscription subscription = new DelayedSubscription();
+            private final Queue<Object> queue;
+            private final int limit;
+            /**
+             * Only accessed while draining.
+             */
+            private int consumed;
+
+            InnerSubscriber(int prefetch) {
+                // Start with a small capacity as there can be many inner Publishers.
+                queue = newSpscQueue(8, prefetch);
+                // Replenish once 3/4th of the prefetched items have been emitted.
+                limit = prefetch - (prefetch >> 2);
+                // The DelayedSubscription forwards this once onSubscribe is called.
+                subscription.request(prefetch);
+            }
+
+            @Override
+            public void onSubscribe(Subscription s) {
+                subscription.setDelayedSubscription(s);
+            }
+
+            @Override
+            public void onNext(@Nullable R r) {
+                if (!queue.offer(r == null ? NULL_TOKEN : r)) {
+                    onError(new QueueFullException("flatMapMerge-inner", source.prefetch));
+                    return;
+                }
+                ready.offer(this);
+                drain();
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                if (cancelled || !onError0(t, true)) {
+                    LOGGER.debug("Already terminated/cancelled, ignoring error notification.", t);
+                }
+            }
+
+            @Override
+            public void onComplete() {
+                ready.offer(this);
+                drain();
+            }
+
+            @Override
+            public void cancel() {
+                subscription.cancel();
+            }
+
+            void itemEmitted() {
+                if (++consumed == limit) {
+                    consumed = 0;
+                    subscription.request(limit);
+                }
+            }
+        }
+    }
+}
@@ -52,6 +52,8 @@ import static java.util.concurrent.atomic.AtomicReferenceFieldUpdater.newUpdater
  * @param <T> Type of items emitted by source {@link Publisher}
  */
 final class PublisherFlatMapSingle<T, R> extends AbstractAsynchronousPublisherOperator<T, R> {
+    static final int DEFAULT_MAX_CONCURRENCY = 16;
+
     private static final Logger LOGGER = LoggerFactory.getLogger(PublisherFlatMapSingle.class);
 
     private final Function<T, Single<R>> mapper;
@@ -60,7 +62,7 @@ final class PublisherFlatMapSingle<T, R> extends AbstractAsynchronousPublisherOp
 
     PublisherFlatMapSingle(Publisher<T> original, Function<T, Single<R>> mapper, boolean delayError,
                            Executor executor) {
-        this(original, mapper, 16, delayError, executor);
+        this(original, mapper, DEFAULT_MAX_CONCURRENCY, delayError, executor);
     }
 
     PublisherFlatMapSingle(Publisher<T> original, Function<T, Single<R>> mapper, int maxConcurrency, boolean delayError,
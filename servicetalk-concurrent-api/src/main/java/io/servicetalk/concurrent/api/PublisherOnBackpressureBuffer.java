@@ -0,0 +1,307 @@
+/*
+ * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.concurrent.api;
+
+import io.servicetalk.concurrent.internal.ConcurrentSubscription;
+import io.servicetalk.concurrent.internal.FlowControlUtil;
+import io.servicetalk.concurrent.internal.QueueFullException;
+import io.servicetalk.concurrent.internal.TerminalNotification;
+
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import javax.annotation.Nullable;
+
+import static io.servicetalk.concurrent.internal.PlatformDependent.newUnboundedSpscQueue;
+import static io.servicetalk.concurrent.internal.SubscriberUtils.NULL_TOKEN;
+import static io.servicetalk.concurrent.internal.SubscriberUtils.checkDuplicateSubscription;
+import static io.servicetalk.concurrent.internal.SubscriberUtils.isRequestNValid;
+import static io.servicetalk.concurrent.internal.SubscriberUtils.newExceptionForInvalidRequestN;
+import static io.servicetalk.concurrent.internal.TerminalNotification.complete;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * As returned by {@link Publisher#onBackpressureBuffer(int, BufferOverflowPolicy)} and
+ * {@link Publisher#onBackpressureLatest()}.
+ * <p>
+ * Requests everything from the original {@link Publisher} and buffers up to {@code capacity} items until the
+ * {@link Subscriber} requests them. The buffer is a single-producer single-consumer queue, the producer is the
+ * original {@link Publisher} and the consumer is whichever thread drains. {@link BufferOverflowPolicy#DROP_OLDEST} can
+ * not remove items from the producer side, so it counts the items to discard and the consumer removes them from the
+ * head of the queue before emitting the next item. The number of items to emit and to discard are updated atomically
+ * together, so the producer never drops an item which the consumer has already taken.
+ *
+ * @param <T> Type of items emitted.
+ */
+final class PublisherOnBackpressureBuffer<T> extends AbstractAsynchronousPublisherOperator<T, T> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PublisherOnBackpressureBuffer.class);
+
+    private static final int MIN_QUEUE_CHUNK_SIZE = 8;
+    private static final int MAX_QUEUE_CHUNK_SIZE = 64;
+
+    private final int capacity;
+    private final BufferOverflowPolicy overflowPolicy;
+
+    PublisherOnBackpressureBuffer(Publisher<T> original, int capacity, BufferOverflowPolicy overflowPolicy,
+                                  Executor executor) {
+        super(original, executor);
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity: " + capacity + " (expected > 0)");
+        }
+        this.capacity = capacity;
+        this.overflowPolicy = requireNonNull(overflowPolicy);
+    }
+
+    @Override
+    public Subscriber<? super T> apply(Subscriber<? super T> subscriber) {
+        return new OnBackpressureBufferSubscriber<>(this, subscriber);
+    }
+
+    private static final class OnBackpressureBufferSubscriber<T> implements Subscriber<T>, Subscription {
+        private static final AtomicIntegerFieldUpdater<OnBackpressureBufferSubscriber> wipUpdater =
+                AtomicIntegerFieldUpdater.newUpdater(OnBackpressureBufferSubscriber.class, "wip");
+        private static final AtomicLongFieldUpdater<OnBackpressureBufferSubscriber> bufferStateUpdater =
+                AtomicLongFieldUpdater.newUpdater(OnBackpressureBufferSubscriber.class, "bufferState");
+        private static final AtomicLongFieldUpdater<OnBackpressureBufferSubscriber> requestedUpdater =
+                AtomicLongFieldUpdater.newUpdater(OnBackpressureBufferSubscriber.class, "requested");
+        private static final int TO_DISCARD_SHIFT = 32;
+        private static final long BUFFERED_MASK = (1L << TO_DISCARD_SHIFT) - 1;
+        private static final long ONE_TO_DISCARD = 1L << TO_DISCARD_SHIFT;
+
+        @SuppressWarnings("unused")
+        private volatile int wip;
+        /**
+         * The lower {@link #TO_DISCARD_SHIFT} bits hold the number of items in the queue which will be emitted, which
+         * is only incremented by the producer. The upper bits hold the number of items at the head of the queue which
+         * were dropped by {@link BufferOverflowPolicy#DROP_OLDEST}.
+         */
+        @SuppressWarnings("unused")
+        private volatile long bufferState;
+        @SuppressWarnings("unused")
+        private volatile long requested;
+        private volatile boolean cancelled;
+        @Nullable
+        private volatile Subscription subscription;
+        @Nullable
+        private volatile TerminalNotification terminalNotification;
+        @Nullable
+        private volatile IllegalArgumentException invalidRequestN;
+
+        /**
+         * These variables are only accessed while draining, and the "wip" counter provides visibility to other threads.
+         */
+        private long emitted;
+        private boolean targetTerminated;
+
+        private final Queue<Object> queue;
+        private final PublisherOnBackpressureBuffer<T> source;
+        private final Subscriber<? super T> target;
+
+        OnBackpressureBufferSubscriber(PublisherOnBackpressureBuffer<T> source, Subscriber<? super T> target) {
+            this.source = source;
+            this.target = target;
+            queue = newUnboundedSpscQueue(max(MIN_QUEUE_CHUNK_SIZE, min(source.capacity, MAX_QUEUE_CHUNK_SIZE)));
+        }
+
+        @Override
+        public void request(long n) {
+            final Subscription s = subscription;
+            assert s != null : "Subscription can not be null in request(n).";
+            if (!isRequestNValid(n)) {
+                // The original Publisher may have terminated already, so it can not be relied upon to fail.
+                invalidRequestN = newExceptionForInvalidRequestN(n);
+                s.cancel();
+                drain();
+                return;
+            }
+            requestedUpdater.accumulateAndGet(this, n, FlowControlUtil::addWithOverflowProtection);
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            final Subscription s = subscription;
+            assert s != null : "Subscription can not be null in cancel().";
+            s.cancel();
+            // Drain to discard the buffered items.
+            drain();
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            if (!checkDuplicateSubscription(subscription, s)) {
+                return;
+            }
+            // The Subscriber may cancel concurrently with requesting everything below.
+            final Subscription concurrentSubscription = ConcurrentSubscription.wrap(s);
+            subscription = concurrentSubscription;
+            target.onSubscribe(this);
+            concurrentSubscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(@Nullable T t) {
+            if (cancelled || terminalNotification != null) {
+                return;
+            }
+            // Only this method increments the buffered items, so they can not exceed the capacity after this check.
+            if (buffered(bufferState) >= source.capacity) {
+                switch (source.overflowPolicy) {
+                    case DROP_LATEST:
+                        return;
+                    case DROP_OLDEST:
+                        queue.offer(t == null ? NULL_TOKEN : t);
+                        // Count after the offer, the consumer never takes or discards more items than were offered.
+                        for (;;) {
+                            final long state = bufferState;
+                            // The consumer may have taken an item since the check above, then nothing is dropped.
+                            final long nextState = buffered(state) >= source.capacity ?
+                                    state + ONE_TO_DISCARD : state + 1;
+                            if (bufferStateUpdater.compareAndSet(this, state, nextState)) {
+                                break;
+                            }
+                        }
+                        break;
+                    default:
+                        final Subscription s = subscription;
+                        assert s != null;
+                        s.cancel();
+                        terminalNotification = TerminalNotification.error(
+                                new QueueFullException("onBackpressureBuffer", source.capacity));
+                        break;
+                }
+            } else {
+                queue.offer(t == null ? NULL_TOKEN : t);
+                bufferStateUpdater.incrementAndGet(this);
+            }
+            drain();
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            if (cancelled || terminalNotification != null) {
+                LOGGER.debug("Already terminated/cancelled, ignoring error notification.", t);
+                return;
+            }
+            terminalNotification = TerminalNotification.error(t);
+            drain();
+        }
+
+        @Override
+        public void onComplete() {
+            if (cancelled || terminalNotification != null) {
+                return;
+            }
+            terminalNotification = complete();
+            drain();
+        }
+
+        private void drain() {
+            if (wipUpdater.getAndIncrement(this) != 0) {
+                return;
+            }
+            int missed = 1;
+            for (;;) {
+                if (targetTerminated) {
+                    return;
+                }
+                if (cancelled) {
+                    terminate(null);
+                    return;
+                }
+                final IllegalArgumentException invalidRequestN = this.invalidRequestN;
+                if (invalidRequestN != null) {
+                    terminate(TerminalNotification.error(invalidRequestN));
+                    return;
+                }
+                // The terminal is set after the last item is offered, so it must be read before polling.
+                final TerminalNotification terminal = terminalNotification;
+                if (terminal != null && terminal.getCause() != null) {
+                    terminate(terminal);
+                    return;
+                }
+                final long r = requested;
+                while (emitted != r) {
+                    final Object item = pollBuffered();
+                    if (item == null) {
+                        break;
+                    }
+                    ++emitted;
+                    @SuppressWarnings("unchecked")
+                    final T t = (T) (item == NULL_TOKEN ? null : item);
+                    target.onNext(t);
+                    if (cancelled) {
+                        break;
+                    }
+                }
+                discardDropped();
+                if (terminal != null && !cancelled && queue.isEmpty()) {
+                    terminate(terminal);
+                    return;
+                }
+                missed = wipUpdater.addAndGet(this, -missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+        @Nullable
+        private Object pollBuffered() {
+            for (;;) {
+                discardDropped();
+                final long state = bufferState;
+                if (buffered(state) == 0) {
+                    return null;
+                }
+                // Take the item before polling it, this fails if the producer concurrently dropped it.
+                if (state >>> TO_DISCARD_SHIFT == 0 && bufferStateUpdater.compareAndSet(this, state, state - 1)) {
+                    return queue.poll();
+                }
+            }
+        }
+
+        private void discardDropped() {
+            final long toDiscard = bufferState >>> TO_DISCARD_SHIFT;
+            if (toDiscard != 0) {
+                for (long i = 0; i < toDiscard; ++i) {
+                    queue.poll();
+                }
+                bufferStateUpdater.addAndGet(this, -(toDiscard << TO_DISCARD_SHIFT));
+            }
+        }
+
+        private static long buffered(long bufferState) {
+            return bufferState & BUFFERED_MASK;
+        }
+
+        private void terminate(@Nullable TerminalNotification terminal) {
+            targetTerminated = true;
+            queue.clear();
+            if (terminal != null) {
+                terminal.terminate(target);
+            }
+        }
+    }
+}
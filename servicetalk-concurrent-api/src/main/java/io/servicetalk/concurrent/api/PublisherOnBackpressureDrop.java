@@ -0,0 +1,124 @@
+/*
+ * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.concurrent.api;
+
+import io.servicetalk.concurrent.internal.ConcurrentSubscription;
+import io.servicetalk.concurrent.internal.FlowControlUtil;
+
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.function.Consumer;
+import javax.annotation.Nullable;
+
+import static io.servicetalk.concurrent.internal.SubscriberUtils.checkDuplicateSubscription;
+import static io.servicetalk.concurrent.internal.SubscriberUtils.isRequestNValid;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * As returned by {@link Publisher#onBackpressureDrop(Consumer)}.
+ * <p>
+ * Requests everything from the original {@link Publisher} and emits items while the {@link Subscriber} has demand,
+ * all other items are passed to {@code onDrop}. Items are only emitted from the thread of the original
+ * {@link Publisher} so no queue is required.
+ *
+ * @param <T> Type of items emitted.
+ */
+final class PublisherOnBackpressureDrop<T> extends AbstractSynchronousPublisherOperator<T, T> {
+    private final Consumer<? super T> onDrop;
+
+    PublisherOnBackpressureDrop(Publisher<T> original, Consumer<? super T> onDrop, Executor executor) {
+        super(original, executor);
+        this.onDrop = requireNonNull(onDrop);
+    }
+
+    @Override
+    public Subscriber<? super T> apply(Subscriber<? super T> subscriber) {
+        return new OnBackpressureDropSubscriber<>(subscriber, onDrop);
+    }
+
+    private static final class OnBackpressureDropSubscriber<T> implements Subscriber<T>, Subscription {
+        private static final AtomicLongFieldUpdater<OnBackpressureDropSubscriber> requestedUpdater =
+                AtomicLongFieldUpdater.newUpdater(OnBackpressureDropSubscriber.class, "requested");
+
+        @SuppressWarnings("unused")
+        private volatile long requested;
+        /**
+         * Only accessed from the {@link Subscriber} methods which are invoked serially.
+         */
+        private long emitted;
+        @Nullable
+        private Subscription subscription;
+        private final Subscriber<? super T> target;
+        private final Consumer<? super T> onDrop;
+
+        OnBackpressureDropSubscriber(Subscriber<? super T> target, Consumer<? super T> onDrop) {
+            this.target = target;
+            this.onDrop = onDrop;
+        }
+
+        @Override
+        public void request(long n) {
+            final Subscription s = subscription;
+            assert s != null : "Subscription can not be null in request(n).";
+            if (!isRequestNValid(n)) {
+                s.request(n);
+                return;
+            }
+            requestedUpdater.accumulateAndGet(this, n, FlowControlUtil::addWithOverflowProtection);
+        }
+
+        @Override
+        public void cancel() {
+            final Subscription s = subscription;
+            assert s != null : "Subscription can not be null in cancel().";
+            s.cancel();
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            if (!checkDuplicateSubscription(subscription, s)) {
+                return;
+            }
+            // The Subscriber may request or cancel concurrently with requesting everything below.
+            final Subscription concurrentSubscription = ConcurrentSubscription.wrap(s);
+            subscription = concurrentSubscription;
+            target.onSubscribe(this);
+            concurrentSubscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(@Nullable T t) {
+            if (emitted != requested) {
+                ++emitted;
+                target.onNext(t);
+            } else {
+                onDrop.accept(t);
+            }
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            target.onError(t);
+        }
+
+        @Override
+        public void onComplete() {
+            target.onComplete();
+        }
+    }
+}
@@ -0,0 +1,323 @@
+/*
+ * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.concurrent.api;
+
+import io.servicetalk.concurrent.internal.FlowControlUtil;
+import io.servicetalk.concurrent.internal.SignalOffloader;
+
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.Function;
+import javax.annotation.Nullable;
+
+import static io.servicetalk.concurrent.internal.PlatformDependent.newSpscQueue;
+import static io.servicetalk.concurrent.internal.SubscriberUtils.NULL_TOKEN;
+import static io.servicetalk.concurrent.internal.SubscriberUtils.checkDuplicateSubscription;
+import static io.servicetalk.concurrent.internal.SubscriberUtils.isRequestNValid;
+import static io.servicetalk.concurrent.internal.SubscriberUtils.newExceptionForInvalidRequestN;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * As returned by {@link Publisher#zip(Publisher, Publisher, java.util.function.BiFunction)} and
+ * {@link Publisher#zip(Function, Publisher[])}.
+ * <p>
+ * Each source {@link Publisher} is subscribed to concurrently and prefetches up to {@code prefetch} items into its
+ * own single-producer single-consumer queue. Once every queue has an item and the {@link Subscriber} has demand, one
+ * item is taken from each queue and the combined result is emitted. The array passed to {@code zipper} is reused for
+ * every combination to avoid an allocation per item.
+ *
+ * @param <R> Type of items emitted.
+ */
+final class PublisherZip<R> extends AbstractNoHandleSubscribePublisher<R> {
+    static final int DEFAULT_PREFETCH = 32;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PublisherZip.class);
+
+    private final Publisher<?>[] sources;
+    private final Function<? super Object[], ? extends R> zipper;
+    private final int prefetch;
+
+    PublisherZip(Publisher<?>[] sources, Function<? super Object[], ? extends R> zipper, int prefetch) {
+        if (sources.length == 0) {
+            throw new IllegalArgumentException("At least one Publisher required to zip");
+        }
+        if (prefetch <= 0) {
+            throw new IllegalArgumentException("prefetch: " + prefetch + " (expected > 0)");
+        }
+        for (Publisher<?> source : sources) {
+            requireNonNull(source);
+        }
+        this.sources = sources;
+        this.zipper = requireNonNull(zipper);
+        this.prefetch = prefetch;
+    }
+
+    @Override
+    void handleSubscribe(Subscriber<? super R> subscriber, SignalOffloader signalOffloader) {
+        final ZipSubscription<R> zipSubscription = new ZipSubscription<>(this, subscriber);
+        subscriber.onSubscribe(zipSubscription);
+        for (int i = 0; i < sources.length; ++i) {
+            if (zipSubscription.cancelled) {
+                return;
+            }
+            @SuppressWarnings("unchecked")
+            final Publisher<Object> source = (Publisher<Object>) sources[i];
+            source.subscribe(zipSubscription.inners[i]);
+        }
+    }
+
+    private static final class ZipSubscription<R> implements Subscription {
+        private static final AtomicIntegerFieldUpdater<ZipSubscription> wipUpdater =
+                AtomicIntegerFieldUpdater.newUpdater(ZipSubscription.class, "wip");
+        private static final AtomicLongFieldUpdater<ZipSubscription> requestedUpdater =
+                AtomicLongFieldUpdater.newUpdater(ZipSubscription.class, "requested");
+        private static final AtomicReferenceFieldUpdater<ZipSubscription, Throwable> errorUpdater =
+                AtomicReferenceFieldUpdater.newUpdater(ZipSubscription.class, Throwable.class, "error");
+
+        @SuppressWarnings("unused")
+        private volatile int wip;
+        @SuppressWarnings("unused")
+        private volatile long requested;
+        private volatile boolean cancelled;
+        @Nullable
+        private volatile Throwable error;
+
+        /**
+         * These variables are only accessed while draining, and the "wip" counter provides visibility to other threads.
+         */
+        private long emitted;
+        private boolean targetTerminated;
+        private final Object[] values;
+
+        private final ZipInnerSubscriber[] inners;
+        private final PublisherZip<R> source;
+        private final Subscriber<? super R> target;
+
+        ZipSubscription(PublisherZip<R> source, Subscriber<? super R> target) {
+            this.source = source;
+            this.target = target;
+            values = new Object[source.sources.length];
+            inners = new ZipInnerSubscriber[source.sources.length];
+            for (int i = 0; i < inners.length; ++i) {
+                inners[i] = new ZipInnerSubscriber(this, source.prefetch);
+            }
+        }
+
+        @Override
+        public void request(long n) {
+            if (!isRequestNValid(n)) {
+                onError(newExceptionForInvalidRequestN(n));
+                return;
+            }
+            requestedUpdater.accumulateAndGet(this, n, FlowControlUtil::addWithOverflowProtection);
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            drain();
+        }
+
+        void onError(Throwable t) {
+            if (!errorUpdater.compareAndSet(this, null, t)) {
+                LOGGER.debug("Already terminated, ignoring error notification.", t);
+                return;
+            }
+            drain();
+        }
+
+        void drain() {
+            if (wipUpdater.getAndIncrement(this) != 0) {
+                return;
+            }
+            int missed = 1;
+            for (;;) {
+                if (targetTerminated) {
+                    return;
+                }
+                if (cancelled) {
+                    terminate();
+                    return;
+                }
+                final Throwable cause = error;
+                if (cause != null) {
+                    terminate();
+                    target.onError(cause);
+                    return;
+                }
+                final long r = requested;
+                for (;;) {
+                    // Completion does not require demand, the zipped sequence ends with the shortest source.
+                    if (isAnySourceExhausted()) {
+                        terminate();
+                        target.onComplete();
+                        return;
+                    }
+                    if (emitted == r || !isEverySourceReady()) {
+                        break;
+                    }
+                    for (int i = 0; i < inners.length; ++i) {
+                        final Object item = inners[i].poll();
+                        values[i] = item == NULL_TOKEN ? null : item;
+                    }
+                    final R next;
+                    try {
+                        next = source.zipper.apply(values);
+                    } catch (Throwable t) {
+                        terminate();
+                        target.onError(t);
+                        return;
+                    }
+                    for (int i = 0; i < values.length; ++i) {
+                        values[i] = null;
+                    }
+                    ++emitted;
+                    target.onNext(next);
+                    if (cancelled || error != null) {
+                        break;
+                    }
+                }
+                missed = wipUpdater.addAndGet(this, -missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+        private boolean isAnySourceExhausted() {
+            for (ZipInnerSubscriber inner : inners) {
+                if (inner.isExhausted()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean isEverySourceReady() {
+            for (ZipInnerSubscriber inner : inners) {
+                if (inner.queue.isEmpty()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * The "wip" counter is never released after this method is called, so no more signals are delivered.
+         */
+        private void terminate() {
+            targetTerminated = true;
+            for (ZipInnerSubscriber inner : inners) {
+                inner.cancel();
+            }
+        }
+    }
+
+    private static final class ZipInnerSubscriber implements Subscriber<Object> {
+        private final ZipSubscription<?> parent;
+        private final Queue<Object> queue;
+        private final int prefetch;
+        private final int limit;
+        private volatile boolean done;
+        private volatile boolean cancelled;
+        @Nullable
+        private volatile Subscription subscription;
+
+        /**
+         * Only accessed while the parent is draining.
+         */
+        private int consumed;
+
+        ZipInnerSubscriber(ZipSubscription<?> parent, int prefetch) {
+            this.parent = parent;
+            this.prefetch = prefetch;
+            limit = prefetch - (prefetch >> 2);
+            queue = newSpscQueue(8, prefetch);
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            if (!checkDuplicateSubscription(subscription, s)) {
+                return;
+            }
+            subscription = s;
+            // The parent may have terminated while this source was being subscribed.
+            if (cancelled) {
+                s.cancel();
+                return;
+            }
+            s.request(prefetch);
+        }
+
+        @Override
+        public void onNext(@Nullable Object o) {
+            if (!queue.offer(o == null ? NULL_TOKEN : o)) {
+                parent.onError(new IllegalStateException("Received more items than requested, prefetch: " +
+                        prefetch));
+                return;
+            }
+            parent.drain();
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            parent.onError(t);
+        }
+
+        @Override
+        public void onComplete() {
+            done = true;
+            parent.drain();
+        }
+
+        /**
+         * Returns {@code true} if this source completed and all its items were consumed.
+         */
+        boolean isExhausted() {
+            // The done flag is set after the last item is offered, so it must be read before checking the queue.
+            return done && queue.isEmpty();
+        }
+
+        @Nullable
+        Object poll() {
+            final Object item = queue.poll();
+            if (++consumed == limit) {
+                consumed = 0;
+                final Subscription s = subscription;
+                assert s != null;
+                s.request(limit);
+            }
+            return item;
+        }
+
+        void cancel() {
+            cancelled = true;
+            queue.clear();
+            final Subscription s = subscription;
+            if (s != null) {
+                s.cancel();
+            }
+        }
+    }
+}
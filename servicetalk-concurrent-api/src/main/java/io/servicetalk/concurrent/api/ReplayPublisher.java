@@ -0,0 +1,356 @@
+/*
+ * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.concurrent.api;
+
+import io.servicetalk.concurrent.internal.ConcurrentSubscription;
+import io.servicetalk.concurrent.internal.DelayedSubscription;
+import io.servicetalk.concurrent.internal.FlowControlUtil;
+import io.servicetalk.concurrent.internal.SignalOffloader;
+import io.servicetalk.concurrent.internal.TerminalNotification;
+
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import javax.annotation.Nullable;
+
+import static io.servicetalk.concurrent.internal.ConcurrentSubscription.wrap;
+import static io.servicetalk.concurrent.internal.FlowControlUtil.addWithOverflowProtection;
+import static io.servicetalk.concurrent.internal.SubscriberUtils.NULL_TOKEN;
+import static io.servicetalk.concurrent.internal.SubscriberUtils.isRequestNValid;
+import static io.servicetalk.concurrent.internal.SubscriberUtils.newExceptionForInvalidRequestN;
+import static io.servicetalk.concurrent.internal.TerminalNotification.complete;
+import static java.util.Arrays.copyOf;
+
+/**
+ * As returned by {@link Publisher#replay(int)}, {@link Publisher#replay(int, boolean)} and {@link Publisher#cache()}.
+ * <p>
+ * The original {@link Publisher} is subscribed to once, when the first {@link Subscriber} arrives. Items are appended
+ * to a singly linked list and every {@link Subscriber} walks that list at its own pace, so a slow {@link Subscriber}
+ * keeps the items it has not consumed yet reachable while late {@link Subscriber}s start at the oldest of the last
+ * {@code maxHistory} items. Registering a {@link Subscriber} only requires a CAS on a copy-on-write array.
+ * <p>
+ * Items are requested from the original {@link Publisher} as far as the {@link Subscriber} with the highest demand
+ * needs them. The original {@link Publisher} is only cancelled if {@code cancelWhenUnsubscribed} is set and all
+ * {@link Subscriber}s which did not terminate cancelled. {@link Subscriber}s arriving after that receive the history
+ * followed by a {@link CancellationException}.
+ *
+ * @param <T> Type of items emitted.
+ */
+final class ReplayPublisher<T> extends AbstractNoHandleSubscribePublisher<T> {
+    private static final Node TERMINATED = new Node(null, -1);
+    @SuppressWarnings("rawtypes")
+    private static final ReplaySubscription[] EMPTY_SUBSCRIBERS = new ReplaySubscription[0];
+
+    private static final AtomicIntegerFieldUpdater<ReplayPublisher> connectedUpdater =
+            AtomicIntegerFieldUpdater.newUpdater(ReplayPublisher.class, "connected");
+    private static final AtomicLongFieldUpdater<ReplayPublisher> sourceRequestedUpdater =
+            AtomicLongFieldUpdater.newUpdater(ReplayPublisher.class, "sourceRequested");
+    private static final AtomicReferenceFieldUpdater<ReplayPublisher, ReplaySubscription[]> subscribersUpdater =
+            AtomicReferenceFieldUpdater.newUpdater(ReplayPublisher.class, ReplaySubscription[].class, "subscribers");
+    private static final AtomicReferenceFieldUpdater<ReplayPublisher, TerminalNotification>
+            terminalNotificationUpdater = AtomicReferenceFieldUpdater.newUpdater(ReplayPublisher.class,
+            TerminalNotification.class, "terminalNotification");
+
+    @SuppressWarnings("unused")
+    private volatile int connected;
+    @SuppressWarnings("unused")
+    private volatile long sourceRequested;
+    @SuppressWarnings("unchecked")
+    private volatile ReplaySubscription<T>[] subscribers = EMPTY_SUBSCRIBERS;
+    /**
+     * The node preceding the oldest item which is replayed to new {@link Subscriber}s.
+     */
+    private volatile Node head;
+    @Nullable
+    private volatile TerminalNotification terminalNotification;
+
+    /**
+     * Only modified by the {@link Subscriber} of the original {@link Publisher}.
+     */
+    private Node tail;
+    private long historySize;
+
+    private final DelayedSubscription delayedSubscription = new DelayedSubscription();
+    private final ConcurrentSubscription subscription = wrap(delayedSubscription);
+    private final Publisher<T> original;
+    private final int maxHistory;
+    private final boolean cancelWhenUnsubscribed;
+
+    ReplayPublisher(Publisher<T> original, int maxHistory, boolean cancelWhenUnsubscribed, Executor executor) {
+        super(executor);
+        if (maxHistory <= 0) {
+            throw new IllegalArgumentException("maxHistory: " + maxHistory + " (expected > 0)");
+        }
+        this.original = original;
+        this.maxHistory = maxHistory;
+        this.cancelWhenUnsubscribed = cancelWhenUnsubscribed;
+        head = tail = new Node(null, -1);
+    }
+
+    @Override
+    void handleSubscribe(Subscriber<? super T> subscriber, SignalOffloader signalOffloader) {
+        final ReplaySubscription<T> replaySubscription = new ReplaySubscription<>(this, subscriber, head);
+        subscriber.onSubscribe(replaySubscription);
+        add(replaySubscription);
+        if (replaySubscription.cancelled) {
+            // Cancelled before it was added, so terminating it did not remove it.
+            removeCancelled(replaySubscription);
+        }
+        if (connected == 0 && connectedUpdater.compareAndSet(this, 0, 1)) {
+            original.subscribe(new ReplaySourceSubscriber(), signalOffloader);
+        }
+        // Items may have been appended before the subscription was added.
+        replaySubscription.drain();
+    }
+
+    private void add(ReplaySubscription<T> toAdd) {
+        for (;;) {
+            final ReplaySubscription<T>[] current = subscribers;
+            final ReplaySubscription<T>[] next = copyOf(current, current.length + 1);
+            next[current.length] = toAdd;
+            if (subscribersUpdater.compareAndSet(this, current, next)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Removes {@code toRemove} from the registered {@link Subscriber}s.
+     *
+     * @param toRemove the {@link ReplaySubscription} to remove.
+     * @return {@code true} if {@code toRemove} was the last registered {@link Subscriber}.
+     */
+    private boolean remove(ReplaySubscription<T> toRemove) {
+        for (;;) {
+            final ReplaySubscription<T>[] current = subscribers;
+            int index = -1;
+            for (int i = 0; i < current.length; ++i) {
+                if (current[i] == toRemove) {
+                    index = i;
+                    break;
+                }
+            }
+            if (index < 0) {
+                return false;
+            }
+            @SuppressWarnings("unchecked")
+            final ReplaySubscription<T>[] next = current.length == 1 ? EMPTY_SUBSCRIBERS :
+                    new ReplaySubscription[current.length - 1];
+            System.arraycopy(current, 0, next, 0, index);
+            System.arraycopy(current, index + 1, next, index, current.length - index - 1);
+            if (subscribersUpdater.compareAndSet(this, current, next)) {
+                return next.length == 0;
+            }
+        }
+    }
+
+    private void removeCancelled(ReplaySubscription<T> toRemove) {
+        if (remove(toRemove) && cancelWhenUnsubscribed) {
+            cancelSource();
+        }
+    }
+
+    private void cancelSource() {
+        if (terminalNotificationUpdater.compareAndSet(this, null,
+                TerminalNotification.error(new CancellationException("All Subscribers cancelled.")))) {
+            subscription.cancel();
+            drainAll();
+        }
+    }
+
+    private void requestSource(long targetIndex) {
+        for (;;) {
+            final long current = sourceRequested;
+            if (targetIndex <= current) {
+                return;
+            }
+            if (sourceRequestedUpdater.compareAndSet(this, current, targetIndex)) {
+                subscription.request(targetIndex - current);
+                return;
+            }
+        }
+    }
+
+    private void drainAll() {
+        for (ReplaySubscription<T> replaySubscription : subscribers) {
+            replaySubscription.drain();
+        }
+    }
+
+    private final class ReplaySourceSubscriber implements Subscriber<T> {
+        @Override
+        public void onSubscribe(Subscription s) {
+            delayedSubscription.setDelayedSubscription(s);
+        }
+
+        @Override
+        public void onNext(@Nullable T t) {
+            if (terminalNotification != null) {
+                // Cancelled, items must not be appended after the terminal signal.
+                return;
+            }
+            final Node node = new Node(t == null ? NULL_TOKEN : t, tail.index + 1);
+            tail.next = node;
+            tail = node;
+            if (++historySize > maxHistory) {
+                head = head.next;
+            }
+            drainAll();
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            if (terminalNotificationUpdater.compareAndSet(ReplayPublisher.this, null,
+                    TerminalNotification.error(t))) {
+                drainAll();
+            }
+        }
+
+        @Override
+        public void onComplete() {
+            if (terminalNotificationUpdater.compareAndSet(ReplayPublisher.this, null, complete())) {
+                drainAll();
+            }
+        }
+    }
+
+    private static final class ReplaySubscription<T> implements Subscription {
+        private static final AtomicIntegerFieldUpdater<ReplaySubscription> wipUpdater =
+                AtomicIntegerFieldUpdater.newUpdater(ReplaySubscription.class, "wip");
+        private static final AtomicLongFieldUpdater<ReplaySubscription> requestedUpdater =
+                AtomicLongFieldUpdater.newUpdater(ReplaySubscription.class, "requested");
+
+        @SuppressWarnings("unused")
+        private volatile int wip;
+        @SuppressWarnings("unused")
+        private volatile long requested;
+        private volatile boolean cancelled;
+        @Nullable
+        private volatile IllegalArgumentException invalidRequestN;
+
+        /**
+         * These variables are only accessed while draining, and the "wip" counter provides visibility to other threads.
+         */
+        private Node cursor;
+        private long emitted;
+
+        /**
+         * The index of the first item this {@link Subscriber} receives.
+         */
+        private final long startIndex;
+        private final ReplayPublisher<T> source;
+        private final Subscriber<? super T> target;
+
+        ReplaySubscription(ReplayPublisher<T> source, Subscriber<? super T> target, Node cursor) {
+            this.source = source;
+            this.target = target;
+            this.cursor = cursor;
+            startIndex = cursor.index + 1;
+        }
+
+        @Override
+        public void request(long n) {
+            if (!isRequestNValid(n)) {
+                invalidRequestN = newExceptionForInvalidRequestN(n);
+                drain();
+                return;
+            }
+            final long requested = requestedUpdater.accumulateAndGet(this, n,
+                    FlowControlUtil::addWithOverflowProtection);
+            source.requestSource(addWithOverflowProtection(startIndex, requested));
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            drain();
+        }
+
+        void drain() {
+            if (wipUpdater.getAndIncrement(this) != 0) {
+                return;
+            }
+            int missed = 1;
+            for (;;) {
+                Node current = cursor;
+                final long r = requested;
+                while (emitted != r && !cancelled) {
+                    final Node next = current.next;
+                    if (next == null) {
+                        break;
+                    }
+                    current = next;
+                    ++emitted;
+                    @SuppressWarnings("unchecked")
+                    final T t = (T) (next.item == NULL_TOKEN ? null : next.item);
+                    target.onNext(t);
+                }
+                cursor = current;
+                if (cancelled) {
+                    terminate(null);
+                    return;
+                }
+                final IllegalArgumentException invalidRequestN = this.invalidRequestN;
+                if (invalidRequestN != null) {
+                    terminate(TerminalNotification.error(invalidRequestN));
+                    return;
+                }
+                // The terminal is set after the last item is appended, so it must be read before checking for items.
+                final TerminalNotification terminal = source.terminalNotification;
+                if (terminal != null && current.next == null) {
+                    terminate(terminal);
+                    return;
+                }
+                missed = wipUpdater.addAndGet(this, -missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * The "wip" counter is never released after this method is called, so no more signals are delivered.
+         */
+        private void terminate(@Nullable TerminalNotification terminal) {
+            // Do not keep the history reachable from this Subscription.
+            cursor = TERMINATED;
+            if (terminal == null) {
+                source.removeCancelled(this);
+            } else {
+                source.remove(this);
+                terminal.terminate(target);
+            }
+        }
+    }
+
+    private static final class Node {
+        @Nullable
+        final Object item;
+        final long index;
+        @Nullable
+        volatile Node next;
+
+        Node(@Nullable Object item, long index) {
+            this.item = item;
+            this.index = index;
+        }
+    }
+}
@@ -19,16 +19,20 @@ import io.servicetalk.concurrent.Cancellable;
 import io.servicetalk.concurrent.internal.SignalOffloader;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.concurrent.CompletionStage;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.IntFunction;
 import java.util.function.IntPredicate;
+import java.util.function.LongSupplier;
 import java.util.function.Supplier;
 import javax.annotation.Nullable;
 
@@ -40,7 +44,9 @@ import static io.servicetalk.concurrent.api.SingleDoOnUtils.doOnErrorSupplier;
 import static io.servicetalk.concurrent.api.SingleDoOnUtils.doOnSubscribeSupplier;
 import static io.servicetalk.concurrent.api.SingleDoOnUtils.doOnSuccessSupplier;
 import static io.servicetalk.concurrent.api.SingleToCompletionStage.createAndSubscribe;
+import static java.lang.Math.max;
 import static java.util.Objects.requireNonNull;
+import static java.util.function.Function.identity;
 
 /**
  * An asynchronous computation that either completes with success giving the result or completes with an error.
@@ -354,6 +360,121 @@ public abstract class Single<T> implements io.servicetalk.concurrent.Single<T> {
         return new TimeoutSingle<>(this, duration, timeoutExecutor);
     }
 
+    /**
+     * Returns a {@link Single} which subscribes to this {@link Single} at most once and emits its result to all
+     * {@link Subscriber}s, including those which subscribe after this {@link Single} has terminated.
+     * <p>
+     * Concurrent {@link Subscriber}s share a single subscription to this {@link Single}, which is only
+     * {@link Cancellable#cancel() cancelled} once all of them have cancelled. Errors are not cached, the next
+     * {@link Subscriber} will subscribe to this {@link Single} again.
+     * <p>
+     * In sequential programming this is similar to the following:
+     * <pre>{@code
+     *     if (cachedResult == null) {
+     *         cachedResult = resultOfThisSingle();
+     *     }
+     *     return cachedResult;
+     * }</pre>
+     *
+     * @return A {@link Single} which subscribes to this {@link Single} at most once and caches its result.
+     * @see #cache(Duration)
+     */
+    public final Single<T> cache() {
+        return new CacheSingle<>(this, CacheSingle.NO_EXPIRY, executor);
+    }
+
+    /**
+     * Returns a {@link Single} which shares a subscription to this {@link Single} between all concurrent
+     * {@link Subscriber}s and emits its result to {@link Subscriber}s which subscribe within {@code ttl} after it
+     * succeeded. The first {@link Subscriber} after the result expired subscribes to this {@link Single} again.
+     * <p>
+     * Concurrent {@link Subscriber}s share a single subscription to this {@link Single}, which is only
+     * {@link Cancellable#cancel() cancelled} once all of them have cancelled. Errors are not cached, the next
+     * {@link Subscriber} will subscribe to this {@link Single} again.
+     *
+     * @param ttl The duration for which the result is emitted to new {@link Subscriber}s after it was received.
+     * @return A {@link Single} which caches the result of this {@link Single} for {@code ttl}.
+     * @see #cache()
+     */
+    public final Single<T> cache(Duration ttl) {
+        return new CacheSingle<>(this, ttl.toNanos(), executor);
+    }
+
+    /**
+     * Returns a {@link Single} which subscribes to this {@link Single} again if it has not terminated within
+     * {@code delay}, and emits the result of whichever subscription succeeds first. The other subscription is
+     * {@link Cancellable#cancel() cancelled}.
+     * <p>
+     * This trades a small amount of extra load for lower tail latency, and should only be used if subscribing to
+     * this {@link Single} more than once is safe, for example for idempotent requests. An error is only emitted if no
+     * other subscription is in progress.
+     *
+     * @param delay The time to wait for this {@link Single} to terminate before subscribing to it again.
+     * @return A {@link Single} which hedges this {@link Single} after {@code delay}.
+     * @see #hedge(LongSupplier, Executor)
+     */
+    public final Single<T> hedge(Duration delay) {
+        return hedge(delay, executor);
+    }
+
+    /**
+     * Returns a {@link Single} which subscribes to this {@link Single} again if it has not terminated within
+     * {@code delay}, and emits the result of whichever subscription succeeds first. The other subscription is
+     * {@link Cancellable#cancel() cancelled}.
+     * <p>
+     * This trades a small amount of extra load for lower tail latency, and should only be used if subscribing to
+     * this {@link Single} more than once is safe, for example for idempotent requests. An error is only emitted if no
+     * other subscription is in progress.
+     *
+     * @param delay The time to wait for this {@link Single} to terminate before subscribing to it again.
+     * @param timerExecutor The {@link Executor} to use for managing the timer notifications.
+     * @return A {@link Single} which hedges this {@link Single} after {@code delay}.
+     * @see #hedge(LongSupplier, Executor)
+     */
+    public final Single<T> hedge(Duration delay, Executor timerExecutor) {
+        final long delayNs = delay.toNanos();
+        if (delayNs < 0) {
+            throw new IllegalArgumentException("delay: " + delay + " (expected >= 0)");
+        }
+        return hedge(() -> delayNs, timerExecutor);
+    }
+
+    /**
+     * Returns a {@link Single} which subscribes to this {@link Single} again if it has not terminated within the
+     * delay returned by {@code hedgeDelayNs}, and emits the result of whichever subscription succeeds first. The
+     * other subscription is {@link Cancellable#cancel() cancelled}.
+     * <p>
+     * {@code hedgeDelayNs} is queried on every subscribe, which allows to hedge after an estimate of a high latency
+     * quantile, see {@link LatencyQuantileEstimator}. A negative delay disables hedging for that subscribe.
+     *
+     * @param hedgeDelayNs Provides the time in nanoseconds to wait for this {@link Single} to terminate before
+     * subscribing to it again.
+     * @param timerExecutor The {@link Executor} to use for managing the timer notifications.
+     * @return A {@link Single} which hedges this {@link Single} after the delay returned by {@code hedgeDelayNs}.
+     * @see #hedge(LongSupplier, Executor, Consumer)
+     */
+    public final Single<T> hedge(LongSupplier hedgeDelayNs, Executor timerExecutor) {
+        return new HedgeSingle<>(this, hedgeDelayNs, timerExecutor, null, executor);
+    }
+
+    /**
+     * Returns a {@link Single} which subscribes to this {@link Single} again if it has not terminated within the
+     * delay returned by {@code hedgeDelayNs}, and emits the result of whichever subscription succeeds first. The
+     * other subscription is {@link Cancellable#cancel() cancelled}.
+     * <p>
+     * If both subscriptions succeed concurrently, the result which is not emitted is passed to {@code onDiscard} so
+     * that resources held by it can be released.
+     *
+     * @param hedgeDelayNs Provides the time in nanoseconds to wait for this {@link Single} to terminate before
+     * subscribing to it again. A negative delay disables hedging for that subscribe.
+     * @param timerExecutor The {@link Executor} to use for managing the timer notifications.
+     * @param onDiscard Invoked with the result of a subscription which succeeded after another subscription won.
+     * @return A {@link Single} which hedges this {@link Single} after the delay returned by {@code hedgeDelayNs}.
+     */
+    public final Single<T> hedge(LongSupplier hedgeDelayNs, Executor timerExecutor, Consumer<? super T> onDiscard) {
+        return new HedgeSingle<>(this, hedgeDelayNs, timerExecutor, requireNonNull(onDiscard), executor);
+    }
+
     /**
      * Returns a {@link Publisher} that first emits the result of this {@link Single} and then subscribes and emits
      * result of {@code next} {@link Single}. Any error emitted by this {@link Single} or {@code next} {@link Single} is
@@ -1080,6 +1201,96 @@ public abstract class Single<T> implements io.servicetalk.concurrent.Single<T> {
         return new SingleDefer<>(singleSupplier);
     }
 
+    /**
+     * Subscribes to {@code first} and {@code second} concurrently and combines their results using {@code zipper}.
+     * The first error cancels the other {@link Single} and is emitted by the returned {@link Single}.
+     * <p>
+     * In sequential programming this is similar to the following:
+     * <pre>{@code
+     *     return zipper.apply(resultOfFirst(), resultOfSecond());
+     * }</pre>
+     *
+     * @param first The first {@link Single} to combine.
+     * @param second The second {@link Single} to combine.
+     * @param zipper Combines the results of {@code first} and {@code second}.
+     * @param <T1> Type of the result of {@code first}.
+     * @param <T2> Type of the result of {@code second}.
+     * @param <R> Type of the result of the returned {@link Single}.
+     * @return A {@link Single} which succeeds with the combined results of {@code first} and {@code second}.
+     * @see <a href="http://reactivex.io/documentation/operators/zip.html">ReactiveX zip operator.</a>
+     */
+    public static <T1, T2, R> Single<R> zip(Single<T1> first, Single<T2> second,
+                                            BiFunction<? super T1, ? super T2, ? extends R> zipper) {
+        requireNonNull(zipper);
+        return new ZipSingle<>(new Single<?>[] {first, second}, values -> {
+            @SuppressWarnings("unchecked")
+            final T1 t1 = (T1) values[0];
+            @SuppressWarnings("unchecked")
+            final T2 t2 = (T2) values[1];
+            return zipper.apply(t1, t2);
+        });
+    }
+
+    /**
+     * Subscribes to all {@code singles} concurrently and combines their results using {@code zipper}, which receives
+     * the results in the same order as {@code singles}. The first error cancels all other {@link Single}s and is
+     * emitted by the returned {@link Single}.
+     *
+     * @param zipper Combines the results of all {@code singles}.
+     * @param singles The {@link Single}s to combine.
+     * @param <R> Type of the result of the returned {@link Single}.
+     * @return A {@link Single} which succeeds with the combined results of {@code singles}.
+     * @see <a href="http://reactivex.io/documentation/operators/zip.html">ReactiveX zip operator.</a>
+     */
+    public static <R> Single<R> zip(Function<? super Object[], ? extends R> zipper, Single<?>... singles) {
+        return new ZipSingle<>(singles, zipper);
+    }
+
+    /**
+     * Subscribes to all {@code singles} and collects their results in the order they arrive. If {@code singles} is a
+     * {@link Collection} all of them are subscribed to concurrently, otherwise as many as by
+     * {@link Publisher#flatMapSingle(Function)}. The first error cancels all other {@link Single}s and is emitted by
+     * the returned {@link Single}.
+     *
+     * @param singles The {@link Single}s to collect the results of.
+     * @param <T> Type of the result of each {@link Single}.
+     * @return A {@link Single} which succeeds with the results of all {@code singles}.
+     * @see #collectUnordered(Iterable, int)
+     */
+    public static <T> Single<Collection<T>> collectUnordered(Iterable<Single<T>> singles) {
+        return collectUnordered(singles, singles instanceof Collection ?
+                max(1, ((Collection<?>) singles).size()) : PublisherFlatMapSingle.DEFAULT_MAX_CONCURRENCY);
+    }
+
+    /**
+     * Subscribes to {@code singles} with at most {@code maxConcurrency} of them in progress at a time, and collects
+     * their results in the order they arrive. The first error cancels all other {@link Single}s and is emitted by the
+     * returned {@link Single}.
+     * <p>
+     * This is the same as {@code Publisher.from(singles).flatMapSingle(identity(), maxConcurrency)} reduced into a
+     * {@link Collection}, which is presized if {@code singles} is a {@link Collection}.
+     *
+     * @param singles The {@link Single}s to collect the results of.
+     * @param maxConcurrency Maximum number of {@code singles} which are subscribed to at a time.
+     * @param <T> Type of the result of each {@link Single}.
+     * @return A {@link Single} which succeeds with the results of all {@code singles}.
+     * @see Publisher#flatMapSingle(Function, int)
+     */
+    public static <T> Single<Collection<T>> collectUnordered(Iterable<Single<T>> singles, int maxConcurrency) {
+        final Supplier<Collection<T>> resultFactory;
+        if (singles instanceof Collection) {
+            final int size = ((Collection<?>) singles).size();
+            resultFactory = () -> new ArrayList<>(size);
+        } else {
+            resultFactory = ArrayList::new;
+        }
+        return Publisher.from(singles).flatMapSingle(identity(), maxConcurrency).reduce(resultFactory,
+                (results, t) -> {
+                    results.add(t);
+                    return results;
+                });
+    }
+
     /**
      * Convert from a {@link Future} to a {@link Single} via {@link Future#get()}.
      * <p>
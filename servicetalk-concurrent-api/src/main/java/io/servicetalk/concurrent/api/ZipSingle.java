@@ -0,0 +1,160 @@
+/*
+ * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.concurrent.api;
+
+import io.servicetalk.concurrent.Cancellable;
+import io.servicetalk.concurrent.internal.DelayedCancellable;
+import io.servicetalk.concurrent.internal.SignalOffloader;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.function.Function;
+import javax.annotation.Nullable;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * As returned by {@link Single#zip(Single, Single, java.util.function.BiFunction)} and
+ * {@link Single#zip(Function, Single[])}.
+ * <p>
+ * All source {@link Single}s are subscribed to concurrently. Each result is stored in its own slot of an array which
+ * is passed to {@code zipper} once the last source succeeded. The first error cancels all other sources.
+ *
+ * @param <R> Type of the result of the single.
+ */
+final class ZipSingle<R> extends AbstractNoHandleSubscribeSingle<R> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ZipSingle.class);
+
+    private final Single<?>[] sources;
+    private final Function<? super Object[], ? extends R> zipper;
+
+    ZipSingle(Single<?>[] sources, Function<? super Object[], ? extends R> zipper) {
+        if (sources.length == 0) {
+            throw new IllegalArgumentException("At least one Single required to zip");
+        }
+        for (Single<?> source : sources) {
+            requireNonNull(source);
+        }
+        this.sources = sources;
+        this.zipper = requireNonNull(zipper);
+    }
+
+    @Override
+    void handleSubscribe(Subscriber<? super R> subscriber, SignalOffloader signalOffloader) {
+        final ZipCancellable<R> zipCancellable = new ZipCancellable<>(this, subscriber);
+        subscriber.onSubscribe(zipCancellable);
+        for (int i = 0; i < sources.length; ++i) {
+            @SuppressWarnings("unchecked")
+            final Single<Object> source = (Single<Object>) sources[i];
+            source.subscribe(zipCancellable.inners[i]);
+        }
+    }
+
+    private static final class ZipCancellable<R> implements Cancellable {
+        private static final AtomicIntegerFieldUpdater<ZipCancellable> remainingUpdater =
+                AtomicIntegerFieldUpdater.newUpdater(ZipCancellable.class, "remaining");
+        private static final AtomicIntegerFieldUpdater<ZipCancellable> terminatedUpdater =
+                AtomicIntegerFieldUpdater.newUpdater(ZipCancellable.class, "terminated");
+
+        /**
+         * Number of sources which have not succeeded yet, the decrement publishes the result of each source.
+         */
+        @SuppressWarnings("unused")
+        private volatile int remaining;
+        @SuppressWarnings("unused")
+        private volatile int terminated;
+
+        private final Object[] values;
+        private final ZipInnerSubscriber[] inners;
+        private final ZipSingle<R> source;
+        private final Subscriber<? super R> target;
+
+        ZipCancellable(ZipSingle<R> source, Subscriber<? super R> target) {
+            this.source = source;
+            this.target = target;
+            values = new Object[source.sources.length];
+            inners = new ZipInnerSubscriber[source.sources.length];
+            for (int i = 0; i < inners.length; ++i) {
+                inners[i] = new ZipInnerSubscriber(this, i);
+            }
+            remaining = inners.length;
+        }
+
+        @Override
+        public void cancel() {
+            if (terminatedUpdater.compareAndSet(this, 0, 1)) {
+                cancelAll();
+            }
+        }
+
+        void onSuccess(int index, @Nullable Object result) {
+            values[index] = result;
+            if (remainingUpdater.decrementAndGet(this) != 0 || !terminatedUpdater.compareAndSet(this, 0, 1)) {
+                return;
+            }
+            final R zipped;
+            try {
+                zipped = source.zipper.apply(values);
+            } catch (Throwable t) {
+                target.onError(t);
+                return;
+            }
+            target.onSuccess(zipped);
+        }
+
+        void onError(Throwable t) {
+            if (!terminatedUpdater.compareAndSet(this, 0, 1)) {
+                LOGGER.debug("Already terminated/cancelled, ignoring error notification.", t);
+                return;
+            }
+            cancelAll();
+            target.onError(t);
+        }
+
+        private void cancelAll() {
+            for (ZipInnerSubscriber inner : inners) {
+                inner.cancel();
+            }
+        }
+    }
+
+    private static final class ZipInnerSubscriber extends DelayedCancellable implements Subscriber<Object> {
+        private final ZipCancellable<?> parent;
+        private final int index;
+
+        ZipInnerSubscriber(ZipCancellable<?> parent, int index) {
+            this.parent = parent;
+            this.index = index;
+        }
+
+        @Override
+        public void onSubscribe(Cancellable cancellable) {
+            setDelayedCancellable(cancellable);
+        }
+
+        @Override
+        public void onSuccess(@Nullable Object result) {
+            parent.onSuccess(index, result);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            parent.onError(t);
+        }
+    }
+}
@@ -50,10 +50,12 @@ import javax.annotation.Nullable;
 import static io.servicetalk.concurrent.api.DeliberateException.DELIBERATE_EXCEPTION;
 import static io.servicetalk.concurrent.api.Executors.from;
 import static io.servicetalk.concurrent.api.Executors.newFixedSizeExecutor;
+import static io.servicetalk.concurrent.api.Executors.newHashedWheelTimerExecutor;
 import static io.servicetalk.concurrent.internal.Await.awaitIndefinitely;
 import static io.servicetalk.concurrent.internal.Await.awaitIndefinitelyNonNull;
 import static io.servicetalk.concurrent.internal.TerminalNotification.complete;
 import static io.servicetalk.concurrent.internal.TerminalNotification.error;
+import static java.time.Duration.ofMillis;
 import static java.time.Duration.ofNanos;
 import static java.util.concurrent.Executors.newScheduledThreadPool;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
@@ -104,6 +106,10 @@ public final class DefaultExecutorTest {
                 UNBOUNDED /*Size defines core size, else is unbounded*/));
         nameAndExecutorPairs.add(newParams(() -> from(new ThreadPoolExecutor(2, 2, 60, SECONDS,
                 new SynchronousQueue<>()), newScheduledThreadPool(2)), "different-executors", true, 2));
+        nameAndExecutorPairs.add(newParams(() -> newHashedWheelTimerExecutor(Executors.newCachedThreadPool()),
+                "hashed-wheel-timer", true, UNBOUNDED));
+        nameAndExecutorPairs.add(newParams(() -> newHashedWheelTimerExecutor(Executors.newCachedThreadPool(),
+                ofMillis(1), 8, 2), "sharded-hashed-wheel-timer", true, UNBOUNDED));
         return nameAndExecutorPairs;
     }
 
@@ -0,0 +1,153 @@
+/*
+ * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.concurrent.api;
+
+import io.servicetalk.concurrent.Cancellable;
+import io.servicetalk.concurrent.internal.DefaultThreadFactory;
+import io.servicetalk.concurrent.internal.ServiceTalkTestTimeout;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static java.lang.System.nanoTime;
+import static java.lang.Thread.State.WAITING;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertFalse;
+
+public class HashedWheelTimerTest {
+    @Rule
+    public final Timeout timeout = new ServiceTalkTestTimeout();
+
+    private final Queue<Thread> workers = new ConcurrentLinkedQueue<>();
+    // A small wheel, so that delays span several revolutions.
+    private final HashedWheelTimer timer = new HashedWheelTimer(runnable -> {
+        Thread worker = new DefaultThreadFactory().newThread(runnable);
+        workers.add(worker);
+        return worker;
+    }, MILLISECONDS.toNanos(1), 4);
+
+    @After
+    public void tearDown() {
+        timer.stop();
+    }
+
+    @Test
+    public void testTaskRunsAfterDelay() throws Exception {
+        CountDownLatch latch = new CountDownLatch(1);
+        long startNs = nanoTime();
+        timer.schedule(latch::countDown, 20, MILLISECONDS);
+        latch.await();
+        assertThat(NANOSECONDS.toMillis(nanoTime() - startNs), greaterThanOrEqualTo(20L));
+    }
+
+    @Test
+    public void testTasksRunInDeadlineOrder() throws Exception {
+        Queue<Integer> order = new ConcurrentLinkedQueue<>();
+        CountDownLatch latch = new CountDownLatch(3);
+        timer.schedule(() -> {
+            order.add(3);
+            latch.countDown();
+        }, 30, MILLISECONDS);
+        timer.schedule(() -> {
+            order.add(1);
+            latch.countDown();
+        }, 0, MILLISECONDS);
+        timer.schedule(() -> {
+            order.add(2);
+            latch.countDown();
+        }, 10, MILLISECONDS);
+        latch.await();
+        assertThat(order, contains(1, 2, 3));
+    }
+
+    @Test
+    public void testCancelledTaskDoesNotRun() throws Exception {
+        AtomicBoolean ran = new AtomicBoolean();
+        Cancellable cancellable = timer.schedule(() -> ran.set(true), 10, MILLISECONDS);
+        cancellable.cancel();
+        CountDownLatch latch = new CountDownLatch(1);
+        timer.schedule(latch::countDown, 30, MILLISECONDS);
+        latch.await();
+        assertFalse("Cancelled task ran.", ran.get());
+    }
+
+    @Test
+    public void testTaskExceptionDoesNotStopTimer() throws Exception {
+        timer.schedule(() -> {
+            throw DeliberateException.DELIBERATE_EXCEPTION;
+        }, 0, MILLISECONDS);
+        CountDownLatch latch = new CountDownLatch(1);
+        timer.schedule(latch::countDown, 5, MILLISECONDS);
+        latch.await();
+    }
+
+    @Test
+    public void testIdleWorkerParksUntilSchedule() throws Exception {
+        CountDownLatch first = new CountDownLatch(1);
+        timer.schedule(first::countDown, 0, MILLISECONDS);
+        first.await();
+        Thread worker = workers.peek();
+        // With no tasks left the worker parks without a timeout instead of waking up on every tick.
+        while (worker.getState() != WAITING) {
+            Thread.sleep(1);
+        }
+        CountDownLatch second = new CountDownLatch(1);
+        timer.schedule(second::countDown, 0, MILLISECONDS);
+        second.await();
+    }
+
+    @Test
+    public void testTaskAfterSeveralRevolutions() throws Exception {
+        CountDownLatch latch = new CountDownLatch(1);
+        long startNs = nanoTime();
+        timer.schedule(latch::countDown, 50, MILLISECONDS);
+        // An earlier task scheduled afterwards wakes up the worker which parks until the later task.
+        CountDownLatch earlier = new CountDownLatch(1);
+        timer.schedule(earlier::countDown, 5, MILLISECONDS);
+        earlier.await();
+        assertThat(latch.getCount(), is(1L));
+        latch.await();
+        assertThat(NANOSECONDS.toMillis(nanoTime() - startNs), greaterThanOrEqualTo(50L));
+    }
+
+    @Test(expected = RejectedExecutionException.class)
+    public void testScheduleAfterStopOfStartedTimer() throws Exception {
+        CountDownLatch latch = new CountDownLatch(1);
+        timer.schedule(latch::countDown, 0, MILLISECONDS);
+        latch.await();
+        timer.stop();
+        timer.schedule(() -> { }, 1, MILLISECONDS);
+    }
+
+    @Test(expected = RejectedExecutionException.class)
+    public void testScheduleAfterStop() {
+        timer.stop();
+        timer.schedule(() -> { }, 1, MILLISECONDS);
+    }
+}
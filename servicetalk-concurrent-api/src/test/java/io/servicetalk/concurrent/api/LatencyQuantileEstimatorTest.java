@@ -0,0 +1,66 @@
+/*
+ * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.concurrent.api;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static java.time.Duration.ofMillis;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+public class LatencyQuantileEstimatorTest {
+
+    @Test
+    public void testConvergesToQuantile() {
+        LatencyQuantileEstimator estimator = new LatencyQuantileEstimator(0.9, ofMillis(1));
+        // Latencies are uniformly distributed between 0ms and 100ms, so the p90 is 90ms.
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; ++i) {
+            estimator.record(MILLISECONDS.toNanos(random.nextInt(100)));
+        }
+        assertThat(estimator.getAsLong(), allOf(greaterThan(MILLISECONDS.toNanos(80)),
+                lessThan(MILLISECONDS.toNanos(100))));
+    }
+
+    @Test
+    public void testRecordAtLeastBelowEstimateIgnored() {
+        LatencyQuantileEstimator estimator = new LatencyQuantileEstimator(0.5, ofMillis(10));
+        for (int i = 0; i < 1000; ++i) {
+            estimator.recordAtLeast(MILLISECONDS.toNanos(1));
+        }
+        assertThat(estimator.getAsLong(), is(MILLISECONDS.toNanos(10)));
+    }
+
+    @Test
+    public void testRecordAtLeastAboveEstimateMovesUp() {
+        LatencyQuantileEstimator estimator = new LatencyQuantileEstimator(0.5, ofMillis(10));
+        for (int i = 0; i < 1000; ++i) {
+            estimator.recordAtLeast(MILLISECONDS.toNanos(100));
+        }
+        assertThat(estimator.getAsLong(), greaterThan(MILLISECONDS.toNanos(10)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidQuantile() {
+        new LatencyQuantileEstimator(1, ofMillis(1));
+    }
+}
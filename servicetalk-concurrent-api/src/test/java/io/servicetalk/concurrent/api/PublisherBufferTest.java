@@ -0,0 +1,188 @@
+/*
+ * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.concurrent.api;
+
+import io.servicetalk.concurrent.api.TimeoutTestUtils.ScheduleEvent;
+import io.servicetalk.concurrent.api.TimeoutTestUtils.ScheduleQueueTestExecutor;
+import io.servicetalk.concurrent.internal.ServiceTalkTestTimeout;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.servicetalk.concurrent.api.DeliberateException.DELIBERATE_EXCEPTION;
+import static io.servicetalk.concurrent.api.Publisher.from;
+import static io.servicetalk.concurrent.internal.Await.awaitIndefinitely;
+import static java.time.Duration.ofMillis;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.verify;
+
+public class PublisherBufferTest {
+    @Rule
+    public final Timeout timeout = new ServiceTalkTestTimeout();
+    @Rule
+    public final MockedSubscriberRule<List<Integer>> subscriber = new MockedSubscriberRule<>();
+
+    private final ScheduleQueueTestExecutor timerExecutor = new ScheduleQueueTestExecutor();
+    private TestPublisher<Integer> source;
+
+    @Before
+    public void setUp() {
+        source = new TestPublisher<Integer>().sendOnSubscribe();
+    }
+
+    @Test
+    public void testBufferByCount() throws Exception {
+        List<List<Integer>> batches = awaitIndefinitely(from(1, 2, 3, 4, 5).buffer(2));
+        assertThat(batches, contains(asList(1, 2), asList(3, 4), singletonList(5)));
+    }
+
+    @Test
+    public void testWindowByCount() throws Exception {
+        List<ArrayList<Integer>> windows = awaitIndefinitely(from(1, 2, 3).window(2)
+                .flatMapSingle(window -> window.reduce(ArrayList<Integer>::new, (list, i) -> {
+                    list.add(i);
+                    return list;
+                }), 1));
+        assertThat(windows, contains(asList(1, 2), singletonList(3)));
+    }
+
+    @Test
+    public void testSourceRequestedOnlyForDemandedBatch() {
+        subscriber.subscribe(source.buffer(3));
+        source.verifyRequested(0);
+        subscriber.request(1);
+        source.verifyRequested(3);
+        source.sendItems(1, 2, 3);
+        subscriber.verifyItems(asList(1, 2, 3));
+        source.verifyRequested(3); // No demand for another batch.
+        subscriber.request(2);
+        source.verifyRequested(6);
+        source.sendItems(4, 5, 6);
+        subscriber.verifyItems(asList(4, 5, 6));
+        source.verifyRequested(9);
+    }
+
+    @Test
+    public void testPartialBatchEmittedOnComplete() {
+        subscriber.subscribe(source.buffer(3)).request(1);
+        source.sendItems(1, 2).onComplete();
+        subscriber.verifySuccessNoRequestN(asList(1, 2));
+    }
+
+    @Test
+    public void testEmptyComplete() {
+        subscriber.subscribe(source.buffer(3)).request(1);
+        source.onComplete();
+        subscriber.verifySuccessNoRequestN();
+    }
+
+    @Test
+    public void testErrorDiscardsPartialBatch() {
+        subscriber.subscribe(source.buffer(3)).request(1);
+        source.sendItems(1, 2).fail();
+        subscriber.verifyFailure(DELIBERATE_EXCEPTION);
+    }
+
+    @Test
+    public void testCancel() {
+        subscriber.subscribe(source.buffer(3, ofMillis(10), timerExecutor)).request(1);
+        source.sendItems(1);
+        ScheduleEvent event = timerExecutor.events.poll();
+        subscriber.cancel();
+        source.verifyCancelled();
+        verify(event.cancellable).cancel();
+        subscriber.verifyNoEmissions();
+    }
+
+    @Test
+    public void testBufferByTime() {
+        subscriber.subscribe(source.buffer(10, ofMillis(10), timerExecutor)).request(2);
+        assertTrue("Timer started without items.", timerExecutor.events.isEmpty());
+        source.sendItems(1, 2);
+        ScheduleEvent event = timerExecutor.events.poll();
+        assertThat(event.delayEquals(10, MILLISECONDS), is(true));
+        assertTrue("Timer started for each item.", timerExecutor.events.isEmpty());
+        event.runnable.run();
+        subscriber.verifyItems(asList(1, 2));
+
+        source.sendItems(3);
+        timerExecutor.events.poll().runnable.run();
+        subscriber.verifyItems(singletonList(3));
+    }
+
+    @Test
+    public void testTimerCancelledWhenBatchFull() {
+        subscriber.subscribe(source.buffer(2, ofMillis(10), timerExecutor)).request(2);
+        source.sendItems(1, 2);
+        subscriber.verifyItems(asList(1, 2));
+        ScheduleEvent event = timerExecutor.events.poll();
+        verify(event.cancellable).cancel();
+
+        // A timer which fires after it was cancelled must not close the next batch.
+        source.sendItems(3);
+        event.runnable.run();
+        source.sendItems(4);
+        subscriber.verifyItems(asList(3, 4));
+    }
+
+    @Test
+    public void testTimedOutBatchWaitsForDemand() {
+        subscriber.subscribe(source.buffer(3, ofMillis(10), timerExecutor)).request(1);
+        source.sendItems(1, 2, 3);
+        subscriber.verifyItems(asList(1, 2, 3));
+
+        subscriber.request(1);
+        source.sendItems(4);
+        timerExecutor.events.poll(); // Timer of the first batch.
+        timerExecutor.events.poll().runnable.run();
+        subscriber.verifyItems(singletonList(4));
+        source.verifyRequested(6);
+
+        source.sendItems(5);
+        timerExecutor.events.poll().runnable.run();
+        subscriber.request(1);
+        subscriber.verifyItems(singletonList(5));
+    }
+
+    @Test
+    public void testBufferBySize() {
+        subscriber.subscribe(source.buffer(10, 5, i -> i, ofMillis(10), timerExecutor)).request(3);
+        source.sendItems(1, 2, 3);
+        subscriber.verifyItems(asList(1, 2, 3));
+        source.sendItems(7);
+        subscriber.verifyItems(singletonList(7));
+        source.sendItems(1).onComplete();
+        subscriber.verifySuccessNoRequestN(singletonList(1));
+    }
+
+    @Test
+    public void testNullItems() {
+        subscriber.subscribe(source.buffer(2)).request(1);
+        source.sendItems(null, 1);
+        subscriber.verifyItems(asList(null, 1));
+    }
+}
@@ -0,0 +1,278 @@
+/*
+ * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.concurrent.api;
+
+import io.servicetalk.concurrent.internal.ServiceTalkTestTimeout;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static io.servicetalk.concurrent.api.DeliberateException.DELIBERATE_EXCEPTION;
+import static io.servicetalk.concurrent.api.Executors.immediate;
+import static io.servicetalk.concurrent.api.Publisher.from;
+import static io.servicetalk.concurrent.internal.Await.awaitIndefinitely;
+import static java.util.Arrays.asList;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class PublisherFlatMapMergeTest {
+    @Rule
+    public final Timeout timeout = new ServiceTalkTestTimeout(30, SECONDS);
+    @Rule
+    public final MockedSubscriberRule<Integer> subscriber = new MockedSubscriberRule<>();
+
+    private TestPublisher<Integer> source;
+    private final List<TestPublisher<Integer>> inners = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        source = new TestPublisher<Integer>().sendOnSubscribe();
+    }
+
+    @Test
+    public void testSyncInnerPublishers() throws Exception {
+        List<Integer> results = awaitIndefinitely(from(1, 2, 3).flatMapMerge(i -> from(i, i * 10), 2));
+        assertThat(results, containsInAnyOrder(1, 10, 2, 20, 3, 30));
+    }
+
+    @Test
+    public void testStaticMerge() throws Exception {
+        List<Integer> results = awaitIndefinitely(Publisher.merge(from(1, 2), from(3), Publisher.empty()));
+        assertThat(results, containsInAnyOrder(1, 2, 3));
+    }
+
+    @Test
+    public void testStaticMergeSubscribesAllConcurrently() {
+        TestPublisher<Integer> first = new TestPublisher<Integer>().sendOnSubscribe();
+        TestPublisher<Integer> second = new TestPublisher<Integer>().sendOnSubscribe();
+        subscriber.subscribe(Publisher.merge(asList(first, second))).request(2);
+        second.sendItems(2);
+        first.sendItems(1).onComplete();
+        second.onComplete();
+        subscriber.verifySuccessNoRequestN(2, 1);
+    }
+
+    @Test
+    public void testInnerCompletesWithNull() {
+        subscriber.subscribe(source.flatMapMerge(integer -> Publisher.just(null), 2)).request(1);
+        source.sendItems(1).onComplete();
+        subscriber.verifyItems(new Integer[]{null}).verifySuccess();
+    }
+
+    @Test
+    public void testMaxConcurrency() {
+        subscriber.subscribe(source.flatMapMerge(this::newInner, 2)).request(10);
+        source.verifyRequested(2); // Should not request more than max concurrency.
+        source.sendItems(1, 2);
+        assertThat("Unexpected number of inner Publishers.", inners, hasSize(2));
+
+        inners.get(0).sendItems(1).onComplete();
+        subscriber.verifyItems(1);
+        source.verifyRequested(3); // Replace the completed inner Publisher.
+
+        inners.get(1).onComplete();
+        source.verifyRequested(4);
+        source.sendItems(3).onComplete();
+        assertThat("Unexpected number of inner Publishers.", inners, hasSize(3));
+        inners.get(2).sendItems(3).onComplete();
+        subscriber.verifyItems(3).verifySuccess();
+    }
+
+    @Test
+    public void testSourceNotRequestedBeforeDemand() {
+        subscriber.subscribe(source.flatMapMerge(this::newInner, 2));
+        source.verifyRequested(0);
+        subscriber.request(1);
+        subscriber.request(1);
+        source.verifyRequested(2);
+    }
+
+    @Test
+    public void testPrefetchAndReplenish() {
+        subscriber.subscribe(source.flatMapMerge(this::newInner, 1, 4)).request(1);
+        source.sendItems(1);
+        TestPublisher<Integer> inner = inners.get(0);
+        inner.verifyRequested(4);
+        inner.sendItems(1, 2, 3, 4);
+        subscriber.verifyItems(1);
+
+        subscriber.request(2);
+        subscriber.verifyItems(2).verifyItems(3);
+        inner.verifyRequested(7); // 3/4 of prefetch consumed.
+
+        subscriber.request(1);
+        subscriber.verifyItems(4);
+        inner.verifyRequested(7);
+    }
+
+    @Test
+    public void testItemsInterleaveAcrossInners() {
+        subscriber.subscribe(source.flatMapMerge(this::newInner, 2)).request(3);
+        source.sendItems(1, 2);
+        inners.get(1).sendItems(20);
+        inners.get(0).sendItems(10);
+        inners.get(1).sendItems(21).onComplete();
+        subscriber.verifyItems(20, 10, 21);
+        inners.get(0).onComplete();
+        source.onComplete();
+        subscriber.verifySuccessNoRequestN();
+    }
+
+    @Test
+    public void testCompleteWithoutOutstandingDemand() {
+        subscriber.subscribe(source.flatMapMerge(this::newInner, 2)).request(2);
+        source.sendItems(1);
+        inners.get(0).sendItems(1, 2);
+        source.onComplete();
+        subscriber.verifyItems(1, 2);
+        inners.get(0).onComplete();
+        subscriber.verifySuccessNoRequestN();
+    }
+
+    @Test
+    public void testInnerErrorCancelsOthers() {
+        subscriber.subscribe(source.flatMapMerge(this::newInner, 2)).request(1);
+        source.sendItems(1, 2);
+        inners.get(0).fail();
+        subscriber.verifyFailure(DELIBERATE_EXCEPTION);
+        inners.get(1).verifyCancelled();
+        source.verifyCancelled();
+    }
+
+    @Test
+    public void testInnerErrorWithoutDemandIsDelivered() {
+        subscriber.subscribe(source.flatMapMerge(this::newInner, 2)).request(1);
+        source.sendItems(1);
+        inners.get(0).sendItems(1, 2);
+        subscriber.verifyItems(1);
+        inners.get(0).fail();
+        subscriber.verifyFailure(DELIBERATE_EXCEPTION);
+    }
+
+    @Test
+    public void testSourceErrorCancelsInners() {
+        subscriber.subscribe(source.flatMapMerge(this::newInner, 2)).request(1);
+        source.sendItems(1);
+        source.fail();
+        subscriber.verifyFailure(DELIBERATE_EXCEPTION);
+        inners.get(0).verifyCancelled();
+        source.verifyNotCancelled();
+    }
+
+    @Test
+    public void testSubscriberCancel() {
+        subscriber.subscribe(source.flatMapMerge(this::newInner, 2)).request(1);
+        source.sendItems(1);
+        subscriber.cancel();
+        inners.get(0).verifyCancelled();
+        source.verifyCancelled();
+        subscriber.verifyNoEmissions();
+    }
+
+    @Test
+    public void testReentry() throws InterruptedException {
+        Queue<Integer> resultsQueue = new ConcurrentLinkedQueue<>();
+        AtomicReference<Throwable> causeRef = new AtomicReference<>();
+        CountDownLatch latch = new CountDownLatch(1);
+        final Integer[] expectedNumbers = new Integer[100000]; // big enough to trigger stack overflow if we are not careful.
+        for (int i = 0; i < expectedNumbers.length; ++i) {
+            expectedNumbers[i] = i;
+        }
+        PublisherFlatMapMerge<Integer, Integer> pub = new PublisherFlatMapMerge<>(from(0, 1),
+                value -> from(expectedNumbers), 1, 4, immediate());
+        pub.subscribe(new Subscriber<Integer>() {
+            private Subscription subscription;
+
+            @Override
+            public void onSubscribe(Subscription s) {
+                subscription = s;
+                s.request(1);
+            }
+
+            @Override
+            public void onNext(Integer i) {
+                resultsQueue.add(i);
+                subscription.request(1);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                causeRef.set(t);
+                latch.countDown();
+            }
+
+            @Override
+            public void onComplete() {
+                latch.countDown();
+            }
+        });
+
+        latch.await();
+        assertNull(causeRef.get());
+        for (int i = 0; i < 2; ++i) {
+            for (Integer expectedNumber : expectedNumbers) {
+                assertEquals(expectedNumber, resultsQueue.poll());
+            }
+        }
+        assertTrue(resultsQueue.isEmpty());
+    }
+
+    @Test
+    public void testConcurrentInners() throws Exception {
+        Executor executor = Executors.newCachedThreadExecutor();
+        try {
+            final int innerCount = 50;
+            final int itemsPerInner = 1000;
+            Integer[] sourceItems = new Integer[innerCount];
+            for (int i = 0; i < innerCount; ++i) {
+                sourceItems[i] = i;
+            }
+            List<Integer> results = awaitIndefinitely(from(sourceItems).flatMapMerge(i -> {
+                Integer[] items = new Integer[itemsPerInner];
+                for (int j = 0; j < itemsPerInner; ++j) {
+                    items[j] = i * itemsPerInner + j;
+                }
+                return from(items).publishOn(executor);
+            }, 8, 16));
+            assertThat(results, hasSize(innerCount * itemsPerInner));
+            assertEquals(innerCount * itemsPerInner, results.stream().distinct().count());
+        } finally {
+            executor.closeAsync().toFuture().get();
+        }
+    }
+
+    private Publisher<Integer> newInner(Integer ignored) {
+        TestPublisher<Integer> inner = new TestPublisher<Integer>().sendOnSubscribe();
+        inners.add(inner);
+        return inner;
+    }
+}
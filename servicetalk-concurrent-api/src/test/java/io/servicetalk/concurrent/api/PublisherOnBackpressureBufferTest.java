@@ -0,0 +1,204 @@
+/*
+ * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.concurrent.api;
+
+import io.servicetalk.concurrent.internal.QueueFullException;
+import io.servicetalk.concurrent.internal.ServiceTalkTestTimeout;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import javax.annotation.Nullable;
+
+import static io.servicetalk.concurrent.api.BufferOverflowPolicy.DROP_LATEST;
+import static io.servicetalk.concurrent.api.BufferOverflowPolicy.DROP_OLDEST;
+import static io.servicetalk.concurrent.api.DeliberateException.DELIBERATE_EXCEPTION;
+import static io.servicetalk.concurrent.api.Publisher.from;
+import static java.util.concurrent.Executors.newSingleThreadExecutor;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class PublisherOnBackpressureBufferTest {
+    @Rule
+    public final Timeout timeout = new ServiceTalkTestTimeout();
+    @Rule
+    public final MockedSubscriberRule<Integer> subscriber = new MockedSubscriberRule<>();
+
+    private TestPublisher<Integer> source;
+
+    @Before
+    public void setUp() {
+        source = new TestPublisher<Integer>().sendOnSubscribe();
+    }
+
+    @Test
+    public void testRequestsEverything() {
+        subscriber.subscribe(source.onBackpressureBuffer(2));
+        source.verifyRequested(Long.MAX_VALUE);
+    }
+
+    @Test
+    public void testBufferedUntilRequested() {
+        subscriber.subscribe(source.onBackpressureBuffer(2));
+        source.sendItems(1, 2);
+        subscriber.verifyNoEmissions();
+        subscriber.request(1);
+        subscriber.verifyItems(1);
+        source.sendItems(3);
+        subscriber.request(2);
+        subscriber.verifyItems(2, 3);
+    }
+
+    @Test
+    public void testCompleteAfterBufferedItems() {
+        subscriber.subscribe(source.onBackpressureBuffer(2));
+        source.sendItems(1, 2).onComplete();
+        subscriber.verifyNoEmissions();
+        subscriber.verifySuccess(1, 2);
+    }
+
+    @Test
+    public void testErrorDiscardsBufferedItems() {
+        subscriber.subscribe(source.onBackpressureBuffer(2));
+        source.sendItems(1).fail();
+        subscriber.verifyFailure(DELIBERATE_EXCEPTION);
+    }
+
+    @Test
+    public void testOverflowFails() {
+        subscriber.subscribe(source.onBackpressureBuffer(2)).request(1);
+        source.sendItems(1, 2, 3);
+        subscriber.verifyItems(1);
+        source.sendItems(4);
+        subscriber.verifyFailure(QueueFullException.class);
+        source.verifyCancelled();
+    }
+
+    @Test
+    public void testOverflowDropLatest() {
+        subscriber.subscribe(source.onBackpressureBuffer(2, DROP_LATEST));
+        source.sendItems(1, 2, 3, 4).onComplete();
+        subscriber.verifySuccess(1, 2);
+        source.verifyNotCancelled();
+    }
+
+    @Test
+    public void testOverflowDropOldest() {
+        subscriber.subscribe(source.onBackpressureBuffer(2, DROP_OLDEST));
+        source.sendItems(1, 2, 3, 4).onComplete();
+        subscriber.verifySuccess(3, 4);
+    }
+
+    @Test
+    public void testLatest() {
+        subscriber.subscribe(source.onBackpressureLatest()).request(1);
+        source.sendItems(1, 2, 3);
+        subscriber.verifyItems(1);
+        subscriber.request(5);
+        subscriber.verifyItems(3);
+        source.sendItems(4);
+        subscriber.verifyItems(4);
+    }
+
+    @Test
+    public void testLatestDeliversLastItemWithConcurrentRequests() throws Exception {
+        final Integer[] items = new Integer[100_000];
+        for (int i = 0; i < items.length; ++i) {
+            items[i] = i;
+        }
+        final ExecutorService requester = newSingleThreadExecutor();
+        try {
+            for (int run = 0; run < 20; ++run) {
+                final RequestOneSubscriber latest = new RequestOneSubscriber();
+                final Future<?> requests = requester.submit(latest::requestUntilTerminated);
+                from(items).onBackpressureLatest().subscribe(latest);
+                requests.get();
+                assertThat("Unexpected order of items.", latest.outOfOrder, is(false));
+                assertThat("Last item not delivered.", latest.last, is(items.length - 1));
+            }
+        } finally {
+            requester.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testCancel() {
+        subscriber.subscribe(source.onBackpressureBuffer(2));
+        source.sendItems(1);
+        subscriber.cancel();
+        source.verifyCancelled();
+        subscriber.request(1);
+        subscriber.verifyNoEmissions();
+    }
+
+    @Test
+    public void testNullItems() {
+        subscriber.subscribe(source.onBackpressureBuffer(2));
+        source.sendItems(null, 1);
+        subscriber.request(2);
+        subscriber.verifyItems(new Integer[]{null, 1});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidCapacity() {
+        source.onBackpressureBuffer(0);
+    }
+
+    private static final class RequestOneSubscriber implements Subscriber<Integer> {
+        @Nullable
+        private volatile Subscription subscription;
+        private volatile boolean terminated;
+        private int last = -1;
+        private boolean outOfOrder;
+
+        void requestUntilTerminated() {
+            Subscription s;
+            while ((s = subscription) == null) {
+                Thread.yield();
+            }
+            while (!terminated) {
+                s.request(1);
+            }
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            subscription = s;
+        }
+
+        @Override
+        public void onNext(Integer integer) {
+            outOfOrder |= integer <= last;
+            last = integer;
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            terminated = true;
+        }
+
+        @Override
+        public void onComplete() {
+            terminated = true;
+        }
+    }
+}
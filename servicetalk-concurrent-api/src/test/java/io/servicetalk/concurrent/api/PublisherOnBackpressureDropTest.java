@@ -0,0 +1,77 @@
+/*
+ * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.concurrent.api;
+
+import io.servicetalk.concurrent.internal.ServiceTalkTestTimeout;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.servicetalk.concurrent.api.DeliberateException.DELIBERATE_EXCEPTION;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+
+public class PublisherOnBackpressureDropTest {
+    @Rule
+    public final Timeout timeout = new ServiceTalkTestTimeout();
+    @Rule
+    public final MockedSubscriberRule<Integer> subscriber = new MockedSubscriberRule<>();
+
+    private final List<Integer> dropped = new ArrayList<>();
+    private TestPublisher<Integer> source;
+
+    @Before
+    public void setUp() {
+        source = new TestPublisher<Integer>().sendOnSubscribe();
+    }
+
+    @Test
+    public void testDropWithoutDemand() {
+        subscriber.subscribe(source.onBackpressureDrop(dropped::add));
+        source.verifyRequested(Long.MAX_VALUE);
+        source.sendItems(1, 2);
+        subscriber.request(1);
+        source.sendItems(3, 4);
+        subscriber.verifyItems(3);
+        assertThat(dropped, contains(1, 2, 4));
+    }
+
+    @Test
+    public void testComplete() {
+        subscriber.subscribe(source.onBackpressureDrop(dropped::add)).request(1);
+        source.sendItems(1).onComplete();
+        subscriber.verifySuccessNoRequestN(1);
+    }
+
+    @Test
+    public void testError() {
+        subscriber.subscribe(source.onBackpressureDrop());
+        source.sendItems(1).fail();
+        subscriber.verifyFailure(DELIBERATE_EXCEPTION);
+    }
+
+    @Test
+    public void testCancel() {
+        subscriber.subscribe(source.onBackpressureDrop());
+        subscriber.cancel();
+        source.verifyCancelled();
+    }
+}
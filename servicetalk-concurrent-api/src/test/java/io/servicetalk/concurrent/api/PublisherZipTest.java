@@ -0,0 +1,134 @@
+/*
+ * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.concurrent.api;
+
+import io.servicetalk.concurrent.internal.ServiceTalkTestTimeout;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.util.List;
+
+import static io.servicetalk.concurrent.api.DeliberateException.DELIBERATE_EXCEPTION;
+import static io.servicetalk.concurrent.api.Publisher.from;
+import static io.servicetalk.concurrent.api.Publisher.zip;
+import static io.servicetalk.concurrent.internal.Await.awaitIndefinitely;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+
+public class PublisherZipTest {
+    @Rule
+    public final Timeout timeout = new ServiceTalkTestTimeout();
+    @Rule
+    public final MockedSubscriberRule<String> subscriber = new MockedSubscriberRule<>();
+
+    private final TestPublisher<Integer> first = new TestPublisher<Integer>().sendOnSubscribe();
+    private final TestPublisher<String> second = new TestPublisher<String>().sendOnSubscribe();
+
+    @Test
+    public void testSyncSources() throws Exception {
+        List<String> results = awaitIndefinitely(zip(from(1, 2, 3), from("a", "b"), (i, s) -> i + s));
+        assertThat(results, contains("1a", "2b"));
+    }
+
+    @Test
+    public void testVarargs() throws Exception {
+        List<String> results = awaitIndefinitely(zip(values -> "" + values[0] + values[1] + values[2],
+                from(1, 2), from("a", "b"), from(true, false)));
+        assertThat(results, contains("1atrue", "2bfalse"));
+    }
+
+    @Test
+    public void testEmitsOnDemandOnceAllSourcesEmitted() {
+        subscriber.subscribe(zip(first, second, (i, s) -> i + s));
+        first.verifyRequested(PublisherZip.DEFAULT_PREFETCH);
+        second.verifyRequested(PublisherZip.DEFAULT_PREFETCH);
+        first.sendItems(1, 2);
+        second.sendItems("a");
+        subscriber.verifyNoEmissions();
+        subscriber.request(2);
+        subscriber.verifyItems("1a");
+        second.sendItems("b");
+        subscriber.verifyItems("2b");
+    }
+
+    @Test
+    public void testCompletesWithShortestSource() {
+        subscriber.subscribe(zip(first, second, (i, s) -> i + s)).request(2);
+        first.sendItems(1).onComplete();
+        subscriber.verifyNoEmissions();
+        second.sendItems("a");
+        subscriber.verifySuccessNoRequestN("1a");
+        second.verifyCancelled();
+    }
+
+    @Test
+    public void testCompleteWithoutDemand() {
+        subscriber.subscribe(zip(first, second, (i, s) -> i + s));
+        first.onComplete();
+        subscriber.verifySuccessNoRequestN();
+        second.verifyCancelled();
+    }
+
+    @Test
+    public void testErrorCancelsOtherSources() {
+        subscriber.subscribe(zip(first, second, (i, s) -> i + s));
+        first.sendItems(1);
+        second.fail();
+        subscriber.verifyFailure(DELIBERATE_EXCEPTION);
+        first.verifyCancelled();
+    }
+
+    @Test
+    public void testZipperThrows() {
+        subscriber.subscribe(zip(first, second, (i, s) -> {
+            throw DELIBERATE_EXCEPTION;
+        })).request(1);
+        first.sendItems(1);
+        second.sendItems("a");
+        subscriber.verifyFailure(DELIBERATE_EXCEPTION);
+        first.verifyCancelled();
+        second.verifyCancelled();
+    }
+
+    @Test
+    public void testCancel() {
+        subscriber.subscribe(zip(first, second, (i, s) -> i + s));
+        subscriber.cancel();
+        first.verifyCancelled();
+        second.verifyCancelled();
+    }
+
+    @Test
+    public void testNullItems() {
+        subscriber.subscribe(zip(first, second, (i, s) -> i + s)).request(1);
+        first.sendItems((Integer) null);
+        second.sendItems((String) null);
+        subscriber.verifyItems("nullnull");
+    }
+
+    @Test
+    public void testReplenish() {
+        subscriber.subscribe(new PublisherZip<>(new Publisher<?>[] {first, second},
+                values -> "" + values[0] + values[1], 4)).request(10);
+        first.sendItems(1, 2, 3);
+        second.sendItems("a", "b", "c");
+        subscriber.verifyItems("1a", "2b", "3c");
+        first.verifyRequested(7);
+        second.verifyRequested(7);
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.concurrent.api;
+
+import io.servicetalk.concurrent.internal.ServiceTalkTestTimeout;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.servicetalk.concurrent.api.DeliberateException.DELIBERATE_EXCEPTION;
+import static io.servicetalk.concurrent.api.Publisher.from;
+import static io.servicetalk.concurrent.internal.Await.awaitIndefinitely;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+
+public class ReplayPublisherTest {
+    @Rule
+    public final Timeout timeout = new ServiceTalkTestTimeout();
+    @Rule
+    public final MockedSubscriberRule<Integer> subscriber1 = new MockedSubscriberRule<>();
+    @Rule
+    public final MockedSubscriberRule<Integer> subscriber2 = new MockedSubscriberRule<>();
+
+    private TestPublisher<Integer> source;
+
+    @Before
+    public void setUp() {
+        source = new TestPublisher<Integer>().sendOnSubscribe();
+    }
+
+    @Test
+    public void testCacheSubscribesOnce() throws Exception {
+        AtomicInteger subscribeCount = new AtomicInteger();
+        Publisher<Integer> cached = from(1, 2, 3).doBeforeSubscribe(s -> subscribeCount.incrementAndGet()).cache();
+        List<Integer> first = awaitIndefinitely(cached);
+        List<Integer> second = awaitIndefinitely(cached);
+        assertThat(first, contains(1, 2, 3));
+        assertThat(second, contains(1, 2, 3));
+        assertThat("Unexpected number of subscribes.", subscribeCount.get(), is(1));
+    }
+
+    @Test
+    public void testLateSubscriberReceivesHistory() {
+        Publisher<Integer> replay = source.replay(2);
+        subscriber1.subscribe(replay).request(3);
+        source.sendItems(1, 2, 3);
+        subscriber1.verifyItems(1, 2, 3);
+
+        subscriber2.subscribe(replay).request(3);
+        subscriber2.verifyItems(2, 3);
+        source.sendItems(4);
+        subscriber2.verifyItems(4);
+    }
+
+    @Test
+    public void testSourceRequestedForHighestDemand() {
+        Publisher<Integer> replay = source.replay(2);
+        subscriber1.subscribe(replay);
+        subscriber2.subscribe(replay);
+        source.verifyRequested(0);
+        subscriber1.request(2);
+        source.verifyRequested(2);
+        subscriber2.request(5);
+        source.verifyRequested(5);
+        subscriber1.request(2);
+        source.verifyRequested(5);
+    }
+
+    @Test
+    public void testSlowSubscriberDoesNotLoseItems() {
+        Publisher<Integer> replay = source.replay(1);
+        subscriber1.subscribe(replay).request(1);
+        subscriber2.subscribe(replay).request(3);
+        source.sendItems(1, 2, 3);
+        subscriber1.verifyItems(1);
+        subscriber2.verifyItems(1, 2, 3);
+        subscriber1.request(2);
+        subscriber1.verifyItems(2, 3);
+    }
+
+    @Test
+    public void testCompleteReplayedToLateSubscriber() {
+        Publisher<Integer> replay = source.replay(2);
+        subscriber1.subscribe(replay).request(1);
+        source.sendItems(1).onComplete();
+        subscriber1.verifySuccessNoRequestN(1);
+        subscriber2.subscribe(replay).verifySuccess(1);
+    }
+
+    @Test
+    public void testErrorReplayedToLateSubscriber() {
+        Publisher<Integer> replay = source.replay(2);
+        subscriber1.subscribe(replay);
+        source.fail();
+        subscriber1.verifyFailure(DELIBERATE_EXCEPTION);
+        subscriber2.subscribe(replay).verifyFailure(DELIBERATE_EXCEPTION);
+    }
+
+    @Test
+    public void testCompleteWithoutDemand() {
+        subscriber1.subscribe(source.replay(2));
+        source.onComplete();
+        subscriber1.verifySuccessNoRequestN();
+    }
+
+    @Test
+    public void testCancelDoesNotCancelSource() {
+        Publisher<Integer> replay = source.replay(2);
+        subscriber1.subscribe(replay).request(1);
+        subscriber1.cancel();
+        source.verifyNotCancelled();
+        source.sendItems(1);
+        subscriber1.verifyNoEmissions();
+
+        subscriber2.subscribe(replay).request(1);
+        subscriber2.verifyItems(1);
+    }
+
+    @Test
+    public void testLastCancelCancelsSource() {
+        Publisher<Integer> replay = source.replay(2, true);
+        subscriber1.subscribe(replay).request(1);
+        subscriber2.subscribe(replay).request(1);
+        subscriber1.cancel();
+        source.verifyNotCancelled();
+        subscriber2.cancel();
+        source.verifyCancelled();
+    }
+
+    @Test
+    public void testLateSubscriberAfterSourceCancelled() {
+        Publisher<Integer> replay = source.replay(2, true);
+        subscriber1.subscribe(replay).request(1);
+        source.sendItems(1);
+        subscriber1.verifyItems(1);
+        subscriber1.cancel();
+        source.verifyCancelled();
+
+        subscriber2.subscribe(replay).request(2);
+        subscriber2.verifyItems(1);
+        subscriber2.verifyFailure(CancellationException.class);
+    }
+
+    @Test
+    public void testTerminatedSubscriberDoesNotCancelSource() {
+        Publisher<Integer> replay = source.replay(2, true);
+        subscriber1.subscribe(replay).request(1);
+        subscriber2.subscribe(replay).request(-1);
+        subscriber2.verifyFailure(IllegalArgumentException.class);
+        source.verifyNotCancelled();
+        subscriber1.cancel();
+        source.verifyCancelled();
+    }
+
+    @Test
+    public void testInvalidRequestN() {
+        Publisher<Integer> replay = source.replay(2);
+        subscriber1.subscribe(replay).request(1);
+        subscriber2.subscribe(replay).request(-1);
+        subscriber2.verifyFailure(IllegalArgumentException.class);
+        source.sendItems(1);
+        subscriber1.verifyItems(1);
+    }
+
+    @Test
+    public void testNullItems() {
+        subscriber1.subscribe(source.replay(2)).request(2);
+        source.sendItems(null, 1);
+        subscriber1.verifyItems(new Integer[]{null, 1});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidMaxHistory() {
+        source.replay(0);
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.concurrent.api.single;
+
+import io.servicetalk.concurrent.api.MockedSingleListenerRule;
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.concurrent.api.TestSingle;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import static io.servicetalk.concurrent.api.DeliberateException.DELIBERATE_EXCEPTION;
+import static java.time.Duration.ofMillis;
+
+public class CacheSingleTest {
+    @Rule
+    public final MockedSingleListenerRule<Integer> listener1 = new MockedSingleListenerRule<>();
+    @Rule
+    public final MockedSingleListenerRule<Integer> listener2 = new MockedSingleListenerRule<>();
+    @Rule
+    public final MockedSingleListenerRule<Integer> listener3 = new MockedSingleListenerRule<>();
+
+    private final TestSingle<Integer> source = new TestSingle<>(false, false);
+
+    @Test
+    public void testConcurrentSubscribersShareSubscription() {
+        Single<Integer> cached = source.cache();
+        listener1.listen(cached);
+        listener2.listen(cached);
+        source.verifyListenCalled(1);
+        source.onSuccess(1);
+        listener1.verifySuccess(1);
+        listener2.verifySuccess(1);
+    }
+
+    @Test
+    public void testLateSubscriberReceivesCachedResult() {
+        Single<Integer> cached = source.cache();
+        listener1.listen(cached);
+        source.onSuccess(1);
+        listener1.verifySuccess(1);
+        listener2.listen(cached).verifySuccess(1);
+        source.verifyListenCalled(1);
+    }
+
+    @Test
+    public void testNullResultIsCached() {
+        Single<Integer> cached = source.cache();
+        listener1.listen(cached);
+        source.onSuccess(null);
+        listener1.verifySuccess(null);
+        listener2.listen(cached).verifySuccess(null);
+        source.verifyListenCalled(1);
+    }
+
+    @Test
+    public void testErrorIsNotCached() {
+        Single<Integer> cached = source.cache();
+        listener1.listen(cached);
+        listener2.listen(cached);
+        source.onError(DELIBERATE_EXCEPTION);
+        listener1.verifyFailure(DELIBERATE_EXCEPTION);
+        listener2.verifyFailure(DELIBERATE_EXCEPTION);
+
+        listener3.listen(cached);
+        source.verifyListenCalled(2);
+        source.onSuccess(1);
+        listener3.verifySuccess(1);
+    }
+
+    @Test
+    public void testResultExpires() throws InterruptedException {
+        Single<Integer> cached = source.cache(ofMillis(1));
+        listener1.listen(cached);
+        source.onSuccess(1);
+        listener1.verifySuccess(1);
+        Thread.sleep(10);
+        listener2.listen(cached).verifyNoEmissions();
+        source.verifyListenCalled(2);
+        source.onSuccess(2);
+        listener2.verifySuccess(2);
+    }
+
+    @Test
+    public void testSourceCancelledWhenAllSubscribersCancel() {
+        Single<Integer> cached = source.cache();
+        listener1.listen(cached);
+        listener2.listen(cached);
+        listener1.cancel();
+        source.verifyNotCancelled();
+        listener2.cancel();
+        source.verifyCancelled();
+
+        listener3.listen(cached);
+        source.verifyListenCalled(2);
+    }
+
+    @Test
+    public void testCancelledSubscriberDoesNotReceiveResult() {
+        Single<Integer> cached = source.cache();
+        listener1.listen(cached);
+        listener2.listen(cached);
+        listener1.cancel();
+        source.onSuccess(1);
+        listener1.verifyNoEmissions();
+        listener2.verifySuccess(1);
+    }
+}
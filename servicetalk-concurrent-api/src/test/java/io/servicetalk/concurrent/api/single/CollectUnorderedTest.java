@@ -0,0 +1,90 @@
+/*
+ * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.concurrent.api.single;
+
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.concurrent.api.TestSingle;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import static io.servicetalk.concurrent.api.DeliberateException.DELIBERATE_EXCEPTION;
+import static io.servicetalk.concurrent.api.Single.collectUnordered;
+import static io.servicetalk.concurrent.api.Single.success;
+import static io.servicetalk.concurrent.internal.Await.awaitIndefinitely;
+import static java.util.Arrays.asList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertFalse;
+
+public class CollectUnorderedTest {
+    @Rule
+    public final ExpectedException expectedException = ExpectedException.none();
+
+    @Test
+    public void testCollect() throws Exception {
+        Collection<Integer> results = awaitIndefinitely(collectUnordered(asList(success(1), success(2), success(3))));
+        assertThat(results, containsInAnyOrder(1, 2, 3));
+    }
+
+    @Test
+    public void testCollectIterable() throws Exception {
+        List<Single<Integer>> singles = asList(success(1), success(2));
+        Iterable<Single<Integer>> iterable = singles::iterator;
+        Collection<Integer> results = awaitIndefinitely(collectUnordered(iterable));
+        assertThat(results, containsInAnyOrder(1, 2));
+    }
+
+    @Test
+    public void testMaxConcurrency() throws Exception {
+        TestSingle<Integer> first = new TestSingle<>();
+        TestSingle<Integer> second = new TestSingle<>();
+        TestSingle<Integer> third = new TestSingle<>();
+        Future<Collection<Integer>> future = collectUnordered(asList(first, second, third), 2).toFuture();
+        first.verifyListenCalled(1);
+        second.verifyListenCalled(1);
+        third.verifyListenCalled(0);
+        second.onSuccess(2);
+        third.verifyListenCalled(1);
+        third.onSuccess(3);
+        assertFalse(future.isDone());
+        first.onSuccess(1);
+        Iterator<Integer> results = future.get().iterator();
+        assertThat(results.next(), is(2));
+        assertThat(results.next(), is(3));
+        assertThat(results.next(), is(1));
+    }
+
+    @Test
+    public void testErrorCancelsOthers() throws Exception {
+        TestSingle<Integer> first = new TestSingle<>();
+        TestSingle<Integer> second = new TestSingle<>();
+        Future<Collection<Integer>> future = collectUnordered(asList(first, second)).toFuture();
+        first.onError(DELIBERATE_EXCEPTION);
+        second.verifyCancelled();
+        expectedException.expect(ExecutionException.class);
+        expectedException.expectCause(is(DELIBERATE_EXCEPTION));
+        future.get();
+    }
+}
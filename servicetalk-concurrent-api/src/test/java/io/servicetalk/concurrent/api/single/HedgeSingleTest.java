@@ -0,0 +1,150 @@
+/*
+ * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.concurrent.api.single;
+
+import io.servicetalk.concurrent.api.LatencyQuantileEstimator;
+import io.servicetalk.concurrent.api.MockedSingleListenerRule;
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.concurrent.api.TestSingle;
+import io.servicetalk.concurrent.api.TimeoutTestUtils.ScheduleEvent;
+import io.servicetalk.concurrent.api.TimeoutTestUtils.ScheduleQueueTestExecutor;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.servicetalk.concurrent.api.DeliberateException.DELIBERATE_EXCEPTION;
+import static java.time.Duration.ofMillis;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.verify;
+
+public class HedgeSingleTest {
+    @Rule
+    public final MockedSingleListenerRule<Integer> listener = new MockedSingleListenerRule<>();
+
+    private final ScheduleQueueTestExecutor timerExecutor = new ScheduleQueueTestExecutor();
+    private final List<TestSingle<Integer>> attempts = new ArrayList<>();
+    private final Single<Integer> source = Single.defer(() -> {
+        TestSingle<Integer> attempt = new TestSingle<>(true, false);
+        attempts.add(attempt);
+        return attempt;
+    });
+
+    @Test
+    public void testNoHedgeIfFirstSucceedsInTime() {
+        listener.listen(source.hedge(ofMillis(10), timerExecutor));
+        ScheduleEvent event = timerExecutor.events.poll();
+        assertThat(event.delayEquals(10, MILLISECONDS), is(true));
+        attempts.get(0).onSuccess(1);
+        listener.verifySuccess(1);
+        verify(event.cancellable).cancel();
+        event.runnable.run();
+        assertThat("Hedged after success.", attempts, hasSize(1));
+    }
+
+    @Test
+    public void testHedgeWins() {
+        listener.listen(source.hedge(ofMillis(10), timerExecutor));
+        timerExecutor.events.poll().runnable.run();
+        assertThat("Unexpected number of attempts.", attempts, hasSize(2));
+        attempts.get(1).onSuccess(2);
+        listener.verifySuccess(2);
+        attempts.get(0).verifyCancelled();
+        attempts.get(1).verifyNotCancelled();
+    }
+
+    @Test
+    public void testFirstWinsAfterHedge() {
+        listener.listen(source.hedge(ofMillis(10), timerExecutor));
+        timerExecutor.events.poll().runnable.run();
+        attempts.get(0).onSuccess(1);
+        listener.verifySuccess(1);
+        attempts.get(1).verifyCancelled();
+    }
+
+    @Test
+    public void testErrorWaitsForOtherAttempt() {
+        listener.listen(source.hedge(ofMillis(10), timerExecutor));
+        timerExecutor.events.poll().runnable.run();
+        attempts.get(0).onError(DELIBERATE_EXCEPTION);
+        listener.verifyNoEmissions();
+        attempts.get(1).onSuccess(2);
+        listener.verifySuccess(2);
+    }
+
+    @Test
+    public void testBothAttemptsFail() {
+        listener.listen(source.hedge(ofMillis(10), timerExecutor));
+        timerExecutor.events.poll().runnable.run();
+        attempts.get(0).onError(new IllegalStateException());
+        attempts.get(1).onError(DELIBERATE_EXCEPTION);
+        listener.verifyFailure(DELIBERATE_EXCEPTION);
+    }
+
+    @Test
+    public void testErrorBeforeHedge() {
+        listener.listen(source.hedge(ofMillis(10), timerExecutor));
+        ScheduleEvent event = timerExecutor.events.poll();
+        attempts.get(0).onError(DELIBERATE_EXCEPTION);
+        listener.verifyFailure(DELIBERATE_EXCEPTION);
+        verify(event.cancellable).cancel();
+    }
+
+    @Test
+    public void testCancel() {
+        listener.listen(source.hedge(ofMillis(10), timerExecutor));
+        ScheduleEvent event = timerExecutor.events.poll();
+        event.runnable.run();
+        listener.cancel();
+        verify(event.cancellable).cancel();
+        attempts.get(0).verifyCancelled();
+        attempts.get(1).verifyCancelled();
+        listener.verifyNoEmissions();
+    }
+
+    @Test
+    public void testLoserDiscarded() {
+        List<Integer> discarded = new ArrayList<>();
+        listener.listen(source.hedge(() -> 0, timerExecutor, discarded::add));
+        timerExecutor.events.poll().runnable.run();
+        attempts.get(1).onSuccess(2);
+        attempts.get(0).onSuccess(1);
+        listener.verifySuccess(2);
+        assertThat(discarded, contains(1));
+    }
+
+    @Test
+    public void testNegativeDelayDisablesHedging() {
+        listener.listen(source.hedge(() -> -1, timerExecutor));
+        assertTrue("Hedge timer scheduled.", timerExecutor.events.isEmpty());
+        attempts.get(0).onSuccess(1);
+        listener.verifySuccess(1);
+    }
+
+    @Test
+    public void testDelayFromEstimator() {
+        LatencyQuantileEstimator estimator = new LatencyQuantileEstimator(0.95, ofMillis(10));
+        listener.listen(source.hedge(estimator, timerExecutor));
+        assertThat(timerExecutor.events.poll().delayEquals(10, MILLISECONDS), is(true));
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.concurrent.api.single;
+
+import io.servicetalk.concurrent.api.MockedSingleListenerRule;
+import io.servicetalk.concurrent.api.TestSingle;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import static io.servicetalk.concurrent.api.DeliberateException.DELIBERATE_EXCEPTION;
+import static io.servicetalk.concurrent.api.Single.success;
+import static io.servicetalk.concurrent.api.Single.zip;
+
+public class ZipSingleTest {
+    @Rule
+    public final MockedSingleListenerRule<String> listener = new MockedSingleListenerRule<>();
+
+    private final TestSingle<Integer> first = new TestSingle<>();
+    private final TestSingle<String> second = new TestSingle<>();
+
+    @Test
+    public void testSuccessAfterAllSources() {
+        listener.listen(zip(first, second, (i, s) -> i + s));
+        first.verifyListenCalled(1);
+        second.verifyListenCalled(1);
+        second.onSuccess("a");
+        listener.verifyNoEmissions();
+        first.onSuccess(1);
+        listener.verifySuccess("1a");
+    }
+
+    @Test
+    public void testVarargs() {
+        listener.listen(zip(values -> "" + values[0] + values[1] + values[2], success(1), success("a"),
+                success(null))).verifySuccess("1anull");
+    }
+
+    @Test
+    public void testErrorCancelsOtherSources() {
+        listener.listen(zip(first, second, (i, s) -> i + s));
+        first.onError(DELIBERATE_EXCEPTION);
+        listener.verifyFailure(DELIBERATE_EXCEPTION);
+        second.verifyCancelled();
+    }
+
+    @Test
+    public void testZipperThrows() {
+        listener.listen(zip(first, second, (i, s) -> {
+            throw DELIBERATE_EXCEPTION;
+        }));
+        first.onSuccess(1);
+        second.onSuccess("a");
+        listener.verifyFailure(DELIBERATE_EXCEPTION);
+    }
+
+    @Test
+    public void testCancel() {
+        listener.listen(zip(first, second, (i, s) -> i + s));
+        listener.cancel();
+        first.verifyCancelled();
+        second.verifyCancelled();
+        first.onSuccess(1);
+        second.onSuccess("a");
+        listener.verifyNoEmissions();
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.concurrent.context;
+
+import io.servicetalk.concurrent.api.Executor;
+import io.servicetalk.concurrent.api.Single;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static io.servicetalk.concurrent.context.AsyncContextMap.Key.newKeyWithDebugToString;
+import static java.lang.Math.min;
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Stores the deadline of the request which is currently processed in the {@link AsyncContext}, and applies it to
+ * asynchronous operations started on behalf of that request.
+ * <p>
+ * A deadline is a point in time of {@link System#nanoTime()}, so it can only be compared within the same JVM. It is
+ * propagated to other processes as the remaining time, see {@link #remainingNanos()}.
+ */
+public final class Deadlines {
+    private static final AsyncContextMap.Key<Long> DEADLINE_KEY = newKeyWithDebugToString("deadline");
+
+    /**
+     * Longer timeouts are treated like this one, which keeps deadlines far away from overflowing
+     * {@link System#nanoTime()}.
+     */
+    private static final long MAX_TIMEOUT_NS = Long.MAX_VALUE >>> 2;
+
+    private Deadlines() {
+        // no instances
+    }
+
+    /**
+     * Sets the deadline of the current request to {@code timeout} from now, unless an earlier deadline is already set.
+     * <p>
+     * The deadline is stored in the {@link AsyncContext} of the calling thread, so callers should restore the previous
+     * {@link AsyncContext#current() AsyncContextMap} once they have handed off the request. Otherwise the deadline
+     * also applies to unrelated requests which are later processed by the same thread.
+     *
+     * @param timeout The time after which the current request should be abandoned.
+     * @param unit The {@link TimeUnit} of {@code timeout}.
+     */
+    public static void setDeadline(long timeout, TimeUnit unit) {
+        final long deadlineNs = nanoTime() + min(unit.toNanos(timeout), MAX_TIMEOUT_NS);
+        final Long currentDeadlineNs = AsyncContext.get(DEADLINE_KEY);
+        if (currentDeadlineNs == null || deadlineNs - currentDeadlineNs < 0) {
+            AsyncContext.put(DEADLINE_KEY, deadlineNs);
+        }
+    }
+
+    /**
+     * Returns the time left until the deadline of the current request.
+     *
+     * @return The time left until the deadline of the current request in nanoseconds, which is {@code <= 0} if the
+     * deadline has passed, or {@link Long#MAX_VALUE} if there is no deadline.
+     */
+    public static long remainingNanos() {
+        final Long deadlineNs = AsyncContext.get(DEADLINE_KEY);
+        return deadlineNs == null ? Long.MAX_VALUE : deadlineNs - nanoTime();
+    }
+
+    /**
+     * Applies the deadline of the current request to {@code single}.
+     * <p>
+     * The deadline is read from the {@link AsyncContext} when the returned {@link Single} is subscribed. If it has
+     * already passed, {@code single} is not subscribed and the returned {@link Single} fails with a
+     * {@link TimeoutException}. Otherwise {@code single} is cancelled and the returned {@link Single} fails with a
+     * {@link TimeoutException} once the deadline passes.
+     *
+     * @param single The {@link Single} to which the deadline is applied.
+     * @param timerExecutor The {@link Executor} to use for managing the timer notifications.
+     * @param <T> Type of the result of {@code single}.
+     * @return A {@link Single} which fails with a {@link TimeoutException} if {@code single} does not terminate before
+     * the deadline of the current request.
+     */
+    public static <T> Single<T> withDeadline(Single<T> single, Executor timerExecutor) {
+        return Single.defer(() -> {
+            final long remainingNs = remainingNanos();
+            if (remainingNs == Long.MAX_VALUE) {
+                return single;
+            }
+            if (remainingNs <= 0) {
+                return Single.error(new TimeoutException("deadline exceeded"));
+            }
+            return single.timeout(remainingNs, NANOSECONDS, timerExecutor);
+        });
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.concurrent.context;
+
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.concurrent.internal.ServiceTalkTestTimeout;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static io.servicetalk.concurrent.api.Executors.immediate;
+import static io.servicetalk.concurrent.internal.Await.awaitIndefinitely;
+import static java.util.concurrent.TimeUnit.DAYS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+public class DeadlinesTest {
+    @Rule
+    public final Timeout timeout = new ServiceTalkTestTimeout();
+
+    @Before
+    public void setUp() {
+        AsyncContext.clear();
+    }
+
+    @Test
+    public void testNoDeadline() throws Exception {
+        assertEquals(Long.MAX_VALUE, Deadlines.remainingNanos());
+        assertEquals(Integer.valueOf(1), awaitIndefinitely(Deadlines.withDeadline(Single.success(1), immediate())));
+    }
+
+    @Test
+    public void testEarlierDeadlineWins() {
+        Deadlines.setDeadline(1, SECONDS);
+        Deadlines.setDeadline(1, DAYS);
+        assertThat(Deadlines.remainingNanos(), lessThanOrEqualTo(SECONDS.toNanos(1)));
+    }
+
+    @Test
+    public void testDeadlineExceededBeforeSubscribe() throws Exception {
+        Deadlines.setDeadline(0, MILLISECONDS);
+        AtomicBoolean subscribed = new AtomicBoolean();
+        Single<Integer> single = Deadlines.withDeadline(Single.<Integer>never()
+                .doBeforeSubscribe(cancellable -> subscribed.set(true)), immediate());
+        assertTimeout(single);
+        assertFalse("Subscribed after the deadline passed.", subscribed.get());
+    }
+
+    @Test
+    public void testDeadlineExceededWhileWaiting() throws Exception {
+        Deadlines.setDeadline(10, MILLISECONDS);
+        assertTimeout(Deadlines.withDeadline(Single.never(), immediate()));
+    }
+
+    private static void assertTimeout(Single<?> single) throws InterruptedException {
+        try {
+            awaitIndefinitely(single);
+            fail("Expected a TimeoutException.");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(TimeoutException.class));
+        }
+    }
+}
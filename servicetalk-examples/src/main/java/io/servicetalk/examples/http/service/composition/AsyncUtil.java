@@ -17,12 +17,15 @@ package io.servicetalk.examples.http.service.composition;
 
 import io.servicetalk.concurrent.api.Single;
 
-// This class exists to fill the gap for missing operators in our async primitives.
+// This class provides a typed variant of Single#zip(Function, Single...) for three Singles.
 final class AsyncUtil {
 
+    private AsyncUtil() {
+        // No instances.
+    }
+
     /**
-     * This operator is not currently available in ServiceTalk hence we provide a workaround to achieve the same
-     * results as a zip. This operator merges heterogenous {@link Single} into a single holder object.
+     * Subscribes to all three {@link Single}s in parallel and merges their results into a single holder object.
      *
      * @param first First {@link Single} to be zipped.
      * @param second Second {@link Single} to be zipped.
@@ -35,45 +38,15 @@ final class AsyncUtil {
      * @return A {@link Single} that will emit the final holder object.
      * @see <a href="http://reactivex.io/documentation/operators/zip.html">ReactiveX zip operator.</a>
      */
+    @SuppressWarnings("unchecked")
     static <T1, T2, T3, R> Single<R> zip(Single<T1> first, Single<T2> second, Single<T3> third,
                                          Zipper<T1, T2, T3, R> zipper) {
-
-        @SuppressWarnings("unchecked")
-        Single<R> resp = first.concatWith((Single) second).concatWith(third)
-                .reduce(Collector::new, (collector, aEntity) -> {
-                    @SuppressWarnings("unchecked")
-                    Collector<T1, T2, T3, R> c = (Collector<T1, T2, T3, R>) collector;
-                    return c.add(aEntity);
-                })
-                .map(collector -> {
-                    @SuppressWarnings("unchecked")
-                    Collector<T1, T2, T3, R> c = (Collector<T1, T2, T3, R>) collector;
-                    return c.zip(zipper);
-                });
-
-        return resp;
+        return Single.zip(values -> zipper.zip((T1) values[0], (T2) values[1], (T3) values[2]),
+                first, second, third);
     }
 
     @FunctionalInterface
     interface Zipper<T1, T2, T3, R> {
-
         R zip(T1 first, T2 second, T3 third);
-
-    }
-
-    private static final class Collector<T1, T2, T3, R> {
-
-        private final Object[] holder = new Object[3];
-        private int index = 0;
-
-        Collector<T1, T2, T3, R> add(Object entity) {
-            holder[index++] = entity;
-            return this;
-        }
-
-        @SuppressWarnings("unchecked")
-        R zip(Zipper<T1, T2, T3, R> zipper) {
-            return zipper.zip((T1) holder[0], (T2) holder[1], (T3) holder[2]);
-        }
     }
 }
@@ -0,0 +1,126 @@
+/*
+ * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.api;
+
+import io.servicetalk.buffer.api.Buffer;
+import io.servicetalk.buffer.api.BufferAllocator;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import javax.annotation.Nullable;
+
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * The default implementation of {@link FileHttpPayloadChunk}.
+ */
+final class DefaultFileHttpPayloadChunk implements FileHttpPayloadChunk {
+
+    private final File file;
+    private final long position;
+    private final int count;
+    private final BufferAllocator allocator;
+    @Nullable
+    private Buffer content;
+
+    /**
+     * Create a {@link DefaultFileHttpPayloadChunk} for a region of {@code file}.
+     *
+     * @param file the {@link File} which contains the content.
+     * @param position the offset in {@code file} where the content starts.
+     * @param count the number of bytes of the content.
+     * @param allocator the {@link BufferAllocator} used to wrap the memory-mapped region.
+     */
+    DefaultFileHttpPayloadChunk(final File file, final long position, final int count,
+                                final BufferAllocator allocator) {
+        if (position < 0) {
+            throw new IllegalArgumentException("position: " + position + " (expected >= 0)");
+        }
+        if (count < 0) {
+            throw new IllegalArgumentException("count: " + count + " (expected >= 0)");
+        }
+        this.file = requireNonNull(file);
+        this.allocator = requireNonNull(allocator);
+        this.position = position;
+        this.count = count;
+    }
+
+    @Override
+    public File getFile() {
+        return file;
+    }
+
+    @Override
+    public long getPosition() {
+        return position;
+    }
+
+    @Override
+    public int getCount() {
+        return count;
+    }
+
+    @Override
+    public Buffer getContent() {
+        Buffer content = this.content;
+        if (content == null) {
+            try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+                // The mapping stays valid after the channel is closed.
+                final FileChannel channel = raf.getChannel();
+                content = allocator.wrap(channel.map(READ_ONLY, position, count));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to map " + count + " bytes at " + position + " of " + file, e);
+            }
+            this.content = content;
+        }
+        return content;
+    }
+
+    @Override
+    public FileHttpPayloadChunk duplicate() {
+        return new DefaultFileHttpPayloadChunk(file, position, count, allocator);
+    }
+
+    @Override
+    public HttpPayloadChunk replace(final Buffer content) {
+        return new DefaultHttpPayloadChunk(content);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || o.getClass() != getClass()) {
+            return false;
+        }
+        final DefaultFileHttpPayloadChunk that = (DefaultFileHttpPayloadChunk) o;
+        return position == that.position && count == that.count && file.equals(that.file);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = file.hashCode();
+        result = 31 * result + Long.hashCode(position);
+        return 31 * result + count;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{file=" + file + ", position=" + position + ", count=" + count + '}';
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.api;
+
+import io.servicetalk.buffer.api.Buffer;
+
+import java.io.File;
+
+/**
+ * A {@link HttpPayloadChunk} whose content is a region of a {@link File}.
+ * <p>
+ * Transports which are able to transfer file content directly to the socket (e.g. via {@code sendfile}) may use
+ * {@link #getFile()}, {@link #getPosition()} and {@link #getCount()} to avoid copying the content into user space.
+ * All other consumers can use {@link #getContent()}, which returns a read-only memory-mapped view of the region.
+ */
+public interface FileHttpPayloadChunk extends HttpPayloadChunk {
+
+    /**
+     * Returns the {@link File} which contains the content of this chunk.
+     *
+     * @return the {@link File} which contains the content of this chunk.
+     */
+    File getFile();
+
+    /**
+     * Returns the offset in {@link #getFile()} where the content of this chunk starts.
+     *
+     * @return the offset in {@link #getFile()} where the content of this chunk starts.
+     */
+    long getPosition();
+
+    /**
+     * Returns the number of bytes of {@link #getFile()} which make up the content of this chunk.
+     *
+     * @return the number of bytes of {@link #getFile()} which make up the content of this chunk.
+     */
+    int getCount();
+
+    /**
+     * Returns a read-only memory-mapped view of the file region described by this chunk.
+     * <p>
+     * The region is mapped on first access.
+     *
+     * @return {@link Buffer} containing the content of the chunk.
+     * @throws java.io.UncheckedIOException if the file region could not be mapped.
+     */
+    @Override
+    Buffer getContent();
+
+    @Override
+    FileHttpPayloadChunk duplicate();
+}
@@ -21,13 +21,25 @@ import io.servicetalk.buffer.api.CompositeBuffer;
 import io.servicetalk.concurrent.api.Publisher;
 import io.servicetalk.concurrent.api.Single;
 
+import java.io.File;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 import javax.annotation.Nullable;
 
+import static io.servicetalk.concurrent.api.Publisher.from;
+import static java.lang.Math.min;
+
 /**
  * Factory methods for creating {@link HttpPayloadChunk}s.
  */
 public final class HttpPayloadChunks {
 
+    /**
+     * The maximum number of bytes of a file covered by a single {@link FileHttpPayloadChunk} created by
+     * {@link #newFilePayloadBody(File, long, long, BufferAllocator)}.
+     */
+    static final int MAX_FILE_REGION_SIZE = 1 << 20;
+
     private HttpPayloadChunks() {
         // No instances.
     }
@@ -53,6 +65,61 @@ public final class HttpPayloadChunks {
         return new DefaultLastHttpPayloadChunk(content, trailers);
     }
 
+    /**
+     * Create a {@link FileHttpPayloadChunk} instance for a region of {@code file}.
+     *
+     * @param file the {@link File} which contains the content.
+     * @param position the offset in {@code file} where the content starts.
+     * @param count the number of bytes of the content.
+     * @param allocator the {@link BufferAllocator} used to wrap the memory-mapped region if
+     * {@link FileHttpPayloadChunk#getContent()} is called.
+     * @return a new {@link FileHttpPayloadChunk}.
+     */
+    public static FileHttpPayloadChunk newFilePayloadChunk(final File file, final long position, final int count,
+                                                           final BufferAllocator allocator) {
+        return new DefaultFileHttpPayloadChunk(file, position, count, allocator);
+    }
+
+    /**
+     * Create a payload body which contains the entire content of {@code file}.
+     * <p>
+     * The length of the file is determined when this method is called.
+     *
+     * @param file the {@link File} to send.
+     * @param allocator the {@link BufferAllocator} used to wrap memory-mapped regions if
+     * {@link FileHttpPayloadChunk#getContent()} is called.
+     * @return a {@link Publisher} of {@link FileHttpPayloadChunk}s.
+     * @see #newFilePayloadBody(File, long, long, BufferAllocator)
+     */
+    public static Publisher<HttpPayloadChunk> newFilePayloadBody(final File file, final BufferAllocator allocator) {
+        return newFilePayloadBody(file, 0, file.length(), allocator);
+    }
+
+    /**
+     * Create a payload body which contains {@code count} bytes of {@code file} starting at {@code position}.
+     * <p>
+     * The region is emitted as consecutive {@link FileHttpPayloadChunk}s of bounded size as they are requested, so the
+     * file is never read ahead of what the transport is able to write. Transports which support it send each chunk
+     * without copying the file content into user space.
+     *
+     * @param file the {@link File} to send.
+     * @param position the offset in {@code file} where the content starts.
+     * @param count the number of bytes to send.
+     * @param allocator the {@link BufferAllocator} used to wrap memory-mapped regions if
+     * {@link FileHttpPayloadChunk#getContent()} is called.
+     * @return a {@link Publisher} of {@link FileHttpPayloadChunk}s.
+     */
+    public static Publisher<HttpPayloadChunk> newFilePayloadBody(final File file, final long position,
+                                                                 final long count, final BufferAllocator allocator) {
+        if (position < 0) {
+            throw new IllegalArgumentException("position: " + position + " (expected >= 0)");
+        }
+        if (count < 0) {
+            throw new IllegalArgumentException("count: " + count + " (expected >= 0)");
+        }
+        return from(new FileRegionIterable(file, position, count, allocator));
+    }
+
     /**
      * Aggregates a {@link Publisher} of {@link HttpPayloadChunk} into a {@link Single} of {@link LastHttpPayloadChunk}.
      *
@@ -162,15 +229,25 @@ public final class HttpPayloadChunks {
 
     private static class AggregatingChunkImpl implements AggregatingChunk {
 
+        private final BufferAllocator allocator;
+        private final int maxChunksCount;
         private final HttpHeadersFactory trailerFactory;
-        private final CompositeBuffer buffer;
+        /**
+         * The content of the only non-empty chunk added so far. A small message is usually decoded from a single read
+         * into a single chunk, so its content is used as is instead of being wrapped into a {@link CompositeBuffer}.
+         */
+        @Nullable
+        private Buffer singleBuffer;
+        @Nullable
+        private CompositeBuffer buffer;
         @Nullable
         private HttpHeaders trailers;
 
         AggregatingChunkImpl(final BufferAllocator allocator, final int maxChunksCount,
                              HttpHeadersFactory trailerFactory) {
+            this.allocator = allocator;
+            this.maxChunksCount = maxChunksCount;
             this.trailerFactory = trailerFactory;
-            buffer = allocator.newCompositeBuffer(maxChunksCount);
         }
 
         @Override
@@ -182,7 +259,16 @@ public final class HttpPayloadChunks {
                     trailers.add(((LastHttpPayloadChunk) chunk).getTrailers());
                 }
             }
-            buffer.addBuffer(chunk.getContent(), true);
+            final Buffer content = chunk.getContent();
+            if (buffer != null) {
+                buffer.addBuffer(content, true);
+            } else if (singleBuffer == null || singleBuffer.getReadableBytes() == 0) {
+                singleBuffer = content;
+            } else if (content.getReadableBytes() != 0) {
+                buffer = allocator.newCompositeBuffer(maxChunksCount).addBuffer(singleBuffer, true)
+                        .addBuffer(content, true);
+                singleBuffer = null;
+            }
         }
 
         @Override
@@ -195,7 +281,7 @@ public final class HttpPayloadChunks {
 
         @Override
         public LastHttpPayloadChunk duplicate() {
-            return newLastPayloadChunk(buffer.duplicate(), getTrailers());
+            return newLastPayloadChunk(getContent().duplicate(), getTrailers());
         }
 
         @Override
@@ -205,7 +291,52 @@ public final class HttpPayloadChunks {
 
         @Override
         public Buffer getContent() {
+            if (buffer != null) {
+                return buffer;
+            }
+            if (singleBuffer != null) {
+                return singleBuffer;
+            }
+            buffer = allocator.newCompositeBuffer(maxChunksCount);
             return buffer;
         }
     }
+
+    private static final class FileRegionIterable implements Iterable<HttpPayloadChunk> {
+        private final File file;
+        private final long position;
+        private final long count;
+        private final BufferAllocator allocator;
+
+        FileRegionIterable(final File file, final long position, final long count, final BufferAllocator allocator) {
+            this.file = file;
+            this.position = position;
+            this.count = count;
+            this.allocator = allocator;
+        }
+
+        @Override
+        public Iterator<HttpPayloadChunk> iterator() {
+            return new Iterator<HttpPayloadChunk>() {
+                private long next = position;
+                private final long end = position + count;
+
+                @Override
+                public boolean hasNext() {
+                    return next < end;
+                }
+
+                @Override
+                public HttpPayloadChunk next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    final int regionSize = (int) min(MAX_FILE_REGION_SIZE, end - next);
+                    final HttpPayloadChunk chunk = newFilePayloadChunk(file, next, regionSize, allocator);
+                    next += regionSize;
+                    return chunk;
+                }
+            };
+        }
+    }
 }
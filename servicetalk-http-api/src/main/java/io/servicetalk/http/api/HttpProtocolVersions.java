@@ -26,7 +26,8 @@ import static java.nio.charset.StandardCharsets.US_ASCII;
  */
 public enum HttpProtocolVersions implements HttpProtocolVersion {
     HTTP_1_0(1, 0),
-    HTTP_1_1(1, 1);
+    HTTP_1_1(1, 1),
+    HTTP_2_0(2, 0);
 
     private final int major;
     private final int minor;
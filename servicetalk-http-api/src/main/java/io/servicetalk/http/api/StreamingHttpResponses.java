@@ -16,13 +16,18 @@
 package io.servicetalk.http.api;
 
 import io.servicetalk.buffer.api.Buffer;
+import io.servicetalk.buffer.api.BufferAllocator;
 import io.servicetalk.concurrent.api.Publisher;
 import io.servicetalk.concurrent.api.Single;
 
+import java.io.File;
+
 import static io.servicetalk.concurrent.api.Publisher.empty;
 import static io.servicetalk.concurrent.api.Publisher.from;
 import static io.servicetalk.concurrent.api.Publisher.just;
 import static io.servicetalk.http.api.DefaultHttpHeadersFactory.INSTANCE;
+import static io.servicetalk.http.api.HttpHeaderNames.CONTENT_LENGTH;
+import static io.servicetalk.http.api.HttpPayloadChunks.newFilePayloadBody;
 import static io.servicetalk.http.api.HttpPayloadChunks.newLastPayloadChunk;
 import static io.servicetalk.http.api.HttpProtocolVersions.HTTP_1_1;
 
@@ -438,6 +443,28 @@ public final class StreamingHttpResponses {
                 status, version, headers, payloadBody.map(HttpPayloadChunks::newPayloadChunk));
     }
 
+    /**
+     * Create a new instance using HTTP 1.1 whose payload body is the entire content of {@code file}.
+     * <p>
+     * The {@link HttpHeaderNames#CONTENT_LENGTH} header is set to the length of the file when this method is called.
+     * On connections which support it the file content is written to the socket without copying it into user space,
+     * otherwise it is read via memory-mapped regions.
+     *
+     * @param status the {@link HttpResponseStatus} of the response.
+     * @param file the {@link File} to send.
+     * @param allocator the {@link BufferAllocator} used if the file content has to be read into {@link Buffer}s.
+     * @return a new {@link StreamingHttpResponse}.
+     * @see HttpPayloadChunks#newFilePayloadBody(File, long, long, BufferAllocator)
+     */
+    public static StreamingHttpResponse<HttpPayloadChunk> newFileResponse(final HttpResponseStatus status,
+                                                                          final File file,
+                                                                          final BufferAllocator allocator) {
+        final long length = file.length();
+        final HttpHeaders headers = INSTANCE.newHeaders();
+        headers.set(CONTENT_LENGTH, Long.toString(length));
+        return newResponse(HTTP_1_1, status, newFilePayloadBody(file, 0, length, allocator), headers);
+    }
+
     static <O> StreamingHttpResponse<O> fromBlockingResponse(BlockingStreamingHttpResponse<O> response) {
         return new DefaultStreamingHttpResponse<>(response.getStatus(), response.getVersion(), response.getHeaders(),
                 // The from(..) operator will take care of propagating cancel.
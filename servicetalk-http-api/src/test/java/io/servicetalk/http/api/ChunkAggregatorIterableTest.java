@@ -111,6 +111,17 @@ public class ChunkAggregatorIterableTest {
         verifyAggregatedChunk(aggregated, data, trailers);
     }
 
+    @Test
+    public void singleChunkContentUsedAsIs() throws Exception {
+        final Buffer data = DEFAULT_ALLOCATOR.fromAscii("Hello");
+        HttpHeaders trailers = DefaultHttpHeadersFactory.INSTANCE.newEmptyTrailers();
+        LastHttpPayloadChunk aggregated = aggregate(newPayloadChunk(DEFAULT_ALLOCATOR.newBuffer(0)),
+                newPayloadChunk(data), newLastPayloadChunk(DEFAULT_ALLOCATOR.newBuffer(0), trailers));
+
+        assertThat("Single content was wrapped.", aggregated.getContent(), sameInstance(data));
+        verifyAggregatedChunk(aggregated, data, trailers);
+    }
+
     @Test
     public void chunksAndThenError() throws Exception {
         final Buffer data = DEFAULT_ALLOCATOR.fromAscii("Hello");
@@ -0,0 +1,122 @@
+/*
+ * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.api;
+
+import io.servicetalk.concurrent.internal.ServiceTalkTestTimeout;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.rules.Timeout;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static io.servicetalk.buffer.netty.BufferAllocators.DEFAULT_ALLOCATOR;
+import static io.servicetalk.concurrent.internal.Await.awaitIndefinitely;
+import static io.servicetalk.http.api.HttpHeaderNames.CONTENT_LENGTH;
+import static io.servicetalk.http.api.HttpPayloadChunks.MAX_FILE_REGION_SIZE;
+import static io.servicetalk.http.api.HttpPayloadChunks.newFilePayloadBody;
+import static io.servicetalk.http.api.HttpPayloadChunks.newFilePayloadChunk;
+import static io.servicetalk.http.api.HttpResponseStatuses.OK;
+import static io.servicetalk.http.api.StreamingHttpResponses.newFileResponse;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+
+public class FileHttpPayloadChunkTest {
+
+    @Rule
+    public final Timeout timeout = new ServiceTalkTestTimeout();
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void contentIsMappedRegion() throws IOException {
+        byte[] content = randomBytes(128);
+        File file = newFile(content);
+        FileHttpPayloadChunk chunk = newFilePayloadChunk(file, 16, 32, DEFAULT_ALLOCATOR);
+        assertThat(chunk.getContent().getReadableBytes(), is(32));
+        assertThat(chunk.getContent().isReadOnly(), is(true));
+        for (int i = 0; i < 32; ++i) {
+            assertThat(chunk.getContent().getByte(i), is(content[16 + i]));
+        }
+    }
+
+    @Test
+    public void payloadBodyIsSplitIntoRegions() throws Exception {
+        byte[] content = randomBytes(2 * MAX_FILE_REGION_SIZE + 17);
+        File file = newFile(content);
+        List<HttpPayloadChunk> chunks = awaitIndefinitely(newFilePayloadBody(file, 5, content.length - 5,
+                DEFAULT_ALLOCATOR));
+        assertThat(chunks, is(notNullValue()));
+        assertThat(chunks, hasSize(3));
+        long position = 5;
+        for (HttpPayloadChunk chunk : chunks) {
+            assertThat(chunk, is(instanceOf(FileHttpPayloadChunk.class)));
+            FileHttpPayloadChunk fileChunk = (FileHttpPayloadChunk) chunk;
+            assertThat(fileChunk.getFile(), is(file));
+            assertThat(fileChunk.getPosition(), is(position));
+            position += fileChunk.getCount();
+        }
+        assertThat(position, is((long) content.length));
+    }
+
+    @Test
+    public void emptyFile() throws Exception {
+        File file = newFile(new byte[0]);
+        List<HttpPayloadChunk> chunks = awaitIndefinitely(newFilePayloadBody(file, DEFAULT_ALLOCATOR));
+        assertThat(chunks, is(notNullValue()));
+        assertThat(chunks, hasSize(0));
+    }
+
+    @Test
+    public void fileResponseSetsContentLength() throws Exception {
+        byte[] content = randomBytes(100);
+        File file = newFile(content);
+        StreamingHttpResponse<HttpPayloadChunk> response = newFileResponse(OK, file, DEFAULT_ALLOCATOR);
+        assertThat(response.getHeaders().contains(CONTENT_LENGTH, "100"), is(true));
+        List<HttpPayloadChunk> chunks = awaitIndefinitely(response.getPayloadBody());
+        assertThat(chunks, is(notNullValue()));
+        assertThat(chunks, hasSize(1));
+        assertThat(((FileHttpPayloadChunk) chunks.get(0)).getCount(), is(equalTo(100)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativePosition() {
+        newFilePayloadBody(new File("ignored"), -1, 1, DEFAULT_ALLOCATOR);
+    }
+
+    private File newFile(byte[] content) throws IOException {
+        File file = folder.newFile();
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(content);
+        }
+        return file;
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        ThreadLocalRandom.current().nextBytes(bytes);
+        return bytes;
+    }
+}
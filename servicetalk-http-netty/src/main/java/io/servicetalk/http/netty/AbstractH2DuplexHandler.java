@@ -0,0 +1,198 @@
+/*
+ * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.netty;
+
+import io.servicetalk.buffer.api.Buffer;
+import io.servicetalk.http.api.HttpHeaders;
+import io.servicetalk.http.api.HttpHeadersFactory;
+import io.servicetalk.http.api.HttpMetaData;
+import io.servicetalk.http.api.HttpPayloadChunk;
+import io.servicetalk.http.api.LastHttpPayloadChunk;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.http2.DefaultHttp2DataFrame;
+import io.netty.handler.codec.http2.DefaultHttp2Headers;
+import io.netty.handler.codec.http2.DefaultHttp2HeadersFrame;
+import io.netty.handler.codec.http2.Http2DataFrame;
+import io.netty.handler.codec.http2.Http2Headers;
+import io.netty.handler.codec.http2.Http2HeadersFrame;
+import io.netty.handler.codec.http2.Http2ResetFrame;
+import io.netty.util.AsciiString;
+import io.netty.util.concurrent.PromiseCombiner;
+
+import java.io.IOException;
+import java.util.Map.Entry;
+import javax.annotation.Nullable;
+
+import static io.netty.util.AsciiString.contentEqualsIgnoreCase;
+import static io.netty.util.ReferenceCountUtil.release;
+import static io.servicetalk.buffer.api.EmptyBuffer.EMPTY_BUFFER;
+import static io.servicetalk.buffer.netty.BufferUtil.isPooled;
+import static io.servicetalk.buffer.netty.BufferUtil.newUnpooledBufferFrom;
+import static io.servicetalk.http.api.CharSequences.newAsciiString;
+import static io.servicetalk.http.api.HttpHeaderNames.CONNECTION;
+import static io.servicetalk.http.api.HttpHeaderNames.HOST;
+import static io.servicetalk.http.api.HttpHeaderNames.TE;
+import static io.servicetalk.http.api.HttpHeaderNames.TRANSFER_ENCODING;
+import static io.servicetalk.http.api.HttpHeaderNames.UPGRADE;
+import static io.servicetalk.http.api.HttpHeaderValues.TRAILERS;
+import static io.servicetalk.http.api.HttpPayloadChunks.newLastPayloadChunk;
+import static io.servicetalk.http.api.HttpPayloadChunks.newPayloadChunk;
+import static io.servicetalk.http.netty.HttpObjectEncoder.toByteBuf;
+
+/**
+ * Translates between the {@link Http2HeadersFrame}s and {@link Http2DataFrame}s of a single HTTP/2 stream and the
+ * {@link HttpMetaData}, {@link HttpPayloadChunk} and {@link LastHttpPayloadChunk} objects used by the HTTP/1.x
+ * codecs, so the same connection abstractions can be used on top of both protocols.
+ */
+abstract class AbstractH2DuplexHandler extends ChannelDuplexHandler {
+
+    private static final CharSequence KEEP_ALIVE = newAsciiString("keep-alive");
+    private static final CharSequence PROXY_CONNECTION = newAsciiString("proxy-connection");
+
+    final HttpHeadersFactory headersFactory;
+    private boolean metaDataReceived;
+
+    AbstractH2DuplexHandler(final HttpHeadersFactory headersFactory) {
+        this.headersFactory = headersFactory;
+    }
+
+    /**
+     * Creates the HTTP/2 headers for the passed {@link HttpMetaData}, including the pseudo-headers.
+     *
+     * @param ctx the {@link ChannelHandlerContext} of the stream.
+     * @param metaData the {@link HttpMetaData} to convert.
+     * @return the {@link Http2Headers} to send.
+     */
+    abstract Http2Headers newH2Headers(ChannelHandlerContext ctx, HttpMetaData metaData);
+
+    /**
+     * Creates the {@link HttpMetaData} for received HTTP/2 headers.
+     *
+     * @param h2Headers the received {@link Http2Headers}.
+     * @return the {@link HttpMetaData} to propagate, or {@code null} if these headers should be ignored.
+     */
+    @Nullable
+    abstract HttpMetaData newMetaData(Http2Headers h2Headers);
+
+    @Override
+    public void write(final ChannelHandlerContext ctx, final Object msg, final ChannelPromise promise) {
+        if (msg instanceof HttpMetaData) {
+            ctx.write(new DefaultHttp2HeadersFrame(newH2Headers(ctx, (HttpMetaData) msg), false), promise);
+        } else if (msg instanceof LastHttpPayloadChunk) {
+            final LastHttpPayloadChunk last = (LastHttpPayloadChunk) msg;
+            final HttpHeaders trailers = last.getTrailers();
+            if (trailers.isEmpty()) {
+                ctx.write(newDataFrame(last.getContent(), true), promise);
+            } else {
+                final Http2Headers h2Trailers = new DefaultHttp2Headers();
+                copyHeaders(trailers, h2Trailers);
+                if (last.getContent().getReadableBytes() > 0) {
+                    // The write only succeeds if both the data and the trailers are written.
+                    final PromiseCombiner promiseCombiner = new PromiseCombiner();
+                    promiseCombiner.add(ctx.write(newDataFrame(last.getContent(), false)));
+                    promiseCombiner.add(ctx.write(new DefaultHttp2HeadersFrame(h2Trailers, true)));
+                    promiseCombiner.finish(promise);
+                } else {
+                    ctx.write(new DefaultHttp2HeadersFrame(h2Trailers, true), promise);
+                }
+            }
+        } else if (msg instanceof HttpPayloadChunk) {
+            ctx.write(newDataFrame(((HttpPayloadChunk) msg).getContent(), false), promise);
+        } else {
+            ctx.write(msg, promise);
+        }
+    }
+
+    @Override
+    public void channelRead(final ChannelHandlerContext ctx, final Object msg) {
+        if (msg instanceof Http2HeadersFrame) {
+            final Http2HeadersFrame headersFrame = (Http2HeadersFrame) msg;
+            if (metaDataReceived) {
+                final HttpHeaders trailers = headersFactory.newTrailers();
+                copyHeaders(headersFrame.headers(), trailers);
+                ctx.fireChannelRead(newLastPayloadChunk(EMPTY_BUFFER, trailers));
+                return;
+            }
+            final HttpMetaData metaData = newMetaData(headersFrame.headers());
+            if (metaData == null) {
+                return;
+            }
+            metaDataReceived = true;
+            ctx.fireChannelRead(metaData);
+            if (headersFrame.isEndStream()) {
+                ctx.fireChannelRead(EmptyLastHttpPayloadChunk.INSTANCE);
+            }
+        } else if (msg instanceof Http2DataFrame) {
+            final Http2DataFrame dataFrame = (Http2DataFrame) msg;
+            final Buffer content = newUnpooledBufferFrom(dataFrame.content());
+            ctx.fireChannelRead(dataFrame.isEndStream() ? newLastPayloadChunk(content, headersFactory.newTrailers()) :
+                    newPayloadChunk(content));
+        } else if (msg instanceof Http2ResetFrame) {
+            ctx.fireExceptionCaught(new IOException("Stream reset by peer, error code: " +
+                    ((Http2ResetFrame) msg).errorCode()));
+        } else {
+            release(msg);
+        }
+    }
+
+    /**
+     * Copies all headers which are allowed in HTTP/2 from {@code from} to {@code to}, lower-casing their names.
+     *
+     * @param from the HTTP/1.x headers.
+     * @param to the HTTP/2 headers.
+     */
+    static void copyHeaders(final HttpHeaders from, final Http2Headers to) {
+        for (Entry<CharSequence, CharSequence> header : from) {
+            final AsciiString name = AsciiString.of(header.getKey()).toLowerCase();
+            if (!isConnectionSpecific(name, header.getValue())) {
+                to.add(name, header.getValue());
+            }
+        }
+    }
+
+    /**
+     * Copies all headers except pseudo-headers from {@code from} to {@code to}.
+     *
+     * @param from the HTTP/2 headers.
+     * @param to the HTTP/1.x headers.
+     */
+    static void copyHeaders(final Http2Headers from, final HttpHeaders to) {
+        for (Entry<CharSequence, CharSequence> header : from) {
+            final CharSequence name = header.getKey();
+            if (name.length() == 0 || name.charAt(0) != ':') {
+                to.add(name, header.getValue());
+            }
+        }
+    }
+
+    // See https://tools.ietf.org/html/rfc7540#section-8.1.2.2
+    private static boolean isConnectionSpecific(final CharSequence name, final CharSequence value) {
+        return contentEqualsIgnoreCase(name, CONNECTION) || contentEqualsIgnoreCase(name, KEEP_ALIVE) ||
+                contentEqualsIgnoreCase(name, PROXY_CONNECTION) || contentEqualsIgnoreCase(name, TRANSFER_ENCODING) ||
+                contentEqualsIgnoreCase(name, UPGRADE) || contentEqualsIgnoreCase(name, HOST) ||
+                (contentEqualsIgnoreCase(name, TE) && !contentEqualsIgnoreCase(value, TRAILERS));
+    }
+
+    private static Http2DataFrame newDataFrame(final Buffer content, final boolean endStream) {
+        // Pooled memory is owned by the transport once written, see HttpObjectEncoder.
+        final ByteBuf byteBuf = toByteBuf(content);
+        return new DefaultHttp2DataFrame(isPooled(byteBuf) ? byteBuf : byteBuf.retain(), endStream);
+    }
+}
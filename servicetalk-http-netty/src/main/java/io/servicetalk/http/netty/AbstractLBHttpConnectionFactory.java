@@ -20,16 +20,45 @@ import io.servicetalk.concurrent.api.Completable;
 import io.servicetalk.concurrent.api.ListenableAsyncCloseable;
 import io.servicetalk.concurrent.api.Single;
 import io.servicetalk.http.api.ConnectionFilterFunction;
+import io.servicetalk.http.api.StreamingHttpConnection;
+import io.servicetalk.loadbalancer.ConnectionAffinity;
+import io.servicetalk.transport.api.ExecutionContext;
+import io.servicetalk.transport.netty.internal.EventLoopAwareNettyIoExecutor;
+
+import java.util.function.Predicate;
+import javax.annotation.Nullable;
 
 import static io.servicetalk.concurrent.api.AsyncCloseables.emptyAsyncCloseable;
+import static io.servicetalk.transport.netty.internal.EventLoopAwareNettyIoExecutors.toEventLoopAwareNettyIoExecutor;
 
 abstract class AbstractLBHttpConnectionFactory<ResolvedAddress>
-        implements ConnectionFactory<ResolvedAddress, LoadBalancedStreamingHttpConnection> {
+        implements ConnectionFactory<ResolvedAddress, LoadBalancedStreamingHttpConnection>,
+                   ConnectionAffinity<StreamingHttpConnection> {
+    private static final Predicate<StreamingHttpConnection> CURRENT_EVENT_LOOP_PREDICATE =
+            AbstractLBHttpConnectionFactory::isBoundToCurrentEventLoop;
+
     private final ConnectionFilterFunction connectionFilterFunction;
     private final ListenableAsyncCloseable close = emptyAsyncCloseable();
+    @Nullable
+    private final EventLoopAwareNettyIoExecutor affinityIoExecutor;
 
-    AbstractLBHttpConnectionFactory(ConnectionFilterFunction connectionFilterFunction) {
+    AbstractLBHttpConnectionFactory(ReadOnlyHttpClientConfig config, ExecutionContext executionContext,
+                                    ConnectionFilterFunction connectionFilterFunction) {
         this.connectionFilterFunction = connectionFilterFunction;
+        affinityIoExecutor = config.getTcpClientConfig().isEventLoopAffinity() ?
+                toEventLoopAwareNettyIoExecutor(executionContext.getIoExecutor()) : null;
+    }
+
+    @Nullable
+    @Override
+    public final Predicate<? super StreamingHttpConnection> currentThreadAffinity() {
+        return affinityIoExecutor != null && affinityIoExecutor.currentThreadEventLoop() != null ?
+                CURRENT_EVENT_LOOP_PREDICATE : null;
+    }
+
+    private static boolean isBoundToCurrentEventLoop(StreamingHttpConnection connection) {
+        return toEventLoopAwareNettyIoExecutor(connection.getConnectionContext().getExecutionContext().getIoExecutor())
+                .isCurrentThreadEventLoop();
     }
 
     abstract Single<LoadBalancedStreamingHttpConnection> newConnection(ResolvedAddress address,
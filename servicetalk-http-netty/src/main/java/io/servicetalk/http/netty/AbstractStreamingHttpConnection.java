@@ -52,9 +52,16 @@ abstract class AbstractStreamingHttpConnection<CC extends ConnectionContext> ext
                                               Completable onClosing,
                                               ReadOnlyHttpClientConfig config,
                                               ExecutionContext executionContext) {
+        this(conn, just(config.getMaxPipelinedRequests()).concatWith(onClosing.andThen(success(0))),
+                executionContext);
+    }
+
+    protected AbstractStreamingHttpConnection(CC conn,
+                                              Publisher<Integer> maxConcurrencySetting,
+                                              ExecutionContext executionContext) {
         this.connection = requireNonNull(conn);
         this.executionContext = requireNonNull(executionContext);
-        maxConcurrencySetting = just(config.getMaxPipelinedRequests()).concatWith(onClosing.andThen(success(0)));
+        this.maxConcurrencySetting = requireNonNull(maxConcurrencySetting);
     }
 
     @Override
@@ -0,0 +1,110 @@
+/*
+ * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.netty;
+
+import io.servicetalk.http.api.HttpProtocolVersion;
+
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelPipeline;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslHandler;
+import io.netty.handler.ssl.SslHandshakeCompletionEvent;
+
+import java.util.function.Supplier;
+import javax.annotation.Nullable;
+
+import static io.netty.handler.ssl.ApplicationProtocolNames.HTTP_2;
+import static io.servicetalk.http.api.HttpProtocolVersions.HTTP_1_1;
+import static io.servicetalk.http.api.HttpProtocolVersions.HTTP_2_0;
+import static io.servicetalk.transport.netty.internal.ContextFilterSuccessful.COMPLETED;
+
+/**
+ * Configures the {@link ChannelPipeline} for HTTP/1.x or HTTP/2, depending on the protocol negotiated by ALPN
+ * during the TLS handshake. The protocol handlers replace this handler at its position in the
+ * {@link ChannelPipeline}.
+ */
+final class AlpnChannelHandler extends ChannelInboundHandlerAdapter {
+
+    private final Supplier<ChannelHandler[]> h1Handlers;
+    private final Supplier<ChannelHandler[]> h2Handlers;
+    private final boolean fireNegotiatedProtocol;
+    private boolean contextFilterCompleted;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param h1Handlers the handlers to add if HTTP/1.x is negotiated.
+     * @param h2Handlers the handlers to add if HTTP/2 is negotiated.
+     * @param fireNegotiatedProtocol {@code true} to emit the negotiated {@link HttpProtocolVersion} as a read to the
+     * handlers following the protocol handlers.
+     */
+    AlpnChannelHandler(final Supplier<ChannelHandler[]> h1Handlers, final Supplier<ChannelHandler[]> h2Handlers,
+                       final boolean fireNegotiatedProtocol) {
+        this.h1Handlers = h1Handlers;
+        this.h2Handlers = h2Handlers;
+        this.fireNegotiatedProtocol = fireNegotiatedProtocol;
+    }
+
+    /**
+     * Determines whether the passed {@link SslContext} offers HTTP/2 via ALPN.
+     *
+     * @param sslContext the {@link SslContext} to check.
+     * @return {@code true} if {@code h2} is part of the application protocols of {@code sslContext}.
+     */
+    @SuppressWarnings("deprecation")
+    static boolean isH2Negotiable(@Nullable final SslContext sslContext) {
+        return sslContext != null && sslContext.applicationProtocolNegotiator().protocols().contains(HTTP_2);
+    }
+
+    @Override
+    public void channelActive(final ChannelHandlerContext ctx) {
+        ctx.fireChannelActive();
+        if (!ctx.channel().config().isAutoRead()) {
+            // Nothing reads until the protocol is known, make sure the handshake can progress.
+            ctx.read();
+        }
+    }
+
+    @Override
+    public void userEventTriggered(final ChannelHandlerContext ctx, final Object evt) {
+        if (evt == COMPLETED) {
+            // The handlers which are interested in this event are not added yet.
+            contextFilterCompleted = true;
+        } else if (evt instanceof SslHandshakeCompletionEvent && ((SslHandshakeCompletionEvent) evt).isSuccess()) {
+            final ChannelPipeline pipeline = ctx.pipeline();
+            final SslHandler sslHandler = pipeline.get(SslHandler.class);
+            final boolean h2 = sslHandler != null && HTTP_2.equals(sslHandler.applicationProtocol());
+            final ChannelHandler[] handlers = (h2 ? h2Handlers : h1Handlers).get();
+            for (int i = handlers.length - 1; i >= 0; --i) {
+                pipeline.addAfter(ctx.name(), null, handlers[i]);
+            }
+            ctx.fireUserEventTriggered(evt);
+            if (contextFilterCompleted) {
+                ctx.fireUserEventTriggered(COMPLETED);
+            }
+            if (fireNegotiatedProtocol) {
+                final HttpProtocolVersion version = h2 ? HTTP_2_0 : HTTP_1_1;
+                final ChannelHandlerContext lastCtx = pipeline.context(handlers[handlers.length - 1]);
+                (lastCtx != null ? lastCtx : ctx).fireChannelRead(version);
+            }
+            pipeline.remove(this);
+        } else {
+            ctx.fireUserEventTriggered(evt);
+        }
+    }
+}
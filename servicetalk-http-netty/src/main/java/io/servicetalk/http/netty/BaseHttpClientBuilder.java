@@ -128,6 +128,34 @@ interface BaseHttpClientBuilder<U, R, BuilderType extends BaseHttpClientBuilder>
      */
     BuilderType setMaxPipelinedRequests(int maxPipelinedRequests);
 
+    /**
+     * Speak HTTP/2 on cleartext connections without any prior negotiation (h2c with prior knowledge) instead of
+     * HTTP/1.x. Connections using TLS negotiate HTTP/2 via ALPN if {@code h2} is part of the configured application
+     * protocols, regardless of this setting.
+     * <p>
+     * HTTP/2 connections multiplex requests and are limited by the {@code SETTINGS_MAX_CONCURRENT_STREAMS} advertised
+     * by the server rather than by {@link #setMaxPipelinedRequests(int)}.
+     *
+     * @param h2PriorKnowledge {@code true} to speak HTTP/2 on cleartext connections.
+     * @return {@code this}.
+     */
+    BuilderType setH2PriorKnowledge(boolean h2PriorKnowledge);
+
+    /**
+     * Keep requests on the I/O thread they are issued from. When a request is issued from an I/O thread of the
+     * {@link io.servicetalk.transport.api.ExecutionContext#getIoExecutor() IoExecutor} used by the client, e.g. by a
+     * proxy-style service that processes requests on the I/O thread, connections bound to that I/O thread are
+     * preferred and new connections are created on that I/O thread. This avoids hopping between I/O threads for such requests, at the cost of
+     * potentially more connections, bounded by the {@link LoadBalancer}'s connection limits.
+     * <p>
+     * Connection selection is affine only with {@link LoadBalancer}s that support it, like the default round robin
+     * {@link LoadBalancer}.
+     *
+     * @param eventLoopAffinity {@code true} to prefer connections bound to the I/O thread issuing a request.
+     * @return {@code this}.
+     */
+    BuilderType setEventLoopAffinity(boolean eventLoopAffinity);
+
     /**
      * Appends the filter to the chain of filters used to decorate the {@link StreamingHttpConnection} created by this builder.
      * <p>
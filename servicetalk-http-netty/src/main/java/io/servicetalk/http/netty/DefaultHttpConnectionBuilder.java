@@ -20,6 +20,7 @@ import io.servicetalk.http.api.ConnectionFilterFunction;
 import io.servicetalk.http.api.HttpConnectionBuilder;
 import io.servicetalk.http.api.HttpHeaders;
 import io.servicetalk.http.api.HttpHeadersFactory;
+import io.servicetalk.http.api.HttpProtocolVersion;
 import io.servicetalk.http.api.LastHttpPayloadChunk;
 import io.servicetalk.http.api.StreamingHttpClient;
 import io.servicetalk.http.api.StreamingHttpConnection;
@@ -31,6 +32,10 @@ import io.servicetalk.transport.api.SslConfig;
 import io.servicetalk.transport.netty.internal.ChannelInitializer;
 import io.servicetalk.transport.netty.internal.CloseHandler;
 import io.servicetalk.transport.netty.internal.Connection;
+import io.servicetalk.transport.netty.internal.FlushStrategy;
+import io.servicetalk.transport.netty.internal.IdleAwareFlushStrategyHolder;
+
+import io.netty.handler.ssl.SslContext;
 
 import java.io.InputStream;
 import java.net.SocketOption;
@@ -38,6 +43,12 @@ import java.util.function.Function;
 import java.util.function.Predicate;
 import javax.annotation.Nullable;
 
+import static io.servicetalk.client.internal.RequestConcurrencyControllers.newController;
+import static io.servicetalk.concurrent.api.Single.success;
+import static io.servicetalk.http.api.HttpProtocolVersions.HTTP_2_0;
+import static io.servicetalk.http.api.StreamingHttpConnection.SettingKey.MAX_CONCURRENCY;
+import static io.servicetalk.http.netty.AlpnChannelHandler.isH2Negotiable;
+import static io.servicetalk.transport.netty.internal.CloseHandler.NOOP_CLOSE_HANDLER;
 import static io.servicetalk.transport.netty.internal.CloseHandler.forPipelinedRequestResponse;
 import static io.servicetalk.transport.netty.internal.GlobalExecutionContext.globalExecutionContext;
 import static java.util.Objects.requireNonNull;
@@ -49,7 +60,9 @@ import static java.util.Objects.requireNonNull;
  */
 public final class DefaultHttpConnectionBuilder<ResolvedAddress> implements HttpConnectionBuilder<ResolvedAddress> {
 
-    private static final Predicate<Object> LAST_CHUNK_PREDICATE = p -> p instanceof LastHttpPayloadChunk;
+    // The negotiated HttpProtocolVersion is emitted on its own by AlpnChannelHandler before any response.
+    private static final Predicate<Object> LAST_CHUNK_PREDICATE = p -> p instanceof LastHttpPayloadChunk ||
+            p instanceof HttpProtocolVersion;
 
     private final HttpClientConfig config;
     private ConnectionFilterFunction connectionFilterFunction = ConnectionFilterFunction.identity();
@@ -69,6 +82,12 @@ public final class DefaultHttpConnectionBuilder<ResolvedAddress> implements Http
     public Single<StreamingHttpConnection> buildStreaming(final ExecutionContext executionContext,
                                                           final ResolvedAddress resolvedAddress) {
         ReadOnlyHttpClientConfig roConfig = config.asReadOnly();
+        if (isH2Enabled(roConfig)) {
+            return buildForH2(executionContext, resolvedAddress, roConfig, connectionFilterFunction)
+                    .map(filteredConnection -> new StreamingHttpConnectionConcurrentRequestsFilter(filteredConnection,
+                            newController(filteredConnection.getSettingStream(MAX_CONCURRENCY),
+                                    filteredConnection.onClose(), roConfig.getMaxPipelinedRequests())));
+        }
         return (roConfig.getMaxPipelinedRequests() == 1 ?
                   buildForNonPipelined(executionContext, resolvedAddress, roConfig, connectionFilterFunction) :
                   buildForPipelined(executionContext, resolvedAddress, roConfig, connectionFilterFunction))
@@ -95,22 +114,71 @@ public final class DefaultHttpConnectionBuilder<ResolvedAddress> implements Http
                 connectionFilterFunction.apply(new NonPipelinedStreamingHttpConnection(conn, roConfig, executionContext)));
     }
 
+    /**
+     * Determines whether connections created with the passed config speak, or may negotiate, HTTP/2.
+     *
+     * @param roConfig the {@link ReadOnlyHttpClientConfig} to check.
+     * @return {@code true} if HTTP/2 is either negotiated via ALPN or used with prior knowledge.
+     */
+    static boolean isH2Enabled(final ReadOnlyHttpClientConfig roConfig) {
+        final SslContext sslContext = roConfig.getTcpClientConfig().getSslContext();
+        return sslContext != null ? isH2Negotiable(sslContext) : roConfig.isH2PriorKnowledge();
+    }
+
+    /**
+     * Builds a connection which speaks HTTP/2 with prior knowledge, or negotiates the protocol via ALPN if TLS is
+     * used. In the latter case the connection may end up speaking HTTP/1.x if the server does not support HTTP/2.
+     */
+    static <ResolvedAddress> Single<StreamingHttpConnection> buildForH2(
+            final ExecutionContext executionContext, ResolvedAddress resolvedAddress, ReadOnlyHttpClientConfig roConfig,
+            final ConnectionFilterFunction connectionFilterFunction) {
+        if (roConfig.getTcpClientConfig().getSslContext() == null) {
+            return connect(executionContext, resolvedAddress, roConfig, new H2ClientParentChannelInitializer(),
+                    NOOP_CLOSE_HANDLER)
+                    .flatMap(conn -> H2StreamingHttpConnection.newConnection(conn, roConfig, executionContext))
+                    .map(connectionFilterFunction::apply);
+        }
+        final CloseHandler closeHandler = forPipelinedRequestResponse(true);
+        return connect(executionContext, resolvedAddress, roConfig, (channel, context) -> {
+                    channel.pipeline().addLast(new AlpnChannelHandler(
+                            () -> HttpClientChannelInitializer.newHandlers(roConfig, closeHandler),
+                            H2ClientParentChannelInitializer::newHandlers, true));
+                    return context;
+                }, closeHandler)
+                .flatMap(conn -> conn.read().first().flatMap(negotiated -> {
+                    if (negotiated == HTTP_2_0) {
+                        return H2StreamingHttpConnection.newConnection(conn, roConfig, executionContext);
+                    }
+                    return success(roConfig.getMaxPipelinedRequests() == 1 ?
+                            new NonPipelinedStreamingHttpConnection(conn, roConfig, executionContext) :
+                            new PipelinedStreamingHttpConnection(conn, roConfig, executionContext));
+                }))
+                .map(connectionFilterFunction::apply);
+    }
+
     private static <ResolvedAddress> Single<StreamingHttpConnection> buildStreaming(
             final ExecutionContext executionContext, ResolvedAddress resolvedAddress, ReadOnlyHttpClientConfig roConfig,
             final Function<Connection<Object, Object>, StreamingHttpConnection> mapper) {
-        return new Single<StreamingHttpConnection>() {
+        final CloseHandler closeHandler = forPipelinedRequestResponse(true);
+        return connect(executionContext, resolvedAddress, roConfig,
+                new HttpClientChannelInitializer(roConfig, closeHandler), closeHandler).map(mapper);
+    }
+
+    private static <ResolvedAddress> Single<Connection<Object, Object>> connect(
+            final ExecutionContext executionContext, ResolvedAddress resolvedAddress, ReadOnlyHttpClientConfig roConfig,
+            final ChannelInitializer protocolInitializer, final CloseHandler closeHandler) {
+        return new Single<Connection<Object, Object>>() {
             @Override
             protected void handleSubscribe(
-                    Subscriber<? super StreamingHttpConnection> subscriber) {
+                    Subscriber<? super Connection<Object, Object>> subscriber) {
 
-                final CloseHandler closeHandler = forPipelinedRequestResponse(true);
                 final ChannelInitializer initializer = new TcpClientChannelInitializer(roConfig.getTcpClientConfig())
-                        .andThen(new HttpClientChannelInitializer(roConfig, closeHandler));
+                        .andThen(protocolInitializer);
 
                 final TcpConnector<Object, Object> connector = new TcpConnector<>(roConfig.getTcpClientConfig(),
                         initializer, DefaultHttpConnectionBuilder::getLastChunkPredicate, null, closeHandler);
 
-                connector.connect(executionContext, resolvedAddress, false).map(mapper).subscribe(subscriber);
+                connector.connect(executionContext, resolvedAddress, false).subscribe(subscriber);
             }
         };
     }
@@ -240,6 +308,33 @@ public final class DefaultHttpConnectionBuilder<ResolvedAddress> implements Http
         return this;
     }
 
+    /**
+     * Speak HTTP/2 on cleartext connections without any prior negotiation (h2c with prior knowledge) instead of
+     * HTTP/1.x. Connections using TLS negotiate HTTP/2 via ALPN if {@code h2} is part of the configured application
+     * protocols, regardless of this setting.
+     *
+     * @param h2PriorKnowledge {@code true} to speak HTTP/2 on cleartext connections.
+     * @return {@code this}.
+     */
+    public DefaultHttpConnectionBuilder<ResolvedAddress> setH2PriorKnowledge(final boolean h2PriorKnowledge) {
+        config.setH2PriorKnowledge(h2PriorKnowledge);
+        return this;
+    }
+
+    /**
+     * Sets the {@link FlushStrategy} used to flush the requests written on each HTTP/1.x connection created by this
+     * builder. {@link IdleAwareFlushStrategyHolder#flushOnIdle(int)} batches the metadata and payload chunks of a
+     * request while more writes are pending and flushes as soon as the connection goes idle. Requests pipelined in the
+     * same event loop iteration are flushed together.
+     *
+     * @param flushStrategy the {@link FlushStrategy} to use.
+     * @return {@code this}.
+     */
+    public DefaultHttpConnectionBuilder<ResolvedAddress> setFlushStrategy(final FlushStrategy flushStrategy) {
+        config.setFlushStrategy(flushStrategy);
+        return this;
+    }
+
     /**
      * Set the filter that is used to decorate {@link StreamingHttpConnection} created by this builder.
      * <p>
@@ -24,6 +24,8 @@ import io.servicetalk.transport.api.ContextFilter;
 import io.servicetalk.transport.api.ExecutionContext;
 import io.servicetalk.transport.api.ServerContext;
 import io.servicetalk.transport.api.SslConfig;
+import io.servicetalk.transport.netty.internal.FlushStrategy;
+import io.servicetalk.transport.netty.internal.IdleAwareFlushStrategyHolder;
 
 import java.io.InputStream;
 import java.net.SocketAddress;
@@ -120,6 +122,44 @@ public final class DefaultHttpServerStarter implements HttpServerStarter {
         return this;
     }
 
+    /**
+     * Accept HTTP/2 over cleartext connections without any prior negotiation (h2c with prior knowledge) instead of
+     * HTTP/1.x. Connections using TLS negotiate HTTP/2 via ALPN if {@code h2} is part of the
+     * {@link SslConfig#getApn() configured application protocols}, regardless of this setting.
+     *
+     * @param h2PriorKnowledge {@code true} to speak HTTP/2 on cleartext connections.
+     * @return this.
+     */
+    public DefaultHttpServerStarter setH2PriorKnowledge(final boolean h2PriorKnowledge) {
+        config.setH2PriorKnowledge(h2PriorKnowledge);
+        return this;
+    }
+
+    /**
+     * Set the value of {@code SETTINGS_MAX_CONCURRENT_STREAMS} advertised to HTTP/2 clients, which bounds the number
+     * of requests a client can have in flight on a single connection.
+     *
+     * @param h2MaxConcurrentStreams the maximum number of concurrent streams per HTTP/2 connection.
+     * @return this.
+     */
+    public DefaultHttpServerStarter setH2MaxConcurrentStreams(final int h2MaxConcurrentStreams) {
+        config.setH2MaxConcurrentStreams(h2MaxConcurrentStreams);
+        return this;
+    }
+
+    /**
+     * Sets the {@link FlushStrategy} used to flush the responses written on each HTTP/1.x connection accepted by this
+     * server. {@link IdleAwareFlushStrategyHolder#flushOnIdle(int)} batches responses of pipelined requests while
+     * more responses are pending and flushes as soon as the connection goes idle.
+     *
+     * @param flushStrategy the {@link FlushStrategy} to use.
+     * @return this.
+     */
+    public DefaultHttpServerStarter setFlushStrategy(final FlushStrategy flushStrategy) {
+        config.setFlushStrategy(flushStrategy);
+        return this;
+    }
+
     /**
      * The maximum queue length for incoming connection indications (a request to connect) is set to the backlog
      * parameter. If a connection indication arrives when the queue is full, the connection may time out.
@@ -339,6 +339,20 @@ final class DefaultMultiAddressUrlHttpClientBuilder
         return this;
     }
 
+    @Override
+    public MultiAddressHttpClientBuilder<HostAndPort, InetSocketAddress> setH2PriorKnowledge(
+            final boolean h2PriorKnowledge) {
+        builderTemplate.setH2PriorKnowledge(h2PriorKnowledge);
+        return this;
+    }
+
+    @Override
+    public MultiAddressHttpClientBuilder<HostAndPort, InetSocketAddress> setEventLoopAffinity(
+            final boolean eventLoopAffinity) {
+        builderTemplate.setEventLoopAffinity(eventLoopAffinity);
+        return this;
+    }
+
     @Override
     public MultiAddressHttpClientBuilder<HostAndPort, InetSocketAddress> appendConnectionFilter(
             final ConnectionFilterFunction function) {
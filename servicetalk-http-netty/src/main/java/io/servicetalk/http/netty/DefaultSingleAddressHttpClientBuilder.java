@@ -39,6 +39,7 @@ import java.util.function.Function;
 import javax.annotation.Nullable;
 
 import static io.servicetalk.concurrent.api.AsyncCloseables.newCompositeCloseable;
+import static io.servicetalk.http.netty.DefaultHttpConnectionBuilder.isH2Enabled;
 import static io.servicetalk.http.netty.GlobalDnsServiceDiscoverer.globalDnsServiceDiscoverer;
 import static io.servicetalk.http.utils.HttpHostHeaderFilter.newHostHeaderFilter;
 import static io.servicetalk.loadbalancer.RoundRobinLoadBalancer.newRoundRobinFactory;
@@ -124,7 +125,9 @@ final class DefaultSingleAddressHttpClientBuilder<U, R> implements SingleAddress
 
             // closed by the LoadBalancer
             ConnectionFactory<R, LoadBalancedStreamingHttpConnection> connectionFactory =
-                    closeOnException.prepend(roConfig.getMaxPipelinedRequests() == 1 ?
+                    closeOnException.prepend(isH2Enabled(roConfig) ?
+                            new H2LBHttpConnectionFactory<>(roConfig, exec, connectionFilterFunction) :
+                            roConfig.getMaxPipelinedRequests() == 1 ?
                             new NonPipelinedLBHttpConnectionFactory<>(roConfig, exec, connectionFilterFunction) :
                             new PipelinedLBHttpConnectionFactory<>(roConfig, exec, connectionFilterFunction));
 
@@ -207,6 +210,18 @@ final class DefaultSingleAddressHttpClientBuilder<U, R> implements SingleAddress
         return this;
     }
 
+    @Override
+    public SingleAddressHttpClientBuilder<U, R> setH2PriorKnowledge(final boolean h2PriorKnowledge) {
+        config.setH2PriorKnowledge(h2PriorKnowledge);
+        return this;
+    }
+
+    @Override
+    public SingleAddressHttpClientBuilder<U, R> setEventLoopAffinity(final boolean eventLoopAffinity) {
+        config.getTcpClientConfig().setEventLoopAffinity(eventLoopAffinity);
+        return this;
+    }
+
     @Override
     public SingleAddressHttpClientBuilder<U, R> appendConnectionFilter(final ConnectionFilterFunction function) {
         connectionFilterFunction = connectionFilterFunction.append(requireNonNull(function));
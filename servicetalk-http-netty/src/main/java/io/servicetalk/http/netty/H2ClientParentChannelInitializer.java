@@ -0,0 +1,141 @@
+/*
+ * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.netty;
+
+import io.servicetalk.transport.api.ConnectionContext;
+import io.servicetalk.transport.netty.internal.ChannelInitializer;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandler.Sharable;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelPipeline;
+import io.netty.handler.codec.http2.Http2GoAwayFrame;
+import io.netty.handler.codec.http2.Http2MultiplexCodecBuilder;
+import io.netty.handler.codec.http2.Http2Settings;
+import io.netty.handler.codec.http2.Http2SettingsFrame;
+
+import static io.netty.util.ReferenceCountUtil.release;
+import static java.lang.Math.min;
+
+/**
+ * Configures the parent {@link Channel} of an HTTP/2 client connection. Streams are opened on demand per request by
+ * {@link H2StreamingHttpConnection}, the parent {@link Channel} only emits an {@link H2ConnectionReady} once the
+ * initial {@code SETTINGS} of the server have been received, followed by the updated value of
+ * {@code SETTINGS_MAX_CONCURRENT_STREAMS} as an {@link Integer} whenever it changes.
+ */
+final class H2ClientParentChannelInitializer implements ChannelInitializer {
+
+    @Override
+    public ConnectionContext init(final Channel channel, final ConnectionContext context) {
+        final ChannelPipeline pipeline = channel.pipeline();
+        for (ChannelHandler handler : newHandlers()) {
+            pipeline.addLast(handler);
+        }
+        return context;
+    }
+
+    /**
+     * Creates the handlers to add to the parent {@link Channel}, in order.
+     *
+     * @return the handlers to add to the parent {@link Channel}, in order.
+     */
+    static ChannelHandler[] newHandlers() {
+        return new ChannelHandler[] {
+                Http2MultiplexCodecBuilder.forClient(RejectPushedStreamsHandler.INSTANCE)
+                        .initialSettings(new Http2Settings().pushEnabled(false))
+                        .build(),
+                new H2ClientParentHandler(),
+        };
+    }
+
+    /**
+     * Emitted by the parent {@link Channel} once the initial {@code SETTINGS} of the server have been received.
+     */
+    static final class H2ConnectionReady {
+        private final Channel parentChannel;
+        private final int maxConcurrentStreams;
+
+        H2ConnectionReady(final Channel parentChannel, final int maxConcurrentStreams) {
+            this.parentChannel = parentChannel;
+            this.maxConcurrentStreams = maxConcurrentStreams;
+        }
+
+        Channel getParentChannel() {
+            return parentChannel;
+        }
+
+        int getMaxConcurrentStreams() {
+            return maxConcurrentStreams;
+        }
+    }
+
+    private static final class H2ClientParentHandler extends ChannelInboundHandlerAdapter {
+        private boolean settingsReceived;
+
+        @Override
+        public void handlerAdded(final ChannelHandlerContext ctx) {
+            if (ctx.channel().isActive()) {
+                // The codec writes the connection preface and SETTINGS when added to an active channel, but does
+                // not flush them.
+                ctx.flush();
+            }
+        }
+
+        @Override
+        public void channelActive(final ChannelHandlerContext ctx) {
+            ctx.flush();
+            ctx.fireChannelActive();
+        }
+
+        @Override
+        public void channelRead(final ChannelHandlerContext ctx, final Object msg) {
+            if (msg instanceof Http2SettingsFrame) {
+                final Long maxConcurrentStreams = ((Http2SettingsFrame) msg).settings().maxConcurrentStreams();
+                if (!settingsReceived) {
+                    settingsReceived = true;
+                    // Absence of the setting means no limit, see https://tools.ietf.org/html/rfc7540#section-6.5.2
+                    ctx.fireChannelRead(new H2ConnectionReady(ctx.channel(), maxConcurrentStreams == null ?
+                            Integer.MAX_VALUE : toInt(maxConcurrentStreams)));
+                } else if (maxConcurrentStreams != null) {
+                    ctx.fireChannelRead(toInt(maxConcurrentStreams));
+                }
+            } else if (msg instanceof Http2GoAwayFrame) {
+                release(msg);
+                // No new streams can be opened on this connection.
+                ctx.fireChannelRead(0);
+            } else {
+                release(msg);
+            }
+        }
+
+        private static int toInt(final long maxConcurrentStreams) {
+            return (int) min(maxConcurrentStreams, Integer.MAX_VALUE);
+        }
+    }
+
+    @Sharable
+    private static final class RejectPushedStreamsHandler extends ChannelInboundHandlerAdapter {
+        static final ChannelHandler INSTANCE = new RejectPushedStreamsHandler();
+
+        @Override
+        public void handlerAdded(final ChannelHandlerContext ctx) {
+            // Server push is disabled in our SETTINGS, streams initiated by the server are never expected.
+            ctx.close();
+        }
+    }
+}
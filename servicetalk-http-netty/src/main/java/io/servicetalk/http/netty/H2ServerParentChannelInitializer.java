@@ -0,0 +1,149 @@
+/*
+ * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.netty;
+
+import io.servicetalk.concurrent.api.Publisher;
+import io.servicetalk.http.api.LastHttpPayloadChunk;
+import io.servicetalk.http.api.StreamingHttpService;
+import io.servicetalk.transport.api.ConnectionContext;
+import io.servicetalk.transport.netty.internal.AbstractChannelReadHandler;
+import io.servicetalk.transport.netty.internal.ChannelInitializer;
+import io.servicetalk.transport.netty.internal.Connection.TerminalPredicate;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelPipeline;
+import io.netty.handler.codec.http2.Http2MultiplexCodecBuilder;
+import io.netty.handler.codec.http2.Http2Settings;
+
+import java.util.function.Predicate;
+
+import static io.netty.util.ReferenceCountUtil.release;
+import static io.servicetalk.transport.netty.internal.CloseHandler.NOOP_CLOSE_HANDLER;
+import static io.servicetalk.transport.netty.internal.ContextFilterSuccessful.COMPLETED;
+import static io.servicetalk.transport.netty.internal.FlushStrategy.defaultFlushStrategy;
+
+/**
+ * Configures the parent {@link Channel} of an HTTP/2 server connection. Each stream opened by the client gets its own
+ * child {@link Channel} on which a single request is read and its response written by a
+ * {@link NettyHttpServerConnection}.
+ */
+final class H2ServerParentChannelInitializer implements ChannelInitializer {
+
+    private static final Predicate<Object> LAST_CHUNK_PREDICATE = p -> p instanceof LastHttpPayloadChunk;
+
+    private final ReadOnlyHttpServerConfig config;
+    private final StreamingHttpService service;
+
+    H2ServerParentChannelInitializer(final ReadOnlyHttpServerConfig config, final StreamingHttpService service) {
+        this.config = config;
+        this.service = service;
+    }
+
+    @Override
+    public ConnectionContext init(final Channel channel, final ConnectionContext context) {
+        final ChannelPipeline pipeline = channel.pipeline();
+        for (ChannelHandler handler : newHandlers(config, service, context)) {
+            pipeline.addLast(handler);
+        }
+        return context;
+    }
+
+    /**
+     * Creates the handlers to add to the parent {@link Channel}, in order.
+     *
+     * @param config the {@link ReadOnlyHttpServerConfig} to use.
+     * @param service the {@link StreamingHttpService} handling requests.
+     * @param context the {@link ConnectionContext} of the parent {@link Channel}.
+     * @return the handlers to add to the parent {@link Channel}, in order.
+     */
+    static ChannelHandler[] newHandlers(final ReadOnlyHttpServerConfig config, final StreamingHttpService service,
+                                        final ConnectionContext context) {
+        return new ChannelHandler[] {
+                Http2MultiplexCodecBuilder.forServer(new io.netty.channel.ChannelInitializer<Channel>() {
+                    @Override
+                    protected void initChannel(final Channel channel) {
+                        // Reads are driven by the demand of the request payload.
+                        channel.config().setAutoRead(false);
+                        channel.pipeline().addLast(new H2ToStH1ServerDuplexHandler(config.getHeadersFactory()),
+                                new H2ServerStreamReadHandler(context, service));
+                    }
+                }).initialSettings(new Http2Settings()
+                        .maxConcurrentStreams(config.getH2MaxConcurrentStreams())
+                        .maxHeaderListSize(config.getMaxHeaderSize()))
+                        .build(),
+                new H2ServerParentHandler(),
+        };
+    }
+
+    private static final class H2ServerParentHandler extends ChannelInboundHandlerAdapter {
+        @Override
+        public void handlerAdded(final ChannelHandlerContext ctx) {
+            if (ctx.channel().isActive()) {
+                // The codec writes the connection preface and SETTINGS when added to an active channel, but does
+                // not flush them.
+                ctx.flush();
+            }
+        }
+
+        @Override
+        public void channelActive(final ChannelHandlerContext ctx) {
+            ctx.flush();
+            ctx.fireChannelActive();
+        }
+
+        @Override
+        public void userEventTriggered(final ChannelHandlerContext ctx, final Object evt) {
+            if (evt == COMPLETED) {
+                // Frames of all streams are read from the parent channel, and buffered per stream until read.
+                ctx.channel().config().setAutoRead(true);
+            }
+            ctx.fireUserEventTriggered(evt);
+        }
+
+        @Override
+        public void channelRead(final ChannelHandlerContext ctx, final Object msg) {
+            // Connection level frames are handled by the codec.
+            release(msg);
+        }
+    }
+
+    private static final class H2ServerStreamReadHandler extends AbstractChannelReadHandler<Object> {
+        private final ConnectionContext context;
+        private final StreamingHttpService service;
+        private final TerminalPredicate<Object> terminalPredicate;
+
+        H2ServerStreamReadHandler(final ConnectionContext context, final StreamingHttpService service) {
+            this(context, service, new TerminalPredicate<>(LAST_CHUNK_PREDICATE));
+        }
+
+        private H2ServerStreamReadHandler(final ConnectionContext context, final StreamingHttpService service,
+                                          final TerminalPredicate<Object> terminalPredicate) {
+            super(terminalPredicate);
+            this.context = context;
+            this.service = service;
+            this.terminalPredicate = terminalPredicate;
+        }
+
+        @Override
+        protected void onPublisherCreation(final ChannelHandlerContext ctx, final Publisher<Object> newPublisher) {
+            new NettyHttpServerConnection(ctx.channel(), newPublisher, terminalPredicate, NOOP_CLOSE_HANDLER, context,
+                    service, defaultFlushStrategy()).process().subscribe();
+        }
+    }
+}
@@ -0,0 +1,390 @@
+/*
+ * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.netty;
+
+import io.servicetalk.concurrent.api.Publisher;
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.concurrent.internal.FlowControlUtil;
+import io.servicetalk.http.api.HttpHeadersFactory;
+import io.servicetalk.http.api.LastHttpPayloadChunk;
+import io.servicetalk.http.api.StreamingHttpConnection;
+import io.servicetalk.http.netty.H2ClientParentChannelInitializer.H2ConnectionReady;
+import io.servicetalk.transport.api.ConnectionContext;
+import io.servicetalk.transport.api.ExecutionContext;
+import io.servicetalk.transport.netty.internal.AbstractChannelReadHandler;
+import io.servicetalk.transport.netty.internal.Connection;
+import io.servicetalk.transport.netty.internal.Connection.TerminalPredicate;
+import io.servicetalk.transport.netty.internal.NettyConnection;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.handler.codec.http2.Http2StreamChannel;
+import io.netty.handler.codec.http2.Http2StreamChannelBootstrap;
+import io.netty.util.concurrent.Future;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.nio.channels.ClosedChannelException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.function.Predicate;
+import javax.annotation.Nullable;
+
+import static io.netty.channel.ChannelOption.AUTO_READ;
+import static io.servicetalk.concurrent.internal.SubscriberUtils.isRequestNValid;
+import static io.servicetalk.concurrent.internal.SubscriberUtils.newExceptionForInvalidRequestN;
+import static io.servicetalk.concurrent.internal.ThrowableUtil.unknownStackTrace;
+import static java.util.concurrent.atomic.AtomicIntegerFieldUpdater.newUpdater;
+
+/**
+ * A {@link StreamingHttpConnection} which multiplexes requests over a single HTTP/2 connection, each request being
+ * written to and its response read from a new HTTP/2 stream. The {@link SettingKey#MAX_CONCURRENCY} setting reflects
+ * the {@code SETTINGS_MAX_CONCURRENT_STREAMS} advertised by the server.
+ */
+final class H2StreamingHttpConnection extends AbstractStreamingHttpConnection<Connection<Object, Object>> {
+
+    private static final Predicate<Object> LAST_CHUNK_PREDICATE = p -> p instanceof LastHttpPayloadChunk;
+    private static final ClosedChannelException CLOSED_BEFORE_READY = unknownStackTrace(new ClosedChannelException(),
+            H2StreamingHttpConnection.class, "newConnection(...)");
+
+    private final Channel parentChannel;
+    private final HttpHeadersFactory headersFactory;
+
+    private H2StreamingHttpConnection(final Connection<Object, Object> connection, final Channel parentChannel,
+                                      final Publisher<Integer> maxConcurrencySetting,
+                                      final ReadOnlyHttpClientConfig config,
+                                      final ExecutionContext executionContext) {
+        super(connection, maxConcurrencySetting, executionContext);
+        this.parentChannel = parentChannel;
+        this.headersFactory = config.getHeadersFactory();
+    }
+
+    /**
+     * Creates a new {@link H2StreamingHttpConnection} once the initial {@code SETTINGS} of the server have been
+     * received on the passed parent {@link Connection}.
+     *
+     * @param connection the parent {@link Connection}, configured by {@link H2ClientParentChannelInitializer}.
+     * @param config the {@link ReadOnlyHttpClientConfig} to use.
+     * @param executionContext the {@link ExecutionContext} to use.
+     * @return a {@link Single} which completes when the connection is ready to accept requests.
+     */
+    static Single<StreamingHttpConnection> newConnection(final Connection<Object, Object> connection,
+                                                         final ReadOnlyHttpClientConfig config,
+                                                         final ExecutionContext executionContext) {
+        return new Single<StreamingHttpConnection>() {
+            @Override
+            protected void handleSubscribe(final Subscriber<? super StreamingHttpConnection> subscriber) {
+                connection.read().subscribe(new ParentChannelSubscriber(connection, config, executionContext,
+                        subscriber));
+            }
+        };
+    }
+
+    @Override
+    protected Publisher<Object> writeAndRead(final Publisher<Object> stream) {
+        return openStream().flatMapPublisher(streamConnection ->
+                streamConnection.write(stream).merge(streamConnection.read()));
+    }
+
+    private Single<Connection<Object, Object>> openStream() {
+        return new Single<Connection<Object, Object>>() {
+            @Override
+            protected void handleSubscribe(final Subscriber<? super Connection<Object, Object>> subscriber) {
+                final H2StreamReadHandler readHandler = new H2StreamReadHandler(connection);
+                final Future<Http2StreamChannel> future = new Http2StreamChannelBootstrap(parentChannel)
+                        .option(AUTO_READ, false)
+                        .handler(new ChannelInitializer<Channel>() {
+                            @Override
+                            protected void initChannel(final Channel channel) {
+                                channel.pipeline().addLast(new H2ToStH1ClientDuplexHandler(headersFactory),
+                                        readHandler);
+                            }
+                        }).open();
+                // Either the listener delivers the stream or cancel() discards it, the stream channel has to be closed
+                // if it was opened anyway.
+                final AtomicBoolean done = new AtomicBoolean();
+                subscriber.onSubscribe(() -> {
+                    if (done.compareAndSet(false, true) && !future.cancel(false) && future.isSuccess()) {
+                        future.getNow().close();
+                    }
+                });
+                future.addListener(f -> {
+                    if (!done.compareAndSet(false, true)) {
+                        if (f.isSuccess()) {
+                            future.getNow().close();
+                        }
+                        return;
+                    }
+                    final Throwable cause = f.cause();
+                    final Connection<Object, Object> streamConnection = readHandler.streamConnection;
+                    if (cause != null) {
+                        subscriber.onError(cause);
+                    } else if (streamConnection == null) {
+                        future.getNow().close();
+                        subscriber.onError(new IllegalStateException("Stream " + future.getNow() +
+                                " closed before it became active"));
+                    } else {
+                        subscriber.onSuccess(streamConnection);
+                    }
+                });
+            }
+        };
+    }
+
+    private static final class H2StreamReadHandler extends AbstractChannelReadHandler<Object> {
+        private final ConnectionContext parentContext;
+        private final TerminalPredicate<Object> terminalPredicate;
+        @Nullable
+        Connection<Object, Object> streamConnection;
+
+        H2StreamReadHandler(final ConnectionContext parentContext) {
+            this(parentContext, new TerminalPredicate<>(LAST_CHUNK_PREDICATE));
+        }
+
+        private H2StreamReadHandler(final ConnectionContext parentContext,
+                                    final TerminalPredicate<Object> terminalPredicate) {
+            super(terminalPredicate);
+            this.parentContext = parentContext;
+            this.terminalPredicate = terminalPredicate;
+        }
+
+        @Override
+        protected void onPublisherCreation(final ChannelHandlerContext ctx, final Publisher<Object> newPublisher) {
+            streamConnection = new NettyConnection<>(ctx.channel(), parentContext, newPublisher, terminalPredicate);
+        }
+    }
+
+    /**
+     * Consumes everything read from the parent {@link Channel}: completes the connection once the initial
+     * {@code SETTINGS} are received and then feeds {@code SETTINGS_MAX_CONCURRENT_STREAMS} updates to the
+     * {@link SettingKey#MAX_CONCURRENCY} setting stream.
+     */
+    private static final class ParentChannelSubscriber implements Subscriber<Object> {
+        private final Connection<Object, Object> connection;
+        private final ReadOnlyHttpClientConfig config;
+        private final ExecutionContext executionContext;
+        private final Single.Subscriber<? super StreamingHttpConnection> subscriber;
+        @Nullable
+        private LatestValuePublisher maxConcurrencySetting;
+        private volatile boolean ready;
+
+        ParentChannelSubscriber(final Connection<Object, Object> connection, final ReadOnlyHttpClientConfig config,
+                                final ExecutionContext executionContext,
+                                final Single.Subscriber<? super StreamingHttpConnection> subscriber) {
+            this.connection = connection;
+            this.config = config;
+            this.executionContext = executionContext;
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void onSubscribe(final Subscription s) {
+            subscriber.onSubscribe(() -> {
+                if (!ready) {
+                    s.cancel();
+                }
+            });
+            // The parent channel has to be read continuously, stream data is buffered per stream until it is read.
+            s.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(final Object o) {
+            if (maxConcurrencySetting != null) {
+                if (o instanceof Integer) {
+                    maxConcurrencySetting.onValue((Integer) o);
+                }
+            } else if (o instanceof H2ConnectionReady) {
+                final H2ConnectionReady connectionReady = (H2ConnectionReady) o;
+                maxConcurrencySetting = new LatestValuePublisher(connectionReady.getMaxConcurrentStreams());
+                ready = true;
+                subscriber.onSuccess(new H2StreamingHttpConnection(connection, connectionReady.getParentChannel(),
+                        maxConcurrencySetting, config, executionContext));
+            }
+        }
+
+        @Override
+        public void onError(final Throwable t) {
+            terminate(t);
+        }
+
+        @Override
+        public void onComplete() {
+            terminate(CLOSED_BEFORE_READY);
+        }
+
+        private void terminate(final Throwable cause) {
+            if (maxConcurrencySetting != null) {
+                maxConcurrencySetting.onTerminate();
+            } else {
+                connection.closeAsync().subscribe();
+                subscriber.onError(cause);
+            }
+        }
+    }
+
+    /**
+     * A {@link Publisher} which emits the latest known value to each of its subscribers as demand permits, and
+     * {@code 0} followed by completion once terminated.
+     */
+    private static final class LatestValuePublisher extends Publisher<Integer> {
+        private final List<LatestValueSubscription> subscriptions = new CopyOnWriteArrayList<>();
+        private volatile int value;
+        private volatile boolean terminated;
+
+        LatestValuePublisher(final int initialValue) {
+            value = initialValue;
+        }
+
+        /**
+         * Only called from the parent channel's event loop.
+         */
+        void onValue(final int newValue) {
+            if (terminated) {
+                return;
+            }
+            value = newValue;
+            for (LatestValueSubscription subscription : subscriptions) {
+                subscription.onValueChanged(false);
+            }
+        }
+
+        /**
+         * Only called from the parent channel's event loop.
+         */
+        void onTerminate() {
+            if (terminated) {
+                return;
+            }
+            // The value is written before the terminated flag, so the value seen after the flag is always 0.
+            value = 0;
+            terminated = true;
+            for (LatestValueSubscription subscription : subscriptions) {
+                subscription.onValueChanged(true);
+            }
+            subscriptions.clear();
+        }
+
+        @Override
+        protected void handleSubscribe(final Subscriber<? super Integer> subscriber) {
+            final LatestValueSubscription subscription = new LatestValueSubscription(this, subscriber);
+            // Add before reading the terminated flag, so either onTerminate() sees this subscription or the flag is
+            // visible here.
+            subscriptions.add(subscription);
+            subscriber.onSubscribe(subscription);
+            final boolean complete = terminated;
+            subscription.onValueChanged(complete);
+            if (complete) {
+                subscriptions.remove(subscription);
+            }
+        }
+
+        private static final class LatestValueSubscription implements Subscription {
+            private static final AtomicIntegerFieldUpdater<LatestValueSubscription> wipUpdater =
+                    newUpdater(LatestValueSubscription.class, "wip");
+            private static final AtomicIntegerFieldUpdater<LatestValueSubscription> changedUpdater =
+                    newUpdater(LatestValueSubscription.class, "changed");
+            private static final AtomicLongFieldUpdater<LatestValueSubscription> requestedUpdater =
+                    AtomicLongFieldUpdater.newUpdater(LatestValueSubscription.class, "requested");
+
+            private final LatestValuePublisher publisher;
+            private final Subscriber<? super Integer> subscriber;
+            @SuppressWarnings("unused")
+            private volatile int wip;
+            /**
+             * {@code 1} if {@link LatestValuePublisher#value} changed since it was last emitted, the value itself is read when emitting so
+             * that only the latest value is emitted.
+             */
+            @SuppressWarnings("unused")
+            private volatile int changed;
+            @SuppressWarnings("unused")
+            private volatile long requested;
+            private volatile boolean completePending;
+            private volatile boolean cancelled;
+            @Nullable
+            private volatile IllegalArgumentException invalidRequestN;
+
+            LatestValueSubscription(final LatestValuePublisher publisher,
+                                    final Subscriber<? super Integer> subscriber) {
+                this.publisher = publisher;
+                this.subscriber = subscriber;
+            }
+
+            @Override
+            public void request(final long n) {
+                if (!isRequestNValid(n)) {
+                    invalidRequestN = newExceptionForInvalidRequestN(n);
+                } else {
+                    requestedUpdater.accumulateAndGet(this, n, FlowControlUtil::addWithOverflowProtection);
+                }
+                drain();
+            }
+
+            @Override
+            public void cancel() {
+                cancelled = true;
+                drain();
+            }
+
+            void onValueChanged(final boolean complete) {
+                changed = 1;
+                // The changed flag is written first, so a pending completion is only seen once the value is emitted.
+                if (complete) {
+                    completePending = true;
+                }
+                drain();
+            }
+
+            private void drain() {
+                if (wipUpdater.getAndIncrement(this) != 0) {
+                    return;
+                }
+                int missed = 1;
+                for (;;) {
+                    if (cancelled) {
+                        publisher.subscriptions.remove(this);
+                        return;
+                    }
+                    final IllegalArgumentException invalidRequestN = this.invalidRequestN;
+                    if (invalidRequestN != null) {
+                        publisher.subscriptions.remove(this);
+                        subscriber.onError(invalidRequestN);
+                        return;
+                    }
+                    if (requested > 0 && changedUpdater.compareAndSet(this, 1, 0)) {
+                        requestedUpdater.decrementAndGet(this);
+                        subscriber.onNext(publisher.value);
+                        continue;
+                    }
+                    if (completePending && changed == 0) {
+                        publisher.subscriptions.remove(this);
+                        subscriber.onComplete();
+                        return;
+                    }
+                    // The "wip" counter is never released after a terminal signal, so no more signals are delivered.
+                    missed = wipUpdater.addAndGet(this, -missed);
+                    if (missed == 0) {
+                        return;
+                    }
+                }
+            }
+        }
+    }
+}
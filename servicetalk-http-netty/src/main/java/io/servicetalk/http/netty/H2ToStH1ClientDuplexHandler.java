@@ -0,0 +1,114 @@
+/*
+ * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.netty;
+
+import io.servicetalk.http.api.HttpHeaders;
+import io.servicetalk.http.api.HttpHeadersFactory;
+import io.servicetalk.http.api.HttpMetaData;
+import io.servicetalk.http.api.HttpRequestMetaData;
+import io.servicetalk.http.api.HttpResponseStatus;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http2.DefaultHttp2Headers;
+import io.netty.handler.codec.http2.Http2Headers;
+import io.netty.handler.ssl.SslHandler;
+
+import javax.annotation.Nullable;
+
+import static io.servicetalk.buffer.api.EmptyBuffer.EMPTY_BUFFER;
+import static io.servicetalk.http.api.HttpHeaderNames.HOST;
+import static io.servicetalk.http.api.HttpProtocolVersions.HTTP_2_0;
+import static io.servicetalk.http.api.HttpResponseMetaDataFactory.newResponseMetaData;
+import static io.servicetalk.http.api.HttpResponseStatus.StatusClass.INFORMATIONAL_1XX;
+import static io.servicetalk.http.api.HttpResponseStatuses.getResponseStatus;
+import static java.lang.Integer.parseInt;
+
+/**
+ * Client side {@link AbstractH2DuplexHandler}: writes requests and reads responses on an HTTP/2 stream.
+ */
+final class H2ToStH1ClientDuplexHandler extends AbstractH2DuplexHandler {
+
+    private static final String HTTP_SCHEME = "http";
+    private static final String HTTPS_SCHEME = "https";
+
+    H2ToStH1ClientDuplexHandler(final HttpHeadersFactory headersFactory) {
+        super(headersFactory);
+    }
+
+    @Override
+    Http2Headers newH2Headers(final ChannelHandlerContext ctx, final HttpMetaData metaData) {
+        final HttpRequestMetaData request = (HttpRequestMetaData) metaData;
+        final Http2Headers h2Headers = new DefaultHttp2Headers();
+        h2Headers.method(request.getMethod().getName());
+        h2Headers.scheme(isSecure(ctx.channel()) ? HTTPS_SCHEME : HTTP_SCHEME);
+        h2Headers.path(path(request));
+        final CharSequence authority = authority(request);
+        if (authority != null) {
+            h2Headers.authority(authority);
+        }
+        copyHeaders(request.getHeaders(), h2Headers);
+        return h2Headers;
+    }
+
+    @Nullable
+    @Override
+    HttpMetaData newMetaData(final Http2Headers h2Headers) {
+        final CharSequence status = h2Headers.status();
+        if (status == null) {
+            throw new IllegalArgumentException("Response headers do not contain the :status pseudo-header");
+        }
+        final HttpResponseStatus responseStatus = getResponseStatus(parseInt(status.toString()), EMPTY_BUFFER);
+        if (responseStatus.getStatusClass() == INFORMATIONAL_1XX) {
+            // Interim responses are not propagated, the final response follows on the same stream.
+            return null;
+        }
+        final HttpHeaders headers = headersFactory.newHeaders();
+        copyHeaders(h2Headers, headers);
+        return newResponseMetaData(HTTP_2_0, responseStatus, headers);
+    }
+
+    private static boolean isSecure(final Channel streamChannel) {
+        final Channel parent = streamChannel.parent();
+        return (parent == null ? streamChannel : parent).pipeline().get(SslHandler.class) != null;
+    }
+
+    private static String path(final HttpRequestMetaData request) {
+        final String requestTarget = request.getRequestTarget();
+        if (!requestTarget.isEmpty() && (requestTarget.charAt(0) == '/' || requestTarget.charAt(0) == '*')) {
+            return requestTarget;
+        }
+        // absolute-form, see https://tools.ietf.org/html/rfc7540#section-8.1.2.3
+        final String rawPath = request.getRawPath();
+        final String rawQuery = request.getRawQuery();
+        final String path = rawPath.isEmpty() ? "/" : rawPath;
+        return rawQuery == null || rawQuery.isEmpty() ? path : path + '?' + rawQuery;
+    }
+
+    @Nullable
+    private static CharSequence authority(final HttpRequestMetaData request) {
+        final CharSequence host = request.getHeaders().get(HOST);
+        if (host != null) {
+            return host;
+        }
+        final String uriHost = request.getHost();
+        if (uriHost == null) {
+            return null;
+        }
+        final int port = request.getPort();
+        return port < 0 ? uriHost : uriHost + ':' + port;
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.netty;
+
+import io.servicetalk.http.api.HttpHeaders;
+import io.servicetalk.http.api.HttpHeadersFactory;
+import io.servicetalk.http.api.HttpMetaData;
+import io.servicetalk.http.api.HttpRequestMethod;
+import io.servicetalk.http.api.HttpRequestMethods;
+import io.servicetalk.http.api.HttpResponseMetaData;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http2.DefaultHttp2Headers;
+import io.netty.handler.codec.http2.Http2Headers;
+
+import java.util.HashMap;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+import static io.servicetalk.buffer.api.ReadOnlyBufferAllocators.PREFER_DIRECT_RO_ALLOCATOR;
+import static io.servicetalk.http.api.HttpHeaderNames.HOST;
+import static io.servicetalk.http.api.HttpProtocolVersions.HTTP_2_0;
+import static io.servicetalk.http.api.HttpRequestMetaDataFactory.newRequestMetaData;
+import static io.servicetalk.http.api.HttpRequestMethods.newRequestMethod;
+
+/**
+ * Server side {@link AbstractH2DuplexHandler}: reads requests and writes responses on an HTTP/2 stream.
+ */
+final class H2ToStH1ServerDuplexHandler extends AbstractH2DuplexHandler {
+
+    private static final Map<String, HttpRequestMethod> NAME_TO_METHOD_MAP = new HashMap<>();
+
+    static {
+        for (HttpRequestMethods method : HttpRequestMethods.values()) {
+            NAME_TO_METHOD_MAP.put(method.getName(), method);
+        }
+    }
+
+    H2ToStH1ServerDuplexHandler(final HttpHeadersFactory headersFactory) {
+        super(headersFactory);
+    }
+
+    @Override
+    Http2Headers newH2Headers(final ChannelHandlerContext ctx, final HttpMetaData metaData) {
+        final Http2Headers h2Headers = new DefaultHttp2Headers();
+        h2Headers.status(Integer.toString(((HttpResponseMetaData) metaData).getStatus().getCode()));
+        copyHeaders(metaData.getHeaders(), h2Headers);
+        return h2Headers;
+    }
+
+    @Nullable
+    @Override
+    HttpMetaData newMetaData(final Http2Headers h2Headers) {
+        final CharSequence method = h2Headers.method();
+        final CharSequence path = h2Headers.path();
+        if (method == null || path == null) {
+            throw new IllegalArgumentException("Request headers do not contain the :method and :path pseudo-headers");
+        }
+        final HttpHeaders headers = headersFactory.newHeaders();
+        final CharSequence authority = h2Headers.authority();
+        if (authority != null) {
+            headers.set(HOST, authority);
+        }
+        copyHeaders(h2Headers, headers);
+        return newRequestMetaData(HTTP_2_0, toRequestMethod(method.toString()), path.toString(), headers);
+    }
+
+    private static HttpRequestMethod toRequestMethod(final String name) {
+        final HttpRequestMethod method = NAME_TO_METHOD_MAP.get(name);
+        return method != null ? method : newRequestMethod(PREFER_DIRECT_RO_ALLOCATOR.fromAscii(name));
+    }
+}
@@ -21,6 +21,7 @@ import io.servicetalk.transport.netty.internal.ChannelInitializer;
 import io.servicetalk.transport.netty.internal.CloseHandler;
 
 import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelPipeline;
 
 import java.util.ArrayDeque;
@@ -45,12 +46,28 @@ final class HttpClientChannelInitializer implements ChannelInitializer {
 
     @Override
     public ConnectionContext init(final Channel channel, final ConnectionContext ctx) {
-        Queue<HttpRequestMethod> methodQueue = new ArrayDeque<>(min(8, roConfig.getMaxPipelinedRequests()));
         final ChannelPipeline pipeline = channel.pipeline();
-        pipeline.addLast(new HttpResponseDecoder(methodQueue, roConfig.getHeadersFactory(),
-                roConfig.getMaxInitialLineLength(), roConfig.getMaxHeaderSize(), closeHandler));
-        pipeline.addLast(new HttpRequestEncoder(methodQueue,
-                roConfig.getHeadersEncodedSizeEstimate(), roConfig.getTrailersEncodedSizeEstimate(), closeHandler));
+        for (ChannelHandler handler : newHandlers(roConfig, closeHandler)) {
+            pipeline.addLast(handler);
+        }
         return ctx;
     }
+
+    /**
+     * Creates the HTTP/1.x client handlers, in the order they have to be added to the {@link ChannelPipeline}.
+     *
+     * @param roConfig read-only {@link HttpClientConfig}
+     * @param closeHandler observes protocol state events
+     * @return the HTTP/1.x client handlers.
+     */
+    static ChannelHandler[] newHandlers(final ReadOnlyHttpClientConfig roConfig, final CloseHandler closeHandler) {
+        Queue<HttpRequestMethod> methodQueue = new ArrayDeque<>(min(8, roConfig.getMaxPipelinedRequests()));
+        return new ChannelHandler[] {
+                new HttpResponseDecoder(methodQueue, roConfig.getHeadersFactory(),
+                        roConfig.getMaxInitialLineLength(), roConfig.getMaxHeaderSize(), closeHandler),
+                new HttpRequestEncoder(methodQueue,
+                        roConfig.getHeadersEncodedSizeEstimate(), roConfig.getTrailersEncodedSizeEstimate(),
+                        closeHandler),
+        };
+    }
 }
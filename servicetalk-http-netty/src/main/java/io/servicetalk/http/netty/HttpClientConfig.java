@@ -18,7 +18,9 @@ package io.servicetalk.http.netty;
 import io.servicetalk.http.api.DefaultHttpHeadersFactory;
 import io.servicetalk.http.api.HttpHeadersFactory;
 import io.servicetalk.tcp.netty.internal.TcpClientConfig;
+import io.servicetalk.transport.netty.internal.FlushStrategy;
 
+import static io.servicetalk.transport.netty.internal.FlushStrategy.defaultFlushStrategy;
 import static java.util.Objects.requireNonNull;
 
 final class HttpClientConfig {
@@ -30,6 +32,8 @@ final class HttpClientConfig {
     private int maxPipelinedRequests = 1;
     private int headersEncodedSizeEstimate = 256;
     private int trailersEncodedSizeEstimate = 256;
+    private boolean h2PriorKnowledge;
+    private FlushStrategy flushStrategy = defaultFlushStrategy();
 
     HttpClientConfig(final TcpClientConfig tcpClientConfig) {
         this.tcpClientConfig = requireNonNull(tcpClientConfig);
@@ -43,6 +47,8 @@ final class HttpClientConfig {
         maxPipelinedRequests = from.maxPipelinedRequests;
         headersEncodedSizeEstimate = from.headersEncodedSizeEstimate;
         trailersEncodedSizeEstimate = from.trailersEncodedSizeEstimate;
+        h2PriorKnowledge = from.h2PriorKnowledge;
+        flushStrategy = from.flushStrategy;
     }
 
     TcpClientConfig getTcpClientConfig() {
@@ -112,6 +118,22 @@ final class HttpClientConfig {
         this.trailersEncodedSizeEstimate = trailersEncodedSizeEstimate;
     }
 
+    boolean isH2PriorKnowledge() {
+        return h2PriorKnowledge;
+    }
+
+    void setH2PriorKnowledge(final boolean h2PriorKnowledge) {
+        this.h2PriorKnowledge = h2PriorKnowledge;
+    }
+
+    FlushStrategy getFlushStrategy() {
+        return flushStrategy;
+    }
+
+    void setFlushStrategy(final FlushStrategy flushStrategy) {
+        this.flushStrategy = requireNonNull(flushStrategy);
+    }
+
     ReadOnlyHttpClientConfig asReadOnly() {
         return new ReadOnlyHttpClientConfig(this);
     }
@@ -24,6 +24,7 @@ import static io.servicetalk.http.api.HttpHeaderValues.CLOSE;
 import static io.servicetalk.http.api.HttpHeaderValues.KEEP_ALIVE;
 import static io.servicetalk.http.api.HttpProtocolVersions.HTTP_1_0;
 import static io.servicetalk.http.api.HttpProtocolVersions.HTTP_1_1;
+import static io.servicetalk.http.api.HttpProtocolVersions.HTTP_2_0;
 import static io.servicetalk.http.netty.HttpProtocolVersionUtils.isSameVersion;
 
 enum HttpKeepAlive {
@@ -50,6 +51,9 @@ enum HttpKeepAlive {
         } else if (isSameVersion(HTTP_1_0, metaData.getVersion())) {
             return metaData.getHeaders().contains(CONNECTION, KEEP_ALIVE, true) ?
                     KEEP_ALIVE_ADD_HEADER : CLOSE_NO_HEADER;
+        } else if (isSameVersion(HTTP_2_0, metaData.getVersion())) {
+            // The lifetime of an HTTP/2 stream is governed by the protocol, connection headers are not allowed.
+            return KEEP_ALIVE_NO_HEADER;
         } else {
             return CLOSE_NO_HEADER;
         }
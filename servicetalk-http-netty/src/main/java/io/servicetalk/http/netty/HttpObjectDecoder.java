@@ -60,7 +60,8 @@ import static io.netty.handler.codec.http.HttpConstants.LF;
 import static io.netty.util.ByteProcessor.FIND_LINEAR_WHITESPACE;
 import static io.netty.util.ByteProcessor.FIND_NON_LINEAR_WHITESPACE;
 import static io.servicetalk.buffer.api.EmptyBuffer.EMPTY_BUFFER;
-import static io.servicetalk.buffer.netty.BufferUtil.newBufferFrom;
+import static io.servicetalk.buffer.netty.BufferUtil.indexOf;
+import static io.servicetalk.buffer.netty.BufferUtil.newUnpooledBufferFrom;
 import static io.servicetalk.http.api.CharSequences.emptyAsciiString;
 import static io.servicetalk.http.api.CharSequences.newAsciiString;
 import static io.servicetalk.http.api.HttpHeaderNames.CONTENT_LENGTH;
@@ -78,6 +79,8 @@ import static io.servicetalk.http.api.HttpResponseStatuses.SWITCHING_PROTOCOLS;
 import static io.servicetalk.http.netty.HeaderUtils.isTransferEncodingChunked;
 import static io.servicetalk.http.netty.HeaderUtils.setTransferEncodingChunked;
 import static io.servicetalk.http.netty.HttpKeepAlive.shouldClose;
+import static io.servicetalk.http.netty.WellKnownHeaders.internName;
+import static io.servicetalk.http.netty.WellKnownHeaders.internValue;
 import static java.lang.Character.isISOControl;
 import static java.lang.Character.isWhitespace;
 import static java.lang.Math.min;
@@ -92,8 +95,6 @@ abstract class HttpObjectDecoder<T extends HttpMetaData> extends ByteToMessageDe
     private static final byte HTAB_BYTE = (byte) '\t';
     private static final ByteProcessor FIND_COLON_OR_WHITE_SPACE =
             value -> value != COLON_BYTE && value != SPACE_BYTE && value != HTAB_BYTE;
-    private static final ByteProcessor FIND_COLON =
-            value -> value != COLON_BYTE;
     private static final ByteProcessor SKIP_CONTROL_CHARS_PROCESSOR = value ->
         value == SPACE_BYTE || value == HTAB_BYTE || isISOControl((char) (value & 0xff));
     private static final int MAX_HEX_CHARS_FOR_LONG = 16; // 0x7FFFFFFFFFFFFFFF == Long.MAX_INT
@@ -288,7 +289,7 @@ abstract class HttpObjectDecoder<T extends HttpMetaData> extends ByteToMessageDe
                 if (toRead > 0) {
                     ByteBuf content = buffer.readRetainedSlice(toRead);
                     cumulationIndex = buffer.readerIndex();
-                    ctx.fireChannelRead(newPayloadChunk(newBufferFrom(content)));
+                    ctx.fireChannelRead(newPayloadChunk(newUnpooledBufferFrom(content)));
                 }
                 return;
             }
@@ -316,12 +317,12 @@ abstract class HttpObjectDecoder<T extends HttpMetaData> extends ByteToMessageDe
                     // Read all content.
                     // https://tools.ietf.org/html/rfc7230.html#section-4.1
                     // This is not chunked encoding so there will not be any trailers.
-                    ctx.fireChannelRead(newLastPayloadChunk(newBufferFrom(content),
+                    ctx.fireChannelRead(newLastPayloadChunk(newUnpooledBufferFrom(content),
                                         headersFactory.newEmptyTrailers()));
                     closeHandler.protocolPayloadEndInbound(ctx);
                     resetNow();
                 } else {
-                    ctx.fireChannelRead(newPayloadChunk(newBufferFrom(content)));
+                    ctx.fireChannelRead(newPayloadChunk(newUnpooledBufferFrom(content)));
                 }
                 return;
             }
@@ -348,7 +349,7 @@ abstract class HttpObjectDecoder<T extends HttpMetaData> extends ByteToMessageDe
                 if (toRead == 0) {
                     return;
                 }
-                HttpPayloadChunk chunk = newPayloadChunk(newBufferFrom(buffer.readRetainedSlice(toRead)));
+                HttpPayloadChunk chunk = newPayloadChunk(newUnpooledBufferFrom(buffer.readRetainedSlice(toRead)));
                 chunkSize -= toRead;
                 cumulationIndex = buffer.readerIndex();
 
@@ -545,10 +546,13 @@ abstract class HttpObjectDecoder<T extends HttpMetaData> extends ByteToMessageDe
         }
 
         int valueStart = headerEnd + 1;
-        // We assume the allocator will not leak memory, and so we retain + slice to avoid copying data.
-        CharSequence name = newAsciiString(newBufferFrom(buffer.retainedSlice(headerStart, headerEnd - headerStart)));
+        CharSequence name = internName(buffer, headerStart, headerEnd - headerStart);
+        if (name == null) {
+            // Retain + slice to avoid copying data, unless the memory is pooled and so has to be copied.
+            name = newAsciiString(newUnpooledBufferFrom(buffer.retainedSlice(headerStart, headerEnd - headerStart)));
+        }
         if (buffer.getByte(headerEnd) != COLON_BYTE) {
-            valueStart = buffer.forEachByte(headerEnd + 1, nonControlIndex - headerEnd, FIND_COLON);
+            valueStart = indexOf(buffer, headerEnd + 1, nonControlIndex + 1, COLON_BYTE);
             if (valueStart < 0) {
                 throw new IllegalArgumentException("unable to find colon");
             }
@@ -563,9 +567,13 @@ abstract class HttpObjectDecoder<T extends HttpMetaData> extends ByteToMessageDe
                     FIND_NON_LINEAR_WHITESPACE)) < 0) {
                 headers.add(name, emptyAsciiString());
             } else {
-                // We assume the allocator will not leak memory, and so we retain + slice to avoid copying data.
-                headers.add(name, newAsciiString(newBufferFrom(
-                        buffer.retainedSlice(valueStart, valueEnd - valueStart + 1))));
+                final int valueLength = valueEnd - valueStart + 1;
+                CharSequence value = internValue(buffer, valueStart, valueLength);
+                if (value == null) {
+                    // Retain + slice to avoid copying data, unless the memory is pooled and so has to be copied.
+                    value = newAsciiString(newUnpooledBufferFrom(buffer.retainedSlice(valueStart, valueLength)));
+                }
+                headers.add(name, value);
             }
         }
         // Consume the header line bytes from the buffer.
@@ -690,7 +698,7 @@ abstract class HttpObjectDecoder<T extends HttpMetaData> extends ByteToMessageDe
         final int maxToIndex = startIndex + maxLineSize;
         for (;;) {
             int toIndex = min(buffer.writerIndex(), maxToIndex);
-            int lfIndex = buffer.indexOf(startIndex, toIndex, LF);
+            int lfIndex = indexOf(buffer, startIndex, toIndex, LF);
             if (lfIndex == -1) {
                 if (toIndex - startIndex == maxLineSize) {
                     throw new IllegalStateException("could not find CRLF within " + maxLineSize + " bytes.");
@@ -763,6 +771,6 @@ abstract class HttpObjectDecoder<T extends HttpMetaData> extends ByteToMessageDe
         // The HTTP-version ABNF production has been clarified to be case-sensitive
         return buffer.equals(HTTP_1_1_BUF) ? HTTP_1_1 :
                 buffer.equals(HTTP_1_0_BUF) ? HTTP_1_0 :
-                        newProtocolVersion(newBufferFrom(buffer.retain()));
+                        newProtocolVersion(newUnpooledBufferFrom(buffer.retain()));
     }
 }
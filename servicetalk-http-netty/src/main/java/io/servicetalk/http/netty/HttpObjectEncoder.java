@@ -31,6 +31,7 @@
 package io.servicetalk.http.netty;
 
 import io.servicetalk.buffer.api.Buffer;
+import io.servicetalk.http.api.FileHttpPayloadChunk;
 import io.servicetalk.http.api.HttpHeaders;
 import io.servicetalk.http.api.HttpMetaData;
 import io.servicetalk.http.api.HttpPayloadChunk;
@@ -42,31 +43,47 @@ import io.netty.buffer.ByteBufUtil;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelOutboundHandlerAdapter;
 import io.netty.channel.ChannelPromise;
+import io.netty.channel.DefaultFileRegion;
+import io.netty.handler.ssl.SslHandler;
+import io.netty.util.AbstractReferenceCounted;
+import io.netty.util.ReferenceCounted;
 import io.netty.util.concurrent.PromiseCombiner;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
 import java.util.Map;
+import javax.annotation.Nullable;
 
 import static io.netty.buffer.ByteBufUtil.writeMediumBE;
 import static io.netty.buffer.ByteBufUtil.writeShortBE;
 import static io.netty.buffer.Unpooled.EMPTY_BUFFER;
 import static io.netty.buffer.Unpooled.directBuffer;
 import static io.netty.buffer.Unpooled.unreleasableBuffer;
-import static io.netty.buffer.Unpooled.wrappedBuffer;
 import static io.netty.handler.codec.http.HttpConstants.COLON;
 import static io.netty.handler.codec.http.HttpConstants.CR;
 import static io.netty.handler.codec.http.HttpConstants.LF;
 import static io.netty.handler.codec.http.HttpConstants.SP;
 import static io.netty.util.internal.StringUtil.simpleClassName;
 import static io.servicetalk.buffer.netty.BufferUtil.PREFER_DIRECT_ALLOCATOR;
+import static io.servicetalk.buffer.netty.BufferUtil.extractByteBufOrCreate;
+import static io.servicetalk.buffer.netty.BufferUtil.isPooled;
 import static io.servicetalk.buffer.netty.BufferUtil.toByteBufNoThrow;
 import static io.servicetalk.http.api.CharSequences.unwrapBuffer;
 import static io.servicetalk.http.netty.HeaderUtils.isTransferEncodingChunked;
 import static io.servicetalk.http.netty.HttpKeepAlive.shouldClose;
+import static io.servicetalk.http.netty.WellKnownHeaders.encodedName;
+import static io.servicetalk.http.netty.WellKnownHeaders.encodedValue;
 import static java.lang.Long.toHexString;
 import static java.lang.Math.max;
 import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.nio.file.StandardOpenOption.READ;
 
 abstract class HttpObjectEncoder<T extends HttpMetaData> extends ChannelOutboundHandlerAdapter {
+    private static final Logger LOGGER = LoggerFactory.getLogger(HttpObjectEncoder.class);
     static final int CRLF_SHORT = (CR << 8) | LF;
     private static final int ZERO_CRLF_MEDIUM = ('0' << 16) | CRLF_SHORT;
     private static final byte[] ZERO_CRLF_CRLF = {'0', CR, LF, CR, LF};
@@ -98,6 +115,12 @@ abstract class HttpObjectEncoder<T extends HttpMetaData> extends ChannelOutbound
      */
     private float trailersEncodedSizeAccumulator;
     private final CloseHandler closeHandler;
+    /**
+     * The file of the last {@link FileHttpPayloadChunk} written with zero copy. Subsequent regions of the same file
+     * share this {@link FileChannel} rather than opening the file again for every region.
+     */
+    @Nullable
+    private SharedFileChannel fileChannel;
 
     /**
      * Create a new instance.
@@ -157,30 +180,37 @@ abstract class HttpObjectEncoder<T extends HttpMetaData> extends ChannelOutbound
             if (potentialEmptyBuf.getReadableBytes() == 0) {
                 // We can directly write EMPTY_BUFFER here because there is no need to worry about the buffer being
                 // already released.
+                releaseIfPooled(msg);
                 ctx.write(EMPTY_BUFFER, promise);
                 return;
             }
         }
 
         if (msg instanceof HttpPayloadChunk || msg instanceof Buffer) {
+            final boolean zeroCopy = isZeroCopy(ctx, msg);
             switch (state) {
                 case ST_INIT:
                     throw new IllegalStateException("unexpected message type: " + simpleClassName(msg));
                 case ST_CONTENT_NON_CHUNK:
                     final long contentLength = contentLength(msg);
                     if (contentLength > 0) {
-                        if (byteBuf != null && byteBuf.writableBytes() >= contentLength && msg instanceof HttpPayloadChunk) {
-                            // merge into other buffer for performance reasons
+                        if (byteBuf != null && byteBuf.writableBytes() >= contentLength &&
+                                msg instanceof HttpPayloadChunk && !zeroCopy &&
+                                ((HttpPayloadChunk) msg).getContent().getNioBufferCount() == 1) {
+                            // merge into other buffer for performance reasons. Content with multiple segments, e.g. an
+                            // aggregated CompositeBuffer, is written as is instead so the segments are written with a
+                            // single gathering write rather than copied.
                             writeBufferToByteBuf(((HttpPayloadChunk) msg).getContent(), byteBuf.writerIndex(), byteBuf);
+                            releaseIfPooled(msg);
                             ctx.write(byteBuf, promise);
                         } else {
                             if (byteBuf != null) {
                                 PromiseCombiner promiseCombiner = new PromiseCombiner();
                                 promiseCombiner.add(ctx.write(byteBuf));
-                                promiseCombiner.add(ctx.write(encodeAndRetain(msg)));
+                                promiseCombiner.add(ctx.write(encodeAndRetain(msg, zeroCopy)));
                                 promiseCombiner.finish(promise);
                             } else {
-                                ctx.write(encodeAndRetain(msg), promise);
+                                ctx.write(encodeAndRetain(msg, zeroCopy), promise);
                             }
                         }
 
@@ -189,6 +219,7 @@ abstract class HttpObjectEncoder<T extends HttpMetaData> extends ChannelOutbound
 
                     // fall-through!
                 case ST_CONTENT_ALWAYS_EMPTY:
+                    releaseIfPooled(msg);
                     if (byteBuf != null) {
                         // We allocated a buffer so add it now.
                         ctx.write(byteBuf, promise);
@@ -210,7 +241,7 @@ abstract class HttpObjectEncoder<T extends HttpMetaData> extends ChannelOutbound
                         // We allocated a buffer so write it now.
                         promiseCombiner.add(ctx.write(byteBuf));
                     }
-                    encodeChunkedContent(ctx, msg, contentLength(msg), promiseCombiner);
+                    encodeChunkedContent(ctx, msg, zeroCopy, contentLength(msg), promiseCombiner);
                     promiseCombiner.finish(promise);
 
                     break;
@@ -220,6 +251,7 @@ abstract class HttpObjectEncoder<T extends HttpMetaData> extends ChannelOutbound
 
             if (msg instanceof LastHttpPayloadChunk) {
                 state = ST_INIT;
+                releaseFileChannel();
                 promise.addListener(f -> {
                     if (f.isSuccess()) {
                         // Only writes of the last payload that have been successfully written and flushed should emit
@@ -234,6 +266,11 @@ abstract class HttpObjectEncoder<T extends HttpMetaData> extends ChannelOutbound
         }
     }
 
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) {
+        releaseFileChannel();
+    }
+
     /**
      * Determine whether a message has a content or not. Some message may have headers indicating
      * a content without having an actual content, e.g the response to an HEAD or CONNECT request.
@@ -273,7 +310,7 @@ abstract class HttpObjectEncoder<T extends HttpMetaData> extends ChannelOutbound
         }
     }
 
-    private void encodeChunkedContent(ChannelHandlerContext ctx, Object msg, long contentLength,
+    private void encodeChunkedContent(ChannelHandlerContext ctx, Object msg, boolean zeroCopy, long contentLength,
                                       PromiseCombiner promiseCombiner) {
         if (contentLength > 0) {
             String lengthHex = toHexString(contentLength);
@@ -281,11 +318,15 @@ abstract class HttpObjectEncoder<T extends HttpMetaData> extends ChannelOutbound
             buf.writeCharSequence(lengthHex, US_ASCII);
             writeShortBE(buf, CRLF_SHORT);
             promiseCombiner.add(ctx.write(buf));
-            promiseCombiner.add(ctx.write(encodeAndRetain(msg)));
+            promiseCombiner.add(ctx.write(encodeAndRetain(msg, zeroCopy)));
             promiseCombiner.add(ctx.write(CRLF_BUF.duplicate()));
         }
 
         if (msg instanceof LastHttpPayloadChunk) {
+            if (contentLength == 0) {
+                // The empty content is not written, so pooled memory has to be released here.
+                releaseIfPooled(msg);
+            }
             HttpHeaders headers = ((LastHttpPayloadChunk) msg).getTrailers();
             if (headers.isEmpty()) {
                 promiseCombiner.add(ctx.write(ZERO_CRLF_CRLF_BUF.duplicate()));
@@ -299,9 +340,10 @@ abstract class HttpObjectEncoder<T extends HttpMetaData> extends ChannelOutbound
                 promiseCombiner.add(ctx.write(buf));
             }
         } else if (contentLength == 0) {
+            releaseIfPooled(msg);
             // Need to produce some output otherwise an
-            // IllegalStateException will be thrown
-            promiseCombiner.add(ctx.write(encodeAndRetain(msg)));
+            // IllegalStateException will be thrown. The content may have been released above, so it can not be written.
+            promiseCombiner.add(ctx.write(EMPTY_BUFFER));
         }
     }
 
@@ -321,14 +363,23 @@ abstract class HttpObjectEncoder<T extends HttpMetaData> extends ChannelOutbound
         final int entryLen = nameLen + valueLen + 4;
         buf.ensureWritable(entryLen);
         int offset = buf.writerIndex();
-        writeAscii(buf, offset, name);
-        offset += nameLen;
-        ByteBufUtil.setShortBE(buf, offset, COLON_AND_SPACE_SHORT);
-        offset += 2;
-        writeAscii(buf, offset, value);
-        offset += valueLen;
-        ByteBufUtil.setShortBE(buf, offset, CRLF_SHORT);
-        offset += 2;
+        // Well known names and values are copied together with the separator which follows them.
+        ByteBuf encoded = encodedName(name);
+        if (encoded != null) {
+            buf.setBytes(offset, encoded, 0, nameLen + 2);
+        } else {
+            writeAscii(buf, offset, name);
+            ByteBufUtil.setShortBE(buf, offset + nameLen, COLON_AND_SPACE_SHORT);
+        }
+        offset += nameLen + 2;
+        encoded = encodedValue(value);
+        if (encoded != null) {
+            buf.setBytes(offset, encoded, 0, valueLen + 2);
+        } else {
+            writeAscii(buf, offset, value);
+            ByteBufUtil.setShortBE(buf, offset + valueLen, CRLF_SHORT);
+        }
+        offset += valueLen + 2;
         buf.writerIndex(offset);
     }
 
@@ -355,7 +406,10 @@ abstract class HttpObjectEncoder<T extends HttpMetaData> extends ChannelOutbound
     }
 
     private static long contentLength(Object msg) {
-        if (msg instanceof HttpPayloadChunk) {
+        if (msg instanceof FileHttpPayloadChunk) {
+            // Avoid mapping the file region just to find out its size.
+            return ((FileHttpPayloadChunk) msg).getCount();
+        } else if (msg instanceof HttpPayloadChunk) {
             return ((HttpPayloadChunk) msg).getContent().getReadableBytes();
         } else if (msg instanceof Buffer) {
             return ((Buffer) msg).getReadableBytes();
@@ -363,19 +417,127 @@ abstract class HttpObjectEncoder<T extends HttpMetaData> extends ChannelOutbound
         throw new IllegalStateException("unexpected message type: " + simpleClassName(msg));
     }
 
-    private static ByteBuf encodeAndRetain(Object msg) {
-        // We still want to retain the objects we encode because otherwise folks may hold on to references of objects
-        // with a 0 reference count and get an IllegalReferenceCountException.
+    private Object encodeAndRetain(Object msg, boolean zeroCopy) {
+        if (zeroCopy) {
+            // Let the transport copy the file content directly to the socket (e.g. via sendfile).
+            return newFileRegion((FileHttpPayloadChunk) msg);
+        }
+        final ByteBuf byteBuf;
         if (msg instanceof HttpPayloadChunk) {
-            return toByteBuf(((HttpPayloadChunk) msg).getContent()).retain();
+            byteBuf = toByteBuf(((HttpPayloadChunk) msg).getContent());
         } else if (msg instanceof Buffer) {
-            return toByteBuf(((Buffer) msg)).retain();
+            byteBuf = toByteBuf(((Buffer) msg));
+        } else {
+            throw new IllegalStateException("unexpected message type: " + simpleClassName(msg));
+        }
+        // Pooled memory is owned by the transport once written, so netty releases it after the write. We still want to
+        // retain all other objects we encode because otherwise folks may hold on to references of objects with a 0
+        // reference count and get an IllegalReferenceCountException.
+        return isPooled(byteBuf) ? byteBuf : byteBuf.retain();
+    }
+
+    private DefaultFileRegion newFileRegion(FileHttpPayloadChunk fileChunk) {
+        SharedFileChannel channel = fileChannel;
+        if (channel == null || !channel.file.equals(fileChunk.getFile())) {
+            releaseFileChannel();
+            try {
+                channel = new SharedFileChannel(fileChunk.getFile());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            fileChannel = channel;
+        }
+        channel.retain();
+        return new SharedFileRegion(channel, fileChunk.getPosition(), fileChunk.getCount());
+    }
+
+    private void releaseFileChannel() {
+        final SharedFileChannel channel = fileChannel;
+        if (channel != null) {
+            fileChannel = null;
+            // Regions which are still queued for writing keep the file open until they are released.
+            channel.release();
+        }
+    }
+
+    /**
+     * Releases the content of {@code msg} if it references pooled memory, for content which is not handed over to the
+     * transport as is. Pooled memory is owned by the transport once written, so nobody else would release it.
+     *
+     * @param msg the payload message.
+     */
+    private static void releaseIfPooled(Object msg) {
+        if (msg instanceof FileHttpPayloadChunk) {
+            // Avoid mapping the file region, the content of a file is never pooled.
+            return;
+        }
+        final ByteBuf byteBuf = toByteBufNoThrow(msg instanceof HttpPayloadChunk ?
+                ((HttpPayloadChunk) msg).getContent() : (Buffer) msg);
+        if (byteBuf != null && isPooled(byteBuf)) {
+            byteBuf.release();
+        }
+    }
+
+    /**
+     * Determine whether {@code msg} can be written as a {@link DefaultFileRegion}. Content which has to be encrypted
+     * needs to be read into user space anyways, so in that case {@link FileHttpPayloadChunk#getContent()} is used.
+     *
+     * @param ctx the {@link ChannelHandlerContext} of this handler.
+     * @param msg the message to write.
+     * @return {@code true} if {@code msg} is written as a {@link DefaultFileRegion}.
+     */
+    private static boolean isZeroCopy(ChannelHandlerContext ctx, Object msg) {
+        return msg instanceof FileHttpPayloadChunk && ctx.pipeline().get(SslHandler.class) == null;
+    }
+
+    /**
+     * A {@link FileChannel} which is shared by all {@link SharedFileRegion}s of the same file and closed once the
+     * encoder and all regions released it.
+     */
+    private static final class SharedFileChannel extends AbstractReferenceCounted {
+        final File file;
+        final FileChannel channel;
+
+        SharedFileChannel(File file) throws IOException {
+            this.file = file;
+            channel = FileChannel.open(file.toPath(), READ);
+        }
+
+        @Override
+        protected void deallocate() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                LOGGER.warn("Failed to close file {}", file, e);
+            }
+        }
+
+        @Override
+        public ReferenceCounted touch(Object hint) {
+            return this;
+        }
+    }
+
+    /**
+     * A {@link DefaultFileRegion} which releases its {@link SharedFileChannel} rather than closing the channel. The
+     * type is kept so that transports can still use {@code sendfile}.
+     */
+    private static final class SharedFileRegion extends DefaultFileRegion {
+        private final SharedFileChannel fileChannel;
+
+        SharedFileRegion(SharedFileChannel fileChannel, long position, long count) {
+            super(fileChannel.channel, position, count);
+            this.fileChannel = fileChannel;
+        }
+
+        @Override
+        protected void deallocate() {
+            fileChannel.release();
         }
-        throw new IllegalStateException("unexpected message type: " + simpleClassName(msg));
     }
 
     static ByteBuf toByteBuf(Buffer buffer) {
-        ByteBuf byteBuf = toByteBufNoThrow(buffer);
-        return byteBuf != null ? byteBuf : wrappedBuffer(buffer.toNioBuffer());
+        // Wrap rather than flatten Buffers which are not backed by netty, toNioBuffer() would copy multiple segments.
+        return extractByteBufOrCreate(buffer);
     }
 }
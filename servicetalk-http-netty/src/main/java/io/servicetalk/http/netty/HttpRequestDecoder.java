@@ -27,7 +27,7 @@ import java.util.Map;
 import java.util.Queue;
 
 import static io.netty.buffer.Unpooled.copiedBuffer;
-import static io.servicetalk.buffer.netty.BufferUtil.newBufferFrom;
+import static io.servicetalk.buffer.netty.BufferUtil.newUnpooledBufferFrom;
 import static io.servicetalk.http.api.HttpRequestMetaDataFactory.newRequestMetaData;
 import static io.servicetalk.http.api.HttpRequestMethods.CONNECT;
 import static io.servicetalk.http.api.HttpRequestMethods.DELETE;
@@ -101,6 +101,6 @@ final class HttpRequestDecoder extends HttpObjectDecoder<HttpRequestMetaData> {
 
     private static HttpRequestMethod nettyBufferToHttpMethod(ByteBuf buf) {
         HttpRequestMethod method = BUF_TO_METHOD_MAP.get(buf);
-        return method != null ? method : newRequestMethod(newBufferFrom(buf.retain()));
+        return method != null ? method : newRequestMethod(newUnpooledBufferFrom(buf.retain()));
     }
 }
@@ -25,7 +25,7 @@ import io.netty.buffer.ByteBuf;
 
 import java.util.Queue;
 
-import static io.servicetalk.buffer.netty.BufferUtil.newBufferFrom;
+import static io.servicetalk.buffer.netty.BufferUtil.newUnpooledBufferFrom;
 import static io.servicetalk.http.api.HttpHeaderNames.SEC_WEBSOCKET_ACCEPT;
 import static io.servicetalk.http.api.HttpHeaderNames.UPGRADE;
 import static io.servicetalk.http.api.HttpHeaderValues.WEBSOCKET;
@@ -104,9 +104,10 @@ final class HttpResponseDecoder extends HttpObjectDecoder<HttpResponseMetaData>
                     toDecimal((medium & 0xff0000) >> 16) * 100 +
                             toDecimal((medium & 0xff00) >> 8) * 10 +
                             toDecimal(medium & 0xff),
-                    newBufferFrom(reasonPhrase));
+                    newUnpooledBufferFrom(reasonPhrase.retain()));
         } else {
-            return getResponseStatus(parseInt(statusCode.toString(US_ASCII)), newBufferFrom(reasonPhrase));
+            return getResponseStatus(parseInt(statusCode.toString(US_ASCII)),
+                    newUnpooledBufferFrom(reasonPhrase.retain()));
         }
     }
 
@@ -18,7 +18,9 @@ package io.servicetalk.http.netty;
 import io.servicetalk.http.api.DefaultHttpHeadersFactory;
 import io.servicetalk.http.api.HttpHeadersFactory;
 import io.servicetalk.tcp.netty.internal.TcpServerConfig;
+import io.servicetalk.transport.netty.internal.FlushStrategy;
 
+import static io.servicetalk.transport.netty.internal.FlushStrategy.defaultFlushStrategy;
 import static java.util.Objects.requireNonNull;
 
 final class HttpServerConfig {
@@ -29,6 +31,9 @@ final class HttpServerConfig {
     private int maxHeaderSize = 8192;
     private int headersEncodedSizeEstimate = 256;
     private int trailersEncodedSizeEstimate = 256;
+    private boolean h2PriorKnowledge;
+    private int h2MaxConcurrentStreams = 100;
+    private FlushStrategy flushStrategy = defaultFlushStrategy();
 
     HttpServerConfig() {
         tcpConfig = new TcpServerConfig(false);
@@ -91,6 +96,33 @@ final class HttpServerConfig {
         this.maxHeaderSize = maxHeaderSize;
     }
 
+    boolean isH2PriorKnowledge() {
+        return h2PriorKnowledge;
+    }
+
+    void setH2PriorKnowledge(final boolean h2PriorKnowledge) {
+        this.h2PriorKnowledge = h2PriorKnowledge;
+    }
+
+    int getH2MaxConcurrentStreams() {
+        return h2MaxConcurrentStreams;
+    }
+
+    void setH2MaxConcurrentStreams(final int h2MaxConcurrentStreams) {
+        if (h2MaxConcurrentStreams <= 0) {
+            throw new IllegalArgumentException("h2MaxConcurrentStreams must be > 0");
+        }
+        this.h2MaxConcurrentStreams = h2MaxConcurrentStreams;
+    }
+
+    FlushStrategy getFlushStrategy() {
+        return flushStrategy;
+    }
+
+    void setFlushStrategy(final FlushStrategy flushStrategy) {
+        this.flushStrategy = requireNonNull(flushStrategy);
+    }
+
     TcpServerConfig getTcpConfig() {
         return tcpConfig;
     }
@@ -34,8 +34,11 @@ import io.servicetalk.transport.netty.internal.CloseHandler;
 import io.servicetalk.transport.netty.internal.Connection;
 import io.servicetalk.transport.netty.internal.Connection.TerminalPredicate;
 import io.servicetalk.transport.netty.internal.ConnectionHolderChannelHandler;
+import io.servicetalk.transport.netty.internal.FlushStrategy;
 
+import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPipeline;
 
 import java.net.SocketAddress;
 import java.util.ArrayDeque;
@@ -45,6 +48,7 @@ import javax.annotation.Nullable;
 
 import static io.servicetalk.concurrent.api.AsyncCloseables.newCompositeCloseable;
 import static io.servicetalk.concurrent.api.AsyncCloseables.toListenableAsyncCloseable;
+import static io.servicetalk.http.netty.AlpnChannelHandler.isH2Negotiable;
 import static io.servicetalk.transport.netty.internal.CloseHandler.forPipelinedRequestResponse;
 
 final class NettyHttpServer {
@@ -71,18 +75,39 @@ final class NettyHttpServer {
 
     private static ChannelInitializer getChannelInitializer(final ReadOnlyHttpServerConfig config,
                                                             final StreamingHttpService service) {
+        final boolean alpn = isH2Negotiable(config.getTcpConfig().getSslContext());
+        final boolean h2PriorKnowledge = !alpn && config.getTcpConfig().getSslContext() == null &&
+                config.isH2PriorKnowledge();
         return (channel, context) -> {
-            final CloseHandler closeHandler = forPipelinedRequestResponse(false);
-            Queue<HttpRequestMethod> methodQueue = new ArrayDeque<>(2);
-            channel.pipeline().addLast(new HttpRequestDecoder(methodQueue, config.getHeadersFactory(),
-                    config.getMaxInitialLineLength(), config.getMaxHeaderSize(), closeHandler));
-            channel.pipeline().addLast(new HttpResponseEncoder(methodQueue, config.getHeadersEncodedSizeEstimate(),
-                    config.getTrailersEncodedSizeEstimate(), closeHandler));
-            channel.pipeline().addLast(new HttpChannelReadHandler(closeHandler, context, service));
+            final ChannelPipeline pipeline = channel.pipeline();
+            if (alpn) {
+                pipeline.addLast(new AlpnChannelHandler(() -> newH1Handlers(config, service, context),
+                        () -> H2ServerParentChannelInitializer.newHandlers(config, service, context), false));
+            } else {
+                for (ChannelHandler handler : h2PriorKnowledge ?
+                        H2ServerParentChannelInitializer.newHandlers(config, service, context) :
+                        newH1Handlers(config, service, context)) {
+                    pipeline.addLast(handler);
+                }
+            }
             return context;
         };
     }
 
+    private static ChannelHandler[] newH1Handlers(final ReadOnlyHttpServerConfig config,
+                                                  final StreamingHttpService service,
+                                                  final ConnectionContext context) {
+        final CloseHandler closeHandler = forPipelinedRequestResponse(false);
+        Queue<HttpRequestMethod> methodQueue = new ArrayDeque<>(2);
+        return new ChannelHandler[] {
+                new HttpRequestDecoder(methodQueue, config.getHeadersFactory(),
+                        config.getMaxInitialLineLength(), config.getMaxHeaderSize(), closeHandler),
+                new HttpResponseEncoder(methodQueue, config.getHeadersEncodedSizeEstimate(),
+                        config.getTrailersEncodedSizeEstimate(), closeHandler),
+                new HttpChannelReadHandler(closeHandler, context, service, config.getFlushStrategy()),
+        };
+    }
+
     private static final class NettyHttpServerContext implements ServerContext {
 
         private final ServerContext delegate;
@@ -119,15 +144,18 @@ final class NettyHttpServer {
         private final CloseHandler closeHandler;
         private final ConnectionContext context;
         private final StreamingHttpService service;
+        private final FlushStrategy flushStrategy;
         @Nullable
         private NettyHttpServerConnection connection;
 
         HttpChannelReadHandler(final CloseHandler closeHandler,
-                               final ConnectionContext context, final StreamingHttpService service) {
+                               final ConnectionContext context, final StreamingHttpService service,
+                               final FlushStrategy flushStrategy) {
             super(LAST_HTTP_PAYLOAD_CHUNK_OBJECT_PREDICATE);
             this.closeHandler = closeHandler;
             this.context = context;
             this.service = service;
+            this.flushStrategy = flushStrategy;
         }
 
         @Override
@@ -135,7 +163,7 @@ final class NettyHttpServer {
                                            final Publisher<Object> requestObjectPublisher) {
             connection = new NettyHttpServerConnection(
                     channelHandlerContext.channel(), requestObjectPublisher,
-                    new TerminalPredicate<>(LAST_HTTP_PAYLOAD_CHUNK_OBJECT_PREDICATE), closeHandler, context, service);
+                    new TerminalPredicate<>(LAST_HTTP_PAYLOAD_CHUNK_OBJECT_PREDICATE), closeHandler, context, service, flushStrategy);
         }
 
         @Override
@@ -28,6 +28,7 @@ import io.servicetalk.http.api.StreamingHttpResponse;
 import io.servicetalk.http.api.StreamingHttpService;
 import io.servicetalk.transport.api.ConnectionContext;
 import io.servicetalk.transport.netty.internal.CloseHandler;
+import io.servicetalk.transport.netty.internal.FlushStrategy;
 import io.servicetalk.transport.netty.internal.NettyConnection;
 
 import io.netty.channel.Channel;
@@ -56,15 +57,18 @@ final class NettyHttpServerConnection extends NettyConnection<Object, Object> {
             p -> p instanceof LastHttpPayloadChunk;
     private final ConnectionContext context;
     private final StreamingHttpService service;
+    private final FlushStrategy flushStrategy;
 
     NettyHttpServerConnection(final Channel channel, final Publisher<Object> requestObjectPublisher,
                               final TerminalPredicate<Object> terminalPredicate,
                               final CloseHandler closeHandler,
                               final ConnectionContext context,
-                              final StreamingHttpService service) {
+                              final StreamingHttpService service,
+                              final FlushStrategy flushStrategy) {
         super(channel, context, requestObjectPublisher, terminalPredicate, closeHandler);
         this.context = context;
         this.service = service;
+        this.flushStrategy = flushStrategy;
     }
 
     Completable process() {
@@ -148,6 +152,6 @@ final class NettyHttpServerConnection extends NettyConnection<Object, Object> {
     }
 
     private Completable writeResponse(final Publisher<Object> responseObjectPublisher) {
-        return write(responseObjectPublisher);
+        return write(responseObjectPublisher, flushStrategy);
     }
 }
@@ -31,7 +31,7 @@ final class NonPipelinedLBHttpConnectionFactory<ResolvedAddress> extends Abstrac
     NonPipelinedLBHttpConnectionFactory(final ReadOnlyHttpClientConfig config,
                                         final ExecutionContext executionContext,
                                         final ConnectionFilterFunction connectionFilterFunction) {
-        super(connectionFilterFunction);
+        super(config, executionContext, connectionFilterFunction);
         this.config = requireNonNull(config);
         this.executionContext = requireNonNull(executionContext);
     }
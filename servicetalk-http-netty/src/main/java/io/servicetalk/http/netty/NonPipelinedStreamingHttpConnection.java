@@ -18,16 +18,20 @@ package io.servicetalk.http.netty;
 import io.servicetalk.concurrent.api.Publisher;
 import io.servicetalk.transport.api.ExecutionContext;
 import io.servicetalk.transport.netty.internal.Connection;
+import io.servicetalk.transport.netty.internal.FlushStrategy;
 
 final class NonPipelinedStreamingHttpConnection extends AbstractStreamingHttpConnection<Connection<Object, Object>> {
 
+    private final FlushStrategy flushStrategy;
+
     NonPipelinedStreamingHttpConnection(Connection<Object, Object> connection, ReadOnlyHttpClientConfig config,
                                         ExecutionContext executionContext) {
         super(connection, connection.onClosing(), config, executionContext);
+        flushStrategy = config.getFlushStrategy();
     }
 
     @Override
     protected Publisher<Object> writeAndRead(final Publisher<Object> requestStream) {
-        return connection.write(requestStream).andThen(connection.read());
+        return connection.write(requestStream, flushStrategy).andThen(connection.read());
     }
 }
@@ -31,7 +31,7 @@ final class PipelinedLBHttpConnectionFactory<ResolvedAddress> extends AbstractLB
     PipelinedLBHttpConnectionFactory(final ReadOnlyHttpClientConfig config,
                                      final ExecutionContext executionContext,
                                      final ConnectionFilterFunction connectionFilterFunction) {
-        super(connectionFilterFunction);
+        super(config, executionContext, connectionFilterFunction);
         this.config = requireNonNull(config);
         this.executionContext = requireNonNull(executionContext);
     }
@@ -24,15 +24,19 @@ import io.servicetalk.http.api.StreamingHttpResponse;
 import io.servicetalk.transport.api.ExecutionContext;
 import io.servicetalk.transport.netty.internal.Connection;
 import io.servicetalk.transport.netty.internal.DefaultPipelinedConnection;
+import io.servicetalk.transport.netty.internal.FlushStrategy;
 
 import static io.servicetalk.http.api.HttpProtocolVersions.HTTP_1_1;
 
 final class PipelinedStreamingHttpConnection extends AbstractStreamingHttpConnection<DefaultPipelinedConnection<Object, Object>> {
 
+    private final FlushStrategy flushStrategy;
+
     PipelinedStreamingHttpConnection(Connection<Object, Object> connection, ReadOnlyHttpClientConfig config,
                                      ExecutionContext executionContext) {
         super(new DefaultPipelinedConnection<>(
                 connection, config.getMaxPipelinedRequests()), connection.onClosing(), config, executionContext);
+        flushStrategy = config.getFlushStrategy();
     }
 
     @Override
@@ -49,6 +53,6 @@ final class PipelinedStreamingHttpConnection extends AbstractStreamingHttpConnec
     @SuppressWarnings("unchecked")
     @Override
     protected Publisher<Object> writeAndRead(Publisher<Object> requestStream) {
-        return connection.request(requestStream);
+        return connection.request(requestStream, flushStrategy);
     }
 }
@@ -17,6 +17,7 @@ package io.servicetalk.http.netty;
 
 import io.servicetalk.http.api.HttpHeadersFactory;
 import io.servicetalk.tcp.netty.internal.ReadOnlyTcpClientConfig;
+import io.servicetalk.transport.netty.internal.FlushStrategy;
 
 final class ReadOnlyHttpClientConfig {
 
@@ -27,6 +28,8 @@ final class ReadOnlyHttpClientConfig {
     private final int maxPipelinedRequests;
     private final int headersEncodedSizeEstimate;
     private final int trailersEncodedSizeEstimate;
+    private final boolean h2PriorKnowledge;
+    private final FlushStrategy flushStrategy;
 
     ReadOnlyHttpClientConfig(final HttpClientConfig from) {
         tcpClientConfig = from.getTcpClientConfig().asReadOnly();
@@ -36,6 +39,8 @@ final class ReadOnlyHttpClientConfig {
         maxPipelinedRequests = from.getMaxPipelinedRequests();
         headersEncodedSizeEstimate = from.getHeadersEncodedSizeEstimate();
         trailersEncodedSizeEstimate = from.getTrailersEncodedSizeEstimate();
+        h2PriorKnowledge = from.isH2PriorKnowledge();
+        flushStrategy = from.getFlushStrategy();
     }
 
     ReadOnlyTcpClientConfig getTcpClientConfig() {
@@ -65,4 +70,12 @@ final class ReadOnlyHttpClientConfig {
     int getTrailersEncodedSizeEstimate() {
         return trailersEncodedSizeEstimate;
     }
+
+    boolean isH2PriorKnowledge() {
+        return h2PriorKnowledge;
+    }
+
+    FlushStrategy getFlushStrategy() {
+        return flushStrategy;
+    }
 }
@@ -17,6 +17,7 @@ package io.servicetalk.http.netty;
 
 import io.servicetalk.http.api.HttpHeadersFactory;
 import io.servicetalk.tcp.netty.internal.ReadOnlyTcpServerConfig;
+import io.servicetalk.transport.netty.internal.FlushStrategy;
 
 final class ReadOnlyHttpServerConfig {
     private final ReadOnlyTcpServerConfig tcpConfig;
@@ -26,6 +27,9 @@ final class ReadOnlyHttpServerConfig {
     private final int maxHeaderSize;
     private final int headersEncodedSizeEstimate;
     private final int trailersEncodedSizeEstimate;
+    private final boolean h2PriorKnowledge;
+    private final int h2MaxConcurrentStreams;
+    private final FlushStrategy flushStrategy;
 
     ReadOnlyHttpServerConfig(final HttpServerConfig from) {
         tcpConfig = from.getTcpConfig().asReadOnly();
@@ -35,6 +39,9 @@ final class ReadOnlyHttpServerConfig {
         maxHeaderSize = from.getMaxHeaderSize();
         headersEncodedSizeEstimate = from.getHeadersEncodedSizeEstimate();
         trailersEncodedSizeEstimate = from.getTrailersEncodedSizeEstimate();
+        h2PriorKnowledge = from.isH2PriorKnowledge();
+        h2MaxConcurrentStreams = from.getH2MaxConcurrentStreams();
+        flushStrategy = from.getFlushStrategy();
     }
 
     HttpHeadersFactory getHeadersFactory() {
@@ -61,6 +68,18 @@ final class ReadOnlyHttpServerConfig {
         return trailersEncodedSizeEstimate;
     }
 
+    boolean isH2PriorKnowledge() {
+        return h2PriorKnowledge;
+    }
+
+    int getH2MaxConcurrentStreams() {
+        return h2MaxConcurrentStreams;
+    }
+
+    FlushStrategy getFlushStrategy() {
+        return flushStrategy;
+    }
+
     ReadOnlyTcpServerConfig getTcpConfig() {
         return tcpConfig;
     }
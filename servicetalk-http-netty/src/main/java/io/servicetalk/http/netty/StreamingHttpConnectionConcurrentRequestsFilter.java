@@ -39,10 +39,15 @@ final class StreamingHttpConnectionConcurrentRequestsFilter extends StreamingHtt
 
     StreamingHttpConnectionConcurrentRequestsFilter(StreamingHttpConnection next,
                                                     int defaultMaxPipelinedRequests) {
-        this.next = requireNonNull(next);
-        limiter = defaultMaxPipelinedRequests == 1 ?
+        this(next, defaultMaxPipelinedRequests == 1 ?
                 newSingleController(next.getSettingStream(MAX_CONCURRENCY), next.onClose()) :
-                newController(next.getSettingStream(MAX_CONCURRENCY), next.onClose(), defaultMaxPipelinedRequests);
+                newController(next.getSettingStream(MAX_CONCURRENCY), next.onClose(), defaultMaxPipelinedRequests));
+    }
+
+    StreamingHttpConnectionConcurrentRequestsFilter(StreamingHttpConnection next,
+                                                    RequestConcurrencyController limiter) {
+        this.next = requireNonNull(next);
+        this.limiter = requireNonNull(limiter);
     }
 
     @Override
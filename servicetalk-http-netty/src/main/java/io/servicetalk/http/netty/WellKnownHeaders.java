@@ -0,0 +1,200 @@
+/*
+ * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.netty;
+
+import io.servicetalk.http.api.HttpHeaderNames;
+import io.servicetalk.http.api.HttpHeaderValues;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import javax.annotation.Nullable;
+
+import static io.netty.buffer.Unpooled.unreleasableBuffer;
+import static io.netty.buffer.Unpooled.wrappedBuffer;
+import static io.servicetalk.http.api.CharSequences.newAsciiString;
+import static java.lang.reflect.Modifier.isStatic;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+/**
+ * A static table of the {@link HttpHeaderNames} and {@link HttpHeaderValues} constants.
+ * <p>
+ * The decoders use it to map header names and values read from the wire to the shared constants instead of
+ * allocating new {@link CharSequence}s, and the encoders use it to copy the pre-encoded bytes of the constants
+ * (including the separators that follow them) instead of encoding them for every message.
+ * <p>
+ * Matching is case-sensitive so the bytes seen by the peer and the user are always preserved. Header names are
+ * commonly sent either lower-case or capitalized (e.g. {@code Content-Type}), so both forms are part of the table.
+ */
+final class WellKnownHeaders {
+
+    private static final Entry[][] NAMES;
+    private static final Entry[][] VALUES;
+
+    static {
+        final List<Entry> names = new ArrayList<>();
+        for (CharSequence name : constants(HttpHeaderNames.class)) {
+            names.add(new Entry(name, ": "));
+            final String capitalized = capitalize(name.toString());
+            if (!capitalized.contentEquals(name)) {
+                names.add(new Entry(newAsciiString(capitalized), ": "));
+            }
+        }
+        final List<Entry> values = new ArrayList<>();
+        for (CharSequence value : constants(HttpHeaderValues.class)) {
+            values.add(new Entry(value, "\r\n"));
+        }
+        NAMES = byLength(names);
+        VALUES = byLength(values);
+    }
+
+    private WellKnownHeaders() {
+        // No instances
+    }
+
+    /**
+     * Find the header name constant which matches the {@code length} bytes at {@code index} of {@code buffer}.
+     *
+     * @param buffer the {@link ByteBuf} to read from.
+     * @param index the index of the first byte of the name.
+     * @param length the number of bytes of the name.
+     * @return the matching header name constant, or {@code null} if there is none.
+     */
+    @Nullable
+    static CharSequence internName(ByteBuf buffer, int index, int length) {
+        return intern(NAMES, buffer, index, length);
+    }
+
+    /**
+     * Find the header value constant which matches the {@code length} bytes at {@code index} of {@code buffer}.
+     *
+     * @param buffer the {@link ByteBuf} to read from.
+     * @param index the index of the first byte of the value.
+     * @param length the number of bytes of the value.
+     * @return the matching header value constant, or {@code null} if there is none.
+     */
+    @Nullable
+    static CharSequence internValue(ByteBuf buffer, int index, int length) {
+        return intern(VALUES, buffer, index, length);
+    }
+
+    /**
+     * Get the encoded form of {@code name} followed by {@code ": "} if {@code name} is one of the constants of this
+     * table. The indexes of the returned {@link ByteBuf} must not be modified.
+     *
+     * @param name the header name.
+     * @return the encoded form of {@code name} followed by {@code ": "}, or {@code null}.
+     */
+    @Nullable
+    static ByteBuf encodedName(CharSequence name) {
+        return encoded(NAMES, name);
+    }
+
+    /**
+     * Get the encoded form of {@code value} followed by {@code CRLF} if {@code value} is one of the constants of this
+     * table. The indexes of the returned {@link ByteBuf} must not be modified.
+     *
+     * @param value the header value.
+     * @return the encoded form of {@code value} followed by {@code CRLF}, or {@code null}.
+     */
+    @Nullable
+    static ByteBuf encodedValue(CharSequence value) {
+        return encoded(VALUES, value);
+    }
+
+    @Nullable
+    private static CharSequence intern(Entry[][] table, ByteBuf buffer, int index, int length) {
+        if (length < table.length) {
+            for (Entry entry : table[length]) {
+                if (ByteBufUtil.equals(buffer, index, entry.encoded, 0, length)) {
+                    return entry.constant;
+                }
+            }
+        }
+        return null;
+    }
+
+    @Nullable
+    private static ByteBuf encoded(Entry[][] table, CharSequence cs) {
+        final int length = cs.length();
+        if (length < table.length) {
+            // Only identity is checked, comparing the content would be more expensive than encoding it.
+            for (Entry entry : table[length]) {
+                if (entry.constant == cs) {
+                    return entry.encoded;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static Entry[][] byLength(List<Entry> entries) {
+        int maxLength = 0;
+        for (Entry entry : entries) {
+            maxLength = Math.max(maxLength, entry.constant.length());
+        }
+        final Entry[][] table = new Entry[maxLength + 1][];
+        for (int length = 0; length < table.length; ++length) {
+            final List<Entry> sameLength = new ArrayList<>();
+            for (Entry entry : entries) {
+                if (entry.constant.length() == length) {
+                    sameLength.add(entry);
+                }
+            }
+            table[length] = sameLength.toArray(new Entry[0]);
+        }
+        return table;
+    }
+
+    private static List<CharSequence> constants(Class<?> clazz) {
+        final List<CharSequence> constants = new ArrayList<>();
+        for (Field field : clazz.getFields()) {
+            if (isStatic(field.getModifiers()) && field.getType() == CharSequence.class) {
+                try {
+                    constants.add((CharSequence) field.get(null));
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException("Unable to read " + field, e);
+                }
+            }
+        }
+        return constants;
+    }
+
+    private static String capitalize(String name) {
+        final char[] chars = name.toCharArray();
+        boolean startOfWord = true;
+        for (int i = 0; i < chars.length; ++i) {
+            if (startOfWord && chars[i] >= 'a' && chars[i] <= 'z') {
+                chars[i] -= 'a' - 'A';
+            }
+            startOfWord = chars[i] == '-';
+        }
+        return String.valueOf(chars);
+    }
+
+    private static final class Entry {
+        final CharSequence constant;
+        final ByteBuf encoded;
+
+        Entry(CharSequence constant, String separator) {
+            this.constant = constant;
+            this.encoded = unreleasableBuffer(wrappedBuffer((constant + separator).getBytes(US_ASCII)));
+        }
+    }
+}
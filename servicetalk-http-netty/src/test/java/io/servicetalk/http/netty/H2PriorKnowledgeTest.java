@@ -0,0 +1,131 @@
+/*
+ * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.netty;
+
+import io.servicetalk.buffer.api.Buffer;
+import io.servicetalk.concurrent.api.AsyncCloseables;
+import io.servicetalk.concurrent.api.CompositeCloseable;
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.concurrent.internal.ServiceTalkTestTimeout;
+import io.servicetalk.http.api.HttpPayloadChunk;
+import io.servicetalk.http.api.StreamingHttpConnection;
+import io.servicetalk.http.api.StreamingHttpResponse;
+import io.servicetalk.http.api.StreamingHttpService;
+import io.servicetalk.transport.api.ServerContext;
+import io.servicetalk.transport.netty.internal.ExecutionContextRule;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.servicetalk.concurrent.internal.Await.awaitIndefinitelyNonNull;
+import static io.servicetalk.http.api.DefaultHttpHeadersFactory.INSTANCE;
+import static io.servicetalk.http.api.HttpProtocolVersions.HTTP_2_0;
+import static io.servicetalk.http.api.HttpRequestMethods.GET;
+import static io.servicetalk.http.api.HttpRequestMethods.POST;
+import static io.servicetalk.http.api.HttpResponseStatuses.OK;
+import static io.servicetalk.http.api.StreamingHttpConnection.SettingKey.MAX_CONCURRENCY;
+import static io.servicetalk.http.api.StreamingHttpRequests.newRequest;
+import static io.servicetalk.http.api.StreamingHttpResponses.newResponse;
+import static io.servicetalk.transport.netty.internal.ExecutionContextRule.immediate;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.junit.Assert.assertEquals;
+
+public class H2PriorKnowledgeTest {
+    private static final CharSequence X_METHOD = "x-method";
+    private static final CharSequence X_VERSION = "x-version";
+    private static final int MAX_CONCURRENT_STREAMS = 5;
+
+    @Rule
+    public final Timeout timeout = new ServiceTalkTestTimeout();
+    @Rule
+    public final ExecutionContextRule executionContextRule = immediate();
+
+    private final CompositeCloseable closeable = AsyncCloseables.newCompositeCloseable();
+    private StreamingHttpConnection connection;
+
+    @Before
+    public void setUp() throws Exception {
+        // Echoes the request payload, along with the request method and protocol version seen by the service.
+        ServerContext serverContext = closeable.merge(awaitIndefinitelyNonNull(new DefaultHttpServerStarter()
+                .setH2PriorKnowledge(true)
+                .setH2MaxConcurrentStreams(MAX_CONCURRENT_STREAMS)
+                .start(executionContextRule, new InetSocketAddress(0), StreamingHttpService.from((ctx, req) ->
+                        req.getPayloadBody().reduce(() -> ctx.getExecutionContext().getBufferAllocator().newBuffer(),
+                                (buf, chunk) -> buf.writeBytes(chunk.getContent()))
+                                .map(payload -> newResponse(OK, payload, INSTANCE.newHeaders()
+                                        .set(X_METHOD, req.getMethod().getName())
+                                        .set(X_VERSION, req.getVersion().toString())))))));
+
+        connection = closeable.merge(awaitIndefinitelyNonNull(new DefaultHttpConnectionBuilder<>()
+                .setH2PriorKnowledge(true)
+                .buildStreaming(executionContextRule, serverContext.getListenAddress())));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        closeable.close();
+    }
+
+    @Test
+    public void requestWithPayload() throws Exception {
+        final Buffer payload = executionContextRule.getBufferAllocator().fromAscii("hello h2");
+        final StreamingHttpResponse<HttpPayloadChunk> response = awaitIndefinitelyNonNull(
+                connection.request(newRequest(POST, "/echo", payload)));
+
+        assertEquals(OK, response.getStatus());
+        assertEquals(HTTP_2_0, response.getVersion());
+        assertEquals("POST", String.valueOf(response.getHeaders().get(X_METHOD)));
+        assertEquals(HTTP_2_0.toString(), String.valueOf(response.getHeaders().get(X_VERSION)));
+        assertEquals("hello h2", aggregate(response));
+    }
+
+    @Test
+    public void maxConcurrencyFollowsServerSettings() throws Exception {
+        assertEquals(MAX_CONCURRENT_STREAMS,
+                awaitIndefinitelyNonNull(connection.getSettingStream(MAX_CONCURRENCY).first()).intValue());
+    }
+
+    @Test
+    public void concurrentRequestsOnSingleConnection() throws Exception {
+        final List<Single<StreamingHttpResponse<HttpPayloadChunk>>> responses = new ArrayList<>();
+        for (int i = 0; i < MAX_CONCURRENT_STREAMS; ++i) {
+            responses.add(connection.request(newRequest(GET, "/" + i)));
+        }
+        // Subscribe to all requests before consuming any response, so the streams are open at the same time.
+        final List<StreamingHttpResponse<HttpPayloadChunk>> received = new ArrayList<>();
+        for (Single<StreamingHttpResponse<HttpPayloadChunk>> response : responses) {
+            received.add(awaitIndefinitelyNonNull(response));
+        }
+        for (StreamingHttpResponse<HttpPayloadChunk> response : received) {
+            assertEquals(OK, response.getStatus());
+            assertEquals("GET", String.valueOf(response.getHeaders().get(X_METHOD)));
+            assertEquals("", aggregate(response));
+        }
+    }
+
+    private String aggregate(final StreamingHttpResponse<HttpPayloadChunk> response) throws Exception {
+        return awaitIndefinitelyNonNull(response.getPayloadBody().reduce(
+                () -> executionContextRule.getBufferAllocator().newBuffer(),
+                (buf, chunk) -> buf.writeBytes(chunk.getContent()))).toString(US_ASCII);
+    }
+}
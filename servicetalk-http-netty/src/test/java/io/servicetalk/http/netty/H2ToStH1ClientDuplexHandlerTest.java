@@ -0,0 +1,80 @@
+/*
+ * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.netty;
+
+import io.servicetalk.http.api.HttpHeaders;
+
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http2.Http2DataFrame;
+import io.netty.handler.codec.http2.Http2HeadersFrame;
+import org.junit.Test;
+
+import static io.netty.util.ReferenceCountUtil.release;
+import static io.servicetalk.buffer.netty.BufferAllocators.DEFAULT_ALLOCATOR;
+import static io.servicetalk.concurrent.api.DeliberateException.DELIBERATE_EXCEPTION;
+import static io.servicetalk.http.api.DefaultHttpHeadersFactory.INSTANCE;
+import static io.servicetalk.http.api.HttpPayloadChunks.newLastPayloadChunk;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class H2ToStH1ClientDuplexHandlerTest {
+
+    @Test
+    public void lastChunkWithTrailersWritesDataAndTrailers() {
+        final EmbeddedChannel channel = new EmbeddedChannel(new H2ToStH1ClientDuplexHandler(INSTANCE));
+        final ChannelFuture future = channel.writeAndFlush(newLastChunkWithTrailers());
+        assertTrue(future.isSuccess());
+
+        final Object data = channel.readOutbound();
+        assertThat(data, instanceOf(Http2DataFrame.class));
+        assertFalse(((Http2DataFrame) data).isEndStream());
+        release(data);
+        final Object trailers = channel.readOutbound();
+        assertThat(trailers, instanceOf(Http2HeadersFrame.class));
+        assertTrue(((Http2HeadersFrame) trailers).isEndStream());
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void lastChunkWithTrailersFailsIfDataFails() {
+        final EmbeddedChannel channel = new EmbeddedChannel(new ChannelOutboundHandlerAdapter() {
+            @Override
+            public void write(final ChannelHandlerContext ctx, final Object msg, final ChannelPromise promise) {
+                if (msg instanceof Http2DataFrame) {
+                    release(msg);
+                    promise.setFailure(DELIBERATE_EXCEPTION);
+                } else {
+                    ctx.write(msg, promise);
+                }
+            }
+        }, new H2ToStH1ClientDuplexHandler(INSTANCE));
+        final ChannelFuture future = channel.writeAndFlush(newLastChunkWithTrailers());
+        assertThat(future.cause(), is(DELIBERATE_EXCEPTION));
+        channel.finishAndReleaseAll();
+    }
+
+    private static Object newLastChunkWithTrailers() {
+        final HttpHeaders trailers = INSTANCE.newTrailers().set("x-trailer", "value");
+        return newLastPayloadChunk(DEFAULT_ALLOCATOR.fromAscii("data"), trailers);
+    }
+}
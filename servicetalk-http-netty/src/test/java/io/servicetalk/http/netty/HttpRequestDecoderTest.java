@@ -33,14 +33,19 @@ import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map.Entry;
 import java.util.concurrent.ThreadLocalRandom;
 
 import static io.netty.buffer.Unpooled.wrappedBuffer;
 import static io.netty.util.AsciiString.contentEquals;
 import static io.servicetalk.buffer.netty.BufferAllocators.DEFAULT_ALLOCATOR;
+import static io.servicetalk.http.api.HttpHeaderNames.CONNECTION;
 import static io.servicetalk.http.api.HttpHeaderNames.CONTENT_LENGTH;
+import static io.servicetalk.http.api.HttpHeaderNames.CONTENT_TYPE;
 import static io.servicetalk.http.api.HttpHeaderNames.USER_AGENT;
+import static io.servicetalk.http.api.HttpHeaderValues.APPLICATION_JSON;
 import static io.servicetalk.http.api.HttpHeaderValues.KEEP_ALIVE;
+import static io.servicetalk.http.api.HttpHeaderValues.ZERO;
 import static io.servicetalk.http.api.HttpProtocolVersions.HTTP_1_1;
 import static io.servicetalk.http.api.HttpRequestMethods.GET;
 import static java.lang.Integer.toHexString;
@@ -48,6 +53,8 @@ import static java.nio.charset.StandardCharsets.US_ASCII;
 import static org.hamcrest.core.IsInstanceOf.instanceOf;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 public class HttpRequestDecoderTest {
@@ -337,6 +344,36 @@ public class HttpRequestDecoderTest {
         }
     }
 
+    @Test
+    public void wellKnownHeadersAreInterned() {
+        EmbeddedChannel channel = newEmbeddedChannel();
+        byte[] bytes = (
+                "GET /some/path?foo=bar&baz=yyy HTTP/1.1" + "\r\n" +
+                "connection: keep-alive" + "\r\n" +
+                "Content-Type: application/json" + "\r\n" +
+                "X-Unknown: application/json" + "\r\n" +
+                "content-length: 0" + "\r\n" + "\r\n").getBytes(US_ASCII);
+        assertTrue(channel.writeInbound(wrappedBuffer(bytes), wrappedBuffer(bytes)));
+
+        HttpHeaders first = ((HttpRequestMetaData) channel.readInbound()).getHeaders();
+        assertTrue(channel.readInbound() instanceof LastHttpPayloadChunk);
+        HttpHeaders second = ((HttpRequestMetaData) channel.readInbound()).getHeaders();
+        assertTrue(channel.readInbound() instanceof LastHttpPayloadChunk);
+
+        assertEquals(4, first.size());
+        assertSame(CONNECTION, header(first, "connection").getKey());
+        assertSame(KEEP_ALIVE, header(first, "connection").getValue());
+        // The case of names which differ from the constants is preserved.
+        assertNotSame(CONTENT_TYPE, header(first, "Content-Type").getKey());
+        assertSame(header(first, "Content-Type").getKey(), header(second, "Content-Type").getKey());
+        assertSame(APPLICATION_JSON, header(first, "Content-Type").getValue());
+        assertNotSame(header(first, "X-Unknown").getKey(), header(second, "X-Unknown").getKey());
+        assertSame(APPLICATION_JSON, header(first, "X-Unknown").getValue());
+        assertSame(CONTENT_LENGTH, header(first, "content-length").getKey());
+        assertSame(ZERO, header(first, "content-length").getValue());
+        assertFalse(channel.finishAndReleaseAll());
+    }
+
     @Test(expected = DecoderException.class)
     public void invalidHttpVersion() {
         EmbeddedChannel channel = newEmbeddedChannel();
@@ -395,6 +432,15 @@ public class HttpRequestDecoderTest {
         }
     }
 
+    private static Entry<CharSequence, CharSequence> header(HttpHeaders headers, String name) {
+        for (Entry<CharSequence, CharSequence> header : headers) {
+            if (name.equals(header.getKey().toString())) {
+                return header;
+            }
+        }
+        throw new AssertionError("unable to find header name '" + name + "'");
+    }
+
     private static void assertStandardHeaders(HttpHeaders headers) {
         assertSingleHeaderValue(headers, "connecTion", KEEP_ALIVE);
         assertSingleHeaderValue(headers, USER_AGENT, "unit-test");
@@ -50,6 +50,8 @@ import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.channel.embedded.EmbeddedChannel;
 import io.netty.channel.socket.ChannelInputShutdownReadComplete;
 import io.netty.channel.socket.SocketChannel;
+import io.netty.util.ResourceLeakDetector;
+import io.netty.util.ResourceLeakDetector.Level;
 import org.junit.ClassRule;
 import org.junit.Rule;
 import org.junit.Test;
@@ -63,8 +65,11 @@ import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Predicate;
 
+import static io.netty.util.ResourceLeakDetector.Level.PARANOID;
 import static io.servicetalk.buffer.api.EmptyBuffer.EMPTY_BUFFER;
 import static io.servicetalk.buffer.netty.BufferAllocators.DEFAULT_ALLOCATOR;
+import static io.servicetalk.buffer.netty.BufferAllocators.newPooledAllocator;
+import static io.servicetalk.buffer.netty.BufferUtil.toByteBuf;
 import static io.servicetalk.concurrent.api.AsyncCloseables.newCompositeCloseable;
 import static io.servicetalk.concurrent.api.Publisher.empty;
 import static io.servicetalk.concurrent.api.Publisher.from;
@@ -78,6 +83,7 @@ import static io.servicetalk.http.api.HttpHeaderNames.USER_AGENT;
 import static io.servicetalk.http.api.HttpHeaderValues.CHUNKED;
 import static io.servicetalk.http.api.HttpHeaderValues.KEEP_ALIVE;
 import static io.servicetalk.http.api.HttpPayloadChunks.newLastPayloadChunk;
+import static io.servicetalk.http.api.HttpPayloadChunks.newPayloadChunk;
 import static io.servicetalk.http.api.HttpProtocolVersions.HTTP_1_1;
 import static io.servicetalk.http.api.HttpRequestMetaDataFactory.newRequestMetaData;
 import static io.servicetalk.http.api.HttpRequestMethods.GET;
@@ -202,6 +208,80 @@ public class HttpRequestEncoderTest {
         assertFalse(channel.finishAndReleaseAll());
     }
 
+    @Test
+    public void pooledContentOwnedByTransport() {
+        EmbeddedChannel channel = newEmbeddedChannel();
+        Buffer buffer = newPooledAllocator(true).fromAscii("content");
+        HttpRequestMetaData request = newRequestMetaData(HTTP_1_1,
+                GET, "/some/path?foo=bar&baz=yyy", INSTANCE.newHeaders());
+        request.getHeaders().add(TRANSFER_ENCODING, CHUNKED);
+        channel.writeOutbound(request);
+        channel.writeOutbound(newLastPayloadChunk(buffer, EmptyHttpHeaders.INSTANCE));
+        assertTrue(channel.finishAndReleaseAll());
+        assertEquals(0, toByteBuf(buffer).refCnt());
+    }
+
+    @Test
+    public void emptyPooledChunkReleasedOnce() {
+        final Level level = ResourceLeakDetector.getLevel();
+        ResourceLeakDetector.setLevel(PARANOID);
+        try {
+            EmbeddedChannel channel = newEmbeddedChannel();
+            Buffer buffer = newPooledAllocator(true).newBuffer(16);
+            HttpRequestMetaData request = newRequestMetaData(HTTP_1_1,
+                    GET, "/some/path?foo=bar&baz=yyy", INSTANCE.newHeaders());
+            request.getHeaders().add(TRANSFER_ENCODING, CHUNKED);
+            channel.writeOutbound(request);
+            channel.writeOutbound(newPayloadChunk(buffer));
+            channel.writeOutbound(newLastPayloadChunk(EMPTY_BUFFER, EmptyHttpHeaders.INSTANCE));
+            assertEquals(0, toByteBuf(buffer).refCnt());
+            // A released buffer written to the channel would fail to be released again here.
+            assertTrue(channel.finishAndReleaseAll());
+        } finally {
+            ResourceLeakDetector.setLevel(level);
+        }
+    }
+
+    @Test
+    public void emptyPooledLastChunkReleased() {
+        final Level level = ResourceLeakDetector.getLevel();
+        ResourceLeakDetector.setLevel(PARANOID);
+        try {
+            EmbeddedChannel channel = newEmbeddedChannel();
+            Buffer buffer = newPooledAllocator(true).newBuffer(16);
+            HttpRequestMetaData request = newRequestMetaData(HTTP_1_1,
+                    GET, "/some/path?foo=bar&baz=yyy", INSTANCE.newHeaders());
+            request.getHeaders().add(TRANSFER_ENCODING, CHUNKED);
+            channel.writeOutbound(request);
+            channel.writeOutbound(newLastPayloadChunk(buffer, EmptyHttpHeaders.INSTANCE));
+            assertEquals(0, toByteBuf(buffer).refCnt());
+            assertTrue(channel.finishAndReleaseAll());
+        } finally {
+            ResourceLeakDetector.setLevel(level);
+        }
+    }
+
+    @Test
+    public void compositeContentNotMergedIntoHeaders() {
+        EmbeddedChannel channel = newEmbeddedChannel();
+        Buffer content = DEFAULT_ALLOCATOR.newCompositeBuffer()
+                .addBuffer(DEFAULT_ALLOCATOR.fromAscii("hello "))
+                .addBuffer(DEFAULT_ALLOCATOR.fromAscii("world"));
+        HttpRequestMetaData request = newRequestMetaData(HTTP_1_1,
+                GET, "/some/path?foo=bar&baz=yyy", INSTANCE.newHeaders());
+        request.getHeaders().add(CONTENT_LENGTH, valueOf(content.getReadableBytes()));
+        channel.writeOutbound(request, newLastPayloadChunk(content, EmptyHttpHeaders.INSTANCE));
+
+        ByteBuf headers = channel.readOutbound();
+        assertTrue(headers.toString(US_ASCII).endsWith("\r\n\r\n"));
+        headers.release();
+        ByteBuf payload = channel.readOutbound();
+        assertEquals(2, payload.nioBufferCount());
+        assertEquals("hello world", payload.toString(US_ASCII));
+        payload.release();
+        assertFalse(channel.finishAndReleaseAll());
+    }
+
     @Test
     public void chunkedWithTrailers() {
         EmbeddedChannel channel = newEmbeddedChannel();
@@ -18,14 +18,23 @@ package io.servicetalk.http.netty;
 import io.servicetalk.buffer.api.Buffer;
 import io.servicetalk.http.api.DefaultHttpHeadersFactory;
 import io.servicetalk.http.api.EmptyHttpHeaders;
+import io.servicetalk.http.api.FileHttpPayloadChunk;
 import io.servicetalk.http.api.HttpHeaders;
 import io.servicetalk.http.api.HttpResponseMetaData;
 import io.servicetalk.http.api.LastHttpPayloadChunk;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.channel.DefaultFileRegion;
 import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
 import java.util.ArrayDeque;
 import java.util.concurrent.ThreadLocalRandom;
 
@@ -38,6 +47,7 @@ import static io.servicetalk.http.api.HttpHeaderNames.SERVER;
 import static io.servicetalk.http.api.HttpHeaderNames.TRANSFER_ENCODING;
 import static io.servicetalk.http.api.HttpHeaderValues.CHUNKED;
 import static io.servicetalk.http.api.HttpHeaderValues.KEEP_ALIVE;
+import static io.servicetalk.http.api.HttpPayloadChunks.newFilePayloadChunk;
 import static io.servicetalk.http.api.HttpPayloadChunks.newLastPayloadChunk;
 import static io.servicetalk.http.api.HttpProtocolVersions.HTTP_1_1;
 import static io.servicetalk.http.api.HttpResponseMetaDataFactory.newResponseMetaData;
@@ -45,8 +55,10 @@ import static io.servicetalk.http.api.HttpResponseStatuses.OK;
 import static java.lang.Integer.toHexString;
 import static java.lang.String.valueOf;
 import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 public class HttpResponseEncoderTest {
@@ -56,6 +68,9 @@ public class HttpResponseEncoderTest {
         Variable
     }
 
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
     @Test
     public void contentLengthNoTrailers() {
         EmbeddedChannel channel = newEmbeddedChannel();
@@ -244,6 +259,113 @@ public class HttpResponseEncoderTest {
         assertFalse(channel.finishAndReleaseAll());
     }
 
+    @Test
+    public void contentLengthFileRegion() throws IOException {
+        EmbeddedChannel channel = newEmbeddedChannel();
+        FileHttpPayloadChunk fileChunk = newFileChunk(128);
+        HttpResponseMetaData response = newResponseMetaData(HTTP_1_1, OK, INSTANCE.newHeaders());
+        response.getHeaders()
+                .add(CONNECTION, KEEP_ALIVE)
+                .add(SERVER, "unit-test")
+                .add(CONTENT_LENGTH, valueOf(fileChunk.getCount()));
+        channel.writeOutbound(response);
+        channel.writeOutbound(fileChunk);
+        channel.writeOutbound(newLastPayloadChunk(EMPTY_BUFFER, EmptyHttpHeaders.INSTANCE));
+
+        ByteBuf byteBuf = channel.readOutbound();
+        String actualMetaData = byteBuf.toString(US_ASCII);
+        byteBuf.release();
+        assertTrue("unexpected metadata: " + actualMetaData, actualMetaData.contains(CONTENT_LENGTH + ": 128\r\n"));
+        verifyFileRegion(channel.readOutbound(), fileChunk);
+        byteBuf = channel.readOutbound();
+        assertEquals(0, byteBuf.readableBytes());
+        byteBuf.release();
+        assertFalse(channel.finishAndReleaseAll());
+    }
+
+    @Test
+    public void chunkedFileRegion() throws IOException {
+        EmbeddedChannel channel = newEmbeddedChannel();
+        FileHttpPayloadChunk fileChunk = newFileChunk(128);
+        HttpResponseMetaData response = newResponseMetaData(HTTP_1_1, OK, INSTANCE.newHeaders());
+        response.getHeaders()
+                .add(CONNECTION, KEEP_ALIVE)
+                .add(SERVER, "unit-test")
+                .add(TRANSFER_ENCODING, CHUNKED);
+        channel.writeOutbound(response);
+        channel.writeOutbound(fileChunk);
+        channel.writeOutbound(newLastPayloadChunk(EMPTY_BUFFER, EmptyHttpHeaders.INSTANCE));
+
+        ByteBuf byteBuf = channel.readOutbound();
+        byteBuf.release();
+        byteBuf = channel.readOutbound();
+        assertEquals(toHexString(fileChunk.getCount()) + "\r\n", byteBuf.toString(US_ASCII));
+        byteBuf.release();
+        verifyFileRegion(channel.readOutbound(), fileChunk);
+        byteBuf = channel.readOutbound();
+        assertEquals("\r\n", byteBuf.toString(US_ASCII));
+        byteBuf.release();
+        byteBuf = channel.readOutbound();
+        assertEquals("0\r\n\r\n", byteBuf.toString(US_ASCII));
+        byteBuf.release();
+        assertFalse(channel.finishAndReleaseAll());
+    }
+
+    @Test
+    public void fileRegionsOfSameFileShareChannel() throws IOException {
+        EmbeddedChannel channel = newEmbeddedChannel();
+        FileHttpPayloadChunk fileChunk = newFileChunk(128);
+        FileHttpPayloadChunk secondChunk = newFilePayloadChunk(fileChunk.getFile(), 74, 64, DEFAULT_ALLOCATOR);
+        HttpResponseMetaData response = newResponseMetaData(HTTP_1_1, OK, INSTANCE.newHeaders());
+        response.getHeaders()
+                .add(CONNECTION, KEEP_ALIVE)
+                .add(SERVER, "unit-test")
+                .add(CONTENT_LENGTH, valueOf(fileChunk.getCount()));
+        channel.writeOutbound(response);
+        channel.writeOutbound(newFilePayloadChunk(fileChunk.getFile(), 10, 64, DEFAULT_ALLOCATOR));
+        channel.writeOutbound(secondChunk);
+        channel.writeOutbound(newLastPayloadChunk(EMPTY_BUFFER, EmptyHttpHeaders.INSTANCE));
+
+        ByteBuf byteBuf = channel.readOutbound();
+        byteBuf.release();
+        DefaultFileRegion first = channel.readOutbound();
+        DefaultFileRegion second = channel.readOutbound();
+        // Releasing a region must not close the file for the regions which are still pending.
+        first.release();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(64, second.transferTo(Channels.newChannel(out), 0));
+        assertArrayEquals(toByteArray(secondChunk.getContent()), out.toByteArray());
+        second.release();
+        byteBuf = channel.readOutbound();
+        byteBuf.release();
+        assertFalse(channel.finishAndReleaseAll());
+    }
+
+    private static byte[] toByteArray(Buffer buffer) {
+        byte[] bytes = new byte[buffer.getReadableBytes()];
+        buffer.getBytes(buffer.getReaderIndex(), bytes);
+        return bytes;
+    }
+
+    private FileHttpPayloadChunk newFileChunk(int length) throws IOException {
+        byte[] content = new byte[length + 10];
+        ThreadLocalRandom.current().nextBytes(content);
+        File file = folder.newFile();
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(content);
+        }
+        return newFilePayloadChunk(file, 10, length, DEFAULT_ALLOCATOR);
+    }
+
+    private static void verifyFileRegion(Object msg, FileHttpPayloadChunk fileChunk) {
+        assertTrue("unexpected message: " + msg, msg instanceof DefaultFileRegion);
+        DefaultFileRegion region = (DefaultFileRegion) msg;
+        assertEquals(fileChunk.getPosition(), region.position());
+        assertEquals(fileChunk.getCount(), region.count());
+        assertSame(1, region.refCnt());
+        region.release();
+    }
+
     private static void verifyHttpResponse(EmbeddedChannel channel, Buffer buffer, TransferEncoding encoding,
                                           boolean trailers) {
         ByteBuf byteBuf = channel.readOutbound();
@@ -0,0 +1,80 @@
+/*
+ * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.utils;
+
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.concurrent.context.AsyncContext;
+import io.servicetalk.concurrent.context.Deadlines;
+import io.servicetalk.http.api.HttpPayloadChunk;
+import io.servicetalk.http.api.StreamingHttpClient;
+import io.servicetalk.http.api.StreamingHttpRequest;
+import io.servicetalk.http.api.StreamingHttpRequester;
+import io.servicetalk.http.api.StreamingHttpResponse;
+
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiFunction;
+
+import static io.servicetalk.http.api.CharSequences.newAsciiString;
+import static java.lang.Math.max;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * A filter which applies the deadline of the request which is currently processed, as stored in the
+ * {@link AsyncContext} by {@link Deadlines}, to outgoing requests.
+ * <p>
+ * The time left until the deadline is sent in the {@link #TIMEOUT_HEADER} header so that the server can abandon the
+ * request once the deadline passed, see {@link DeadlineHttpServiceFilter}. The response fails with a
+ * {@link TimeoutException} if it is not received before the deadline, and requests are not sent at all if the deadline
+ * has already passed.
+ */
+public final class DeadlineHttpClientFilter
+        implements BiFunction<StreamingHttpRequester, StreamingHttpRequest<HttpPayloadChunk>, Single<StreamingHttpResponse<HttpPayloadChunk>>> {
+    /**
+     * {@code "x-request-timeout-ms"}, the time in milliseconds after which the client abandons the request.
+     */
+    public static final CharSequence TIMEOUT_HEADER = newAsciiString("x-request-timeout-ms");
+
+    private static final DeadlineHttpClientFilter INSTANCE = new DeadlineHttpClientFilter();
+
+    private DeadlineHttpClientFilter() {
+        // singleton
+    }
+
+    /**
+     * Create a new instance.
+     * @param next The next {@link StreamingHttpClient} in the filter chain.
+     * @return {@link StreamingHttpClient} filter that applies the deadline of the current request to outgoing
+     * requests.
+     */
+    public static StreamingHttpClient newDeadlineFilter(StreamingHttpClient next) {
+        return new StreamingHttpClientFunctionFilter(INSTANCE, next);
+    }
+
+    @Override
+    public Single<StreamingHttpResponse<HttpPayloadChunk>> apply(final StreamingHttpRequester requester,
+                                                                 final StreamingHttpRequest<HttpPayloadChunk> request) {
+        // The deadline is read when the response is subscribed, which is when the request is actually sent.
+        return Single.defer(() -> {
+            final long remainingNs = Deadlines.remainingNanos();
+            if (remainingNs != Long.MAX_VALUE && remainingNs > 0) {
+                // Round down to never give the server more time than we will wait for, but do not send 0 which would
+                // make the server reject the request right away.
+                request.getHeaders().set(TIMEOUT_HEADER, Long.toString(max(1, NANOSECONDS.toMillis(remainingNs))));
+            }
+            return Deadlines.withDeadline(requester.request(request), requester.getExecutionContext().getExecutor());
+        });
+    }
+}
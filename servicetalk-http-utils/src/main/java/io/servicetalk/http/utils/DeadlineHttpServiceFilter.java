@@ -0,0 +1,152 @@
+/*
+ * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.utils;
+
+import io.servicetalk.concurrent.api.Completable;
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.concurrent.context.AsyncContext;
+import io.servicetalk.concurrent.context.AsyncContextMap;
+import io.servicetalk.concurrent.context.Deadlines;
+import io.servicetalk.http.api.HttpMetaData;
+import io.servicetalk.http.api.HttpPayloadChunk;
+import io.servicetalk.http.api.StreamingHttpRequest;
+import io.servicetalk.http.api.StreamingHttpResponse;
+import io.servicetalk.http.api.StreamingHttpService;
+import io.servicetalk.transport.api.ConnectionContext;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+
+import static io.servicetalk.concurrent.api.Single.error;
+import static io.servicetalk.concurrent.api.Single.success;
+import static io.servicetalk.http.api.HttpHeaderNames.CONTENT_LENGTH;
+import static io.servicetalk.http.api.HttpHeaderValues.ZERO;
+import static io.servicetalk.http.api.HttpResponseStatuses.GATEWAY_TIMEOUT;
+import static io.servicetalk.http.api.StreamingHttpResponses.newResponse;
+import static io.servicetalk.http.utils.DeadlineHttpClientFilter.TIMEOUT_HEADER;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * A filter which reads the timeout of a request from the {@link DeadlineHttpClientFilter#TIMEOUT_HEADER} header and
+ * stores the resulting deadline in the {@link AsyncContext}, see {@link Deadlines}.
+ * <p>
+ * Clients filtered by {@link DeadlineHttpClientFilter} which are called while handling the request propagate the
+ * remaining time. If the deadline passes before the response is produced, the handling of the request is cancelled
+ * and a {@link io.servicetalk.http.api.HttpResponseStatuses#GATEWAY_TIMEOUT} response is returned. The caller has
+ * given up on the request by then, so cancelling early frees capacity for requests which are still awaited.
+ */
+public final class DeadlineHttpServiceFilter extends StreamingHttpService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DeadlineHttpServiceFilter.class);
+
+    private final long defaultTimeoutMs;
+    private final StreamingHttpService next;
+
+    private DeadlineHttpServiceFilter(long defaultTimeoutMs, StreamingHttpService next) {
+        this.defaultTimeoutMs = defaultTimeoutMs;
+        this.next = requireNonNull(next);
+    }
+
+    /**
+     * Create a new instance which only applies a deadline to requests with a
+     * {@link DeadlineHttpClientFilter#TIMEOUT_HEADER} header.
+     * @param next The next {@link StreamingHttpService} in the filter chain.
+     * @return {@link StreamingHttpService} filter that applies the deadline of each request.
+     */
+    public static StreamingHttpService newDeadlineFilter(StreamingHttpService next) {
+        return new DeadlineHttpServiceFilter(-1, next);
+    }
+
+    /**
+     * Create a new instance.
+     * @param defaultTimeout The timeout of requests without a {@link DeadlineHttpClientFilter#TIMEOUT_HEADER} header.
+     * @param next The next {@link StreamingHttpService} in the filter chain.
+     * @return {@link StreamingHttpService} filter that applies the deadline of each request.
+     */
+    public static StreamingHttpService newDeadlineFilter(Duration defaultTimeout, StreamingHttpService next) {
+        final long defaultTimeoutMs = defaultTimeout.toMillis();
+        if (defaultTimeoutMs <= 0) {
+            throw new IllegalArgumentException("defaultTimeout: " + defaultTimeout + " (expected >= 1ms)");
+        }
+        return new DeadlineHttpServiceFilter(defaultTimeoutMs, next);
+    }
+
+    @Override
+    public Single<StreamingHttpResponse<HttpPayloadChunk>> handle(final ConnectionContext ctx,
+                                                                  final StreamingHttpRequest<HttpPayloadChunk> request) {
+        final long timeoutMs = getTimeoutMs(request);
+        if (timeoutMs < 0) {
+            return next.handle(ctx, request);
+        }
+        if (timeoutMs == 0) {
+            return success(newTimeoutResponse(request));
+        }
+        return new Single<StreamingHttpResponse<HttpPayloadChunk>>() {
+            @Override
+            protected void handleSubscribe(final Subscriber<? super StreamingHttpResponse<HttpPayloadChunk>> subscriber) {
+                // The deadline only applies to this request, so it must not remain in the AsyncContext of this thread
+                // once the request has been handed to the next service.
+                final AsyncContextMap saved = AsyncContext.current();
+                try {
+                    Deadlines.setDeadline(timeoutMs, MILLISECONDS);
+                    Deadlines.withDeadline(next.handle(ctx, request), ctx.getExecutionContext().getExecutor())
+                            .onErrorResume(t -> t instanceof TimeoutException ?
+                                    success(newTimeoutResponse(request)) : error(t))
+                            .subscribe(subscriber);
+                } finally {
+                    AsyncContext.replace(saved);
+                }
+            }
+        };
+    }
+
+    @Override
+    public Completable closeAsync() {
+        return next.closeAsync();
+    }
+
+    @Override
+    public Completable closeAsyncGracefully() {
+        return next.closeAsyncGracefully();
+    }
+
+    private long getTimeoutMs(final HttpMetaData request) {
+        final CharSequence timeout = request.getHeaders().get(TIMEOUT_HEADER);
+        if (timeout == null) {
+            return defaultTimeoutMs;
+        }
+        try {
+            final long timeoutMs = Long.parseLong(timeout.toString());
+            if (timeoutMs >= 0) {
+                return timeoutMs;
+            }
+        } catch (NumberFormatException e) {
+            // Handled below.
+        }
+        LOGGER.debug("Ignoring invalid {} header: {}", TIMEOUT_HEADER, timeout);
+        return defaultTimeoutMs;
+    }
+
+    private static StreamingHttpResponse<HttpPayloadChunk> newTimeoutResponse(final HttpMetaData requestMetaData) {
+        final StreamingHttpResponse<HttpPayloadChunk> response = newResponse(requestMetaData.getVersion(),
+                GATEWAY_TIMEOUT);
+        response.getHeaders().set(CONTENT_LENGTH, ZERO);
+        return response;
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.utils;
+
+import io.servicetalk.concurrent.api.LatencyQuantileEstimator;
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.http.api.HttpPayloadChunk;
+import io.servicetalk.http.api.HttpRequestMethod;
+import io.servicetalk.http.api.StreamingHttpClient;
+import io.servicetalk.http.api.StreamingHttpRequest;
+import io.servicetalk.http.api.StreamingHttpRequester;
+import io.servicetalk.http.api.StreamingHttpResponse;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiFunction;
+import java.util.function.LongSupplier;
+import javax.annotation.Nullable;
+
+import static java.lang.System.nanoTime;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A filter which sends a second copy of an idempotent request if no response was received within a delay, and uses
+ * whichever response arrives first. This reduces tail latency caused by occasionally slow backends.
+ * <p>
+ * Only requests with an {@link HttpRequestMethod.Properties#isIdempotent() idempotent} method are hedged. The payload
+ * body of a hedged request is subscribed to once for each copy, just like when it is retried. The timer uses the
+ * {@link io.servicetalk.concurrent.api.Executor} of the {@link StreamingHttpRequester}.
+ *
+ * @see Single#hedge(LongSupplier, io.servicetalk.concurrent.api.Executor)
+ */
+public final class HedgingHttpClientFilter
+        implements BiFunction<StreamingHttpRequester, StreamingHttpRequest<HttpPayloadChunk>, Single<StreamingHttpResponse<HttpPayloadChunk>>> {
+    private final LongSupplier hedgeDelayNs;
+    @Nullable
+    private final LatencyQuantileEstimator latencyEstimator;
+
+    private HedgingHttpClientFilter(LongSupplier hedgeDelayNs, @Nullable LatencyQuantileEstimator latencyEstimator) {
+        this.hedgeDelayNs = requireNonNull(hedgeDelayNs);
+        this.latencyEstimator = latencyEstimator;
+    }
+
+    /**
+     * Create a new instance which hedges after a constant delay.
+     * @param hedgeDelay The time to wait for a response before sending a second copy of the request.
+     * @param next The next {@link StreamingHttpClient} in the filter chain.
+     * @return {@link StreamingHttpClient} filter that hedges idempotent requests after {@code hedgeDelay}.
+     */
+    public static StreamingHttpClient newHedgingFilter(Duration hedgeDelay, StreamingHttpClient next) {
+        final long hedgeDelayNs = hedgeDelay.toNanos();
+        if (hedgeDelayNs < 0) {
+            throw new IllegalArgumentException("hedgeDelay: " + hedgeDelay + " (expected >= 0)");
+        }
+        return new StreamingHttpClientFunctionFilter(new HedgingHttpClientFilter(() -> hedgeDelayNs, null), next);
+    }
+
+    /**
+     * Create a new instance which hedges after an estimate of a quantile of the response latency, for example the
+     * p95 latency.
+     * @param quantile The quantile of the response latency after which requests are hedged, for example
+     * {@code 0.95}.
+     * @param initialHedgeDelay The delay to use until enough responses have been received to estimate the
+     * {@code quantile}.
+     * @param next The next {@link StreamingHttpClient} in the filter chain.
+     * @return {@link StreamingHttpClient} filter that hedges idempotent requests after the estimated {@code quantile}
+     * of the response latency.
+     */
+    public static StreamingHttpClient newHedgingFilter(double quantile, Duration initialHedgeDelay,
+                                                       StreamingHttpClient next) {
+        final LatencyQuantileEstimator latencyEstimator = new LatencyQuantileEstimator(quantile, initialHedgeDelay);
+        return new StreamingHttpClientFunctionFilter(
+                new HedgingHttpClientFilter(latencyEstimator, latencyEstimator), next);
+    }
+
+    @Override
+    public Single<StreamingHttpResponse<HttpPayloadChunk>> apply(final StreamingHttpRequester requester,
+                                                                 final StreamingHttpRequest<HttpPayloadChunk> request) {
+        if (!request.getMethod().getMethodProperties().isIdempotent()) {
+            return requester.request(request);
+        }
+        final LatencyQuantileEstimator latencyEstimator = this.latencyEstimator;
+        if (latencyEstimator == null) {
+            // Each attempt sends the request again, even if the Single returned by the requester can not be
+            // resubscribed.
+            return hedge(requester, Single.defer(() -> requester.request(request)));
+        }
+        return Single.defer(() -> {
+            // Only the latency of the first attempt is recorded, whether or not it wins. Recording only the winners
+            // would bias the estimate low, because a slow first attempt is cancelled once its hedge wins.
+            final AtomicBoolean firstAttempt = new AtomicBoolean(true);
+            return hedge(requester, Single.defer(() -> {
+                if (!firstAttempt.compareAndSet(true, false)) {
+                    return requester.request(request);
+                }
+                final long startNs = nanoTime();
+                return requester.request(request)
+                        .doBeforeSuccess(response -> latencyEstimator.record(nanoTime() - startNs))
+                        .doBeforeCancel(() -> latencyEstimator.recordAtLeast(nanoTime() - startNs));
+            }));
+        });
+    }
+
+    private Single<StreamingHttpResponse<HttpPayloadChunk>> hedge(
+            final StreamingHttpRequester requester, final Single<StreamingHttpResponse<HttpPayloadChunk>> attempt) {
+        // A response which lost the race must still be drained to release the connection.
+        return attempt.hedge(hedgeDelayNs, requester.getExecutionContext().getExecutor(),
+                response -> response.getPayloadBody().ignoreElements().subscribe());
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.utils.compression;
+
+import io.servicetalk.http.api.HttpHeaderNames;
+
+import javax.annotation.Nullable;
+
+import static io.servicetalk.http.api.HttpHeaderValues.DEFLATE;
+import static io.servicetalk.http.api.HttpHeaderValues.GZIP;
+
+/**
+ * The <a href="https://tools.ietf.org/html/rfc7230#section-4.2">compression codings</a> supported by the content
+ * compression filters.
+ */
+enum ContentCoding {
+    GZIP_CODING(GZIP),
+    DEFLATE_CODING(DEFLATE);
+
+    private final CharSequence name;
+
+    ContentCoding(final CharSequence name) {
+        this.name = name;
+    }
+
+    /**
+     * Get the value to use for the {@link HttpHeaderNames#CONTENT_ENCODING} header.
+     *
+     * @return the value to use for the {@link HttpHeaderNames#CONTENT_ENCODING} header.
+     */
+    CharSequence getName() {
+        return name;
+    }
+
+    /**
+     * Find the {@link ContentCoding} for the value of a {@link HttpHeaderNames#CONTENT_ENCODING} header.
+     *
+     * @param contentEncoding the value of the {@link HttpHeaderNames#CONTENT_ENCODING} header.
+     * @return the matching {@link ContentCoding}, or {@code null} if the header is absent or its value is not supported.
+     */
+    @Nullable
+    static ContentCoding fromContentEncoding(@Nullable final CharSequence contentEncoding) {
+        if (contentEncoding == null) {
+            return null;
+        }
+        final String coding = contentEncoding.toString().trim();
+        // x-gzip is equivalent to gzip, see https://tools.ietf.org/html/rfc7230#section-4.2.3
+        if ("gzip".equalsIgnoreCase(coding) || "x-gzip".equalsIgnoreCase(coding)) {
+            return GZIP_CODING;
+        }
+        if ("deflate".equalsIgnoreCase(coding)) {
+            return DEFLATE_CODING;
+        }
+        return null;
+    }
+
+    /**
+     * Select the preferred {@link ContentCoding} acceptable according to a {@link HttpHeaderNames#ACCEPT_ENCODING}
+     * header, see <a href="https://tools.ietf.org/html/rfc7231#section-5.3.4">RFC7231</a>.
+     *
+     * @param acceptEncoding the value of the {@link HttpHeaderNames#ACCEPT_ENCODING} header.
+     * @return the {@link ContentCoding} with the highest quality value, preferring {@link #GZIP_CODING} on ties, or
+     * {@code null} if none is acceptable.
+     */
+    @Nullable
+    static ContentCoding negotiate(@Nullable final CharSequence acceptEncoding) {
+        if (acceptEncoding == null) {
+            return null;
+        }
+        float gzipQ = -1;
+        float deflateQ = -1;
+        float wildcardQ = -1;
+        for (String element : acceptEncoding.toString().split(",")) {
+            final int semicolonIdx = element.indexOf(';');
+            final String coding = (semicolonIdx < 0 ? element : element.substring(0, semicolonIdx)).trim();
+            final float q = semicolonIdx < 0 ? 1 : parseQuality(element.substring(semicolonIdx + 1));
+            if ("gzip".equalsIgnoreCase(coding) || "x-gzip".equalsIgnoreCase(coding)) {
+                gzipQ = q;
+            } else if ("deflate".equalsIgnoreCase(coding)) {
+                deflateQ = q;
+            } else if ("*".equals(coding)) {
+                wildcardQ = q;
+            }
+        }
+        // Codings which are not listed explicitly are covered by the wildcard.
+        if (gzipQ < 0) {
+            gzipQ = wildcardQ;
+        }
+        if (deflateQ < 0) {
+            deflateQ = wildcardQ;
+        }
+        if (gzipQ <= 0 && deflateQ <= 0) {
+            return null;
+        }
+        return gzipQ >= deflateQ ? GZIP_CODING : DEFLATE_CODING;
+    }
+
+    private static float parseQuality(final String parameters) {
+        final String parameter = parameters.trim();
+        if (parameter.length() < 2 || Character.toLowerCase(parameter.charAt(0)) != 'q' || parameter.charAt(1) != '=') {
+            return 1;
+        }
+        try {
+            return Float.parseFloat(parameter.substring(2).trim());
+        } catch (NumberFormatException e) {
+            // Be lenient and treat an invalid weight as "not acceptable".
+            return 0;
+        }
+    }
+}
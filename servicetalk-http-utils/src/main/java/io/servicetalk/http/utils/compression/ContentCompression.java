@@ -0,0 +1,140 @@
+/*
+ * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.utils.compression;
+
+import io.servicetalk.buffer.api.BufferAllocator;
+import io.servicetalk.concurrent.api.Publisher;
+import io.servicetalk.http.api.HttpHeaders;
+import io.servicetalk.http.api.HttpMetaData;
+import io.servicetalk.http.api.HttpPayloadChunk;
+
+import java.util.List;
+import javax.annotation.Nullable;
+
+import static io.servicetalk.concurrent.api.Publisher.defer;
+import static io.servicetalk.http.api.HttpHeaderNames.CONTENT_ENCODING;
+import static io.servicetalk.http.api.HttpHeaderNames.CONTENT_LENGTH;
+import static io.servicetalk.http.api.HttpHeaderNames.CONTENT_TYPE;
+import static java.util.Locale.ENGLISH;
+
+/**
+ * Settings and payload body transformations shared by the content compression filters.
+ */
+final class ContentCompression {
+    private final ZlibPool pool;
+    private final int minCompressionSize;
+    private final String[] compressibleContentTypes;
+    private final int maxDecompressedChunkSize;
+    private final long maxDecompressedSize;
+
+    ContentCompression(final int compressionLevel, final int maxPooledCodecs, final int minCompressionSize,
+                       final List<String> compressibleContentTypes, final int maxDecompressedChunkSize,
+                       final long maxDecompressedSize) {
+        pool = new ZlibPool(compressionLevel, maxPooledCodecs);
+        this.minCompressionSize = minCompressionSize;
+        this.maxDecompressedChunkSize = maxDecompressedChunkSize;
+        this.maxDecompressedSize = maxDecompressedSize;
+        this.compressibleContentTypes = compressibleContentTypes.stream()
+                .map(contentType -> contentType.trim().toLowerCase(ENGLISH))
+                .toArray(String[]::new);
+    }
+
+    /**
+     * Determine if the payload body of a request or response should be compressed. The payload body must not already
+     * be encoded, must have an allowed {@link io.servicetalk.http.api.HttpHeaderNames#CONTENT_TYPE content-type},
+     * and must not be known to be smaller than the minimum size.
+     * <p>
+     * The size of streaming payload bodies without a {@link io.servicetalk.http.api.HttpHeaderNames#CONTENT_LENGTH
+     * content-length} is unknown when the headers are sent, so such bodies are always compressed.
+     *
+     * @param metaData the {@link HttpMetaData} of the request or response.
+     * @return {@code true} if the payload body should be compressed.
+     */
+    boolean isCompressible(final HttpMetaData metaData) {
+        final HttpHeaders headers = metaData.getHeaders();
+        if (headers.contains(CONTENT_ENCODING)) {
+            return false;
+        }
+        final CharSequence contentLength = headers.get(CONTENT_LENGTH);
+        if (contentLength != null) {
+            try {
+                if (Long.parseLong(contentLength.toString().trim()) < minCompressionSize) {
+                    return false;
+                }
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+        return isCompressibleContentType(headers.get(CONTENT_TYPE));
+    }
+
+    private boolean isCompressibleContentType(@Nullable final CharSequence contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        final String value = contentType.toString();
+        final int semicolonIdx = value.indexOf(';');
+        final String mediaType = (semicolonIdx < 0 ? value : value.substring(0, semicolonIdx)).trim();
+        for (String allowed : compressibleContentTypes) {
+            if (allowed.endsWith("*") ?
+                    mediaType.regionMatches(true, 0, allowed, 0, allowed.length() - 1) :
+                    mediaType.equalsIgnoreCase(allowed)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Compress a payload body.
+     *
+     * @param payload the payload body to compress.
+     * @param coding the {@link ContentCoding} to use.
+     * @param allocator the {@link BufferAllocator} for the compressed content.
+     * @return the compressed payload body.
+     */
+    Publisher<HttpPayloadChunk> encode(final Publisher<HttpPayloadChunk> payload, final ContentCoding coding,
+                                       final BufferAllocator allocator) {
+        return defer(() -> {
+            final ContentEncoder encoder = new ContentEncoder(coding, pool, allocator);
+            return payload.map(encoder::encode)
+                    .concatWith(defer(encoder::finish))
+                    .doBeforeError(cause -> encoder.abort())
+                    .doBeforeCancel(encoder::abort);
+        });
+    }
+
+    /**
+     * Decompress a payload body. The returned payload body fails with a {@link DecompressedContentTooLargeException}
+     * if a decompressed chunk or the whole decompressed payload body exceeds the configured maximum size.
+     *
+     * @param payload the payload body to decompress.
+     * @param coding the {@link ContentCoding} the payload body is compressed with.
+     * @param allocator the {@link BufferAllocator} for the decompressed content.
+     * @return the decompressed payload body.
+     */
+    Publisher<HttpPayloadChunk> decode(final Publisher<HttpPayloadChunk> payload, final ContentCoding coding,
+                                       final BufferAllocator allocator) {
+        return defer(() -> {
+            final ContentDecoder decoder = new ContentDecoder(coding, pool, allocator, maxDecompressedChunkSize,
+                    maxDecompressedSize);
+            return payload.map(decoder::decode)
+                    .concatWith(defer(decoder::finish))
+                    .doBeforeError(cause -> decoder.abort())
+                    .doBeforeCancel(decoder::abort);
+        });
+    }
+}
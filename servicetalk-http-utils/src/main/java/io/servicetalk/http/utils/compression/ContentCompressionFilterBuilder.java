@@ -0,0 +1,350 @@
+/*
+ * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.utils.compression;
+
+import io.servicetalk.buffer.api.BufferAllocator;
+import io.servicetalk.concurrent.api.Completable;
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.http.api.HttpHeaderNames;
+import io.servicetalk.http.api.HttpHeaders;
+import io.servicetalk.http.api.HttpPayloadChunk;
+import io.servicetalk.http.api.StreamingHttpClient;
+import io.servicetalk.http.api.StreamingHttpConnection;
+import io.servicetalk.http.api.StreamingHttpRequest;
+import io.servicetalk.http.api.StreamingHttpRequester;
+import io.servicetalk.http.api.StreamingHttpResponse;
+import io.servicetalk.http.api.StreamingHttpService;
+import io.servicetalk.http.utils.StreamingHttpClientFunctionFilter;
+import io.servicetalk.http.utils.StreamingHttpConnectionFunctionFilter;
+import io.servicetalk.transport.api.ConnectionContext;
+
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.zip.Deflater;
+
+import static io.servicetalk.concurrent.api.Single.error;
+import static io.servicetalk.concurrent.api.Single.success;
+import static io.servicetalk.http.api.CharSequences.newAsciiString;
+import static io.servicetalk.http.api.HttpHeaderNames.ACCEPT_ENCODING;
+import static io.servicetalk.http.api.HttpHeaderNames.CONTENT_ENCODING;
+import static io.servicetalk.http.api.HttpHeaderNames.CONTENT_LENGTH;
+import static io.servicetalk.http.api.HttpHeaderNames.VARY;
+import static io.servicetalk.http.api.HttpRequestMethods.HEAD;
+import static io.servicetalk.http.api.HttpResponseStatuses.NOT_MODIFIED;
+import static io.servicetalk.http.api.HttpResponseStatuses.NO_CONTENT;
+import static io.servicetalk.http.api.HttpResponseStatuses.REQUEST_ENTITY_TOO_LARGE;
+import static io.servicetalk.http.api.StreamingHttpResponses.newResponse;
+import static io.servicetalk.http.utils.compression.ContentCoding.GZIP_CODING;
+import static io.servicetalk.http.utils.compression.ContentCoding.fromContentEncoding;
+import static io.servicetalk.http.utils.compression.ContentCoding.negotiate;
+import static java.util.Arrays.asList;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A builder for filters which transparently compress and decompress payload bodies using the {@code gzip} and
+ * {@code deflate} <a href="https://tools.ietf.org/html/rfc7231#section-3.1.2.1">content codings</a>.
+ * <p>
+ * A {@link StreamingHttpService} filter decompresses request payload bodies based on their
+ * {@link HttpHeaderNames#CONTENT_ENCODING content-encoding}, and compresses response payload bodies with the coding
+ * preferred by the {@link HttpHeaderNames#ACCEPT_ENCODING accept-encoding} of the request. If the decompressed request
+ * payload body exceeds the {@link #setMaxDecompressedSize(long) maximum size} before the service responds, a
+ * {@code 413 Request Entity Too Large} response is returned.
+ * <p>
+ * A {@link StreamingHttpClient} or {@link StreamingHttpConnection} filter advertises the supported codings on requests
+ * which don't specify an {@link HttpHeaderNames#ACCEPT_ENCODING accept-encoding} and decompresses the response payload
+ * bodies of those requests. Requests which specify an {@link HttpHeaderNames#ACCEPT_ENCODING accept-encoding} are
+ * expected to handle the encoded response themselves. The filter optionally compresses request payload bodies.
+ * <p>
+ * Payload bodies are processed chunk by chunk without aggregation, and only if their
+ * {@link HttpHeaderNames#CONTENT_TYPE content-type} is {@link #setCompressibleContentTypes(String...) compressible}
+ * and their {@link HttpHeaderNames#CONTENT_LENGTH content-length}, if known, is at least the
+ * {@link #setMinCompressionSize(int) minimum size}. The native zlib resources are pooled per built filter.
+ */
+public final class ContentCompressionFilterBuilder {
+
+    private static final CharSequence SUPPORTED_CODINGS = newAsciiString("gzip, deflate");
+
+    private int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+    private int minCompressionSize = 1024;
+    private int maxPooledCodecs = 2 * Runtime.getRuntime().availableProcessors();
+    private List<String> compressibleContentTypes = asList("text/*", "application/json", "application/javascript",
+            "application/xml", "application/x-www-form-urlencoded");
+    private boolean compressRequests;
+    private int maxDecompressedChunkSize = 16 * 1024 * 1024;
+    private long maxDecompressedSize = 16 * 1024 * 1024;
+
+    private ContentCompressionFilterBuilder() {
+        // Use the static factory method
+    }
+
+    /**
+     * Creates a new builder with default settings.
+     *
+     * @return a new {@link ContentCompressionFilterBuilder}
+     */
+    public static ContentCompressionFilterBuilder newContentCompressionFilterBuilder() {
+        return new ContentCompressionFilterBuilder();
+    }
+
+    /**
+     * Sets the compression level, from {@code 0} (no compression) to {@code 9} (best compression), or
+     * {@link Deflater#DEFAULT_COMPRESSION} for zlib's default trade-off between speed and size.
+     *
+     * @param compressionLevel the compression level
+     * @return {@code this}
+     */
+    public ContentCompressionFilterBuilder setCompressionLevel(final int compressionLevel) {
+        if (compressionLevel < Deflater.DEFAULT_COMPRESSION || compressionLevel > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException("compressionLevel: " + compressionLevel + " (expected: -1-9)");
+        }
+        this.compressionLevel = compressionLevel;
+        return this;
+    }
+
+    /**
+     * Sets the minimum {@link HttpHeaderNames#CONTENT_LENGTH content-length} of payload bodies to compress. Small
+     * payload bodies hardly compress and aren't worth the CPU cost. Payload bodies without a
+     * {@link HttpHeaderNames#CONTENT_LENGTH content-length} are always compressed.
+     *
+     * @param minCompressionSize the minimum size in bytes
+     * @return {@code this}
+     */
+    public ContentCompressionFilterBuilder setMinCompressionSize(final int minCompressionSize) {
+        if (minCompressionSize < 0) {
+            throw new IllegalArgumentException("minCompressionSize must be >= 0");
+        }
+        this.minCompressionSize = minCompressionSize;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of idle compressors and decompressors kept for reuse, each.
+     *
+     * @param maxPooledCodecs the maximum number of pooled instances
+     * @return {@code this}
+     */
+    public ContentCompressionFilterBuilder setMaxPooledCodecs(final int maxPooledCodecs) {
+        if (maxPooledCodecs <= 0) {
+            throw new IllegalArgumentException("maxPooledCodecs must be > 0");
+        }
+        this.maxPooledCodecs = maxPooledCodecs;
+        return this;
+    }
+
+    /**
+     * Sets the media types of payload bodies which are compressed. A trailing {@code *} matches any suffix, for
+     * example {@code text/*}. Parameters of the {@link HttpHeaderNames#CONTENT_TYPE content-type} are ignored.
+     *
+     * @param compressibleContentTypes the media types to compress
+     * @return {@code this}
+     */
+    public ContentCompressionFilterBuilder setCompressibleContentTypes(final String... compressibleContentTypes) {
+        this.compressibleContentTypes = asList(compressibleContentTypes.clone());
+        return this;
+    }
+
+    /**
+     * Sets whether client filters compress request payload bodies with {@code gzip}. This is disabled by default, as
+     * a client can't know whether the server supports compressed requests.
+     *
+     * @param compressRequests {@code true} to compress request payload bodies
+     * @return {@code this}
+     */
+    public ContentCompressionFilterBuilder setCompressRequests(final boolean compressRequests) {
+        this.compressRequests = compressRequests;
+        return this;
+    }
+
+    /**
+     * Sets the maximum size of a single decompressed {@link HttpPayloadChunk}. Decompression fails with a
+     * {@link DecompressedContentTooLargeException} once it is exceeded.
+     *
+     * @param maxDecompressedChunkSize the maximum size in bytes
+     * @return {@code this}
+     */
+    public ContentCompressionFilterBuilder setMaxDecompressedChunkSize(final int maxDecompressedChunkSize) {
+        if (maxDecompressedChunkSize <= 0) {
+            throw new IllegalArgumentException("maxDecompressedChunkSize must be > 0");
+        }
+        this.maxDecompressedChunkSize = maxDecompressedChunkSize;
+        return this;
+    }
+
+    /**
+     * Sets the maximum size of a decompressed payload body. Decompression fails with a
+     * {@link DecompressedContentTooLargeException} once it is exceeded, which protects against payload bodies with a
+     * high compression ratio.
+     *
+     * @param maxDecompressedSize the maximum size in bytes
+     * @return {@code this}
+     */
+    public ContentCompressionFilterBuilder setMaxDecompressedSize(final long maxDecompressedSize) {
+        if (maxDecompressedSize <= 0) {
+            throw new IllegalArgumentException("maxDecompressedSize must be > 0");
+        }
+        this.maxDecompressedSize = maxDecompressedSize;
+        return this;
+    }
+
+    /**
+     * Builds a new content compression filtering {@link StreamingHttpService}.
+     *
+     * @param next the filtered {@link StreamingHttpService}. The returned {@link StreamingHttpService} manages the
+     * lifecycle of the passed one, ensuring it is closed when the {@link StreamingHttpService} is closed
+     * @return a new {@link StreamingHttpService}
+     */
+    public StreamingHttpService build(final StreamingHttpService next) {
+        return new ContentCompressionStreamingHttpService(newContentCompression(), requireNonNull(next));
+    }
+
+    /**
+     * Builds a new content compression filtering {@link StreamingHttpClient}.
+     *
+     * @param next the next {@link StreamingHttpClient} in the filter chain
+     * @return a new {@link StreamingHttpClient}
+     */
+    public StreamingHttpClient build(final StreamingHttpClient next) {
+        return new StreamingHttpClientFunctionFilter(
+                new ContentCompressionRequesterFilter(newContentCompression(), compressRequests), next);
+    }
+
+    /**
+     * Builds a new content compression filtering {@link StreamingHttpConnection}.
+     *
+     * @param next the next {@link StreamingHttpConnection} in the filter chain
+     * @return a new {@link StreamingHttpConnection}
+     */
+    public StreamingHttpConnection build(final StreamingHttpConnection next) {
+        return new StreamingHttpConnectionFunctionFilter(
+                new ContentCompressionRequesterFilter(newContentCompression(), compressRequests), next);
+    }
+
+    private ContentCompression newContentCompression() {
+        return new ContentCompression(compressionLevel, maxPooledCodecs, minCompressionSize, compressibleContentTypes,
+                maxDecompressedChunkSize, maxDecompressedSize);
+    }
+
+    private static final class ContentCompressionStreamingHttpService extends StreamingHttpService {
+        private final ContentCompression compression;
+        private final StreamingHttpService next;
+
+        ContentCompressionStreamingHttpService(final ContentCompression compression,
+                                               final StreamingHttpService next) {
+            this.compression = compression;
+            this.next = next;
+        }
+
+        @Override
+        public Single<StreamingHttpResponse<HttpPayloadChunk>> handle(final ConnectionContext ctx,
+                                                                      final StreamingHttpRequest<HttpPayloadChunk> request) {
+            final BufferAllocator allocator = ctx.getExecutionContext().getBufferAllocator();
+            final HttpHeaders requestHeaders = request.getHeaders();
+            final ContentCoding requestCoding = fromContentEncoding(requestHeaders.get(CONTENT_ENCODING));
+            final StreamingHttpRequest<HttpPayloadChunk> decodedRequest;
+            if (requestCoding == null) {
+                decodedRequest = request;
+            } else {
+                requestHeaders.remove(CONTENT_ENCODING);
+                requestHeaders.remove(CONTENT_LENGTH);
+                decodedRequest = request.transformPayloadBody(
+                        payload -> compression.decode(payload, requestCoding, allocator));
+            }
+
+            final ContentCoding responseCoding = request.getMethod() == HEAD ? null :
+                    negotiate(requestHeaders.get(ACCEPT_ENCODING));
+            Single<StreamingHttpResponse<HttpPayloadChunk>> response = next.handle(ctx, decodedRequest);
+            if (requestCoding != null) {
+                response = response.onErrorResume(cause -> cause instanceof DecompressedContentTooLargeException ?
+                        success(newResponse(REQUEST_ENTITY_TOO_LARGE)) : error(cause));
+            }
+            if (responseCoding == null) {
+                return response;
+            }
+            return response.map(resp -> {
+                if (resp.getStatus() == NO_CONTENT || resp.getStatus() == NOT_MODIFIED ||
+                        !compression.isCompressible(resp)) {
+                    return resp;
+                }
+                final HttpHeaders headers = resp.getHeaders();
+                headers.set(CONTENT_ENCODING, responseCoding.getName());
+                headers.remove(CONTENT_LENGTH);
+                // The representation now depends on the request, see https://tools.ietf.org/html/rfc7231#section-7.1.4
+                headers.add(VARY, ACCEPT_ENCODING);
+                return resp.transformPayloadBody(payload -> compression.encode(payload, responseCoding, allocator));
+            });
+        }
+
+        @Override
+        public Completable closeAsync() {
+            return next.closeAsync();
+        }
+
+        @Override
+        public Completable closeAsyncGracefully() {
+            return next.closeAsyncGracefully();
+        }
+    }
+
+    private static final class ContentCompressionRequesterFilter implements BiFunction<StreamingHttpRequester,
+            StreamingHttpRequest<HttpPayloadChunk>, Single<StreamingHttpResponse<HttpPayloadChunk>>> {
+        private final ContentCompression compression;
+        private final boolean compressRequests;
+
+        ContentCompressionRequesterFilter(final ContentCompression compression, final boolean compressRequests) {
+            this.compression = compression;
+            this.compressRequests = compressRequests;
+        }
+
+        @Override
+        public Single<StreamingHttpResponse<HttpPayloadChunk>> apply(final StreamingHttpRequester requester,
+                                                                     final StreamingHttpRequest<HttpPayloadChunk> request) {
+            final BufferAllocator allocator = requester.getExecutionContext().getBufferAllocator();
+            final HttpHeaders requestHeaders = request.getHeaders();
+            // If the user negotiates the content coding, the user also handles the encoded response.
+            final boolean decodeResponse = !requestHeaders.contains(ACCEPT_ENCODING);
+            if (decodeResponse) {
+                requestHeaders.set(ACCEPT_ENCODING, SUPPORTED_CODINGS);
+            }
+            final StreamingHttpRequest<HttpPayloadChunk> encodedRequest;
+            if (compressRequests && compression.isCompressible(request)) {
+                requestHeaders.set(CONTENT_ENCODING, GZIP_CODING.getName());
+                requestHeaders.remove(CONTENT_LENGTH);
+                encodedRequest = request.transformPayloadBody(
+                        payload -> compression.encode(payload, GZIP_CODING, allocator));
+            } else {
+                encodedRequest = request;
+            }
+
+            final Single<StreamingHttpResponse<HttpPayloadChunk>> response = requester.request(encodedRequest);
+            if (!decodeResponse) {
+                return response;
+            }
+            final boolean headRequest = request.getMethod() == HEAD;
+            return response.map(resp -> {
+                final HttpHeaders headers = resp.getHeaders();
+                final ContentCoding coding = fromContentEncoding(headers.get(CONTENT_ENCODING));
+                // Responses without a payload body still describe the content-encoding of the representation.
+                if (coding == null || headRequest || resp.getStatus() == NO_CONTENT ||
+                        resp.getStatus() == NOT_MODIFIED) {
+                    return resp;
+                }
+                headers.remove(CONTENT_ENCODING);
+                headers.remove(CONTENT_LENGTH);
+                return resp.transformPayloadBody(payload -> compression.decode(payload, coding, allocator));
+            });
+        }
+    }
+}
@@ -0,0 +1,361 @@
+/*
+ * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.utils.compression;
+
+import io.servicetalk.buffer.api.Buffer;
+import io.servicetalk.buffer.api.BufferAllocator;
+import io.servicetalk.concurrent.api.Publisher;
+import io.servicetalk.http.api.HttpPayloadChunk;
+import io.servicetalk.http.api.LastHttpPayloadChunk;
+
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Checksum;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import javax.annotation.Nullable;
+
+import static io.servicetalk.concurrent.api.Publisher.empty;
+import static io.servicetalk.concurrent.api.Publisher.error;
+import static io.servicetalk.http.api.HttpPayloadChunks.newLastPayloadChunk;
+import static io.servicetalk.http.api.HttpPayloadChunks.newPayloadChunk;
+import static io.servicetalk.http.utils.compression.ContentCoding.GZIP_CODING;
+
+/**
+ * Decompresses the {@link HttpPayloadChunk}s of a single payload body.
+ * <p>
+ * Headers and trailers of the compressed stream may be split across chunks in arbitrary ways, only those bytes are
+ * buffered until complete. {@code deflate} content is accepted both with and without the zlib wrapper, as some
+ * implementations incorrectly send raw deflate data. Chunks are processed sequentially, only {@link #abort()} can be
+ * called concurrently.
+ * <p>
+ * The decompressed size of each chunk and of the whole payload body is bounded, as a small compressed payload body
+ * can otherwise expand to an arbitrary amount of memory.
+ */
+final class ContentDecoder {
+    private static final byte STATE_HEADER = 0;
+    private static final byte STATE_BODY = 1;
+    private static final byte STATE_TRAILER = 2;
+    private static final byte STATE_DONE = 3;
+    private static final int GZIP_FIXED_HEADER_LENGTH = 10;
+    private static final int GZIP_TRAILER_LENGTH = 8;
+    private static final int ZLIB_HEADER_LENGTH = 2;
+    private static final int ZLIB_TRAILER_LENGTH = 4;
+    // FLG bits, see https://tools.ietf.org/html/rfc1952#section-2.3.1
+    private static final int FHCRC = 0x02;
+    private static final int FEXTRA = 0x04;
+    private static final int FNAME = 0x08;
+    private static final int FCOMMENT = 0x10;
+    private static final int MIN_WRITABLE_BYTES = 64;
+    private static final AtomicReferenceFieldUpdater<ContentDecoder, Inflater> inflaterUpdater =
+            AtomicReferenceFieldUpdater.newUpdater(ContentDecoder.class, Inflater.class, "inflater");
+
+    private final ContentCoding coding;
+    private final ZlibPool pool;
+    private final BufferAllocator allocator;
+    private final Checksum checksum;
+    private final int maxChunkSize;
+    private final long maxSize;
+    private long decompressedSize;
+    @Nullable
+    private volatile Inflater inflater;
+    @Nullable
+    private Buffer pending;
+    private byte state;
+    private boolean raw;
+    private boolean finished;
+
+    ContentDecoder(final ContentCoding coding, final ZlibPool pool, final BufferAllocator allocator,
+                   final int maxChunkSize, final long maxSize) {
+        this.coding = coding;
+        this.pool = pool;
+        this.allocator = allocator;
+        this.maxChunkSize = maxChunkSize;
+        this.maxSize = maxSize;
+        checksum = coding == GZIP_CODING ? new CRC32() : new Adler32();
+        inflater = pool.borrowInflater();
+    }
+
+    /**
+     * Decompress the content of a chunk, verifying the compressed stream is complete if it is a
+     * {@link LastHttpPayloadChunk}.
+     *
+     * @param chunk the chunk to decompress.
+     * @return the decompressed chunk.
+     */
+    HttpPayloadChunk decode(final HttpPayloadChunk chunk) {
+        final Buffer content = chunk.getContent();
+        final Buffer out = allocator.newBuffer((int) Math.min((content.getReadableBytes() << 1) + MIN_WRITABLE_BYTES,
+                maxChunkSize + 1L), false);
+        process(content.duplicate(), out);
+        if (chunk instanceof LastHttpPayloadChunk) {
+            complete();
+            return newLastPayloadChunk(out, ((LastHttpPayloadChunk) chunk).getTrailers());
+        }
+        return newPayloadChunk(out);
+    }
+
+    /**
+     * Verify the compressed stream is complete if the payload body did not end with a {@link LastHttpPayloadChunk}.
+     *
+     * @return an empty {@link Publisher}, or a failed one if the compressed stream is incomplete.
+     */
+    Publisher<HttpPayloadChunk> finish() {
+        if (!finished) {
+            try {
+                complete();
+            } catch (IllegalStateException e) {
+                return error(e);
+            }
+        }
+        return empty();
+    }
+
+    /**
+     * Release resources if the payload body terminates before the compressed stream is complete.
+     */
+    void abort() {
+        final Inflater inflater = inflaterUpdater.getAndSet(this, null);
+        if (inflater != null) {
+            // It may be in use concurrently, so it can't be reused.
+            inflater.end();
+        }
+    }
+
+    private void complete() {
+        finished = true;
+        if (state != STATE_DONE) {
+            throw new IllegalStateException("Truncated " + coding.getName() + " content");
+        }
+        final Inflater inflater = this.inflater;
+        if (inflater != null && inflaterUpdater.compareAndSet(this, inflater, null)) {
+            pool.release(inflater);
+        }
+    }
+
+    private void process(final Buffer in, final Buffer out) {
+        while (in.getReadableBytes() > 0) {
+            switch (state) {
+                case STATE_HEADER: {
+                    final Buffer header = accumulate(in);
+                    final int headerLength = headerLength(header);
+                    if (headerLength < 0) {
+                        holdPending(header);
+                        return;
+                    }
+                    header.skipBytes(headerLength);
+                    state = STATE_BODY;
+                    if (header != in) {
+                        pending = null;
+                        process(header, out);
+                    }
+                    break;
+                }
+                case STATE_BODY:
+                    inflate(in, out);
+                    break;
+                case STATE_TRAILER: {
+                    final Buffer trailer = accumulate(in);
+                    if (trailer.getReadableBytes() < trailerLength()) {
+                        holdPending(trailer);
+                        return;
+                    }
+                    verifyTrailer(trailer);
+                    state = STATE_DONE;
+                    if (trailer != in) {
+                        pending = null;
+                        process(trailer, out);
+                    }
+                    break;
+                }
+                default:
+                    if (coding != GZIP_CODING) {
+                        // Be lenient and ignore trailing garbage.
+                        in.skipBytes(in.getReadableBytes());
+                        return;
+                    }
+                    // Multiple members may be concatenated, see https://tools.ietf.org/html/rfc1952#section-2.2
+                    state = STATE_HEADER;
+                    break;
+            }
+        }
+    }
+
+    private Buffer accumulate(final Buffer in) {
+        final Buffer pending = this.pending;
+        if (pending == null) {
+            return in;
+        }
+        transfer(in, pending);
+        return pending;
+    }
+
+    private void holdPending(final Buffer buffer) {
+        if (pending == null) {
+            final Buffer pending = allocator.newBuffer(buffer.getReadableBytes() + MIN_WRITABLE_BYTES, false);
+            transfer(buffer, pending);
+            this.pending = pending;
+        }
+    }
+
+    private static void transfer(final Buffer src, final Buffer dst) {
+        final int readable = src.getReadableBytes();
+        dst.writeBytes(src, src.getReaderIndex(), readable);
+        src.skipBytes(readable);
+    }
+
+    private int headerLength(final Buffer buf) {
+        final int start = buf.getReaderIndex();
+        final int end = buf.getWriterIndex();
+        if (coding != GZIP_CODING) {
+            if (end - start < ZLIB_HEADER_LENGTH) {
+                return -1;
+            }
+            // See https://tools.ietf.org/html/rfc1950#section-2.2
+            final int cmf = buf.getUnsignedByte(start);
+            final int flg = buf.getUnsignedByte(start + 1);
+            if ((cmf & 0x0f) != 8 || ((cmf << 8) | flg) % 31 != 0) {
+                raw = true;
+                return 0;
+            }
+            if ((flg & 0x20) != 0) {
+                throw new IllegalStateException("Preset dictionaries are not supported");
+            }
+            return ZLIB_HEADER_LENGTH;
+        }
+        if (end - start < GZIP_FIXED_HEADER_LENGTH) {
+            return -1;
+        }
+        if (buf.getUnsignedByte(start) != 0x1f || buf.getUnsignedByte(start + 1) != 0x8b) {
+            throw new IllegalStateException("Invalid gzip header");
+        }
+        if (buf.getUnsignedByte(start + 2) != 8) {
+            throw new IllegalStateException("Unsupported gzip compression method: " + buf.getUnsignedByte(start + 2));
+        }
+        final int flags = buf.getUnsignedByte(start + 3);
+        int idx = start + GZIP_FIXED_HEADER_LENGTH;
+        if ((flags & FEXTRA) != 0) {
+            if (end - idx < 2) {
+                return -1;
+            }
+            idx += 2 + buf.getUnsignedShortLE(idx);
+        }
+        if ((flags & FNAME) != 0) {
+            idx = skipZeroTerminated(buf, idx, end);
+        }
+        if ((flags & FCOMMENT) != 0) {
+            idx = skipZeroTerminated(buf, idx, end);
+        }
+        if ((flags & FHCRC) != 0) {
+            idx += 2;
+        }
+        return idx > end ? -1 : idx - start;
+    }
+
+    private static int skipZeroTerminated(final Buffer buf, final int fromIndex, final int end) {
+        if (fromIndex >= end) {
+            return Integer.MAX_VALUE >>> 1;
+        }
+        final int zeroIdx = buf.indexOf(fromIndex, end, (byte) 0);
+        return zeroIdx < 0 ? Integer.MAX_VALUE >>> 1 : zeroIdx + 1;
+    }
+
+    private int trailerLength() {
+        return coding == GZIP_CODING ? GZIP_TRAILER_LENGTH : ZLIB_TRAILER_LENGTH;
+    }
+
+    private void verifyTrailer(final Buffer trailer) {
+        final Inflater inflater = inflater();
+        if (coding == GZIP_CODING) {
+            // CRC32 and ISIZE, see https://tools.ietf.org/html/rfc1952#section-2.3.1
+            if (trailer.readUnsignedIntLE() != checksum.getValue() ||
+                    trailer.readUnsignedIntLE() != (inflater.getBytesWritten() & 0xffffffffL)) {
+                throw new IllegalStateException("Corrupt gzip content, checksum mismatch");
+            }
+        } else if ((trailer.readInt() & 0xffffffffL) != checksum.getValue()) {
+            // ADLER32, see https://tools.ietf.org/html/rfc1950#section-2.2
+            throw new IllegalStateException("Corrupt deflate content, checksum mismatch");
+        }
+        checksum.reset();
+        inflater.reset();
+    }
+
+    private void inflate(final Buffer in, final Buffer out) {
+        final Inflater inflater = inflater();
+        final int readable = in.getReadableBytes();
+        if (in.hasArray()) {
+            inflater.setInput(in.getArray(), in.getArrayOffset() + in.getReaderIndex(), readable);
+        } else {
+            final byte[] input = new byte[readable];
+            in.getBytes(in.getReaderIndex(), input);
+            inflater.setInput(input);
+        }
+        try {
+            for (;;) {
+                out.ensureWritable(MIN_WRITABLE_BYTES);
+                // Inflate at most one byte more than allowed, so exceeding a limit is detected without overshooting.
+                final int writable = (int) Math.min(out.getWritableBytes(), Math.min(
+                        maxChunkSize - out.getReadableBytes(), maxSize - decompressedSize) + 1);
+                final int written;
+                if (out.hasArray()) {
+                    final byte[] output = out.getArray();
+                    final int offset = out.getArrayOffset() + out.getWriterIndex();
+                    written = inflater.inflate(output, offset, writable);
+                    checksum.update(output, offset, written);
+                    out.setWriterIndex(out.getWriterIndex() + written);
+                } else {
+                    final byte[] output = new byte[writable];
+                    written = inflater.inflate(output, 0, writable);
+                    checksum.update(output, 0, written);
+                    out.writeBytes(output, 0, written);
+                }
+                decompressedSize += written;
+                if (out.getReadableBytes() > maxChunkSize) {
+                    throw new DecompressedContentTooLargeException("Decompressed " + coding.getName() +
+                            " chunk exceeds " + maxChunkSize + " bytes");
+                }
+                if (decompressedSize > maxSize) {
+                    throw new DecompressedContentTooLargeException("Decompressed " + coding.getName() +
+                            " content exceeds " + maxSize + " bytes");
+                }
+                if (inflater.finished()) {
+                    // Raw deflate data has no trailer, and can't be followed by another member.
+                    state = raw ? STATE_DONE : STATE_TRAILER;
+                    break;
+                }
+                if (inflater.needsDictionary()) {
+                    throw new IllegalStateException("Preset dictionaries are not supported");
+                }
+                if (inflater.needsInput()) {
+                    break;
+                }
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt " + coding.getName() + " content", e);
+        }
+        // Any input left once the compressed data is finished belongs to the trailer.
+        in.skipBytes(readable - inflater.getRemaining());
+    }
+
+    private Inflater inflater() {
+        final Inflater inflater = this.inflater;
+        if (inflater == null) {
+            throw new IllegalStateException("Payload body already terminated");
+        }
+        return inflater;
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.utils.compression;
+
+import io.servicetalk.buffer.api.Buffer;
+import io.servicetalk.buffer.api.BufferAllocator;
+import io.servicetalk.concurrent.api.Publisher;
+import io.servicetalk.http.api.HttpPayloadChunk;
+import io.servicetalk.http.api.LastHttpPayloadChunk;
+
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Checksum;
+import java.util.zip.Deflater;
+import javax.annotation.Nullable;
+
+import static io.servicetalk.buffer.api.EmptyBuffer.EMPTY_BUFFER;
+import static io.servicetalk.concurrent.api.Publisher.empty;
+import static io.servicetalk.concurrent.api.Publisher.error;
+import static io.servicetalk.concurrent.api.Publisher.just;
+import static io.servicetalk.http.api.HttpPayloadChunks.newLastPayloadChunk;
+import static io.servicetalk.http.api.HttpPayloadChunks.newPayloadChunk;
+import static io.servicetalk.http.utils.compression.ContentCoding.GZIP_CODING;
+import static java.util.zip.Deflater.NO_FLUSH;
+import static java.util.zip.Deflater.SYNC_FLUSH;
+
+/**
+ * Compresses the {@link HttpPayloadChunk}s of a single payload body.
+ * <p>
+ * Every chunk is compressed and {@link Deflater#SYNC_FLUSH flushed} individually, so each compressed chunk can be
+ * decompressed as soon as it is received and streaming payloads are not delayed. Chunks are processed sequentially,
+ * only {@link #abort()} can be called concurrently.
+ */
+final class ContentEncoder {
+    // ID1, ID2, CM (deflate), FLG, MTIME (4 bytes), XFL, OS (unknown), see https://tools.ietf.org/html/rfc1952#section-2.3
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, 8, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+    // CMF (deflate, 32K window), FLG (default level, no dictionary), see https://tools.ietf.org/html/rfc1950#section-2.2
+    private static final byte[] ZLIB_HEADER = {0x78, (byte) 0x9c};
+    private static final int MIN_WRITABLE_BYTES = 64;
+    private static final AtomicReferenceFieldUpdater<ContentEncoder, Deflater> deflaterUpdater =
+            AtomicReferenceFieldUpdater.newUpdater(ContentEncoder.class, Deflater.class, "deflater");
+
+    private final ContentCoding coding;
+    private final ZlibPool pool;
+    private final BufferAllocator allocator;
+    private final Checksum checksum;
+    @Nullable
+    private volatile Deflater deflater;
+    private boolean headerWritten;
+    private boolean finished;
+
+    ContentEncoder(final ContentCoding coding, final ZlibPool pool, final BufferAllocator allocator) {
+        this.coding = coding;
+        this.pool = pool;
+        this.allocator = allocator;
+        checksum = coding == GZIP_CODING ? new CRC32() : new Adler32();
+        deflater = pool.borrowDeflater();
+    }
+
+    /**
+     * Compress the content of a chunk, completing the compressed stream if it is a {@link LastHttpPayloadChunk}.
+     *
+     * @param chunk the chunk to compress.
+     * @return the compressed chunk.
+     */
+    HttpPayloadChunk encode(final HttpPayloadChunk chunk) {
+        if (chunk instanceof LastHttpPayloadChunk) {
+            return newLastPayloadChunk(deflate(chunk.getContent(), true), ((LastHttpPayloadChunk) chunk).getTrailers());
+        }
+        return newPayloadChunk(deflate(chunk.getContent(), false));
+    }
+
+    /**
+     * Complete the compressed stream if the payload body did not end with a {@link LastHttpPayloadChunk}.
+     *
+     * @return a {@link Publisher} emitting the remaining compressed bytes, if any.
+     */
+    Publisher<HttpPayloadChunk> finish() {
+        if (finished) {
+            return empty();
+        }
+        try {
+            return just(newPayloadChunk(deflate(EMPTY_BUFFER, true)));
+        } catch (IllegalStateException e) {
+            return error(e);
+        }
+    }
+
+    /**
+     * Release resources if the payload body terminates before the compressed stream is complete.
+     */
+    void abort() {
+        final Deflater deflater = deflaterUpdater.getAndSet(this, null);
+        if (deflater != null) {
+            // It may be in use concurrently, so it can't be reused.
+            deflater.end();
+        }
+    }
+
+    private Buffer deflate(final Buffer content, final boolean last) {
+        final Deflater deflater = this.deflater;
+        if (deflater == null) {
+            throw new IllegalStateException("Payload body already terminated");
+        }
+        final int readable = content.getReadableBytes();
+        final Buffer out = allocator.newBuffer((readable >>> 1) + MIN_WRITABLE_BYTES, false);
+        if (!headerWritten) {
+            headerWritten = true;
+            out.writeBytes(coding == GZIP_CODING ? GZIP_HEADER : ZLIB_HEADER);
+        }
+        if (readable > 0) {
+            final byte[] input;
+            final int offset;
+            if (content.hasArray()) {
+                input = content.getArray();
+                offset = content.getArrayOffset() + content.getReaderIndex();
+            } else {
+                input = new byte[readable];
+                offset = 0;
+                content.getBytes(content.getReaderIndex(), input);
+            }
+            deflater.setInput(input, offset, readable);
+            checksum.update(input, offset, readable);
+        }
+        if (last) {
+            deflater.finish();
+            deflateInto(deflater, out, true);
+            writeTrailer(deflater, out);
+            finished = true;
+            if (deflaterUpdater.compareAndSet(this, deflater, null)) {
+                pool.release(deflater);
+            }
+        } else if (readable > 0) {
+            deflateInto(deflater, out, false);
+        }
+        return out;
+    }
+
+    private static void deflateInto(final Deflater deflater, final Buffer out, final boolean finishing) {
+        final int flush = finishing ? NO_FLUSH : SYNC_FLUSH;
+        for (;;) {
+            out.ensureWritable(MIN_WRITABLE_BYTES);
+            final int writable = out.getWritableBytes();
+            final int written;
+            if (out.hasArray()) {
+                written = deflater.deflate(out.getArray(), out.getArrayOffset() + out.getWriterIndex(), writable,
+                        flush);
+                out.setWriterIndex(out.getWriterIndex() + written);
+            } else {
+                final byte[] output = new byte[writable];
+                written = deflater.deflate(output, 0, writable, flush);
+                out.writeBytes(output, 0, written);
+            }
+            // A flush is complete once the output space is not exhausted.
+            if (finishing ? deflater.finished() : written < writable) {
+                return;
+            }
+        }
+    }
+
+    private void writeTrailer(final Deflater deflater, final Buffer out) {
+        if (coding == GZIP_CODING) {
+            // CRC32 and ISIZE, see https://tools.ietf.org/html/rfc1952#section-2.3.1
+            out.writeIntLE((int) checksum.getValue());
+            out.writeIntLE((int) deflater.getBytesRead());
+        } else {
+            // ADLER32, see https://tools.ietf.org/html/rfc1950#section-2.2
+            out.writeInt((int) checksum.getValue());
+        }
+    }
+}
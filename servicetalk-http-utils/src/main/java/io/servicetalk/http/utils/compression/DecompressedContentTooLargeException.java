@@ -0,0 +1,33 @@
+/*
+ * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.utils.compression;
+
+/**
+ * Thrown when a payload body decompressed by a {@link ContentCompressionFilterBuilder content compression filter}
+ * exceeds the {@link ContentCompressionFilterBuilder#setMaxDecompressedSize(long) maximum decompressed size}.
+ */
+public final class DecompressedContentTooLargeException extends IllegalStateException {
+    private static final long serialVersionUID = -4297409683734612352L;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param message the detail message.
+     */
+    public DecompressedContentTooLargeException(final String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.utils.compression;
+
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * A bounded pool of raw (no zlib wrapper) {@link Deflater}s and {@link Inflater}s.
+ * <p>
+ * Each instance holds a sizable amount of native memory which is only reclaimed by {@link Deflater#end()} or
+ * {@link Inflater#end()}, so creating one per stream is expensive in both allocation and GC pressure. Instances are
+ * {@link Deflater#reset() reset} when released and {@link Deflater#end() ended} if the pool is already full.
+ */
+final class ZlibPool {
+    private final int compressionLevel;
+    private final Queue<Deflater> deflaters;
+    private final Queue<Inflater> inflaters;
+
+    ZlibPool(final int compressionLevel, final int maxPooled) {
+        this.compressionLevel = compressionLevel;
+        deflaters = new ArrayBlockingQueue<>(maxPooled);
+        inflaters = new ArrayBlockingQueue<>(maxPooled);
+    }
+
+    Deflater borrowDeflater() {
+        final Deflater deflater = deflaters.poll();
+        return deflater != null ? deflater : new Deflater(compressionLevel, true);
+    }
+
+    void release(final Deflater deflater) {
+        deflater.reset();
+        if (!deflaters.offer(deflater)) {
+            deflater.end();
+        }
+    }
+
+    Inflater borrowInflater() {
+        final Inflater inflater = inflaters.poll();
+        return inflater != null ? inflater : new Inflater(true);
+    }
+
+    void release(final Inflater inflater) {
+        inflater.reset();
+        if (!inflaters.offer(inflater)) {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.utils;
+
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.concurrent.context.AsyncContext;
+import io.servicetalk.concurrent.context.AsyncContextMap;
+import io.servicetalk.concurrent.context.Deadlines;
+import io.servicetalk.http.api.HttpPayloadChunk;
+import io.servicetalk.http.api.StreamingHttpClient;
+import io.servicetalk.http.api.StreamingHttpRequest;
+import io.servicetalk.http.api.StreamingHttpResponse;
+import io.servicetalk.http.api.StreamingHttpService;
+import io.servicetalk.transport.api.ConnectionContext;
+import io.servicetalk.transport.api.ExecutionContext;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static io.servicetalk.concurrent.api.Executors.immediate;
+import static io.servicetalk.concurrent.api.Single.success;
+import static io.servicetalk.concurrent.internal.Await.awaitIndefinitely;
+import static io.servicetalk.concurrent.internal.Await.awaitIndefinitelyNonNull;
+import static io.servicetalk.http.api.HttpRequestMethods.GET;
+import static io.servicetalk.http.api.HttpResponseStatuses.GATEWAY_TIMEOUT;
+import static io.servicetalk.http.api.HttpResponseStatuses.OK;
+import static io.servicetalk.http.api.StreamingHttpRequests.newRequest;
+import static io.servicetalk.http.api.StreamingHttpResponses.newResponse;
+import static io.servicetalk.http.utils.DeadlineHttpClientFilter.TIMEOUT_HEADER;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class DeadlineHttpFilterTest {
+
+    private final ConnectionContext ctx = mock(ConnectionContext.class);
+    private final AtomicInteger handled = new AtomicInteger();
+    private final AtomicLong remainingNs = new AtomicLong();
+
+    @Before
+    public void setUp() {
+        ExecutionContext executionContext = mock(ExecutionContext.class);
+        when(executionContext.getExecutor()).thenReturn(immediate());
+        when(ctx.getExecutionContext()).thenReturn(executionContext);
+    }
+
+    @Test
+    public void testServiceWithoutTimeoutHeader() throws Exception {
+        StreamingHttpService service = DeadlineHttpServiceFilter.newDeadlineFilter(newService(success(newResponse(OK))));
+        assertEquals(OK, awaitIndefinitelyNonNull(service.handle(ctx, newRequest(GET, "/"))).getStatus());
+        assertEquals(Long.MAX_VALUE, remainingNs.get());
+    }
+
+    @Test
+    public void testServiceStoresDeadline() throws Exception {
+        StreamingHttpService service = DeadlineHttpServiceFilter.newDeadlineFilter(newService(success(newResponse(OK))));
+        StreamingHttpRequest<HttpPayloadChunk> request = newRequest(GET, "/");
+        request.getHeaders().set(TIMEOUT_HEADER, "1000");
+        assertEquals(OK, awaitIndefinitelyNonNull(service.handle(ctx, request)).getStatus());
+        assertThat(remainingNs.get(), allOf(greaterThan(0L), lessThanOrEqualTo(SECONDS.toNanos(1))));
+    }
+
+    @Test
+    public void testServiceDoesNotLeakDeadline() throws Exception {
+        StreamingHttpService service = DeadlineHttpServiceFilter.newDeadlineFilter(newService(success(newResponse(OK))));
+        StreamingHttpRequest<HttpPayloadChunk> request = newRequest(GET, "/");
+        request.getHeaders().set(TIMEOUT_HEADER, "1");
+        awaitIndefinitelyNonNull(service.handle(ctx, request));
+        assertEquals(Long.MAX_VALUE, Deadlines.remainingNanos());
+
+        // A request without a deadline which is handled next by the same thread must not be affected.
+        assertEquals(OK, awaitIndefinitelyNonNull(service.handle(ctx, newRequest(GET, "/"))).getStatus());
+        assertEquals(Long.MAX_VALUE, remainingNs.get());
+    }
+
+    @Test
+    public void testServiceTimesOut() throws Exception {
+        StreamingHttpService service = DeadlineHttpServiceFilter.newDeadlineFilter(newService(Single.never()));
+        StreamingHttpRequest<HttpPayloadChunk> request = newRequest(GET, "/");
+        request.getHeaders().set(TIMEOUT_HEADER, "10");
+        assertEquals(GATEWAY_TIMEOUT, awaitIndefinitelyNonNull(service.handle(ctx, request)).getStatus());
+    }
+
+    @Test
+    public void testServiceRejectsExpiredRequest() throws Exception {
+        StreamingHttpService service = DeadlineHttpServiceFilter.newDeadlineFilter(newService(success(newResponse(OK))));
+        StreamingHttpRequest<HttpPayloadChunk> request = newRequest(GET, "/");
+        request.getHeaders().set(TIMEOUT_HEADER, "0");
+        assertEquals(GATEWAY_TIMEOUT, awaitIndefinitelyNonNull(service.handle(ctx, request)).getStatus());
+        assertEquals(0, handled.get());
+    }
+
+    @Test
+    public void testClientSendsRemainingTime() throws Exception {
+        StreamingHttpClient next = mock(StreamingHttpClient.class);
+        ExecutionContext executionContext = ctx.getExecutionContext();
+        when(next.getExecutionContext()).thenReturn(executionContext);
+        when(next.request(any())).thenReturn(success(newResponse(OK)));
+        StreamingHttpClient client = DeadlineHttpClientFilter.newDeadlineFilter(next);
+
+        StreamingHttpRequest<HttpPayloadChunk> request = newRequest(GET, "/");
+        awaitIndefinitely(client.request(request));
+        assertNull(request.getHeaders().get(TIMEOUT_HEADER));
+
+        // The deadline is read when the response is subscribed, not when the request is created.
+        request = newRequest(GET, "/");
+        Single<StreamingHttpResponse<HttpPayloadChunk>> response = client.request(request);
+        final AsyncContextMap saved = AsyncContext.current();
+        try {
+            Deadlines.setDeadline(1, SECONDS);
+            awaitIndefinitely(response);
+        } finally {
+            AsyncContext.replace(saved);
+        }
+        CharSequence timeout = request.getHeaders().get(TIMEOUT_HEADER);
+        assertThat(Long.parseLong(String.valueOf(timeout)), allOf(greaterThan(0L), lessThanOrEqualTo(1000L)));
+    }
+
+    private StreamingHttpService newService(Single<StreamingHttpResponse<HttpPayloadChunk>> response) {
+        return StreamingHttpService.from((ctx, request) -> {
+            handled.incrementAndGet();
+            remainingNs.set(Deadlines.remainingNanos());
+            return response;
+        });
+    }
+}
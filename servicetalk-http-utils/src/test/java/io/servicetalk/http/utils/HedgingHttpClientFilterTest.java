@@ -0,0 +1,119 @@
+/*
+ * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.utils;
+
+import io.servicetalk.concurrent.Cancellable;
+import io.servicetalk.concurrent.api.Executor;
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.http.api.HttpPayloadChunk;
+import io.servicetalk.http.api.StreamingHttpClient;
+import io.servicetalk.http.api.StreamingHttpResponse;
+import io.servicetalk.transport.api.ExecutionContext;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Queue;
+import java.util.concurrent.Future;
+
+import static io.servicetalk.concurrent.api.Single.success;
+import static io.servicetalk.concurrent.internal.Await.awaitIndefinitely;
+import static io.servicetalk.http.api.HttpRequestMethods.GET;
+import static io.servicetalk.http.api.HttpRequestMethods.POST;
+import static io.servicetalk.http.api.HttpResponseStatuses.OK;
+import static io.servicetalk.http.api.StreamingHttpRequests.newRequest;
+import static io.servicetalk.http.api.StreamingHttpResponses.newResponse;
+import static io.servicetalk.http.utils.HedgingHttpClientFilter.newHedgingFilter;
+import static java.time.Duration.ofMillis;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class HedgingHttpClientFilterTest {
+
+    private final StreamingHttpClient next = mock(StreamingHttpClient.class);
+    private final Executor timerExecutor = mock(Executor.class);
+    private final Queue<Runnable> timers = new ArrayDeque<>();
+    private final Deque<Long> timerDelaysNs = new ArrayDeque<>();
+    private final Queue<Single<StreamingHttpResponse<HttpPayloadChunk>>> responses = new ArrayDeque<>();
+
+    @Before
+    public void setUp() {
+        ExecutionContext executionContext = mock(ExecutionContext.class);
+        when(executionContext.getExecutor()).thenReturn(timerExecutor);
+        when(next.getExecutionContext()).thenReturn(executionContext);
+        when(next.request(any())).thenAnswer(a -> responses.poll());
+        when(timerExecutor.schedule(any(), anyLong(), any())).thenAnswer(a -> {
+            timers.add(a.getArgument(0));
+            timerDelaysNs.add(a.getArgument(1));
+            return mock(Cancellable.class);
+        });
+    }
+
+    @Test
+    public void testIdempotentRequestHedged() throws Exception {
+        StreamingHttpResponse<HttpPayloadChunk> response = newResponse(OK);
+        responses.add(Single.never());
+        responses.add(success(response));
+        StreamingHttpClient client = newHedgingFilter(ofMillis(10), next);
+        Future<StreamingHttpResponse<HttpPayloadChunk>> result = client.request(newRequest(GET, "/")).toFuture();
+        verify(timerExecutor).schedule(any(), eq(MILLISECONDS.toNanos(10)), eq(NANOSECONDS));
+        verify(next).request(any());
+        timers.poll().run();
+        assertSame(response, result.get());
+        verify(next, times(2)).request(any());
+    }
+
+    @Test
+    public void testCancelledFirstAttemptLatencyRecorded() throws Exception {
+        StreamingHttpClient client = newHedgingFilter(0.9, ofMillis(1), next);
+        for (int i = 0; i < 10; ++i) {
+            responses.add(Single.never());
+            responses.add(success(newResponse(OK)));
+            Future<StreamingHttpResponse<HttpPayloadChunk>> result = client.request(newRequest(GET, "/")).toFuture();
+            // The first attempt takes longer than the estimate and is cancelled once the fast hedge wins.
+            Thread.sleep(2);
+            timers.poll().run();
+            result.get();
+        }
+        // Only the slow first attempts are recorded, so the estimate moves up. If the fast hedges were recorded
+        // instead, the estimate would move down.
+        assertThat(timerDelaysNs.peekLast(), greaterThan(MILLISECONDS.toNanos(1)));
+    }
+
+    @Test
+    public void testNonIdempotentRequestNotHedged() throws Exception {
+        StreamingHttpResponse<HttpPayloadChunk> response = newResponse(OK);
+        responses.add(success(response));
+        StreamingHttpClient client = newHedgingFilter(ofMillis(10), next);
+        assertSame(response, awaitIndefinitely(client.request(newRequest(POST, "/"))));
+        verify(timerExecutor, never()).schedule(any(), anyLong(), any());
+        assertTrue("Unexpected hedge timer.", timers.isEmpty());
+    }
+}
@@ -0,0 +1,374 @@
+/*
+ * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.utils.compression;
+
+import io.servicetalk.buffer.api.Buffer;
+import io.servicetalk.concurrent.api.Publisher;
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.concurrent.internal.ServiceTalkTestTimeout;
+import io.servicetalk.http.api.HttpPayloadChunk;
+import io.servicetalk.http.api.StreamingHttpClient;
+import io.servicetalk.http.api.StreamingHttpRequest;
+import io.servicetalk.http.api.StreamingHttpResponse;
+import io.servicetalk.http.api.StreamingHttpService;
+import io.servicetalk.transport.api.ConnectionContext;
+import io.servicetalk.transport.api.ExecutionContext;
+
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import static io.servicetalk.buffer.netty.BufferAllocators.DEFAULT_ALLOCATOR;
+import static io.servicetalk.concurrent.internal.Await.awaitIndefinitelyNonNull;
+import static io.servicetalk.http.api.HttpHeaderNames.ACCEPT_ENCODING;
+import static io.servicetalk.http.api.HttpHeaderNames.CONTENT_ENCODING;
+import static io.servicetalk.http.api.HttpHeaderNames.CONTENT_LENGTH;
+import static io.servicetalk.http.api.HttpHeaderNames.CONTENT_TYPE;
+import static io.servicetalk.http.api.HttpHeaderNames.VARY;
+import static io.servicetalk.http.api.HttpHeaderValues.APPLICATION_JSON;
+import static io.servicetalk.http.api.HttpPayloadChunks.aggregateChunks;
+import static io.servicetalk.http.api.HttpPayloadChunks.newPayloadChunk;
+import static io.servicetalk.http.api.HttpRequestMethods.POST;
+import static io.servicetalk.http.api.HttpResponseStatuses.OK;
+import static io.servicetalk.http.api.HttpResponseStatuses.REQUEST_ENTITY_TOO_LARGE;
+import static io.servicetalk.http.api.StreamingHttpRequests.newRequest;
+import static io.servicetalk.http.api.StreamingHttpResponses.newResponse;
+import static io.servicetalk.http.utils.compression.ContentCompressionFilterBuilder.newContentCompressionFilterBuilder;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ContentCompressionFilterBuilderTest {
+
+    private static final ConnectionContext CONN_CTX = mock(ConnectionContext.class);
+    private static final byte[] PAYLOAD = newJsonPayload();
+
+    @Rule
+    public final Timeout timeout = new ServiceTalkTestTimeout();
+
+    private final AtomicReference<StreamingHttpRequest<HttpPayloadChunk>> receivedRequest = new AtomicReference<>();
+    private final AtomicReference<byte[]> receivedPayload = new AtomicReference<>();
+
+    @BeforeClass
+    public static void beforeClass() {
+        ExecutionContext ec = mock(ExecutionContext.class);
+        when(ec.getBufferAllocator()).thenReturn(DEFAULT_ALLOCATOR);
+        when(CONN_CTX.getExecutionContext()).thenReturn(ec);
+    }
+
+    @Test
+    public void responseCompressedWithGzip() throws Exception {
+        StreamingHttpResponse<HttpPayloadChunk> response = handle(newEchoRequest("gzip, deflate"));
+        assertEquals("gzip", response.getHeaders().get(CONTENT_ENCODING).toString());
+        assertEquals("accept-encoding", response.getHeaders().get(VARY).toString());
+        assertFalse(response.getHeaders().contains(CONTENT_LENGTH));
+        byte[] compressed = aggregate(response.getPayloadBody());
+        assertArrayEquals(PAYLOAD, readFully(new GZIPInputStream(new ByteArrayInputStream(compressed))));
+        assertThat("JSON payload should compress well", compressed.length * 5, lessThan(PAYLOAD.length));
+    }
+
+    @Test
+    public void responseCompressedWithPreferredCoding() throws Exception {
+        StreamingHttpResponse<HttpPayloadChunk> response = handle(newEchoRequest("gzip;q=0.5, deflate"));
+        assertEquals("deflate", response.getHeaders().get(CONTENT_ENCODING).toString());
+        assertArrayEquals(PAYLOAD, readFully(new InflaterInputStream(
+                new ByteArrayInputStream(aggregate(response.getPayloadBody())))));
+    }
+
+    @Test
+    public void responseNotCompressedWithoutAcceptEncoding() throws Exception {
+        StreamingHttpResponse<HttpPayloadChunk> response = handle(newEchoRequest(null));
+        assertNull(response.getHeaders().get(CONTENT_ENCODING));
+        assertArrayEquals(PAYLOAD, aggregate(response.getPayloadBody()));
+    }
+
+    @Test
+    public void responseNotCompressedWhenNotAcceptable() throws Exception {
+        StreamingHttpResponse<HttpPayloadChunk> response = handle(newEchoRequest("gzip;q=0, identity"));
+        assertNull(response.getHeaders().get(CONTENT_ENCODING));
+        assertArrayEquals(PAYLOAD, aggregate(response.getPayloadBody()));
+    }
+
+    @Test
+    public void responseNotCompressedBelowMinSize() throws Exception {
+        StreamingHttpRequest<HttpPayloadChunk> request = newEchoRequest("gzip");
+        request.getHeaders().set(CONTENT_LENGTH, Integer.toString(PAYLOAD.length));
+        StreamingHttpResponse<HttpPayloadChunk> response = handle(
+                newContentCompressionFilterBuilder().setMinCompressionSize(PAYLOAD.length + 1), request);
+        assertNull(response.getHeaders().get(CONTENT_ENCODING));
+        assertEquals(Integer.toString(PAYLOAD.length), response.getHeaders().get(CONTENT_LENGTH).toString());
+    }
+
+    @Test
+    public void responseNotCompressedForOtherContentTypes() throws Exception {
+        StreamingHttpRequest<HttpPayloadChunk> request = newEchoRequest("gzip");
+        request.getHeaders().set(CONTENT_TYPE, "image/png");
+        StreamingHttpResponse<HttpPayloadChunk> response = handle(request);
+        assertNull(response.getHeaders().get(CONTENT_ENCODING));
+
+        request = newEchoRequest("gzip");
+        request.getHeaders().set(CONTENT_TYPE, "text/plain; charset=utf-8");
+        response = handle(request);
+        assertEquals("gzip", response.getHeaders().get(CONTENT_ENCODING).toString());
+    }
+
+    @Test
+    public void gzipRequestDecompressed() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(PAYLOAD);
+        }
+        // Split the header, compressed data and trailer across chunks.
+        assertRequestDecompressed("gzip", bytes.toByteArray(), 1, 3, 7, 11, 500);
+    }
+
+    @Test
+    public void concatenatedGzipMembersDecompressed() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(PAYLOAD, 0, 100);
+        }
+        try (OutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(PAYLOAD, 100, PAYLOAD.length - 100);
+        }
+        assertRequestDecompressed("gzip", bytes.toByteArray(), 2);
+    }
+
+    @Test
+    public void deflateRequestDecompressed() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = new DeflaterOutputStream(bytes)) {
+            out.write(PAYLOAD);
+        }
+        assertRequestDecompressed("deflate", bytes.toByteArray(), 1, 64);
+    }
+
+    @Test
+    public void rawDeflateRequestDecompressed() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = new DeflaterOutputStream(bytes, new Deflater(Deflater.DEFAULT_COMPRESSION, true))) {
+            out.write(PAYLOAD);
+        }
+        assertRequestDecompressed("deflate", bytes.toByteArray(), 64);
+    }
+
+    @Test
+    public void truncatedRequestFails() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(PAYLOAD);
+        }
+        byte[] truncated = new byte[bytes.size() - 4];
+        System.arraycopy(bytes.toByteArray(), 0, truncated, 0, truncated.length);
+        try {
+            assertRequestDecompressed("gzip", truncated, 100);
+            fail();
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(IllegalStateException.class));
+        }
+    }
+
+    @Test
+    public void highRatioRequestRejected() throws Exception {
+        // 8 MiB of zeros compress to a few KiB.
+        StreamingHttpResponse<HttpPayloadChunk> response = handle(
+                newContentCompressionFilterBuilder().setMaxDecompressedSize(1024 * 1024),
+                newGzipRequest(new byte[8 * 1024 * 1024], 1024));
+        assertEquals(REQUEST_ENTITY_TOO_LARGE, response.getStatus());
+        assertNull(receivedPayload.get());
+    }
+
+    @Test
+    public void highRatioChunkRejected() throws Exception {
+        StreamingHttpResponse<HttpPayloadChunk> response = handle(
+                newContentCompressionFilterBuilder().setMaxDecompressedChunkSize(64 * 1024),
+                newGzipRequest(new byte[1024 * 1024], Integer.MAX_VALUE));
+        assertEquals(REQUEST_ENTITY_TOO_LARGE, response.getStatus());
+        assertNull(receivedPayload.get());
+    }
+
+    @Test
+    public void clientDoesNotDecodeWithUserAcceptEncoding() throws Exception {
+        StreamingHttpService service = newContentCompressionFilterBuilder().build(newEchoService());
+        ExecutionContext ec = CONN_CTX.getExecutionContext();
+        StreamingHttpClient next = mock(StreamingHttpClient.class);
+        when(next.getExecutionContext()).thenReturn(ec);
+        when(next.request(any())).thenAnswer(invocation -> service.handle(CONN_CTX, invocation.getArgument(0)));
+        StreamingHttpClient client = newContentCompressionFilterBuilder().build(next);
+
+        StreamingHttpResponse<HttpPayloadChunk> response = awaitIndefinitelyNonNull(
+                client.request(newEchoRequest("gzip")));
+        assertEquals("gzip", response.getHeaders().get(CONTENT_ENCODING).toString());
+        assertArrayEquals(PAYLOAD, readFully(new GZIPInputStream(
+                new ByteArrayInputStream(aggregate(response.getPayloadBody())))));
+    }
+
+    @Test
+    public void clientRoundTrip() throws Exception {
+        StreamingHttpService service = newContentCompressionFilterBuilder().build(newEchoService());
+        ExecutionContext ec = CONN_CTX.getExecutionContext();
+        StreamingHttpClient next = mock(StreamingHttpClient.class);
+        when(next.getExecutionContext()).thenReturn(ec);
+        when(next.request(any())).thenAnswer(invocation -> service.handle(CONN_CTX, invocation.getArgument(0)));
+        StreamingHttpClient client = newContentCompressionFilterBuilder().setCompressRequests(true).build(next);
+
+        StreamingHttpRequest<HttpPayloadChunk> request = newRequest(POST, "/", Publisher.from(
+                newPayloadChunk(DEFAULT_ALLOCATOR.wrap(PAYLOAD))));
+        request.getHeaders().set(CONTENT_TYPE, APPLICATION_JSON);
+        StreamingHttpResponse<HttpPayloadChunk> response = awaitIndefinitelyNonNull(client.request(request));
+
+        // The service saw a gzip compressed request and the client advertised the supported codings.
+        assertNull(receivedRequest.get().getHeaders().get(CONTENT_ENCODING));
+        assertArrayEquals(PAYLOAD, receivedPayload.get());
+        assertEquals("gzip, deflate", receivedRequest.get().getHeaders().get(ACCEPT_ENCODING).toString());
+        // The response was compressed by the service and transparently decompressed by the client.
+        assertNull(response.getHeaders().get(CONTENT_ENCODING));
+        assertArrayEquals(PAYLOAD, aggregate(response.getPayloadBody()));
+    }
+
+    private void assertRequestDecompressed(String contentEncoding, byte[] compressed, int... chunkSizes)
+            throws Exception {
+        List<HttpPayloadChunk> chunks = new ArrayList<>();
+        int offset = 0;
+        for (int i = 0; offset < compressed.length; ++i) {
+            int length = Math.min(chunkSizes[Math.min(i, chunkSizes.length - 1)], compressed.length - offset);
+            Buffer buffer = DEFAULT_ALLOCATOR.newBuffer(length);
+            buffer.writeBytes(compressed, offset, length);
+            chunks.add(newPayloadChunk(buffer));
+            offset += length;
+        }
+        StreamingHttpRequest<HttpPayloadChunk> request = newRequest(POST, "/", Publisher.from(chunks));
+        request.getHeaders().set(CONTENT_ENCODING, contentEncoding);
+        request.getHeaders().set(CONTENT_LENGTH, Integer.toString(compressed.length));
+        request.getHeaders().set(CONTENT_TYPE, APPLICATION_JSON);
+        handle(request);
+        assertNull(receivedRequest.get().getHeaders().get(CONTENT_ENCODING));
+        assertNull(receivedRequest.get().getHeaders().get(CONTENT_LENGTH));
+        assertArrayEquals(PAYLOAD, receivedPayload.get());
+    }
+
+    private static StreamingHttpRequest<HttpPayloadChunk> newGzipRequest(byte[] payload, int chunkSize)
+            throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(payload);
+        }
+        byte[] compressed = bytes.toByteArray();
+        List<HttpPayloadChunk> chunks = new ArrayList<>();
+        for (int offset = 0; offset < compressed.length; offset += chunkSize) {
+            int length = Math.min(chunkSize, compressed.length - offset);
+            chunks.add(newPayloadChunk(DEFAULT_ALLOCATOR.newBuffer(length).writeBytes(compressed, offset, length)));
+        }
+        StreamingHttpRequest<HttpPayloadChunk> request = newRequest(POST, "/", Publisher.from(chunks));
+        request.getHeaders().set(CONTENT_ENCODING, "gzip");
+        request.getHeaders().set(CONTENT_TYPE, APPLICATION_JSON);
+        return request;
+    }
+
+    private StreamingHttpResponse<HttpPayloadChunk> handle(StreamingHttpRequest<HttpPayloadChunk> request)
+            throws Exception {
+        return handle(newContentCompressionFilterBuilder(), request);
+    }
+
+    private StreamingHttpResponse<HttpPayloadChunk> handle(ContentCompressionFilterBuilder builder,
+                                                           StreamingHttpRequest<HttpPayloadChunk> request)
+            throws Exception {
+        return awaitIndefinitelyNonNull(builder.build(newEchoService()).handle(CONN_CTX, request));
+    }
+
+    /**
+     * Aggregates the request payload body and responds with it, using the same content-type and content-length.
+     */
+    private StreamingHttpService newEchoService() {
+        return StreamingHttpService.from((ctx, request) -> {
+            receivedRequest.set(request);
+            return aggregateChunks(request.getPayloadBody(), DEFAULT_ALLOCATOR).flatMap(chunk -> {
+                byte[] payload = toBytes(chunk.getContent());
+                receivedPayload.set(payload);
+                StreamingHttpResponse<HttpPayloadChunk> response = newResponse(OK, DEFAULT_ALLOCATOR.wrap(payload));
+                response.getHeaders().set(CONTENT_TYPE, request.getHeaders().get(CONTENT_TYPE));
+                if (request.getHeaders().contains(CONTENT_LENGTH)) {
+                    response.getHeaders().set(CONTENT_LENGTH, request.getHeaders().get(CONTENT_LENGTH));
+                }
+                return Single.success(response);
+            });
+        });
+    }
+
+    private static StreamingHttpRequest<HttpPayloadChunk> newEchoRequest(String acceptEncoding) {
+        StreamingHttpRequest<HttpPayloadChunk> request = newRequest(POST, "/", Publisher.from(
+                newPayloadChunk(DEFAULT_ALLOCATOR.wrap(PAYLOAD))));
+        request.getHeaders().set(CONTENT_TYPE, APPLICATION_JSON);
+        if (acceptEncoding != null) {
+            request.getHeaders().set(ACCEPT_ENCODING, acceptEncoding);
+        }
+        return request;
+    }
+
+    private static byte[] aggregate(Publisher<HttpPayloadChunk> payload) throws Exception {
+        return toBytes(awaitIndefinitelyNonNull(aggregateChunks(payload, DEFAULT_ALLOCATOR)).getContent());
+    }
+
+    private static byte[] toBytes(Buffer buffer) {
+        byte[] bytes = new byte[buffer.getReadableBytes()];
+        buffer.getBytes(buffer.getReaderIndex(), bytes);
+        return bytes;
+    }
+
+    private static byte[] readFully(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int read;
+        while ((read = in.read(buffer)) > 0) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] newJsonPayload() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < 200; ++i) {
+            sb.append(i == 0 ? "" : ",").append("{\"id\":").append(i).append(",\"name\":\"item-").append(i)
+                    .append("\",\"enabled\":true}");
+        }
+        return sb.append(']').toString().getBytes(UTF_8);
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.loadbalancer;
+
+import io.servicetalk.client.api.ConnectionFactory;
+
+import java.util.function.Predicate;
+import javax.annotation.Nullable;
+
+/**
+ * Implemented by a {@link ConnectionFactory} whose connections have an affinity to specific threads, for example
+ * connections bound to a single I/O thread. {@link RoundRobinLoadBalancer} prefers connections that are affine to the
+ * thread selecting a connection, and creates a new connection if none of the existing ones are affine to that thread.
+ *
+ * @param <C> The type of connection.
+ */
+@FunctionalInterface
+public interface ConnectionAffinity<C> {
+
+    /**
+     * Returns a {@link Predicate} which accepts connections that are affine to the calling thread.
+     *
+     * @return {@link Predicate} which accepts connections that are affine to the calling thread or {@code null} if the
+     * calling thread has no affinity to any connection.
+     */
+    @Nullable
+    Predicate<? super C> currentThreadAffinity();
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.loadbalancer;
+
+import io.servicetalk.concurrent.api.Executor;
+
+import java.time.Duration;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Configuration of the health checking performed by a {@link RoundRobinLoadBalancer} on the hosts it connects to.
+ * <p>
+ * A host is ejected (i.e. no longer selected) after a configurable number of consecutive failures to establish a
+ * connection. While ejected, the host is actively probed by attempting to connect to it after a backoff which doubles
+ * after every failed probe, up to a maximum. The first successful probe brings the host back into rotation and its
+ * connection is added to the pool.
+ */
+public final class HealthCheckConfig {
+
+    private final Executor executor;
+    private final int failedConnectionsThreshold;
+    private final long ejectionBackoffNanos;
+    private final long maxEjectionBackoffNanos;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param executor {@link Executor} used to schedule probes for ejected hosts.
+     * @param failedConnectionsThreshold number of consecutive connection failures after which a host is ejected.
+     * @param ejectionBackoff time after which the first probe is attempted for an ejected host.
+     * @param maxEjectionBackoff maximum time between two probes for an ejected host.
+     */
+    public HealthCheckConfig(final Executor executor, final int failedConnectionsThreshold,
+                             final Duration ejectionBackoff, final Duration maxEjectionBackoff) {
+        if (failedConnectionsThreshold <= 0) {
+            throw new IllegalArgumentException("failedConnectionsThreshold: " + failedConnectionsThreshold +
+                    " (expected >0)");
+        }
+        if (ejectionBackoff.isNegative() || ejectionBackoff.isZero()) {
+            throw new IllegalArgumentException("ejectionBackoff: " + ejectionBackoff + " (expected >0)");
+        }
+        if (maxEjectionBackoff.compareTo(ejectionBackoff) < 0) {
+            throw new IllegalArgumentException("maxEjectionBackoff: " + maxEjectionBackoff +
+                    " (expected >=" + ejectionBackoff + ")");
+        }
+        this.executor = requireNonNull(executor);
+        this.failedConnectionsThreshold = failedConnectionsThreshold;
+        this.ejectionBackoffNanos = ejectionBackoff.toNanos();
+        this.maxEjectionBackoffNanos = maxEjectionBackoff.toNanos();
+    }
+
+    Executor getExecutor() {
+        return executor;
+    }
+
+    int getFailedConnectionsThreshold() {
+        return failedConnectionsThreshold;
+    }
+
+    long getEjectionBackoffNanos() {
+        return ejectionBackoffNanos;
+    }
+
+    long nextEjectionBackoffNanos(final long currentBackoffNanos) {
+        return currentBackoffNanos >= maxEjectionBackoffNanos / 2 ? maxEjectionBackoffNanos : currentBackoffNanos * 2;
+    }
+}
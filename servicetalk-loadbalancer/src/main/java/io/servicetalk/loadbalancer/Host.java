@@ -0,0 +1,323 @@
+/*
+ * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.loadbalancer;
+
+import io.servicetalk.concurrent.api.AsyncCloseable;
+import io.servicetalk.concurrent.api.Completable;
+import io.servicetalk.concurrent.api.ListenableAsyncCloseable;
+import io.servicetalk.concurrent.internal.SequentialCancellable;
+
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import javax.annotation.Nullable;
+
+import static io.servicetalk.concurrent.api.Completable.completed;
+import static java.lang.System.nanoTime;
+import static java.util.Collections.emptyList;
+import static java.util.concurrent.atomic.AtomicIntegerFieldUpdater.newUpdater;
+import static java.util.concurrent.atomic.AtomicReferenceFieldUpdater.newUpdater;
+
+/**
+ * A host tracked by a {@link io.servicetalk.client.api.LoadBalancer} along with the connections opened to it.
+ * <p>
+ * Connections are kept in a copy-on-write {@link List} as they are added/removed much less frequently than they are
+ * selected. The number of connections (including the ones being established) can be capped via
+ * {@link #tryReserveConnection(int)}.
+ *
+ * @param <Addr> The resolved address type.
+ * @param <C> The type of connection.
+ */
+class Host<Addr, C extends ListenableAsyncCloseable> implements AsyncCloseable {
+
+    private static final AtomicReferenceFieldUpdater<Host, List> connectionsUpdater =
+            newUpdater(Host.class, List.class, "connections");
+    private static final AtomicIntegerFieldUpdater<Host> reservedConnectionsUpdater =
+            newUpdater(Host.class, "reservedConnections");
+    private static final AtomicIntegerFieldUpdater<Host> consecutiveConnectFailuresUpdater =
+            newUpdater(Host.class, "consecutiveConnectFailures");
+    private static final AtomicIntegerFieldUpdater<Host> ejectedUpdater =
+            newUpdater(Host.class, "ejected");
+    private static final AtomicIntegerFieldUpdater<Host> replenishPendingUpdater =
+            newUpdater(Host.class, "replenishPending");
+
+    @Nullable
+    final Addr address;
+    @Nullable
+    private final Consumer<Host<Addr, C>> connectionClosedListener;
+    volatile boolean removed;
+    private volatile List<C> connections = emptyList();
+    @SuppressWarnings("unused")
+    private volatile int reservedConnections;
+    /**
+     * Index of the connection which was last accepted by a selector. Selection starts from this connection as it is
+     * the most likely one to still have spare capacity, which avoids probing every connection on each selection.
+     */
+    private volatile int selectionHint;
+    private volatile int consecutiveConnectFailures;
+    private volatile int ejected;
+    /**
+     * Cancels the pending health check (if any) of this host when it is removed or closed.
+     */
+    final SequentialCancellable healthCheckCancellable = new SequentialCancellable();
+    /**
+     * Cancels the pending replenishment of connections (if any) of this host when it is removed or closed.
+     */
+    final SequentialCancellable replenishCancellable = new SequentialCancellable();
+    @SuppressWarnings("unused")
+    private volatile int replenishPending;
+    /**
+     * Backoff of the last replenishment and the time it was due, {@link #replenishPending} guards concurrent updates.
+     */
+    private volatile long replenishBackoffNanos;
+    private volatile long lastReplenishNanos;
+
+    Host() {
+        address = null;
+        connectionClosedListener = null;
+    }
+
+    Host(Addr address) {
+        this(address, null);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param address the address of this host.
+     * @param connectionClosedListener invoked after a connection added to this host is closed and its slot has been
+     * released.
+     */
+    Host(Addr address, @Nullable Consumer<Host<Addr, C>> connectionClosedListener) {
+        this.address = address;
+        this.connectionClosedListener = connectionClosedListener;
+        // Connections are established as soon as the host is added, so this is the first replenishment.
+        lastReplenishNanos = nanoTime();
+    }
+
+    /**
+     * Get a snapshot of the connections to this host.
+     *
+     * @return an immutable snapshot of the connections to this host.
+     */
+    List<C> connections() {
+        return connections;
+    }
+
+    /**
+     * Select an existing connection to this host.
+     *
+     * @param selector the selector passed to {@link io.servicetalk.client.api.LoadBalancer#selectConnection(Function)}.
+     * @param <CC> Type of connection returned.
+     * @return the selected connection or {@code null} if no existing connection was selected.
+     */
+    @Nullable
+    <CC extends C> CC selectConnection(Function<? super C, CC> selector) {
+        final List<C> connections = this.connections;
+        final int size = connections.size();
+        final int hint = selectionHint;
+        for (int i = 0; i < size; ++i) {
+            // The hint may be stale (e.g. after a removal) but it is only used as a starting point.
+            final int index = (hint + i) % size;
+            final CC selection = selector.apply(connections.get(index));
+            if (selection != null) {
+                if (index != hint) {
+                    selectionHint = index;
+                }
+                return selection;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Reserve a connection slot before creating a new connection. The slot is released when the connection is closed,
+     * or via {@link #releaseConnection()} if the connection is never added with {@link #addConnection(ListenableAsyncCloseable)}.
+     *
+     * @param maxConnections the maximum number of connections (established or being established) to this host.
+     * @return {@code true} if a slot was reserved, {@code false} if this host already has {@code maxConnections}.
+     */
+    boolean tryReserveConnection(int maxConnections) {
+        for (;;) {
+            final int reserved = reservedConnections;
+            if (reserved >= maxConnections) {
+                return false;
+            }
+            if (reservedConnectionsUpdater.compareAndSet(this, reserved, reserved + 1)) {
+                return true;
+            }
+        }
+    }
+
+    void releaseConnection() {
+        reservedConnectionsUpdater.decrementAndGet(this);
+    }
+
+    boolean isEjected() {
+        return ejected != 0;
+    }
+
+    void onConnectSuccess() {
+        if (consecutiveConnectFailures != 0) {
+            consecutiveConnectFailures = 0;
+        }
+    }
+
+    /**
+     * Record a failure to establish a connection to this host.
+     *
+     * @param ejectionThreshold number of consecutive failures after which this host is ejected.
+     * @return {@code true} if this host has been ejected as a result of this failure, {@code false} if this host was
+     * already ejected or did not reach the threshold.
+     */
+    boolean onConnectFailure(int ejectionThreshold) {
+        return consecutiveConnectFailuresUpdater.incrementAndGet(this) >= ejectionThreshold &&
+                ejectedUpdater.compareAndSet(this, 0, 1);
+    }
+
+    void readmit() {
+        consecutiveConnectFailures = 0;
+        ejected = 0;
+    }
+
+    /**
+     * Start replenishing the connections to this host after a connection was closed.
+     *
+     * @return {@code true} if no other replenishment is pending and {@link #replenishDone()} must be called once the
+     * replenishment is started, {@code false} otherwise.
+     */
+    boolean tryStartReplenish() {
+        return replenishPendingUpdater.compareAndSet(this, 0, 1);
+    }
+
+    void replenishDone() {
+        replenishPending = 0;
+    }
+
+    /**
+     * Compute the delay of the replenishment started via {@link #tryStartReplenish()}. Connections are replenished
+     * immediately unless the previous replenishment happened recently, in which case the delay follows the backoff
+     * of the {@link HealthCheckConfig} to avoid reconnecting in a tight loop to a host which keeps closing
+     * connections.
+     *
+     * @param healthCheckConfig the {@link HealthCheckConfig} providing the backoff.
+     * @return the delay in nanoseconds, {@code 0} to replenish immediately.
+     */
+    long nextReplenishDelayNanos(HealthCheckConfig healthCheckConfig) {
+        final long now = nanoTime();
+        final long backoffNanos = replenishBackoffNanos;
+        final long delayNanos;
+        if (now - lastReplenishNanos > Math.max(backoffNanos, healthCheckConfig.getEjectionBackoffNanos())) {
+            delayNanos = 0;
+        } else if (backoffNanos == 0) {
+            delayNanos = healthCheckConfig.getEjectionBackoffNanos();
+        } else {
+            delayNanos = healthCheckConfig.nextEjectionBackoffNanos(backoffNanos);
+        }
+        replenishBackoffNanos = delayNanos;
+        lastReplenishNanos = now + delayNanos;
+        return delayNanos;
+    }
+
+    void markInactive() {
+        removed = true;
+        healthCheckCancellable.cancel();
+        replenishCancellable.cancel();
+        @SuppressWarnings("unchecked")
+        final List<C> toClose = connectionsUpdater.getAndSet(this, emptyList());
+        for (C connection : toClose) {
+            connection.closeAsync().subscribe();
+        }
+    }
+
+    /**
+     * Add a connection created after a successful {@link #tryReserveConnection(int)}.
+     *
+     * @param connection the connection to add.
+     * @return {@code true} if the connection was added, {@code false} if this host was removed concurrently in which
+     * case the connection slot is released.
+     */
+    boolean addConnection(C connection) {
+        for (;;) {
+            final List<C> current = connections;
+            final List<C> next = new ArrayList<>(current.size() + 1);
+            next.addAll(current);
+            next.add(connection);
+            if (connectionsUpdater.compareAndSet(this, current, next)) {
+                break;
+            }
+        }
+        if (removed) {
+            // It could be that this host was removed concurrently and was not closed by markInactive().
+            // So, we check removed again and remove from the list + close.
+            if (removeConnection(connection)) {
+                connection.closeAsync().subscribe();
+            }
+            releaseConnection();
+            return false;
+        }
+
+        // Instrument the new connection so we prune it on close
+        connection.onClose().doBeforeFinally(() -> {
+            removeConnection(connection);
+            releaseConnection();
+            if (connectionClosedListener != null) {
+                connectionClosedListener.accept(this);
+            }
+        }).subscribe();
+        return true;
+    }
+
+    boolean removeConnection(C connection) {
+        for (;;) {
+            final List<C> current = connections;
+            final int i = current.indexOf(connection);
+            if (i < 0) {
+                return false;
+            }
+            final List<C> next;
+            if (current.size() == 1) {
+                next = emptyList();
+            } else {
+                next = new ArrayList<>(current);
+                next.remove(i);
+            }
+            if (connectionsUpdater.compareAndSet(this, current, next)) {
+                return true;
+            }
+        }
+    }
+
+    // Used for testing only
+    Entry<Addr, List<C>> asEntry() {
+        assert address != null;
+        return new SimpleImmutableEntry<>(address, new ArrayList<>(connections));
+    }
+
+    @Override
+    public Completable closeAsync() {
+        return completed().doBeforeSubscribe(__ -> {
+            healthCheckCancellable.cancel();
+            replenishCancellable.cancel();
+        })
+                .mergeDelayError(connections.stream().map(AsyncCloseable::closeAsync)::iterator);
+    }
+}
@@ -0,0 +1,354 @@
+/*
+ * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.loadbalancer;
+
+import io.servicetalk.client.api.ConnectionFactory;
+import io.servicetalk.client.api.ConnectionRejectedException;
+import io.servicetalk.client.api.LoadBalancer;
+import io.servicetalk.client.api.LoadBalancerFactory;
+import io.servicetalk.client.api.NoAvailableHostException;
+import io.servicetalk.client.api.RetryableException;
+import io.servicetalk.client.api.ServiceDiscoverer;
+import io.servicetalk.concurrent.api.Completable;
+import io.servicetalk.concurrent.api.ListenableAsyncCloseable;
+import io.servicetalk.concurrent.api.Publisher;
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.concurrent.internal.SequentialCancellable;
+
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+import static io.servicetalk.client.api.LoadBalancerReadyEvent.LOAD_BALANCER_NOT_READY_EVENT;
+import static io.servicetalk.client.api.LoadBalancerReadyEvent.LOAD_BALANCER_READY_EVENT;
+import static io.servicetalk.concurrent.api.AsyncCloseables.newCompositeCloseable;
+import static io.servicetalk.concurrent.api.AsyncCloseables.toAsyncCloseable;
+import static io.servicetalk.concurrent.api.Single.error;
+import static io.servicetalk.concurrent.api.Single.success;
+import static io.servicetalk.concurrent.internal.ThrowableUtil.unknownStackTrace;
+import static java.util.Collections.emptyList;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.atomic.AtomicIntegerFieldUpdater.newUpdater;
+import static java.util.concurrent.atomic.AtomicReferenceFieldUpdater.newUpdater;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * A {@link LoadBalancer} that uses the "power of two choices" strategy for selecting addresses. It has the following
+ * behaviour:
+ * <ul>
+ * <li>For every selection two distinct addresses are picked at random and the one with the lower estimated cost is
+ * used.</li>
+ * <li>The cost of an address is its estimated number of outstanding requests weighted by an EWMA of the time it takes
+ * to establish a connection to it.</li>
+ * <li>Outstanding requests are estimated from the connections that the selector passed to
+ * {@link #selectConnection(Function)} rejects (i.e. connections which are already used to their maximum capacity) and
+ * from the connections that are currently being established. This estimation decays over time, so an address that
+ * stopped being selected will eventually be considered again.</li>
+ * <li>Existing connections are reused unless a selector passed to {@link #selectConnection(Function)} suggests otherwise.
+ * Connections are created lazily, without any concurrency control on their creation.</li>
+ * <li>Closed connections are automatically pruned.</li>
+ * </ul>
+ * Compared to {@link RoundRobinLoadBalancer}, this strategy shifts traffic away from addresses which are slower to serve
+ * requests, because their connections stay saturated for longer.
+ *
+ * @param <ResolvedAddress> The resolved address type.
+ * @param <C> The type of connection.
+ */
+public final class P2CLoadBalancer<ResolvedAddress, C extends ListenableAsyncCloseable> implements LoadBalancer<C> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(P2CLoadBalancer.class);
+    private static final IllegalStateException LB_CLOSED_SELECT_CNX_EXCEPTION =
+            unknownStackTrace(new IllegalStateException("LoadBalancer has closed"), P2CLoadBalancer.class, "selectConnection0(...)");
+    private static final NoAvailableHostException NO_ACTIVE_HOSTS_SELECT_CNX_EXCEPTION =
+            unknownStackTrace(new NoAvailableHostException("No hosts are available to connect."), P2CLoadBalancer.class, "selectConnection0(...)");
+
+    private static final AtomicReferenceFieldUpdater<P2CLoadBalancer, List> activeHostsUpdater =
+            newUpdater(P2CLoadBalancer.class, List.class, "activeHosts");
+
+    private volatile boolean closed;
+    private volatile List<P2CHost<ResolvedAddress, C>> activeHosts = emptyList();
+
+    private final PublisherProcessorSingle<Object> eventStream = new PublisherProcessorSingle<>();
+    private final SequentialCancellable discoveryCancellable = new SequentialCancellable();
+    private final ConnectionFactory<ResolvedAddress, ? extends C> connectionFactory;
+    private final LongSupplier nanoTime;
+    private final ListenableAsyncCloseable asyncCloseable;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param eventPublisher    provides a stream of addresses to connect to.
+     * @param connectionFactory a function which creates new connections.
+     */
+    public P2CLoadBalancer(final Publisher<? extends ServiceDiscoverer.Event<ResolvedAddress>> eventPublisher,
+                           final ConnectionFactory<ResolvedAddress, ? extends C> connectionFactory) {
+        this(eventPublisher, connectionFactory, System::nanoTime);
+    }
+
+    // Visible for testing
+    P2CLoadBalancer(final Publisher<? extends ServiceDiscoverer.Event<ResolvedAddress>> eventPublisher,
+                    final ConnectionFactory<ResolvedAddress, ? extends C> connectionFactory,
+                    final LongSupplier nanoTime) {
+        this.connectionFactory = requireNonNull(connectionFactory);
+        this.nanoTime = requireNonNull(nanoTime);
+
+        eventPublisher.subscribe(new org.reactivestreams.Subscriber<ServiceDiscoverer.Event<ResolvedAddress>>() {
+
+            @Override
+            public void onSubscribe(final Subscription s) {
+                // See RoundRobinLoadBalancer, onNexts are processed synchronously so we do not need flow control.
+                s.request(Long.MAX_VALUE);
+                discoveryCancellable.setNextCancellable(s::cancel);
+            }
+
+            @SuppressWarnings("unchecked")
+            @Override
+            public void onNext(final ServiceDiscoverer.Event<ResolvedAddress> event) {
+                final List<P2CHost<ResolvedAddress, C>> activeAddresses =
+                        activeHostsUpdater.updateAndGet(P2CLoadBalancer.this, currentAddresses -> {
+                            final List<P2CHost<ResolvedAddress, C>> refreshedAddresses = new ArrayList<>(currentAddresses);
+                            // Selection is random, so there is no need to keep the addresses ordered.
+                            int i = 0;
+                            for (; i < refreshedAddresses.size(); ++i) {
+                                if (event.getAddress().equals(refreshedAddresses.get(i).address)) {
+                                    break;
+                                }
+                            }
+
+                            if (event.isAvailable()) {
+                                if (i == refreshedAddresses.size()) {
+                                    refreshedAddresses.add(new P2CHost<>(event.getAddress()));
+                                }
+                            } else if (i < refreshedAddresses.size()) {
+                                refreshedAddresses.remove(i).markInactive();
+                            }
+
+                            return refreshedAddresses;
+                        });
+
+                if (event.isAvailable()) {
+                    if (activeAddresses.size() == 1) {
+                        eventStream.sendOnNext(LOAD_BALANCER_READY_EVENT);
+                    }
+                } else if (activeAddresses.isEmpty()) {
+                    eventStream.sendOnNext(LOAD_BALANCER_NOT_READY_EVENT);
+                }
+
+                LOGGER.debug("Running with {} active addresses", activeAddresses.size());
+            }
+
+            @Override
+            public void onError(final Throwable t) {
+                LOGGER.error("Service discoverer {} failure.", eventPublisher, t);
+            }
+
+            @Override
+            public void onComplete() {
+                LOGGER.debug("Service discoverer {} has completed.", eventPublisher);
+            }
+        });
+        asyncCloseable = toAsyncCloseable(() -> {
+            closed = true;
+            discoveryCancellable.cancel();
+            eventStream.sendOnComplete();
+            @SuppressWarnings("unchecked")
+            List<P2CHost<ResolvedAddress, C>> currentList = activeHostsUpdater
+                    .getAndSet(P2CLoadBalancer.this, Collections.<P2CHost<ResolvedAddress, C>>emptyList());
+            return newCompositeCloseable().appendAll(currentList).appendAll(connectionFactory).closeAsync();
+        });
+    }
+
+    /**
+     * Create a {@link LoadBalancerFactory} that creates instances of {@link P2CLoadBalancer}.
+     * @param <ResolvedAddress> The resolved address type.
+     * @param <C> The type of connection.
+     * @return a {@link LoadBalancerFactory} that creates instances of {@link P2CLoadBalancer}.
+     */
+    public static <ResolvedAddress, C extends ListenableAsyncCloseable>
+                                    LoadBalancerFactory<ResolvedAddress, C> newP2CFactory() {
+        return P2CLoadBalancer::new;
+    }
+
+    @Override
+    public <CC extends C> Single<CC> selectConnection(Function<C, CC> selector) {
+        return new Single<CC>() {
+            @Override
+            protected void handleSubscribe(Subscriber<? super CC> subscriber) {
+                selectConnection0(selector).subscribe(subscriber);
+            }
+        };
+    }
+
+    @Override
+    public Publisher<Object> getEventStream() {
+        return eventStream;
+    }
+
+    private <CC extends C> Single<CC> selectConnection0(Function<? super C, CC> selector) {
+        if (closed) {
+            return error(LB_CLOSED_SELECT_CNX_EXCEPTION);
+        }
+
+        final List<P2CHost<ResolvedAddress, C>> activeHosts = this.activeHosts;
+        if (activeHosts.isEmpty()) {
+            // This is the case when SD has emitted some items but none of the hosts are active.
+            return error(NO_ACTIVE_HOSTS_SELECT_CNX_EXCEPTION);
+        }
+
+        final long now = nanoTime.getAsLong();
+        final P2CHost<ResolvedAddress, C> host;
+        if (activeHosts.size() == 1) {
+            host = activeHosts.get(0);
+        } else {
+            final ThreadLocalRandom random = ThreadLocalRandom.current();
+            final int i1 = random.nextInt(activeHosts.size());
+            int i2 = random.nextInt(activeHosts.size() - 1);
+            if (i2 >= i1) {
+                ++i2;
+            }
+            final P2CHost<ResolvedAddress, C> host1 = activeHosts.get(i1);
+            final P2CHost<ResolvedAddress, C> host2 = activeHosts.get(i2);
+            host = host1.cost(now) <= host2.cost(now) ? host1 : host2;
+        }
+        assert host.address != null : "Host address can't be null.";
+
+        // Try first to see if an existing connection can be used, every rejection hints at an outstanding request.
+        int rejected = 0;
+        final List<C> connections = host.connections();
+        for (int i = 0; i < connections.size(); ++i) {
+            CC selection = selector.apply(connections.get(i));
+            if (selection != null) {
+                host.recordRejections(rejected, now);
+                return success(selection);
+            }
+            ++rejected;
+        }
+        host.recordRejections(rejected, now);
+
+        // No connection was selected: create a new one
+        host.onConnectStart();
+        // Connections are not capped, reserving is only required to balance the release when the connection closes.
+        host.tryReserveConnection(Integer.MAX_VALUE);
+        return connectionFactory.newConnection(host.address)
+                .doBeforeSuccess(__ -> host.recordConnectLatency(nanoTime.getAsLong() - now))
+                .doBeforeError(__ -> host.releaseConnection())
+                .doBeforeCancel(host::releaseConnection)
+                .doBeforeFinally(host::onConnectDone)
+                .flatMap(newCnx -> {
+                    // Invoke the selector before adding the connection to the pool, otherwise, connection can be used concurrently
+                    // and hence a new connection can be rejected by the selector.
+                    CC selection = selector.apply(newCnx);
+                    if (selection == null) {
+                        host.releaseConnection();
+                        newCnx.closeAsync().subscribe();
+                        return error(new ConnectionRejectedException("Newly created connection " + newCnx + " rejected by the selection filter."));
+                    }
+                    if (host.addConnection(newCnx)) {
+                        // See RoundRobinLoadBalancer, if the LB has closed concurrently we are responsible for closing.
+                        if (closed) {
+                            if (host.removeConnection(newCnx)) {
+                                newCnx.closeAsync().subscribe();
+                            }
+                            return error(LB_CLOSED_SELECT_CNX_EXCEPTION);
+                        }
+                        return success(selection);
+                    }
+                    return error(new RetryableException("Failed to add newly created connection for host: " + host.address + ", host inactive? " + host.removed));
+                });
+    }
+
+    @Override
+    public Completable onClose() {
+        return asyncCloseable.onClose();
+    }
+
+    @Override
+    public Completable closeAsync() {
+        return asyncCloseable.closeAsync();
+    }
+
+    // Visible for testing
+    List<Entry<ResolvedAddress, List<C>>> getActiveAddresses() {
+        return activeHosts.stream().map(Host::asEntry).collect(toList());
+    }
+
+    private static final class P2CHost<Addr, C extends ListenableAsyncCloseable> extends Host<Addr, C> {
+        private static final AtomicIntegerFieldUpdater<P2CHost> pendingConnectsUpdater =
+                newUpdater(P2CHost.class, "pendingConnects");
+        /**
+         * Fixed point scale used for the outstanding requests estimation, to avoid floating point arithmetic.
+         */
+        private static final int SCALE_SHIFT = 10;
+        /**
+         * The weight of a new sample in the EWMAs is {@code 1 / 2^EWMA_SHIFT}.
+         */
+        private static final int EWMA_SHIFT = 3;
+        /**
+         * The outstanding requests estimation is halved every time this amount of time elapses without a selection.
+         */
+        private static final long DECAY_HALF_LIFE_NANOS = 1_000_000_000L;
+
+        private volatile int pendingConnects;
+        // The following are updated without atomicity, a lost update only makes the estimation less accurate.
+        private volatile long outstandingEwma;
+        private volatile long lastUpdateNanos;
+        private volatile long connectLatencyEwmaNanos;
+
+        P2CHost(Addr address) {
+            super(address);
+        }
+
+        long cost(final long now) {
+            final long outstanding = decayedOutstanding(now) + ((long) (pendingConnects + 1) << SCALE_SHIFT);
+            return outstanding * Math.max(1, connectLatencyEwmaNanos);
+        }
+
+        void recordRejections(final int rejected, final long now) {
+            final long decayed = decayedOutstanding(now);
+            outstandingEwma = decayed + ((((long) rejected << SCALE_SHIFT) - decayed) >> EWMA_SHIFT);
+            lastUpdateNanos = now;
+        }
+
+        void onConnectStart() {
+            pendingConnectsUpdater.incrementAndGet(this);
+        }
+
+        void onConnectDone() {
+            pendingConnectsUpdater.decrementAndGet(this);
+        }
+
+        void recordConnectLatency(final long latencyNanos) {
+            final long current = connectLatencyEwmaNanos;
+            connectLatencyEwmaNanos = current == 0 ? latencyNanos : current + ((latencyNanos - current) >> EWMA_SHIFT);
+        }
+
+        private long decayedOutstanding(final long now) {
+            final long halvings = (now - lastUpdateNanos) / DECAY_HALF_LIFE_NANOS;
+            return halvings <= 0 ? outstandingEwma : halvings >= Long.SIZE ? 0 : outstandingEwma >>> halvings;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.loadbalancer;
+
+import io.servicetalk.concurrent.api.Publisher;
+
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import javax.annotation.Nullable;
+
+import static io.servicetalk.concurrent.internal.EmptySubscription.EMPTY_SUBSCRIPTION;
+import static io.servicetalk.concurrent.internal.SubscriberUtils.SUBSCRIBER_STATE_TERMINATED;
+import static io.servicetalk.concurrent.internal.SubscriberUtils.checkTerminationValidWithConcurrentOnNextCheck;
+import static io.servicetalk.concurrent.internal.SubscriberUtils.isRequestNValid;
+import static io.servicetalk.concurrent.internal.SubscriberUtils.newExceptionForInvalidRequestN;
+import static io.servicetalk.concurrent.internal.SubscriberUtils.sendOnNextWithConcurrentTerminationCheck;
+import static io.servicetalk.concurrent.internal.TerminalNotification.complete;
+import static java.util.concurrent.atomic.AtomicIntegerFieldUpdater.newUpdater;
+import static java.util.concurrent.atomic.AtomicReferenceFieldUpdater.newUpdater;
+
+/**
+ * Eventually this will be replaced by a PublisherProcessor which is backed by a queue and allows for
+ * arbitrary events being published.
+ * @param <T> The type of data delivered to {@link Subscriber}s.
+ */
+final class PublisherProcessorSingle<T> extends Publisher<T> {
+    private static final AtomicIntegerFieldUpdater<PublisherProcessorSingle> subscriberStateUpdater =
+            newUpdater(PublisherProcessorSingle.class, "subscriberState");
+    private static final AtomicReferenceFieldUpdater<PublisherProcessorSingle, Object> terminalNotificationUpdater =
+            newUpdater(PublisherProcessorSingle.class, Object.class, "terminalNotification");
+    private static final AtomicReferenceFieldUpdater<PublisherProcessorSingle, Object> eventUpdater =
+            newUpdater(PublisherProcessorSingle.class, Object.class, "event");
+    private static final Object REQUESTED = new Object();
+    private static final Object DELIVERED = new Object();
+    private static final Object COMPLETED = new Object();
+    @Nullable
+    private volatile Subscriber<? super T> subscriber;
+    @Nullable
+    private volatile Object event;
+    @SuppressWarnings("unused")
+    private volatile int subscriberState;
+    @SuppressWarnings("unused")
+    @Nullable
+    private volatile Object terminalNotification;
+
+    @Override
+    protected void handleSubscribe(final Subscriber<? super T> subscriber) {
+        if (this.subscriber == null) {
+            this.subscriber = subscriber;
+            subscriber.onSubscribe(new Subscription() {
+                @Override
+                public void request(final long n) {
+                    if (isRequestNValid(n)) {
+                        for (;;) {
+                            Object event = PublisherProcessorSingle.this.event;
+                            if (event == REQUESTED || event == DELIVERED || event == COMPLETED) {
+                                break;
+                            } else if (event != null) {
+                                if (eventUpdater.compareAndSet(PublisherProcessorSingle.this, event, DELIVERED)) {
+                                    @SuppressWarnings("unchecked")
+                                    final T finalT = (T) event;
+                                    deliverOnNext(finalT, subscriber);
+                                    break;
+                                }
+                            } else if (eventUpdater.compareAndSet(PublisherProcessorSingle.this, null, REQUESTED)) {
+                                // Check if sendOnComplete was called but the Subscriber was not visible, and then
+                                // deliver the terminal notification if we change the event to COMPLETED.
+                                if (subscriberState == SUBSCRIBER_STATE_TERMINATED &&
+                                    eventUpdater.compareAndSet(PublisherProcessorSingle.this, REQUESTED, COMPLETED)) {
+                                    subscriber.onComplete();
+                                }
+                                break;
+                            }
+                        }
+                    } else {
+                        Throwable cause = newExceptionForInvalidRequestN(n);
+                        if (checkTerminationValidWithConcurrentOnNextCheck(null, cause, subscriberStateUpdater,
+                                terminalNotificationUpdater, PublisherProcessorSingle.this)) {
+                            for (;;) {
+                                Object event = PublisherProcessorSingle.this.event;
+                                if (event == null || event == REQUESTED || event == DELIVERED) {
+                                    if (eventUpdater.compareAndSet(PublisherProcessorSingle.this, event, COMPLETED)) {
+                                        subscriber.onError(cause);
+                                        break;
+                                    }
+                                } else {
+                                    // If there is data pending we will deliver the error after the data.
+                                    break;
+                                }
+                            }
+                        }
+                    }
+                }
+
+                @Override
+                public void cancel() {
+                    // This will ensure the event is GCed (if it exists) and will swallow any terminal events which
+                    // also maybe pending.
+                    event = COMPLETED;
+                }
+            });
+        } else {
+            subscriber.onSubscribe(EMPTY_SUBSCRIPTION);
+            subscriber.onError(new IllegalStateException("only a single subscriber is supported"));
+        }
+    }
+
+    void sendOnNext(T next) {
+        for (;;) {
+            Object event = this.event;
+            if (event == null) {
+                if (eventUpdater.compareAndSet(this, null, next)) {
+                    break;
+                }
+            } else if (event == REQUESTED) {
+                if (eventUpdater.compareAndSet(this, REQUESTED, DELIVERED)) {
+                    Subscriber<? super T> subscriber = this.subscriber;
+                    assert subscriber != null;
+                    deliverOnNext(next, subscriber);
+                    break;
+                }
+            } else {
+                break;
+            }
+        }
+    }
+
+    void sendOnComplete() {
+        if (checkTerminationValidWithConcurrentOnNextCheck(null, complete(),
+                subscriberStateUpdater, terminalNotificationUpdater, this)) {
+            Subscriber<? super T> subscriber = this.subscriber;
+            // If the subscriber is not null, deliver the event now, otherwise we deliver in the Subscription.
+            if (subscriber != null) {
+                // Make a best effort to terminate early, if there is data pending we will let the Subscription
+                // deliver the terminal event after it delivers the data.
+                for (;;) {
+                    Object event = this.event;
+                    if (event == null || event == REQUESTED || event == DELIVERED) {
+                        if (eventUpdater.compareAndSet(this, event, COMPLETED)) {
+                            subscriber.onComplete();
+                            break;
+                        }
+                    } else {
+                        // Note that the Subscription may have requested data in the mean time, but we let the
+                        // Subscription handle that.
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    private void deliverOnNext(T next, Subscriber<? super T> subscriber) {
+        sendOnNextWithConcurrentTerminationCheck(subscriber, next, this::terminate,
+                subscriberStateUpdater, terminalNotificationUpdater, this);
+    }
+
+    private void terminate(Object terminalNotification) {
+        Subscriber<? super T> subscriber = this.subscriber;
+        assert subscriber != null;
+        if (terminalNotification instanceof Throwable) {
+            subscriber.onError((Throwable) terminalNotification);
+        } else {
+            subscriber.onComplete();
+        }
+    }
+}
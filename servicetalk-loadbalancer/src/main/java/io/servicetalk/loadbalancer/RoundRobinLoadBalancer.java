@@ -16,14 +16,16 @@
 package io.servicetalk.loadbalancer;
 
 import io.servicetalk.client.api.ConnectionFactory;
+import io.servicetalk.client.api.ConnectionLimitReachedException;
 import io.servicetalk.client.api.ConnectionRejectedException;
 import io.servicetalk.client.api.LoadBalancer;
 import io.servicetalk.client.api.LoadBalancerFactory;
+import io.servicetalk.client.api.LoadBalancerReadyEvent;
 import io.servicetalk.client.api.NoAvailableHostException;
 import io.servicetalk.client.api.RetryableException;
 import io.servicetalk.client.api.ServiceDiscoverer;
-import io.servicetalk.concurrent.api.AsyncCloseable;
 import io.servicetalk.concurrent.api.Completable;
+import io.servicetalk.concurrent.api.Executor;
 import io.servicetalk.concurrent.api.ListenableAsyncCloseable;
 import io.servicetalk.concurrent.api.Publisher;
 import io.servicetalk.concurrent.api.Single;
@@ -34,39 +36,31 @@ import org.reactivestreams.Subscription;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.AbstractMap.SimpleImmutableEntry;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map.Entry;
-import java.util.Queue;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import java.util.function.Function;
+import java.util.function.Predicate;
 import javax.annotation.Nullable;
 
 import static io.servicetalk.client.api.LoadBalancerReadyEvent.LOAD_BALANCER_NOT_READY_EVENT;
 import static io.servicetalk.client.api.LoadBalancerReadyEvent.LOAD_BALANCER_READY_EVENT;
 import static io.servicetalk.concurrent.api.AsyncCloseables.newCompositeCloseable;
 import static io.servicetalk.concurrent.api.AsyncCloseables.toAsyncCloseable;
-import static io.servicetalk.concurrent.api.Completable.completed;
 import static io.servicetalk.concurrent.api.Single.error;
 import static io.servicetalk.concurrent.api.Single.success;
-import static io.servicetalk.concurrent.internal.EmptySubscription.EMPTY_SUBSCRIPTION;
-import static io.servicetalk.concurrent.internal.SubscriberUtils.SUBSCRIBER_STATE_TERMINATED;
-import static io.servicetalk.concurrent.internal.SubscriberUtils.checkTerminationValidWithConcurrentOnNextCheck;
-import static io.servicetalk.concurrent.internal.SubscriberUtils.isRequestNValid;
-import static io.servicetalk.concurrent.internal.SubscriberUtils.newExceptionForInvalidRequestN;
-import static io.servicetalk.concurrent.internal.SubscriberUtils.sendOnNextWithConcurrentTerminationCheck;
-import static io.servicetalk.concurrent.internal.TerminalNotification.complete;
 import static io.servicetalk.concurrent.internal.ThrowableUtil.unknownStackTrace;
 import static java.util.Collections.binarySearch;
 import static java.util.Collections.emptyList;
 import static java.util.Comparator.comparing;
 import static java.util.Comparator.comparingInt;
 import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static java.util.concurrent.atomic.AtomicIntegerFieldUpdater.newUpdater;
 import static java.util.concurrent.atomic.AtomicReferenceFieldUpdater.newUpdater;
 import static java.util.stream.Collectors.toList;
@@ -76,10 +70,23 @@ import static java.util.stream.Collectors.toList;
  * <ul>
  * <li>Round robining is done at address level.</li>
  * <li>Connections are created lazily, without any concurrency control on their creation.
- * This can lead to over-provisioning connections when dealing with a requests surge.</li>
+ * This can lead to over-provisioning connections when dealing with a requests surge, unless a maximum number of
+ * connections per host is configured. When this maximum is reached and no existing connection is selected,
+ * selection fails fast with a {@link ConnectionLimitReachedException}.</li>
  * <li>Existing connections are reused unless a selector passed to {@link #selectConnection(Function)} suggests otherwise.
  * This can lead to situations where connections will be used to their maximum capacity (for example in the context of pipelining)
  * before new connections are created.</li>
+ * <li>Optionally, a minimum number of connections is eagerly established to every address and maintained as
+ * connections close, so that requests do not pay the connection establishment latency. In this case
+ * {@link LoadBalancerReadyEvent#LOAD_BALANCER_READY_EVENT} can be deferred until the first of these connections is
+ * established.</li>
+ * <li>Optionally, hosts are health checked as described in {@link HealthCheckConfig}. Ejected hosts are skipped while
+ * round robining, and selection fails with a {@link NoAvailableHostException} if all hosts are ejected.</li>
+ * <li>Selection of existing connections starts from the connection that was last selected for the same address, so
+ * all connections are only probed when this connection no longer has capacity.</li>
+ * <li>If the {@link ConnectionFactory} implements {@link ConnectionAffinity}, connections that are affine to the thread
+ * selecting a connection are preferred. If none of them is selected, a new connection is created, and only when the
+ * maximum number of connections is reached are the other connections considered.</li>
  * <li>Closed connections are automatically pruned.</li>
  * </ul>
  *
@@ -93,20 +100,39 @@ public final class RoundRobinLoadBalancer<ResolvedAddress, C extends ListenableA
             unknownStackTrace(new IllegalStateException("LoadBalancer has closed"), RoundRobinLoadBalancer.class, "selectConnection0(...)");
     private static final NoAvailableHostException NO_ACTIVE_HOSTS_SELECT_CNX_EXCEPTION =
             unknownStackTrace(new NoAvailableHostException("No hosts are available to connect."), RoundRobinLoadBalancer.class, "selectConnection0(...)");
+    private static final NoAvailableHostException NO_HEALTHY_HOSTS_SELECT_CNX_EXCEPTION =
+            unknownStackTrace(new NoAvailableHostException("All hosts are unhealthy."), RoundRobinLoadBalancer.class, "selectConnection0(...)");
+    private static final ConnectionLimitReachedException CONNECTION_LIMIT_REACHED_SELECT_CNX_EXCEPTION =
+            unknownStackTrace(new ConnectionLimitReachedException("Maximum number of connections reached for host."), RoundRobinLoadBalancer.class, "selectConnection0(...)");
 
     private static final AtomicReferenceFieldUpdater<RoundRobinLoadBalancer, List> activeHostsUpdater =
             newUpdater(RoundRobinLoadBalancer.class, List.class, "activeHosts");
     private static final AtomicIntegerFieldUpdater<RoundRobinLoadBalancer> indexUpdater =
             newUpdater(RoundRobinLoadBalancer.class, "index");
+    private static final AtomicIntegerFieldUpdater<RoundRobinLoadBalancer> readyUpdater =
+            newUpdater(RoundRobinLoadBalancer.class, "ready");
 
     private volatile boolean closed;
     @SuppressWarnings("unused")
     private volatile int index;
+    /**
+     * {@code 1} if {@link LoadBalancerReadyEvent#LOAD_BALANCER_READY_EVENT} was the last event emitted, used to emit
+     * it only once per transition as every warm connection would otherwise emit it.
+     */
+    @SuppressWarnings("unused")
+    private volatile int ready;
     private volatile List<Host<ResolvedAddress, C>> activeHosts = emptyList();
 
     private final PublisherProcessorSingle<Object> eventStream = new PublisherProcessorSingle<>();
     private final SequentialCancellable discoveryCancellable = new SequentialCancellable();
     private final ConnectionFactory<ResolvedAddress, ? extends C> connectionFactory;
+    @Nullable
+    private final ConnectionAffinity<? super C> connectionAffinity;
+    private final int maxConnectionsPerHost;
+    private final int minConnectionsPerHost;
+    private final boolean waitForWarmConnections;
+    @Nullable
+    private final HealthCheckConfig healthCheckConfig;
     private final ListenableAsyncCloseable asyncCloseable;
 
     /**
@@ -119,8 +145,64 @@ public final class RoundRobinLoadBalancer<ResolvedAddress, C extends ListenableA
     public RoundRobinLoadBalancer(final Publisher<? extends ServiceDiscoverer.Event<ResolvedAddress>> eventPublisher,
                                   final ConnectionFactory<ResolvedAddress, ? extends C> connectionFactory,
                                   final Comparator<ResolvedAddress> comparator) {
+        this(eventPublisher, connectionFactory, comparator, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param eventPublisher    provides a stream of addresses to connect to.
+     * @param connectionFactory a function which creates new connections.
+     * @param comparator        used to compare addresses for lookup/iteration during the connection attempt phase.
+     * @param maxConnectionsPerHost the maximum number of connections (including the ones being established) to a single
+     * address.
+     */
+    public RoundRobinLoadBalancer(final Publisher<? extends ServiceDiscoverer.Event<ResolvedAddress>> eventPublisher,
+                                  final ConnectionFactory<ResolvedAddress, ? extends C> connectionFactory,
+                                  final Comparator<ResolvedAddress> comparator,
+                                  final int maxConnectionsPerHost) {
+        this(eventPublisher, connectionFactory, comparator, maxConnectionsPerHost, null);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param eventPublisher    provides a stream of addresses to connect to.
+     * @param connectionFactory a function which creates new connections.
+     * @param comparator        used to compare addresses for lookup/iteration during the connection attempt phase.
+     * @param maxConnectionsPerHost the maximum number of connections (including the ones being established) to a single
+     * address.
+     * @param healthCheckConfig configuration of the health checking of hosts or {@code null} to disable health checking.
+     */
+    public RoundRobinLoadBalancer(final Publisher<? extends ServiceDiscoverer.Event<ResolvedAddress>> eventPublisher,
+                                  final ConnectionFactory<ResolvedAddress, ? extends C> connectionFactory,
+                                  final Comparator<ResolvedAddress> comparator,
+                                  final int maxConnectionsPerHost,
+                                  @Nullable final HealthCheckConfig healthCheckConfig) {
+        this(eventPublisher, connectionFactory, comparator, maxConnectionsPerHost, 0, false, healthCheckConfig);
+    }
 
+    @SuppressWarnings("unchecked")
+    RoundRobinLoadBalancer(final Publisher<? extends ServiceDiscoverer.Event<ResolvedAddress>> eventPublisher,
+                           final ConnectionFactory<ResolvedAddress, ? extends C> connectionFactory,
+                           final Comparator<ResolvedAddress> comparator,
+                           final int maxConnectionsPerHost,
+                           final int minConnectionsPerHost,
+                           final boolean waitForWarmConnections,
+                           @Nullable final HealthCheckConfig healthCheckConfig) {
+        if (maxConnectionsPerHost <= 0) {
+            throw new IllegalArgumentException("maxConnectionsPerHost: " + maxConnectionsPerHost + " (expected >0)");
+        }
+        if (minConnectionsPerHost < 0) {
+            throw new IllegalArgumentException("minConnectionsPerHost: " + minConnectionsPerHost + " (expected >=0)");
+        }
         this.connectionFactory = requireNonNull(connectionFactory);
+        this.connectionAffinity = connectionFactory instanceof ConnectionAffinity ?
+                (ConnectionAffinity<? super C>) connectionFactory : null;
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+        this.minConnectionsPerHost = Math.min(minConnectionsPerHost, maxConnectionsPerHost);
+        this.waitForWarmConnections = waitForWarmConnections && minConnectionsPerHost > 0;
+        this.healthCheckConfig = healthCheckConfig;
 
         final Comparator<Host<ResolvedAddress, C>> activeAddressComparator =
                 comparing(host -> host instanceof MutableAddressHost ? ((MutableAddressHost<ResolvedAddress, C>) host).mutableAddress : host.address, comparator);
@@ -152,7 +234,8 @@ public final class RoundRobinLoadBalancer<ResolvedAddress, C extends ListenableA
 
                             if (event.isAvailable()) {
                                 if (i < 0) {
-                                    refreshedAddresses.add(-i - 1, new Host(event.getAddress()));
+                                    refreshedAddresses.add(-i - 1, minConnectionsPerHost == 0 ? new Host(event.getAddress()) :
+                                            new Host<>(event.getAddress(), RoundRobinLoadBalancer.this::replenishConnections));
                                 }
                             } else if (i >= 0) {
                                 Host<ResolvedAddress, C> removed = refreshedAddresses.remove(i);
@@ -165,10 +248,19 @@ public final class RoundRobinLoadBalancer<ResolvedAddress, C extends ListenableA
                         });
 
                 if (event.isAvailable()) {
-                    if (activeAddresses.size() == 1) {
-                        eventStream.sendOnNext(LOAD_BALANCER_READY_EVENT);
+                    if (minConnectionsPerHost > 0) {
+                        final MutableAddressHost<ResolvedAddress, C> searchHost = new MutableAddressHost();
+                        searchHost.mutableAddress = event.getAddress();
+                        final int i = binarySearch(activeAddresses, searchHost, activeAddressComparator);
+                        if (i >= 0) {
+                            ensureMinConnections(activeAddresses.get(i));
+                        }
+                    }
+                    if (activeAddresses.size() == 1 && !waitForWarmConnections) {
+                        sendReadyEvent();
                     }
                 } else if (activeAddresses.isEmpty()) {
+                    ready = 0;
                     eventStream.sendOnNext(LOAD_BALANCER_NOT_READY_EVENT);
                 }
 
@@ -209,6 +301,20 @@ public final class RoundRobinLoadBalancer<ResolvedAddress, C extends ListenableA
                 comparingInt(Object::hashCode));
     }
 
+    /**
+     * Create a {@link LoadBalancerFactory} that creates instances of {@link RoundRobinLoadBalancer} with a limited number
+     * of connections per address.
+     * @param maxConnectionsPerHost the maximum number of connections (including the ones being established) to a single
+     * address.
+     * @param <ResolvedAddress> The resolved address type.
+     * @param <C> The type of connection.
+     * @return a {@link LoadBalancerFactory} that creates instances of {@link RoundRobinLoadBalancer}.
+     */
+    public static <ResolvedAddress, C extends ListenableAsyncCloseable>
+                                    LoadBalancerFactory<ResolvedAddress, C> newRoundRobinFactory(int maxConnectionsPerHost) {
+        return new RoundRobinLoadBalancerFactory<ResolvedAddress, C>().setMaxConnectionsPerHost(maxConnectionsPerHost);
+    }
+
     @Override
     public <CC extends C> Single<CC> selectConnection(Function<C, CC> selector) {
         return new Single<CC>() {
@@ -236,272 +342,208 @@ public final class RoundRobinLoadBalancer<ResolvedAddress, C extends ListenableA
         }
 
         final int cursor = indexUpdater.getAndUpdate(this, i -> (++i & Integer.MAX_VALUE)) % activeHosts.size();
-        final Host<ResolvedAddress, C> host = activeHosts.get(cursor);
+        Host<ResolvedAddress, C> host = activeHosts.get(cursor);
         assert host != null : "Host can't be null.";
-        assert host.connections != null : "Host connections queue can't be null.";
-        assert host.address != null : "Host address can't be null.";
-
-        // Try first to see if an existing connection can be used
-        for (final C connection : host.connections) {
-            CC selection = selector.apply(connection);
-            if (selection != null) {
-                return success(selection);
+        if (host.isEjected()) {
+            // Skip ejected hosts, without moving the shared cursor to preserve round robining for the healthy hosts.
+            host = null;
+            for (int i = 1; i < activeHosts.size(); ++i) {
+                final Host<ResolvedAddress, C> candidate = activeHosts.get((cursor + i) % activeHosts.size());
+                if (!candidate.isEjected()) {
+                    host = candidate;
+                    break;
+                }
+            }
+            if (host == null) {
+                return error(NO_HEALTHY_HOSTS_SELECT_CNX_EXCEPTION);
             }
         }
+        final Host<ResolvedAddress, C> selectedHost = host;
+        assert selectedHost.address != null : "Host address can't be null.";
+
+        final Predicate<? super C> affinity = connectionAffinity == null ? null :
+                connectionAffinity.currentThreadAffinity();
+        if (affinity == null) {
+            // Try first to see if an existing connection can be used
+            final CC existingSelection = selectedHost.selectConnection(selector);
+            if (existingSelection != null) {
+                return success(existingSelection);
+            }
+
+            // No connection was selected: create a new one
+            if (!selectedHost.tryReserveConnection(maxConnectionsPerHost)) {
+                return error(CONNECTION_LIMIT_REACHED_SELECT_CNX_EXCEPTION);
+            }
+        } else {
+            // Try first to see if an existing connection affine to the calling thread can be used
+            final CC affineSelection = selectedHost.selectConnection(
+                    cnx -> affinity.test(cnx) ? selector.apply(cnx) : null);
+            if (affineSelection != null) {
+                return success(affineSelection);
+            }
 
-        // No connection was selected: create a new one
-        return connectionFactory.newConnection(host.address)
+            // No affine connection was selected: create a new one, which is created from the calling thread and hence
+            // expected to be affine to it, or fallback to any existing connection if no more connections are allowed
+            if (!selectedHost.tryReserveConnection(maxConnectionsPerHost)) {
+                final CC existingSelection = selectedHost.selectConnection(selector);
+                if (existingSelection != null) {
+                    return success(existingSelection);
+                }
+                return error(CONNECTION_LIMIT_REACHED_SELECT_CNX_EXCEPTION);
+            }
+        }
+        return connectionFactory.newConnection(selectedHost.address)
+                .doBeforeSuccess(__ -> selectedHost.onConnectSuccess())
+                .doBeforeError(__ -> {
+                    selectedHost.releaseConnection();
+                    onConnectFailure(selectedHost);
+                })
+                .doBeforeCancel(selectedHost::releaseConnection)
                 .flatMap(newCnx -> {
                     // Invoke the selector before adding the connection to the pool, otherwise, connection can be used concurrently
                     // and hence a new connection can be rejected by the selector.
                     CC selection = selector.apply(newCnx);
                     if (selection == null) {
+                        selectedHost.releaseConnection();
                         newCnx.closeAsync().subscribe();
                         // Failure in selection could be temporary, hence add it to the queue and be consistent with the
                         // fact that select failure does not close a connection.
                         return error(new ConnectionRejectedException("Newly created connection " + newCnx + " rejected by the selection filter."));
                     }
-                    if (host.addConnection(newCnx)) {
+                    if (selectedHost.addConnection(newCnx)) {
                         // If the LB has closed, we attempt to remove the connection, if the removal succeeds, close it.
                         // If we can't remove it, it means it's been removed concurrently and we assume that whoever removed it also closed it
                         // or that it has been removed as a consequence of closing.
                         if (closed) {
-                            if (host.connections.remove(newCnx)) {
+                            if (selectedHost.removeConnection(newCnx)) {
                                 newCnx.closeAsync().subscribe();
                             }
                             return error(LB_CLOSED_SELECT_CNX_EXCEPTION);
                         }
                         return success(selection);
                     }
-                    return error(new RetryableException("Failed to add newly created connection for host: " + host.address + ", host inactive? " + host.removed));
+                    return error(new RetryableException("Failed to add newly created connection for host: " + selectedHost.address + ", host inactive? " + selectedHost.removed));
                 });
     }
 
-    @Override
-    public Completable onClose() {
-        return asyncCloseable.onClose();
-    }
-
-    @Override
-    public Completable closeAsync() {
-        return asyncCloseable.closeAsync();
-    }
-
-    // Visible for testing
-    List<Entry<ResolvedAddress, List<C>>> getActiveAddresses() {
-        return activeHosts.stream().map(Host::asEntry).collect(toList());
+    private void ensureMinConnections(final Host<ResolvedAddress, C> host) {
+        assert host.address != null : "Host address can't be null.";
+        // Bounded loop, in case connections fail synchronously and hence release their slot immediately.
+        for (int i = 0; i < minConnectionsPerHost && !closed && !host.removed && !host.isEjected() &&
+                host.tryReserveConnection(minConnectionsPerHost); ++i) {
+            connectionFactory.newConnection(host.address)
+                    .doBeforeError(cause -> {
+                        LOGGER.debug("Failed to establish a warm connection to host {}.", host.address, cause);
+                        host.releaseConnection();
+                        onConnectFailure(host);
+                    })
+                    .subscribe(newCnx -> {
+                        host.onConnectSuccess();
+                        if (closed) {
+                            host.releaseConnection();
+                            newCnx.closeAsync().subscribe();
+                        } else if (!host.addConnection(newCnx)) {
+                            newCnx.closeAsync().subscribe();
+                        } else if (waitForWarmConnections) {
+                            sendReadyEvent();
+                        }
+                    });
+        }
     }
 
-    private static class Host<Addr, C extends ListenableAsyncCloseable> implements AsyncCloseable {
-
-        @Nullable
-        final Addr address;
-        @Nullable
-        final Queue<C> connections;
-        private volatile boolean removed;
-
-        Host() {
-            address = null;
-            connections = null;
+    private void replenishConnections(final Host<ResolvedAddress, C> host) {
+        final HealthCheckConfig healthCheckConfig = this.healthCheckConfig;
+        if (healthCheckConfig == null) {
+            ensureMinConnections(host);
+            return;
         }
-
-        Host(Addr address) {
-            this.address = address;
-            this.connections = new ConcurrentLinkedQueue<>();
+        // A pending replenishment re-establishes all missing connections, including the one which was just closed.
+        if (closed || host.removed || !host.tryStartReplenish()) {
+            return;
         }
-
-        void markInactive() {
-            removed = true;
-            assert connections != null;
-            for (;;) {
-                C next = connections.poll();
-                if (next == null) {
-                    return;
-                }
-                next.closeAsync().subscribe();
-            }
+        final long delayNanos = host.nextReplenishDelayNanos(healthCheckConfig);
+        if (delayNanos == 0) {
+            host.replenishDone();
+            ensureMinConnections(host);
+            return;
         }
-
-        boolean addConnection(C connection) {
-            assert connections != null;
-            final boolean added = connections.offer(connection);
-            if (!added || removed) {
-                // It could be that this host was removed concurrently and was not closed by markInactive().
-                // So, we check removed again and remove from the queue + close.
-                if (added && connections.remove(connection)) {
-                    connection.closeAsync().subscribe();
-                }
-                return false;
-            }
-
-            // Instrument the new connection so we prune it on close
-            connection.onClose().doBeforeFinally(() -> connections.remove(connection)).subscribe();
-            return true;
+        try {
+            host.replenishCancellable.setNextCancellable(healthCheckConfig.getExecutor().schedule(() -> {
+                host.replenishDone();
+                ensureMinConnections(host);
+            }, delayNanos, NANOSECONDS));
+        } catch (RejectedExecutionException e) {
+            host.replenishDone();
+            LOGGER.warn("Failed to schedule replenishment of connections for host {}.", host.address, e);
         }
+    }
 
-        // Used for testing only
-        Entry<Addr, List<C>> asEntry() {
-            assert address != null;
-            assert connections != null;
-            return new SimpleImmutableEntry<>(address, new ArrayList<>(connections));
+    private void sendReadyEvent() {
+        if (readyUpdater.compareAndSet(this, 0, 1)) {
+            eventStream.sendOnNext(LOAD_BALANCER_READY_EVENT);
         }
+    }
 
-        @Override
-        public Completable closeAsync() {
-            return connections == null ? completed() : completed().mergeDelayError(connections.stream().map(AsyncCloseable::closeAsync)::iterator);
+    private void onConnectFailure(final Host<ResolvedAddress, C> host) {
+        final HealthCheckConfig healthCheckConfig = this.healthCheckConfig;
+        if (healthCheckConfig != null && host.onConnectFailure(healthCheckConfig.getFailedConnectionsThreshold())) {
+            LOGGER.info("Host {} ejected after {} consecutive connection failures.", host.address,
+                    healthCheckConfig.getFailedConnectionsThreshold());
+            scheduleHealthCheck(host, healthCheckConfig, healthCheckConfig.getEjectionBackoffNanos());
         }
     }
 
-    private static final class MutableAddressHost<Addr, C extends ListenableAsyncCloseable> extends Host<Addr, C> {
-        @Nullable
-        Addr mutableAddress;
+    private void scheduleHealthCheck(final Host<ResolvedAddress, C> host, final HealthCheckConfig healthCheckConfig,
+                                     final long backoffNanos) {
+        final Executor executor = healthCheckConfig.getExecutor();
+        try {
+            host.healthCheckCancellable.setNextCancellable(executor.schedule(
+                    () -> healthCheck(host, healthCheckConfig, backoffNanos), backoffNanos, NANOSECONDS));
+        } catch (RejectedExecutionException e) {
+            LOGGER.warn("Failed to schedule health check for host {}, readmitting it.", host.address, e);
+            host.readmit();
+        }
     }
 
-    /**
-     * Eventually this will be replaced by a PublisherProcessor which is backed by a queue and allows for
-     * arbitrary events being published.
-     * @param <T> The type of data delivered to {@link Subscriber}s.
-     */
-    private static final class PublisherProcessorSingle<T> extends Publisher<T> {
-        private static final AtomicIntegerFieldUpdater<PublisherProcessorSingle> subscriberStateUpdater =
-                newUpdater(PublisherProcessorSingle.class, "subscriberState");
-        private static final AtomicReferenceFieldUpdater<PublisherProcessorSingle, Object> terminalNotificationUpdater =
-                newUpdater(PublisherProcessorSingle.class, Object.class, "terminalNotification");
-        private static final AtomicReferenceFieldUpdater<PublisherProcessorSingle, Object> eventUpdater =
-                newUpdater(PublisherProcessorSingle.class, Object.class, "event");
-        private static final Object REQUESTED = new Object();
-        private static final Object DELIVERED = new Object();
-        private static final Object COMPLETED = new Object();
-        @Nullable
-        private volatile Subscriber<? super T> subscriber;
-        @Nullable
-        private volatile Object event;
-        @SuppressWarnings("unused")
-        private volatile int subscriberState;
-        @SuppressWarnings("unused")
-        @Nullable
-        private volatile Object terminalNotification;
-
-        @Override
-        protected void handleSubscribe(final Subscriber<? super T> subscriber) {
-            if (this.subscriber == null) {
-                this.subscriber = subscriber;
-                subscriber.onSubscribe(new Subscription() {
-                    @Override
-                    public void request(final long n) {
-                        if (isRequestNValid(n)) {
-                            for (;;) {
-                                Object event = PublisherProcessorSingle.this.event;
-                                if (event == REQUESTED || event == DELIVERED || event == COMPLETED) {
-                                    break;
-                                } else if (event != null) {
-                                    if (eventUpdater.compareAndSet(PublisherProcessorSingle.this, event, DELIVERED)) {
-                                        @SuppressWarnings("unchecked")
-                                        final T finalT = (T) event;
-                                        deliverOnNext(finalT, subscriber);
-                                        break;
-                                    }
-                                } else if (eventUpdater.compareAndSet(PublisherProcessorSingle.this, null, REQUESTED)) {
-                                    // Check if sendOnComplete was called but the Subscriber was not visible, and then
-                                    // deliver the terminal notification if we change the event to COMPLETED.
-                                    if (subscriberState == SUBSCRIBER_STATE_TERMINATED &&
-                                        eventUpdater.compareAndSet(PublisherProcessorSingle.this, REQUESTED, COMPLETED)) {
-                                        subscriber.onComplete();
-                                    }
-                                    break;
-                                }
-                            }
-                        } else {
-                            Throwable cause = newExceptionForInvalidRequestN(n);
-                            if (checkTerminationValidWithConcurrentOnNextCheck(null, cause, subscriberStateUpdater,
-                                    terminalNotificationUpdater, PublisherProcessorSingle.this)) {
-                                for (;;) {
-                                    Object event = PublisherProcessorSingle.this.event;
-                                    if (event == null || event == REQUESTED || event == DELIVERED) {
-                                        if (eventUpdater.compareAndSet(PublisherProcessorSingle.this, event, COMPLETED)) {
-                                            subscriber.onError(cause);
-                                            break;
-                                        }
-                                    } else {
-                                        // If there is data pending we will deliver the error after the data.
-                                        break;
-                                    }
-                                }
-                            }
-                        }
-                    }
-
-                    @Override
-                    public void cancel() {
-                        // This will ensure the event is GCed (if it exists) and will swallow any terminal events which
-                        // also maybe pending.
-                        event = COMPLETED;
-                    }
-                });
-            } else {
-                subscriber.onSubscribe(EMPTY_SUBSCRIPTION);
-                subscriber.onError(new IllegalStateException("only a single subscriber is supported"));
-            }
+    private void healthCheck(final Host<ResolvedAddress, C> host, final HealthCheckConfig healthCheckConfig,
+                             final long backoffNanos) {
+        if (closed || host.removed) {
+            return;
         }
-
-        void sendOnNext(T next) {
-            for (;;) {
-                Object event = this.event;
-                if (event == null) {
-                    if (eventUpdater.compareAndSet(this, null, next)) {
-                        break;
-                    }
-                } else if (event == REQUESTED) {
-                    if (eventUpdater.compareAndSet(this, REQUESTED, DELIVERED)) {
-                        Subscriber<? super T> subscriber = this.subscriber;
-                        assert subscriber != null;
-                        deliverOnNext(next, subscriber);
-                        break;
+        assert host.address != null : "Host address can't be null.";
+        host.healthCheckCancellable.setNextCancellable(connectionFactory.newConnection(host.address)
+                .doBeforeError(cause -> {
+                    LOGGER.debug("Health check failed for host {}.", host.address, cause);
+                    scheduleHealthCheck(host, healthCheckConfig, healthCheckConfig.nextEjectionBackoffNanos(backoffNanos));
+                })
+                .subscribe(newCnx -> {
+                    // The probe connection is healthy, keep it in the pool if possible as it is likely to be used soon.
+                    if (closed || !host.tryReserveConnection(maxConnectionsPerHost) || !host.addConnection(newCnx)) {
+                        newCnx.closeAsync().subscribe();
                     }
-                } else {
-                    break;
-                }
-            }
-        }
+                    LOGGER.info("Host {} passed health check, readmitting it.", host.address);
+                    host.readmit();
+                    ensureMinConnections(host);
+                }));
+    }
 
-        void sendOnComplete() {
-            if (checkTerminationValidWithConcurrentOnNextCheck(null, complete(),
-                    subscriberStateUpdater, terminalNotificationUpdater, this)) {
-                Subscriber<? super T> subscriber = this.subscriber;
-                // If the subscriber is not null, deliver the event now, otherwise we deliver in the Subscription.
-                if (subscriber != null) {
-                    // Make a best effort to terminate early, if there is data pending we will let the Subscription
-                    // deliver the terminal event after it delivers the data.
-                    for (;;) {
-                        Object event = this.event;
-                        if (event == null || event == REQUESTED || event == DELIVERED) {
-                            if (eventUpdater.compareAndSet(this, event, COMPLETED)) {
-                                subscriber.onComplete();
-                                break;
-                            }
-                        } else {
-                            // Note that the Subscription may have requested data in the mean time, but we let the
-                            // Subscription handle that.
-                            break;
-                        }
-                    }
-                }
-            }
-        }
+    @Override
+    public Completable onClose() {
+        return asyncCloseable.onClose();
+    }
 
-        private void deliverOnNext(T next, Subscriber<? super T> subscriber) {
-            sendOnNextWithConcurrentTerminationCheck(subscriber, next, this::terminate,
-                    subscriberStateUpdater, terminalNotificationUpdater, this);
-        }
+    @Override
+    public Completable closeAsync() {
+        return asyncCloseable.closeAsync();
+    }
 
-        private void terminate(Object terminalNotification) {
-            Subscriber<? super T> subscriber = this.subscriber;
-            assert subscriber != null;
-            if (terminalNotification instanceof Throwable) {
-                subscriber.onError((Throwable) terminalNotification);
-            } else {
-                subscriber.onComplete();
-            }
-        }
+    // Visible for testing
+    List<Entry<ResolvedAddress, List<C>>> getActiveAddresses() {
+        return activeHosts.stream().map(Host::asEntry).collect(toList());
+    }
+
+    private static final class MutableAddressHost<Addr, C extends ListenableAsyncCloseable> extends Host<Addr, C> {
+        @Nullable
+        Addr mutableAddress;
     }
 }
@@ -0,0 +1,122 @@
+/*
+ * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.loadbalancer;
+
+import io.servicetalk.client.api.ConnectionFactory;
+import io.servicetalk.client.api.LoadBalancer;
+import io.servicetalk.client.api.LoadBalancerFactory;
+import io.servicetalk.client.api.ServiceDiscoverer.Event;
+import io.servicetalk.concurrent.api.ListenableAsyncCloseable;
+import io.servicetalk.concurrent.api.Publisher;
+
+import java.util.Comparator;
+import javax.annotation.Nullable;
+
+import static java.util.Comparator.comparingInt;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A {@link LoadBalancerFactory} that creates {@link RoundRobinLoadBalancer} instances, which allows to configure the
+ * optional features of {@link RoundRobinLoadBalancer}.
+ *
+ * @param <ResolvedAddress> The resolved address type.
+ * @param <C> The type of connection.
+ */
+public final class RoundRobinLoadBalancerFactory<ResolvedAddress, C extends ListenableAsyncCloseable>
+        implements LoadBalancerFactory<ResolvedAddress, C> {
+
+    private Comparator<ResolvedAddress> comparator = comparingInt(Object::hashCode);
+    private int maxConnectionsPerHost = Integer.MAX_VALUE;
+    private int minConnectionsPerHost;
+    private boolean waitForWarmConnections;
+    @Nullable
+    private HealthCheckConfig healthCheckConfig;
+
+    /**
+     * Set the {@link Comparator} used to compare addresses for lookup/iteration during the connection attempt phase.
+     *
+     * @param comparator the {@link Comparator} to use.
+     * @return {@code this}.
+     */
+    public RoundRobinLoadBalancerFactory<ResolvedAddress, C> setComparator(final Comparator<ResolvedAddress> comparator) {
+        this.comparator = requireNonNull(comparator);
+        return this;
+    }
+
+    /**
+     * Set the maximum number of connections (including the ones being established) to a single address.
+     *
+     * @param maxConnectionsPerHost the maximum number of connections to a single address.
+     * @return {@code this}.
+     */
+    public RoundRobinLoadBalancerFactory<ResolvedAddress, C> setMaxConnectionsPerHost(final int maxConnectionsPerHost) {
+        if (maxConnectionsPerHost <= 0) {
+            throw new IllegalArgumentException("maxConnectionsPerHost: " + maxConnectionsPerHost + " (expected >0)");
+        }
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+        return this;
+    }
+
+    /**
+     * Set the minimum number of connections to a single address. These connections are established as soon as the
+     * address is discovered, and re-established when they are closed. If a {@link HealthCheckConfig} is set, connections
+     * which are closed shortly after being re-established are re-established after its backoff.
+     *
+     * @param minConnectionsPerHost the minimum number of connections to a single address. Capped by
+     * {@link #setMaxConnectionsPerHost(int)}.
+     * @return {@code this}.
+     */
+    public RoundRobinLoadBalancerFactory<ResolvedAddress, C> setMinConnectionsPerHost(final int minConnectionsPerHost) {
+        if (minConnectionsPerHost < 0) {
+            throw new IllegalArgumentException("minConnectionsPerHost: " + minConnectionsPerHost + " (expected >=0)");
+        }
+        this.minConnectionsPerHost = minConnectionsPerHost;
+        return this;
+    }
+
+    /**
+     * Defer {@link io.servicetalk.client.api.LoadBalancerReadyEvent#LOAD_BALANCER_READY_EVENT} until a connection
+     * established because of {@link #setMinConnectionsPerHost(int)} is available, instead of emitting it as soon as an
+     * address is discovered. Has no effect if the minimum number of connections is {@code 0}.
+     *
+     * @param waitForWarmConnections {@code true} to wait for a connection to be established before being ready.
+     * @return {@code this}.
+     */
+    public RoundRobinLoadBalancerFactory<ResolvedAddress, C> setWaitForWarmConnections(
+            final boolean waitForWarmConnections) {
+        this.waitForWarmConnections = waitForWarmConnections;
+        return this;
+    }
+
+    /**
+     * Enable health checking of hosts.
+     *
+     * @param healthCheckConfig the {@link HealthCheckConfig} to use or {@code null} to disable health checking.
+     * @return {@code this}.
+     */
+    public RoundRobinLoadBalancerFactory<ResolvedAddress, C> setHealthCheckConfig(
+            @Nullable final HealthCheckConfig healthCheckConfig) {
+        this.healthCheckConfig = healthCheckConfig;
+        return this;
+    }
+
+    @Override
+    public LoadBalancer<C> newLoadBalancer(final Publisher<? extends Event<ResolvedAddress>> eventPublisher,
+                                           final ConnectionFactory<ResolvedAddress, ? extends C> connectionFactory) {
+        return new RoundRobinLoadBalancer<>(eventPublisher, connectionFactory, comparator, maxConnectionsPerHost,
+                minConnectionsPerHost, waitForWarmConnections, healthCheckConfig);
+    }
+}
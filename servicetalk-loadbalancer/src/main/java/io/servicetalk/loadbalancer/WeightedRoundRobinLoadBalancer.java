@@ -0,0 +1,501 @@
+/*
+ * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.loadbalancer;
+
+import io.servicetalk.client.api.ConnectionFactory;
+import io.servicetalk.client.api.ConnectionLimitReachedException;
+import io.servicetalk.client.api.ConnectionRejectedException;
+import io.servicetalk.client.api.LoadBalancer;
+import io.servicetalk.client.api.LoadBalancerFactory;
+import io.servicetalk.client.api.NoAvailableHostException;
+import io.servicetalk.client.api.RetryableException;
+import io.servicetalk.client.api.ServiceDiscoverer;
+import io.servicetalk.concurrent.api.Completable;
+import io.servicetalk.concurrent.api.ListenableAsyncCloseable;
+import io.servicetalk.concurrent.api.Publisher;
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.concurrent.internal.SequentialCancellable;
+
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import javax.annotation.Nullable;
+
+import static io.servicetalk.client.api.LoadBalancerReadyEvent.LOAD_BALANCER_NOT_READY_EVENT;
+import static io.servicetalk.client.api.LoadBalancerReadyEvent.LOAD_BALANCER_READY_EVENT;
+import static io.servicetalk.concurrent.api.AsyncCloseables.newCompositeCloseable;
+import static io.servicetalk.concurrent.api.AsyncCloseables.toAsyncCloseable;
+import static io.servicetalk.concurrent.api.Single.error;
+import static io.servicetalk.concurrent.api.Single.success;
+import static io.servicetalk.concurrent.internal.ThrowableUtil.unknownStackTrace;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.newSetFromMap;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.atomic.AtomicIntegerFieldUpdater.newUpdater;
+import static java.util.concurrent.atomic.AtomicReferenceFieldUpdater.newUpdater;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * A {@link LoadBalancer} that uses a smooth weighted round robin strategy for selecting addresses, and prefers
+ * addresses in the same locality as the client. It has the following behaviour:
+ * <ul>
+ * <li>Addresses receive traffic in proportion to {@link ServiceDiscoverer.Event#getWeight()}, interleaved as evenly as
+ * possible (i.e. an address with a weight of 2 will not be selected twice in a row if other addresses are available).
+ * Addresses with a weight of {@code 0} are not selected.</li>
+ * <li>If a local locality is configured, only addresses whose {@link ServiceDiscoverer.Event#getLocality()} is equal to
+ * the local locality are selected. Other addresses are selected only if there is no local address, or if all local
+ * addresses are saturated: none of their connections are selected and the maximum number of connections per address
+ * has been reached. Hence, spilling over to other localities requires a maximum number of connections per address.</li>
+ * <li>Connections are created lazily, existing connections are reused unless a selector passed to
+ * {@link #selectConnection(Function)} suggests otherwise.</li>
+ * <li>Closed connections are automatically pruned.</li>
+ * </ul>
+ * The order of selection is computed when the discovered addresses change, so selecting an address does not require
+ * any locking.
+ *
+ * @param <ResolvedAddress> The resolved address type.
+ * @param <C> The type of connection.
+ */
+public final class WeightedRoundRobinLoadBalancer<ResolvedAddress, C extends ListenableAsyncCloseable>
+        implements LoadBalancer<C> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WeightedRoundRobinLoadBalancer.class);
+    private static final IllegalStateException LB_CLOSED_SELECT_CNX_EXCEPTION =
+            unknownStackTrace(new IllegalStateException("LoadBalancer has closed"), WeightedRoundRobinLoadBalancer.class, "selectConnection0(...)");
+    private static final NoAvailableHostException NO_ACTIVE_HOSTS_SELECT_CNX_EXCEPTION =
+            unknownStackTrace(new NoAvailableHostException("No hosts are available to connect."), WeightedRoundRobinLoadBalancer.class, "selectConnection0(...)");
+    private static final ConnectionLimitReachedException ALL_HOSTS_SATURATED_SELECT_CNX_EXCEPTION =
+            unknownStackTrace(new ConnectionLimitReachedException("Maximum number of connections reached for all hosts."), WeightedRoundRobinLoadBalancer.class, "selectConnection0(...)");
+    /**
+     * Upper bound of the length of a selection schedule, weights are scaled down if they add up to more than this.
+     */
+    private static final int MAX_SCHEDULE_LENGTH = 1024;
+
+    private static final AtomicReferenceFieldUpdater<WeightedRoundRobinLoadBalancer, State> stateUpdater =
+            newUpdater(WeightedRoundRobinLoadBalancer.class, State.class, "state");
+    private static final AtomicIntegerFieldUpdater<WeightedRoundRobinLoadBalancer> indexUpdater =
+            newUpdater(WeightedRoundRobinLoadBalancer.class, "index");
+
+    private volatile boolean closed;
+    @SuppressWarnings("unused")
+    private volatile int index;
+    @SuppressWarnings("unchecked")
+    private volatile State<ResolvedAddress, C> state = State.EMPTY;
+
+    private final PublisherProcessorSingle<Object> eventStream = new PublisherProcessorSingle<>();
+    private final SequentialCancellable discoveryCancellable = new SequentialCancellable();
+    private final ConnectionFactory<ResolvedAddress, ? extends C> connectionFactory;
+    @Nullable
+    private final String localLocality;
+    private final int maxConnectionsPerHost;
+    private final ListenableAsyncCloseable asyncCloseable;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param eventPublisher    provides a stream of addresses to connect to.
+     * @param connectionFactory a function which creates new connections.
+     * @param localLocality     the locality of the client, or {@code null} to ignore localities.
+     * @param maxConnectionsPerHost the maximum number of connections (including the ones being established) to a single
+     * address.
+     */
+    public WeightedRoundRobinLoadBalancer(final Publisher<? extends ServiceDiscoverer.Event<ResolvedAddress>> eventPublisher,
+                                          final ConnectionFactory<ResolvedAddress, ? extends C> connectionFactory,
+                                          @Nullable final String localLocality,
+                                          final int maxConnectionsPerHost) {
+        if (maxConnectionsPerHost <= 0) {
+            throw new IllegalArgumentException("maxConnectionsPerHost: " + maxConnectionsPerHost + " (expected >0)");
+        }
+        this.connectionFactory = requireNonNull(connectionFactory);
+        this.localLocality = localLocality;
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+
+        eventPublisher.subscribe(new org.reactivestreams.Subscriber<ServiceDiscoverer.Event<ResolvedAddress>>() {
+
+            @Override
+            public void onSubscribe(final Subscription s) {
+                // See RoundRobinLoadBalancer, onNexts are processed synchronously so we do not need flow control.
+                s.request(Long.MAX_VALUE);
+                discoveryCancellable.setNextCancellable(s::cancel);
+            }
+
+            @SuppressWarnings("unchecked")
+            @Override
+            public void onNext(final ServiceDiscoverer.Event<ResolvedAddress> event) {
+                final State<ResolvedAddress, C> newState = stateUpdater.updateAndGet(
+                        WeightedRoundRobinLoadBalancer.this, currentState -> {
+                            if (currentState == State.CLOSED) {
+                                return currentState;
+                            }
+                            final List<WeightedHost<ResolvedAddress, C>> refreshedHosts =
+                                    new ArrayList<>(currentState.hosts);
+                            int i = 0;
+                            for (; i < refreshedHosts.size(); ++i) {
+                                if (event.getAddress().equals(refreshedHosts.get(i).host.address)) {
+                                    break;
+                                }
+                            }
+
+                            if (event.isAvailable()) {
+                                if (i == refreshedHosts.size()) {
+                                    refreshedHosts.add(new WeightedHost<>(new Host<>(event.getAddress()),
+                                            event.getWeight(), event.getLocality()));
+                                } else {
+                                    // Weight and locality updates do not affect existing connections. The current
+                                    // state is left untouched as this function may be retried.
+                                    final WeightedHost<ResolvedAddress, C> host = refreshedHosts.get(i);
+                                    if (host.weight == event.getWeight() &&
+                                            Objects.equals(host.locality, event.getLocality())) {
+                                        return currentState;
+                                    }
+                                    refreshedHosts.set(i, new WeightedHost<>(host.host, event.getWeight(),
+                                            event.getLocality()));
+                                }
+                            } else if (i < refreshedHosts.size()) {
+                                refreshedHosts.remove(i).host.markInactive();
+                            }
+
+                            return newState(refreshedHosts);
+                        });
+
+                if (event.isAvailable()) {
+                    if (newState.hosts.size() == 1) {
+                        eventStream.sendOnNext(LOAD_BALANCER_READY_EVENT);
+                    }
+                } else if (newState.hosts.isEmpty()) {
+                    eventStream.sendOnNext(LOAD_BALANCER_NOT_READY_EVENT);
+                }
+
+                LOGGER.debug("Running with {} active addresses, {} local", newState.hosts.size(),
+                        newState.localHostsCount);
+            }
+
+            @Override
+            public void onError(final Throwable t) {
+                LOGGER.error("Service discoverer {} failure.", eventPublisher, t);
+            }
+
+            @Override
+            public void onComplete() {
+                LOGGER.debug("Service discoverer {} has completed.", eventPublisher);
+            }
+        });
+        asyncCloseable = toAsyncCloseable(() -> {
+            closed = true;
+            discoveryCancellable.cancel();
+            eventStream.sendOnComplete();
+            @SuppressWarnings("unchecked")
+            State<ResolvedAddress, C> currentState = stateUpdater.getAndSet(WeightedRoundRobinLoadBalancer.this,
+                    State.CLOSED);
+            return newCompositeCloseable().appendAll(currentState.hosts.stream().map(host -> host.host)
+                    .collect(toList())).appendAll(connectionFactory).closeAsync();
+        });
+    }
+
+    /**
+     * Create a {@link LoadBalancerFactory} that creates instances of {@link WeightedRoundRobinLoadBalancer}.
+     * @param localLocality the locality of the client, or {@code null} to ignore localities.
+     * @param maxConnectionsPerHost the maximum number of connections (including the ones being established) to a single
+     * address.
+     * @param <ResolvedAddress> The resolved address type.
+     * @param <C> The type of connection.
+     * @return a {@link LoadBalancerFactory} that creates instances of {@link WeightedRoundRobinLoadBalancer}.
+     */
+    public static <ResolvedAddress, C extends ListenableAsyncCloseable>
+            LoadBalancerFactory<ResolvedAddress, C> newWeightedRoundRobinFactory(@Nullable String localLocality,
+                                                                                 int maxConnectionsPerHost) {
+        return (eventPublisher, connectionFactory) -> new WeightedRoundRobinLoadBalancer<>(eventPublisher,
+                connectionFactory, localLocality, maxConnectionsPerHost);
+    }
+
+    @Override
+    public <CC extends C> Single<CC> selectConnection(Function<C, CC> selector) {
+        return new Single<CC>() {
+            @Override
+            protected void handleSubscribe(Subscriber<? super CC> subscriber) {
+                selectConnection0(selector).subscribe(subscriber);
+            }
+        };
+    }
+
+    @Override
+    public Publisher<Object> getEventStream() {
+        return eventStream;
+    }
+
+    private <CC extends C> Single<CC> selectConnection0(Function<? super C, CC> selector) {
+        if (closed) {
+            return error(LB_CLOSED_SELECT_CNX_EXCEPTION);
+        }
+
+        final State<ResolvedAddress, C> state = this.state;
+        if (state.localSchedule.isEmpty() && state.remoteSchedule.isEmpty()) {
+            // This is the case when SD has emitted some items but none of the hosts are active (or have a weight).
+            return error(NO_ACTIVE_HOSTS_SELECT_CNX_EXCEPTION);
+        }
+
+        final int cursor = indexUpdater.getAndUpdate(this, i -> (++i & Integer.MAX_VALUE));
+        Single<CC> selection = selectConnection(state.localSchedule, state.localHosts, cursor, selector);
+        if (selection == null) {
+            // The local hosts are saturated (or there is none), spill over to the remote hosts.
+            selection = selectConnection(state.remoteSchedule, state.remoteHosts, cursor, selector);
+        }
+        return selection == null ? error(ALL_HOSTS_SATURATED_SELECT_CNX_EXCEPTION) : selection;
+    }
+
+    @Nullable
+    private <CC extends C> Single<CC> selectConnection(final List<WeightedHost<ResolvedAddress, C>> schedule,
+                                                       final List<WeightedHost<ResolvedAddress, C>> hosts,
+                                                       final int cursor, final Function<? super C, CC> selector) {
+        if (schedule.isEmpty()) {
+            return null;
+        }
+        final WeightedHost<ResolvedAddress, C> scheduledHost = schedule.get(cursor % schedule.size());
+        Single<CC> selection = selectConnection(scheduledHost.host, selector);
+        if (selection != null) {
+            return selection;
+        }
+        // A host appears multiple times in the schedule, so when the scheduled host is saturated the other hosts are
+        // probed once each instead of walking the schedule.
+        final int size = hosts.size();
+        for (int i = 0; i < size; ++i) {
+            final WeightedHost<ResolvedAddress, C> host = hosts.get((cursor + i) % size);
+            if (host != scheduledHost && (selection = selectConnection(host.host, selector)) != null) {
+                return selection;
+            }
+        }
+        return null;
+    }
+
+    @Nullable
+    private <CC extends C> Single<CC> selectConnection(final Host<ResolvedAddress, C> host,
+                                                       final Function<? super C, CC> selector) {
+        final CC existingSelection = host.selectConnection(selector);
+        if (existingSelection != null) {
+            return success(existingSelection);
+        }
+        return host.tryReserveConnection(maxConnectionsPerHost) ? newConnection(host, selector) : null;
+    }
+
+    private <CC extends C> Single<CC> newConnection(final Host<ResolvedAddress, C> host,
+                                                    final Function<? super C, CC> selector) {
+        assert host.address != null : "Host address can't be null.";
+        return connectionFactory.newConnection(host.address)
+                .doBeforeError(__ -> host.releaseConnection())
+                .doBeforeCancel(host::releaseConnection)
+                .flatMap(newCnx -> {
+                    // Invoke the selector before adding the connection to the pool, otherwise, connection can be used concurrently
+                    // and hence a new connection can be rejected by the selector.
+                    CC selection = selector.apply(newCnx);
+                    if (selection == null) {
+                        host.releaseConnection();
+                        newCnx.closeAsync().subscribe();
+                        return error(new ConnectionRejectedException("Newly created connection " + newCnx + " rejected by the selection filter."));
+                    }
+                    if (host.addConnection(newCnx)) {
+                        // See RoundRobinLoadBalancer, if the LB has closed concurrently we are responsible for closing.
+                        if (closed) {
+                            if (host.removeConnection(newCnx)) {
+                                newCnx.closeAsync().subscribe();
+                            }
+                            return error(LB_CLOSED_SELECT_CNX_EXCEPTION);
+                        }
+                        return success(selection);
+                    }
+                    return error(new RetryableException("Failed to add newly created connection for host: " + host.address + ", host inactive? " + host.removed));
+                });
+    }
+
+    @Override
+    public Completable onClose() {
+        return asyncCloseable.onClose();
+    }
+
+    @Override
+    public Completable closeAsync() {
+        return asyncCloseable.closeAsync();
+    }
+
+    // Visible for testing
+    List<Entry<ResolvedAddress, List<C>>> getActiveAddresses() {
+        return state.hosts.stream().map(host -> host.host.asEntry()).collect(toList());
+    }
+
+    private State<ResolvedAddress, C> newState(final List<WeightedHost<ResolvedAddress, C>> hosts) {
+        final List<WeightedHost<ResolvedAddress, C>> localHosts;
+        final List<WeightedHost<ResolvedAddress, C>> remoteHosts;
+        if (localLocality == null) {
+            localHosts = hosts;
+            remoteHosts = emptyList();
+        } else {
+            localHosts = new ArrayList<>(hosts.size());
+            remoteHosts = new ArrayList<>(hosts.size());
+            for (WeightedHost<ResolvedAddress, C> host : hosts) {
+                (localLocality.equals(host.locality) ? localHosts : remoteHosts).add(host);
+            }
+        }
+        final List<WeightedHost<ResolvedAddress, C>> localSchedule =
+                smoothWeightedSchedule(localHosts, host -> host.weight);
+        final List<WeightedHost<ResolvedAddress, C>> remoteSchedule =
+                smoothWeightedSchedule(remoteHosts, host -> host.weight);
+        return new State<>(hosts, localHosts.size(), localSchedule, scheduledHosts(localHosts, localSchedule),
+                remoteSchedule, scheduledHosts(remoteHosts, remoteSchedule));
+    }
+
+    private static <H> List<H> scheduledHosts(final List<H> hosts, final List<H> schedule) {
+        if (schedule.isEmpty()) {
+            return emptyList();
+        }
+        final Set<H> scheduled = newSetFromMap(new IdentityHashMap<>(hosts.size()));
+        scheduled.addAll(schedule);
+        if (scheduled.size() == hosts.size()) {
+            return hosts;
+        }
+        final List<H> scheduledHosts = new ArrayList<>(scheduled.size());
+        for (H host : hosts) {
+            if (scheduled.contains(host)) {
+                scheduledHosts.add(host);
+            }
+        }
+        return scheduledHosts;
+    }
+
+    /**
+     * Computes the order in which {@code hosts} are selected by the smooth weighted round robin algorithm: for each
+     * selection, every host's current weight is increased by its weight, the host with the highest current weight is
+     * selected and its current weight is decreased by the sum of all weights.
+     *
+     * @param hosts the hosts to schedule.
+     * @param weightFunction provides the weight of a host.
+     * @param <H> The type of host.
+     * @return a {@link List} where each host appears a number of times proportional to its weight.
+     */
+    static <H> List<H> smoothWeightedSchedule(final List<H> hosts, final ToIntFunction<H> weightFunction) {
+        final int[] weights = new int[hosts.size()];
+        int gcd = 0;
+        long totalWeight = 0;
+        for (int i = 0; i < weights.length; ++i) {
+            weights[i] = weightFunction.applyAsInt(hosts.get(i));
+            gcd = gcd(gcd, weights[i]);
+            totalWeight += weights[i];
+        }
+        if (totalWeight == 0) {
+            return emptyList();
+        }
+        totalWeight = 0;
+        for (int i = 0; i < weights.length; ++i) {
+            weights[i] /= gcd;
+            totalWeight += weights[i];
+        }
+        if (totalWeight > MAX_SCHEDULE_LENGTH) {
+            // Scale down the weights to bound the schedule length, at the cost of precision.
+            final long scaledTotalWeight = totalWeight;
+            totalWeight = 0;
+            for (int i = 0; i < weights.length; ++i) {
+                if (weights[i] != 0) {
+                    weights[i] = (int) Math.max(1, (long) weights[i] * MAX_SCHEDULE_LENGTH / scaledTotalWeight);
+                    totalWeight += weights[i];
+                }
+            }
+        }
+
+        final List<H> schedule = new ArrayList<>((int) totalWeight);
+        final long[] currentWeights = new long[weights.length];
+        for (int n = 0; n < totalWeight; ++n) {
+            int selected = 0;
+            for (int i = 0; i < weights.length; ++i) {
+                currentWeights[i] += weights[i];
+                if (currentWeights[i] > currentWeights[selected]) {
+                    selected = i;
+                }
+            }
+            currentWeights[selected] -= totalWeight;
+            schedule.add(hosts.get(selected));
+        }
+        return schedule;
+    }
+
+    private static int gcd(int a, int b) {
+        while (b != 0) {
+            final int t = b;
+            b = a % b;
+            a = t;
+        }
+        return a;
+    }
+
+    private static final class State<ResolvedAddress, C extends ListenableAsyncCloseable> {
+        @SuppressWarnings("rawtypes")
+        static final State EMPTY = new State<>(emptyList(), 0, emptyList(), emptyList(), emptyList(), emptyList());
+        @SuppressWarnings("rawtypes")
+        static final State CLOSED = new State<>(emptyList(), 0, emptyList(), emptyList(), emptyList(), emptyList());
+
+        final List<WeightedHost<ResolvedAddress, C>> hosts;
+        final int localHostsCount;
+        final List<WeightedHost<ResolvedAddress, C>> localSchedule;
+        /**
+         * The distinct hosts of {@link #localSchedule}, probed when the scheduled host is saturated.
+         */
+        final List<WeightedHost<ResolvedAddress, C>> localHosts;
+        final List<WeightedHost<ResolvedAddress, C>> remoteSchedule;
+        /**
+         * The distinct hosts of {@link #remoteSchedule}, probed when the scheduled host is saturated.
+         */
+        final List<WeightedHost<ResolvedAddress, C>> remoteHosts;
+
+        State(final List<WeightedHost<ResolvedAddress, C>> hosts, final int localHostsCount,
+              final List<WeightedHost<ResolvedAddress, C>> localSchedule,
+              final List<WeightedHost<ResolvedAddress, C>> localHosts,
+              final List<WeightedHost<ResolvedAddress, C>> remoteSchedule,
+              final List<WeightedHost<ResolvedAddress, C>> remoteHosts) {
+            this.hosts = hosts;
+            this.localHostsCount = localHostsCount;
+            this.localSchedule = localSchedule;
+            this.localHosts = localHosts;
+            this.remoteSchedule = remoteSchedule;
+            this.remoteHosts = remoteHosts;
+        }
+    }
+
+    /**
+     * A {@link Host} with the weight and locality it had when a {@link State} was computed. A metadata update creates
+     * a new instance which shares the {@link Host}, so it does not affect the schedules of the current {@link State}.
+     */
+    private static final class WeightedHost<Addr, C extends ListenableAsyncCloseable> {
+        final Host<Addr, C> host;
+        final int weight;
+        @Nullable
+        final String locality;
+
+        WeightedHost(final Host<Addr, C> host, final int weight, @Nullable final String locality) {
+            this.host = host;
+            this.weight = weight;
+            this.locality = locality;
+        }
+    }
+}
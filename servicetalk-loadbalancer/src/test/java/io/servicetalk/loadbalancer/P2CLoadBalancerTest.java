@@ -0,0 +1,259 @@
+/*
+ * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.loadbalancer;
+
+import io.servicetalk.client.api.ConnectionFactory;
+import io.servicetalk.client.api.DefaultServiceDiscovererEvent;
+import io.servicetalk.client.api.NoAvailableHostException;
+import io.servicetalk.client.api.ServiceDiscoverer;
+import io.servicetalk.concurrent.api.Completable;
+import io.servicetalk.concurrent.api.CompletableProcessor;
+import io.servicetalk.concurrent.api.ListenableAsyncCloseable;
+import io.servicetalk.concurrent.api.MockedSingleListenerRule;
+import io.servicetalk.concurrent.api.PublisherRule;
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.concurrent.internal.ServiceTalkTestTimeout;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.Timeout;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static io.servicetalk.concurrent.api.Single.success;
+import static io.servicetalk.concurrent.internal.Await.awaitIndefinitely;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static java.util.function.Function.identity;
+import static org.hamcrest.Matchers.both;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasProperty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class P2CLoadBalancerTest {
+    @Rule
+    public final Timeout timeout = new ServiceTalkTestTimeout();
+
+    @Rule
+    public final ExpectedException thrown = ExpectedException.none();
+
+    @Rule
+    public final PublisherRule<ServiceDiscoverer.Event<String>> serviceDiscoveryPublisher = new PublisherRule<>();
+
+    @Rule
+    public final MockedSingleListenerRule<TestLoadBalancedConnection> selectConnectionListener = new MockedSingleListenerRule<>();
+
+    private final List<TestLoadBalancedConnection> connectionsCreated = new CopyOnWriteArrayList<>();
+    private final AtomicLong nanoTime = new AtomicLong();
+
+    private P2CLoadBalancer<String, TestLoadBalancedConnection> lb;
+    private DelegatingConnectionFactory connectionFactory;
+
+    @Before
+    public void initialize() {
+        connectionFactory = new DelegatingConnectionFactory(address -> success(newConnection(address)));
+        lb = new P2CLoadBalancer<>(serviceDiscoveryPublisher.getPublisher(), connectionFactory, nanoTime::get);
+    }
+
+    @After
+    public void closeLoadBalancer() throws Exception {
+        awaitIndefinitely(lb.closeAsync());
+        awaitIndefinitely(lb.onClose());
+
+        serviceDiscoveryPublisher.verifyCancelled();
+
+        for (TestLoadBalancedConnection cnx : connectionsCreated) {
+            awaitIndefinitely(cnx.onClose());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void handleDiscoveryEvents() {
+        assertThat(lb.getActiveAddresses(), is(empty()));
+
+        sendServiceDiscoveryEvents(upEvent("address-1"), upEvent("address-2"), upEvent("address-1"));
+        assertThat(lb.getActiveAddresses(), containsInAnyOrder(
+                both(hasProperty("key", is("address-1"))).and(hasProperty("value", is(empty()))),
+                both(hasProperty("key", is("address-2"))).and(hasProperty("value", is(empty())))));
+
+        sendServiceDiscoveryEvents(downEvent("address-1"), downEvent("address-3"));
+        assertThat(lb.getActiveAddresses(), contains(
+                both(hasProperty("key", is("address-2"))).and(hasProperty("value", is(empty())))));
+
+        sendServiceDiscoveryEvents(downEvent("address-2"));
+        assertThat(lb.getActiveAddresses(), is(empty()));
+    }
+
+    @Test
+    public void noServiceDiscoveryEvent() {
+        selectConnectionListener.listen(lb.selectConnection(identity()));
+        selectConnectionListener.verifyFailure(NoAvailableHostException.class);
+
+        assertThat(connectionsCreated, is(empty()));
+    }
+
+    @Test
+    public void connectionReuse() throws Exception {
+        sendServiceDiscoveryEvents(upEvent("address-1"), upEvent("address-2"));
+        for (int i = 0; i < 10; i++) {
+            awaitIndefinitely(lb.selectConnection(identity()));
+        }
+        assertThat(connectionsCreated, hasSize(lessThanOrEqualTo(2)));
+    }
+
+    @Test
+    public void saturatedHostIsAvoided() throws Exception {
+        sendServiceDiscoveryEvents(upEvent("address-1"), upEvent("address-2"));
+        // Connections to address-1 are always saturated after their first use, connections to address-2 never are.
+        final Set<TestLoadBalancedConnection> used = new CopyOnWriteArraySet<>();
+        final Function<TestLoadBalancedConnection, TestLoadBalancedConnection> selector =
+                c -> "address-2".equals(c.getAddress()) || used.add(c) ? c : null;
+
+        for (int i = 0; i < 100; i++) {
+            awaitIndefinitely(lb.selectConnection(selector));
+        }
+        // Every selection that lands on address-1 after the first one sees all its connections rejected, which
+        // increases its cost above the one of address-2.
+        assertThat(connectionsCreated.stream().filter(c -> "address-1".equals(c.getAddress())).count(),
+                lessThanOrEqualTo(2L));
+    }
+
+    @Test
+    public void saturationEstimationDecays() throws Exception {
+        sendServiceDiscoveryEvents(upEvent("address-1"), upEvent("address-2"));
+        final AtomicBoolean saturated = new AtomicBoolean(true);
+        final Set<TestLoadBalancedConnection> used = new CopyOnWriteArraySet<>();
+        final Function<TestLoadBalancedConnection, TestLoadBalancedConnection> selector =
+                c -> "address-2".equals(c.getAddress()) || !saturated.get() || used.add(c) ? c : null;
+
+        for (int i = 0; i < 20; i++) {
+            awaitIndefinitely(lb.selectConnection(selector));
+        }
+        saturated.set(false);
+        nanoTime.addAndGet(SECONDS.toNanos(60));
+
+        int address1Selections = 0;
+        for (int i = 0; i < 100; i++) {
+            TestLoadBalancedConnection cnx = awaitIndefinitely(lb.selectConnection(selector));
+            assert cnx != null;
+            if ("address-1".equals(cnx.getAddress())) {
+                ++address1Selections;
+            }
+        }
+        assertTrue("address-1 was never selected after its saturation decayed.", address1Selections > 0);
+    }
+
+    @Test
+    public void earlyFailsAfterClose() throws Exception {
+        thrown.expect(instanceOf(ExecutionException.class));
+        thrown.expectCause(instanceOf(IllegalStateException.class));
+
+        sendServiceDiscoveryEvents(upEvent("address-1"));
+        awaitIndefinitely(lb.closeAsync());
+
+        try {
+            awaitIndefinitely(lb.selectConnection(identity()));
+        } finally {
+            assertThat(connectionsCreated, is(empty()));
+        }
+    }
+
+    @Test
+    public void closeClosesConnectionFactory() throws Exception {
+        awaitIndefinitely(lb.closeAsync());
+        assertTrue("ConnectionFactory not closed.", connectionFactory.isClosed());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void sendServiceDiscoveryEvents(final ServiceDiscoverer.Event... events) {
+        serviceDiscoveryPublisher.sendItems(events);
+    }
+
+    private static ServiceDiscoverer.Event upEvent(final String address) {
+        return new DefaultServiceDiscovererEvent<>(address, true);
+    }
+
+    private static ServiceDiscoverer.Event downEvent(final String address) {
+        return new DefaultServiceDiscovererEvent<>(address, false);
+    }
+
+    private TestLoadBalancedConnection newConnection(final String address) {
+        final TestLoadBalancedConnection cnx = mock(TestLoadBalancedConnection.class);
+        final CompletableProcessor closeCompletable = new CompletableProcessor();
+        when(cnx.closeAsync()).thenAnswer($ -> {
+            closeCompletable.onComplete();
+            return closeCompletable;
+        });
+        when(cnx.onClose()).thenReturn(closeCompletable);
+        when(cnx.getAddress()).thenReturn(address);
+        when(cnx.toString()).thenReturn(address + '@' + cnx.hashCode());
+
+        connectionsCreated.add(cnx);
+        return cnx;
+    }
+
+    private interface TestLoadBalancedConnection extends ListenableAsyncCloseable {
+        String getAddress();
+    }
+
+    private static class DelegatingConnectionFactory implements ConnectionFactory<String, TestLoadBalancedConnection> {
+
+        private final Function<String, Single<TestLoadBalancedConnection>> connectionFactory;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        DelegatingConnectionFactory(Function<String, Single<TestLoadBalancedConnection>> connectionFactory) {
+            this.connectionFactory = connectionFactory;
+        }
+
+        @Override
+        public Single<TestLoadBalancedConnection> newConnection(String s) {
+            return connectionFactory.apply(s);
+        }
+
+        @Override
+        public Completable onClose() {
+            return Completable.completed();
+        }
+
+        @Override
+        public Completable closeAsync() {
+            return Completable.completed().doBeforeSubscribe(cancellable -> closed.set(true));
+        }
+
+        boolean isClosed() {
+            return closed.get();
+        }
+    }
+}
@@ -16,6 +16,7 @@
 package io.servicetalk.loadbalancer;
 
 import io.servicetalk.client.api.ConnectionFactory;
+import io.servicetalk.client.api.ConnectionLimitReachedException;
 import io.servicetalk.client.api.DefaultServiceDiscovererEvent;
 import io.servicetalk.client.api.LoadBalancerReadyEvent;
 import io.servicetalk.client.api.NoAvailableHostException;
@@ -23,6 +24,7 @@ import io.servicetalk.client.api.ServiceDiscoverer;
 import io.servicetalk.concurrent.api.Completable;
 import io.servicetalk.concurrent.api.CompletableProcessor;
 import io.servicetalk.concurrent.api.DeliberateException;
+import io.servicetalk.concurrent.api.Executor;
 import io.servicetalk.concurrent.api.ListenableAsyncCloseable;
 import io.servicetalk.concurrent.api.MockedSingleListenerRule;
 import io.servicetalk.concurrent.api.Publisher;
@@ -37,9 +39,11 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.junit.rules.Timeout;
+import org.mockito.ArgumentCaptor;
 import org.reactivestreams.Subscriber;
 import org.reactivestreams.Subscription;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
@@ -56,6 +60,8 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
+import java.util.function.Predicate;
+import javax.annotation.Nullable;
 
 import static io.servicetalk.concurrent.api.DeliberateException.DELIBERATE_EXCEPTION;
 import static io.servicetalk.concurrent.api.Single.error;
@@ -63,11 +69,13 @@ import static io.servicetalk.concurrent.api.Single.success;
 import static io.servicetalk.concurrent.internal.Await.awaitIndefinitely;
 import static io.servicetalk.concurrent.internal.ServiceTalkTestTimeout.DEFAULT_TIMEOUT_SECONDS;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static java.util.function.Function.identity;
 import static java.util.stream.Collectors.toSet;
 import static org.hamcrest.Matchers.both;
 import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.hasProperty;
@@ -75,10 +83,17 @@ import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.not;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class RoundRobinLoadBalancerTest {
@@ -335,6 +350,181 @@ public class RoundRobinLoadBalancerTest {
         assertThat(connectionsCreated, hasSize(1));
     }
 
+    @Test
+    public void maxConnectionsPerHost() throws Exception {
+        lb = new RoundRobinLoadBalancer<>(serviceDiscoveryPublisher.getPublisher(), connectionFactory, String::compareTo, 2);
+        sendServiceDiscoveryEvents(upEvent("address-1"));
+        final Function<TestLoadBalancedConnection, TestLoadBalancedConnection> singleUse = newSingleUseConnectionFilter();
+        final Function<TestLoadBalancedConnection, TestLoadBalancedConnection> rejectAll = c -> null;
+
+        final TestLoadBalancedConnection first = awaitIndefinitely(lb.selectConnection(singleUse));
+        awaitIndefinitely(lb.selectConnection(singleUse));
+        assertThat(connectionsCreated, hasSize(2));
+
+        selectConnectionListener.listen(lb.selectConnection(rejectAll));
+        selectConnectionListener.verifyFailure(ConnectionLimitReachedException.class);
+        assertThat(connectionsCreated, hasSize(2));
+
+        // Closing a connection frees up its slot.
+        assert first != null;
+        awaitIndefinitely(first.closeAsync());
+        awaitIndefinitely(lb.selectConnection(singleUse));
+        assertThat(connectionsCreated, hasSize(3));
+    }
+
+    @Test
+    public void selectionStartsFromLastSelectedConnection() throws Exception {
+        sendServiceDiscoveryEvents(upEvent("address-1"));
+        final Function<TestLoadBalancedConnection, TestLoadBalancedConnection> singleUse = newSingleUseConnectionFilter();
+        for (int i = 0; i < 3; i++) {
+            awaitIndefinitely(lb.selectConnection(singleUse));
+        }
+        assertThat(connectionsCreated, hasSize(3));
+
+        final TestLoadBalancedConnection last = connectionsCreated.get(2);
+        final List<TestLoadBalancedConnection> probed = new CopyOnWriteArrayList<>();
+        assertThat(awaitIndefinitely(lb.selectConnection(c -> {
+            probed.add(c);
+            return c == last ? c : null;
+        })), is(last));
+        probed.clear();
+        assertThat(awaitIndefinitely(lb.selectConnection(identity())), is(last));
+        assertThat(probed, is(empty()));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void unhealthyHostIsEjectedAndProbed() throws Exception {
+        final AtomicBoolean address1Healthy = new AtomicBoolean();
+        connectionFactory = new DelegatingConnectionFactory(address -> "address-1".equals(address) &&
+                !address1Healthy.get() ? error(DELIBERATE_EXCEPTION) : newRealizedConnectionSingle(address));
+        final Executor executor = mock(Executor.class);
+        final ArgumentCaptor<Runnable> healthCheck = ArgumentCaptor.forClass(Runnable.class);
+        when(executor.schedule(healthCheck.capture(), anyLong(), eq(NANOSECONDS))).thenReturn(() -> { });
+        lb = new RoundRobinLoadBalancer<>(serviceDiscoveryPublisher.getPublisher(), connectionFactory,
+                String::compareTo, Integer.MAX_VALUE,
+                new HealthCheckConfig(executor, 2, Duration.ofSeconds(1), Duration.ofSeconds(3)));
+        sendServiceDiscoveryEvents(upEvent("address-1"), upEvent("address-2"));
+
+        // Round robining alternates between the 2 hosts, address-1 is ejected after its 2nd failure.
+        for (int i = 0; i < 2; i++) {
+            assertSelectFailure(DeliberateException.class);
+            assertThat(awaitIndefinitely(lb.selectConnection(identity())).getAddress(), is("address-2"));
+        }
+        verify(executor).schedule(any(), eq(SECONDS.toNanos(1)), eq(NANOSECONDS));
+        for (int i = 0; i < 4; i++) {
+            assertThat(awaitIndefinitely(lb.selectConnection(identity())).getAddress(), is("address-2"));
+        }
+
+        // Failed probes are rescheduled with an exponential backoff.
+        healthCheck.getValue().run();
+        verify(executor).schedule(any(), eq(SECONDS.toNanos(2)), eq(NANOSECONDS));
+        healthCheck.getValue().run();
+        verify(executor).schedule(any(), eq(SECONDS.toNanos(3)), eq(NANOSECONDS));
+
+        // A successful probe readmits the host and keeps its connection.
+        address1Healthy.set(true);
+        healthCheck.getValue().run();
+        verify(executor, times(3)).schedule(any(), anyLong(), eq(NANOSECONDS));
+        assertThat(lb.getActiveAddresses(), contains(
+                both(hasProperty("key", is("address-1"))).and(hasProperty("value", hasSize(1))),
+                both(hasProperty("key", is("address-2"))).and(hasProperty("value", hasSize(1)))));
+        final List<String> addresses = awaitIndefinitely(lb.selectConnection(identity())
+                .concatWith(lb.selectConnection(identity()))
+                .map(TestLoadBalancedConnection::getAddress));
+        assertThat(addresses, containsInAnyOrder("address-1", "address-2"));
+    }
+
+    @Test
+    public void allHostsEjected() throws Exception {
+        connectionFactory = new DelegatingConnectionFactory($ -> error(DELIBERATE_EXCEPTION));
+        final Executor executor = mock(Executor.class);
+        when(executor.schedule(any(), anyLong(), eq(NANOSECONDS))).thenReturn(() -> { });
+        lb = new RoundRobinLoadBalancer<>(serviceDiscoveryPublisher.getPublisher(), connectionFactory,
+                String::compareTo, Integer.MAX_VALUE,
+                new HealthCheckConfig(executor, 1, Duration.ofSeconds(1), Duration.ofSeconds(1)));
+        sendServiceDiscoveryEvents(upEvent("address-1"));
+
+        assertSelectFailure(DeliberateException.class);
+        assertSelectFailure(NoAvailableHostException.class);
+    }
+
+    private void assertSelectFailure(final Class<? extends Throwable> expectedCause) throws InterruptedException {
+        try {
+            awaitIndefinitely(lb.selectConnection(identity()));
+            fail("Expected selection to fail.");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(expectedCause));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void minConnectionsPerHost() throws Exception {
+        lb = new RoundRobinLoadBalancer<>(serviceDiscoveryPublisher.getPublisher(), connectionFactory, String::compareTo,
+                Integer.MAX_VALUE, 2, false, null);
+        sendServiceDiscoveryEvents(upEvent("address-1"));
+        assertThat(connectionsCreated, hasSize(2));
+        assertThat(lb.getActiveAddresses(), contains(
+                both(hasProperty("key", is("address-1"))).and(hasProperty("value", hasSize(2)))));
+
+        // Warm connections are used for selection.
+        assertThat(awaitIndefinitely(lb.selectConnection(identity())), is(connectionsCreated.get(0)));
+        assertThat(connectionsCreated, hasSize(2));
+
+        // Closed connections are replaced.
+        awaitIndefinitely(connectionsCreated.get(0).closeAsync());
+        assertThat(connectionsCreated, hasSize(3));
+        assertThat(lb.getActiveAddresses(), contains(
+                both(hasProperty("key", is("address-1"))).and(hasProperty("value", hasSize(2)))));
+    }
+
+    @Test
+    public void closedConnectionsAreReplacedWithBackoff() throws Exception {
+        final Executor executor = mock(Executor.class);
+        final ArgumentCaptor<Runnable> replenish = ArgumentCaptor.forClass(Runnable.class);
+        final ArgumentCaptor<Long> delay = ArgumentCaptor.forClass(Long.class);
+        when(executor.schedule(replenish.capture(), delay.capture(), eq(NANOSECONDS))).thenReturn(() -> { });
+        lb = new RoundRobinLoadBalancer<>(serviceDiscoveryPublisher.getPublisher(), connectionFactory, String::compareTo,
+                Integer.MAX_VALUE, 1, false,
+                new HealthCheckConfig(executor, 1, Duration.ofSeconds(10), Duration.ofSeconds(30)));
+        sendServiceDiscoveryEvents(upEvent("address-1"));
+        assertThat(connectionsCreated, hasSize(1));
+
+        // The host keeps closing connections, so they are not replaced immediately.
+        awaitIndefinitely(connectionsCreated.get(0).closeAsync());
+        assertThat(connectionsCreated, hasSize(1));
+        assertThat(delay.getValue(), is(SECONDS.toNanos(10)));
+        replenish.getValue().run();
+        assertThat(connectionsCreated, hasSize(2));
+
+        awaitIndefinitely(connectionsCreated.get(1).closeAsync());
+        assertThat(connectionsCreated, hasSize(2));
+        assertThat(delay.getValue(), is(SECONDS.toNanos(20)));
+        replenish.getValue().run();
+        assertThat(connectionsCreated, hasSize(3));
+        assertThat(lb.getActiveAddresses(), contains(
+                both(hasProperty("key", is("address-1"))).and(hasProperty("value", hasSize(1)))));
+    }
+
+    @Test
+    public void readyEventWaitsForWarmConnections() throws Exception {
+        connectionFactory = new DelegatingConnectionFactory(this::newUnrealizedConnectionSingle);
+        lb = new RoundRobinLoadBalancer<>(serviceDiscoveryPublisher.getPublisher(), connectionFactory, String::compareTo,
+                Integer.MAX_VALUE, 1, true, null);
+        CountDownLatch readyLatch = new CountDownLatch(1);
+        lb.getEventStream().first().subscribe(next -> readyLatch.countDown());
+
+        sendServiceDiscoveryEvents(upEvent("address-1"));
+        assertThat(readyLatch.await(100, MILLISECONDS), is(false));
+
+        final Runnable realizer = connectionRealizers.poll();
+        assert realizer != null;
+        realizer.run();
+        readyLatch.await();
+        assertThat(connectionsCreated, hasSize(1));
+    }
+
     @Test
     public void connectionFactoryErrorPropagation() throws Exception {
         thrown.expect(instanceOf(ExecutionException.class));
@@ -366,6 +556,45 @@ public class RoundRobinLoadBalancerTest {
         assertTrue("ConnectionFactory not closed.", connectionFactory.isClosed());
     }
 
+    @Test
+    public void connectionAffinityPrefersAffineConnection() throws Exception {
+        final AffineConnectionFactory affineConnectionFactory =
+                new AffineConnectionFactory(this::newRealizedConnectionSingle);
+        lb = newTestLoadBalancer(affineConnectionFactory);
+        sendServiceDiscoveryEvents(upEvent("address-1"));
+        final TestLoadBalancedConnection first = awaitIndefinitely(lb.selectConnection(identity()));
+        assertThat(connectionsCreated, hasSize(1));
+
+        // No existing connection is affine to the caller, so a new one is created.
+        affineConnectionFactory.affinity = c -> false;
+        final TestLoadBalancedConnection second = awaitIndefinitely(lb.selectConnection(identity()));
+        assertThat(connectionsCreated, hasSize(2));
+        assertThat(second, is(not(first)));
+
+        affineConnectionFactory.affinity = c -> c == first;
+        assertThat(awaitIndefinitely(lb.selectConnection(identity())), is(first));
+        affineConnectionFactory.affinity = c -> c == second;
+        assertThat(awaitIndefinitely(lb.selectConnection(identity())), is(second));
+        assertThat(connectionsCreated, hasSize(2));
+    }
+
+    @Test
+    public void connectionAffinityFallsBackWhenMaxConnectionsReached() throws Exception {
+        final AffineConnectionFactory affineConnectionFactory =
+                new AffineConnectionFactory(this::newRealizedConnectionSingle);
+        lb = new RoundRobinLoadBalancer<>(serviceDiscoveryPublisher.getPublisher(), affineConnectionFactory,
+                String::compareTo, 1);
+        sendServiceDiscoveryEvents(upEvent("address-1"));
+        final TestLoadBalancedConnection first = awaitIndefinitely(lb.selectConnection(identity()));
+
+        affineConnectionFactory.affinity = c -> false;
+        assertThat(awaitIndefinitely(lb.selectConnection(identity())), is(first));
+        assertThat(connectionsCreated, hasSize(1));
+
+        selectConnectionListener.listen(lb.selectConnection(c -> null));
+        selectConnectionListener.verifyFailure(ConnectionLimitReachedException.class);
+    }
+
     @SuppressWarnings("unchecked")
     private void sendServiceDiscoveryEvents(final ServiceDiscoverer.Event... events) {
         serviceDiscoveryPublisher.sendItems(events);
@@ -379,7 +608,8 @@ public class RoundRobinLoadBalancerTest {
         return new DefaultServiceDiscovererEvent<>(address, false);
     }
 
-    private RoundRobinLoadBalancer<String, TestLoadBalancedConnection> newTestLoadBalancer(final DelegatingConnectionFactory connectionFactory) {
+    private RoundRobinLoadBalancer<String, TestLoadBalancedConnection> newTestLoadBalancer(
+            final ConnectionFactory<String, TestLoadBalancedConnection> connectionFactory) {
         return new RoundRobinLoadBalancer<>(serviceDiscoveryPublisher.getPublisher(), connectionFactory, String::compareTo);
     }
 
@@ -423,6 +653,11 @@ public class RoundRobinLoadBalancerTest {
         };
     }
 
+    private static Function<TestLoadBalancedConnection, TestLoadBalancedConnection> newSingleUseConnectionFilter() {
+        final Set<TestLoadBalancedConnection> usedConnections = new CopyOnWriteArraySet<>();
+        return c -> usedConnections.add(c) ? c : null;
+    }
+
     private interface TestLoadBalancedConnection extends ListenableAsyncCloseable {
         String getAddress();
     }
@@ -455,4 +690,21 @@ public class RoundRobinLoadBalancerTest {
             return closed.get();
         }
     }
+
+    private static final class AffineConnectionFactory extends DelegatingConnectionFactory
+            implements ConnectionAffinity<TestLoadBalancedConnection> {
+
+        @Nullable
+        volatile Predicate<TestLoadBalancedConnection> affinity;
+
+        AffineConnectionFactory(Function<String, Single<TestLoadBalancedConnection>> connectionFactory) {
+            super(connectionFactory);
+        }
+
+        @Nullable
+        @Override
+        public Predicate<TestLoadBalancedConnection> currentThreadAffinity() {
+            return affinity;
+        }
+    }
 }
@@ -0,0 +1,295 @@
+/*
+ * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.loadbalancer;
+
+import io.servicetalk.client.api.ConnectionFactory;
+import io.servicetalk.client.api.ConnectionLimitReachedException;
+import io.servicetalk.client.api.DefaultServiceDiscovererEvent;
+import io.servicetalk.client.api.NoAvailableHostException;
+import io.servicetalk.client.api.ServiceDiscoverer;
+import io.servicetalk.concurrent.api.Completable;
+import io.servicetalk.concurrent.api.CompletableProcessor;
+import io.servicetalk.concurrent.api.ListenableAsyncCloseable;
+import io.servicetalk.concurrent.api.MockedSingleListenerRule;
+import io.servicetalk.concurrent.api.PublisherRule;
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.concurrent.internal.ServiceTalkTestTimeout;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import javax.annotation.Nullable;
+
+import static io.servicetalk.concurrent.api.Single.success;
+import static io.servicetalk.concurrent.internal.Await.awaitIndefinitely;
+import static io.servicetalk.loadbalancer.WeightedRoundRobinLoadBalancer.smoothWeightedSchedule;
+import static java.util.Arrays.asList;
+import static java.util.Collections.frequency;
+import static java.util.function.Function.identity;
+import static java.util.stream.Collectors.toList;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class WeightedRoundRobinLoadBalancerTest {
+    @Rule
+    public final Timeout timeout = new ServiceTalkTestTimeout();
+
+    @Rule
+    public final PublisherRule<ServiceDiscoverer.Event<String>> serviceDiscoveryPublisher = new PublisherRule<>();
+
+    @Rule
+    public final MockedSingleListenerRule<TestLoadBalancedConnection> selectConnectionListener = new MockedSingleListenerRule<>();
+
+    private final List<TestLoadBalancedConnection> connectionsCreated = new CopyOnWriteArrayList<>();
+
+    @Nullable
+    private WeightedRoundRobinLoadBalancer<String, TestLoadBalancedConnection> lb;
+
+    @After
+    public void closeLoadBalancer() throws Exception {
+        if (lb != null) {
+            awaitIndefinitely(lb.closeAsync());
+            serviceDiscoveryPublisher.verifyCancelled();
+        }
+        for (TestLoadBalancedConnection cnx : connectionsCreated) {
+            awaitIndefinitely(cnx.onClose());
+        }
+    }
+
+    @Test
+    public void scheduleIsProportionalAndInterleaved() {
+        final List<String> schedule = smoothWeightedSchedule(asList("a", "b", "c"),
+                host -> "a".equals(host) ? 5 : 1);
+        assertThat(schedule, contains("a", "a", "b", "a", "c", "a", "a"));
+    }
+
+    @Test
+    public void scheduleNormalizesWeights() {
+        assertThat(smoothWeightedSchedule(asList("a", "b"), host -> "a".equals(host) ? 200 : 100),
+                contains("a", "b", "a"));
+    }
+
+    @Test
+    public void scheduleLengthIsBounded() {
+        final List<String> schedule = smoothWeightedSchedule(asList("a", "b", "c"),
+                host -> "a".equals(host) ? 1_000_000 : "b".equals(host) ? 1 : 0);
+        assertThat(schedule.size() <= 1024, is(true));
+        assertThat(frequency(schedule, "b"), is(1));
+        assertThat(frequency(schedule, "c"), is(0));
+    }
+
+    @Test
+    public void scheduleWithLargeWeightsIsProportional() {
+        // Scaling these weights down overflows if it is computed with ints.
+        List<String> schedule = smoothWeightedSchedule(asList("a", "b"), host -> "a".equals(host) ? 3_000_000 : 1);
+        assertThat(frequency(schedule, "a"), is(1023));
+        assertThat(frequency(schedule, "b"), is(1));
+
+        schedule = smoothWeightedSchedule(asList("a", "b"), host -> "a".equals(host) ? 3_000_001 : 1_000_000);
+        assertThat(frequency(schedule, "a"), is(768));
+        assertThat(frequency(schedule, "b"), is(255));
+    }
+
+    @Test
+    public void zeroWeightHostsAreNotSelected() throws Exception {
+        lb = newLoadBalancer(null, 10);
+        sendServiceDiscoveryEvents(event("address-1", 0, null), event("address-2", 1, null));
+        final Function<TestLoadBalancedConnection, TestLoadBalancedConnection> filter = newSingleUseFilter();
+        for (int i = 0; i < 10; i++) {
+            awaitIndefinitely(lb.selectConnection(filter));
+        }
+        assertThat(connectionsCreated, hasSize(10));
+        assertThat(addresses(), everyItem(is("address-2")));
+
+        sendServiceDiscoveryEvents(event("address-2", 0, null));
+        selectConnectionListener.listen(lb.selectConnection(identity()));
+        selectConnectionListener.verifyFailure(NoAvailableHostException.class);
+    }
+
+    @Test
+    public void weightedSelection() throws Exception {
+        lb = newLoadBalancer(null, 100);
+        sendServiceDiscoveryEvents(event("address-1", 3, null), event("address-2", 1, null));
+        final Function<TestLoadBalancedConnection, TestLoadBalancedConnection> filter = newSingleUseFilter();
+        for (int i = 0; i < 40; i++) {
+            awaitIndefinitely(lb.selectConnection(filter));
+        }
+        assertThat(frequency(addresses(), "address-1"), is(30));
+        assertThat(frequency(addresses(), "address-2"), is(10));
+    }
+
+    @Test
+    public void localHostsArePreferredAndSpillOver() throws Exception {
+        lb = newLoadBalancer("zone-a", 2);
+        sendServiceDiscoveryEvents(event("address-1", 1, "zone-a"), event("address-2", 1, "zone-b"));
+        final Function<TestLoadBalancedConnection, TestLoadBalancedConnection> filter = newSingleUseFilter();
+        awaitIndefinitely(lb.selectConnection(filter));
+        awaitIndefinitely(lb.selectConnection(filter));
+        assertThat(addresses(), contains("address-1", "address-1"));
+
+        // address-1 has reached its maximum number of connections, which are all in use.
+        awaitIndefinitely(lb.selectConnection(filter));
+        assertThat(addresses(), contains("address-1", "address-1", "address-2"));
+        awaitIndefinitely(lb.selectConnection(filter));
+
+        selectConnectionListener.listen(lb.selectConnection(filter));
+        selectConnectionListener.verifyFailure(ConnectionLimitReachedException.class);
+    }
+
+    @Test
+    public void spillOverProbesEachLocalHostOnce() throws Exception {
+        lb = newLoadBalancer("zone-a", 1);
+        sendServiceDiscoveryEvents(event("address-1", 1000, "zone-a"), event("address-2", 1, "zone-a"),
+                event("address-3", 1, "zone-b"));
+        final Function<TestLoadBalancedConnection, TestLoadBalancedConnection> filter = newSingleUseFilter();
+        final AtomicInteger probes = new AtomicInteger();
+        final Function<TestLoadBalancedConnection, TestLoadBalancedConnection> countingFilter = cnx -> {
+            probes.incrementAndGet();
+            return filter.apply(cnx);
+        };
+        awaitIndefinitely(lb.selectConnection(countingFilter));
+        awaitIndefinitely(lb.selectConnection(countingFilter));
+        assertThat(addresses(), containsInAnyOrder("address-1", "address-2"));
+
+        // Both local hosts are saturated, each of their connections is probed once before spilling over.
+        probes.set(0);
+        awaitIndefinitely(lb.selectConnection(countingFilter));
+        assertThat(addresses(), hasItem("address-3"));
+        assertThat(probes.get(), is(3));
+    }
+
+    @Test
+    public void remoteHostsAreUsedWithoutLocalHosts() throws Exception {
+        lb = newLoadBalancer("zone-a", 2);
+        sendServiceDiscoveryEvents(event("address-1", 1, "zone-b"));
+        awaitIndefinitely(lb.selectConnection(identity()));
+        assertThat(addresses(), contains("address-1"));
+    }
+
+    @Test
+    public void metadataUpdateKeepsConnections() throws Exception {
+        lb = newLoadBalancer("zone-a", 2);
+        sendServiceDiscoveryEvents(event("address-1", 1, "zone-b"), event("address-2", 1, "zone-b"));
+        final TestLoadBalancedConnection cnx = awaitIndefinitely(lb.selectConnection(identity()));
+        assert cnx != null;
+
+        sendServiceDiscoveryEvents(event(cnx.getAddress(), 5, "zone-a"));
+        assertThat(lb.getActiveAddresses(), hasSize(2));
+        for (int i = 0; i < 10; i++) {
+            assertThat(awaitIndefinitely(lb.selectConnection(identity())), is(cnx));
+        }
+        assertThat(connectionsCreated, hasSize(1));
+    }
+
+    @Test
+    public void downEventClosesConnections() throws Exception {
+        lb = newLoadBalancer(null, 2);
+        sendServiceDiscoveryEvents(event("address-1", 1, null));
+        awaitIndefinitely(lb.selectConnection(identity()));
+
+        sendServiceDiscoveryEvents(new DefaultServiceDiscovererEvent<>("address-1", false));
+        assertThat(lb.getActiveAddresses(), is(empty()));
+        awaitIndefinitely(connectionsCreated.get(0).onClose());
+    }
+
+    private WeightedRoundRobinLoadBalancer<String, TestLoadBalancedConnection> newLoadBalancer(
+            @Nullable final String localLocality, final int maxConnectionsPerHost) {
+        return new WeightedRoundRobinLoadBalancer<>(serviceDiscoveryPublisher.getPublisher(),
+                new DelegatingConnectionFactory(address -> success(newConnection(address))), localLocality,
+                maxConnectionsPerHost);
+    }
+
+    private List<String> addresses() {
+        return connectionsCreated.stream().map(TestLoadBalancedConnection::getAddress).collect(toList());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void sendServiceDiscoveryEvents(final ServiceDiscoverer.Event... events) {
+        serviceDiscoveryPublisher.sendItems(events);
+    }
+
+    private static ServiceDiscoverer.Event event(final String address, final int weight,
+                                                 @Nullable final String locality) {
+        return new DefaultServiceDiscovererEvent<>(address, true, weight, locality);
+    }
+
+    /**
+     * Simulates connections which can only be selected once, forcing the creation of a new connection.
+     */
+    private static Function<TestLoadBalancedConnection, TestLoadBalancedConnection> newSingleUseFilter() {
+        final Set<TestLoadBalancedConnection> used = new CopyOnWriteArraySet<>();
+        return cnx -> used.add(cnx) ? cnx : null;
+    }
+
+    private TestLoadBalancedConnection newConnection(final String address) {
+        final TestLoadBalancedConnection cnx = mock(TestLoadBalancedConnection.class);
+        final CompletableProcessor closeCompletable = new CompletableProcessor();
+        when(cnx.closeAsync()).thenAnswer($ -> {
+            closeCompletable.onComplete();
+            return closeCompletable;
+        });
+        when(cnx.onClose()).thenReturn(closeCompletable);
+        when(cnx.getAddress()).thenReturn(address);
+        when(cnx.toString()).thenReturn(address + '@' + cnx.hashCode());
+
+        connectionsCreated.add(cnx);
+        return cnx;
+    }
+
+    private interface TestLoadBalancedConnection extends ListenableAsyncCloseable {
+        String getAddress();
+    }
+
+    private static class DelegatingConnectionFactory implements ConnectionFactory<String, TestLoadBalancedConnection> {
+
+        private final Function<String, Single<TestLoadBalancedConnection>> connectionFactory;
+
+        DelegatingConnectionFactory(Function<String, Single<TestLoadBalancedConnection>> connectionFactory) {
+            this.connectionFactory = connectionFactory;
+        }
+
+        @Override
+        public Single<TestLoadBalancedConnection> newConnection(String s) {
+            return connectionFactory.apply(s);
+        }
+
+        @Override
+        public Completable onClose() {
+            return Completable.completed();
+        }
+
+        @Override
+        public Completable closeAsync() {
+            return Completable.completed();
+        }
+    }
+}
@@ -24,6 +24,7 @@ import static io.servicetalk.redis.internal.RedisUtils.EOL_LENGTH;
 import static io.servicetalk.redis.internal.RedisUtils.EOL_SHORT;
 import static io.servicetalk.redis.internal.RedisUtils.toRespArraySize;
 import static io.servicetalk.redis.internal.RedisUtils.toRespBulkString;
+import static io.servicetalk.redis.internal.RedisUtils.toRespBulkStringLastChunk;
 import static java.util.Arrays.asList;
 
 /**
@@ -228,9 +229,7 @@ public interface RedisData {
 
         @Override
         public Buffer toRESPArgument(final BufferAllocator allocator) {
-            return allocator.newBuffer(getValue().getReadableBytes() + EOL_LENGTH)
-                    .writeBytes(getValue())
-                    .writeShort(EOL_SHORT);
+            return toRespBulkStringLastChunk(getValue(), allocator);
         }
     }
 
@@ -35,6 +35,11 @@ public final class RedisUtils {
     public static final short EOL_SHORT = makeShort('\r', '\n');
     public static final int EOL_LENGTH = 2;
     public static final int TWICE_EOL_LENGTH = EOL_LENGTH << 1;
+    /**
+     * Bulk strings of at least this many bytes are composed of their framing and value instead of being copied into
+     * a single {@link Buffer}, below that copying is cheaper than writing multiple segments.
+     */
+    private static final int MIN_COMPOSED_BULK_STRING_LENGTH = 1024;
 
     private RedisUtils() {
         // no instances
@@ -58,18 +63,53 @@ public final class RedisUtils {
     /**
      * Writes the passed {@link Buffer} as a bulk string.
      *
-     * @param buf to write as bulk string.
+     * @param buf to write as bulk string, its readable bytes are consumed.
      * @param allocator {@link BufferAllocator} to allocate the returned {@link Buffer}.
      * @return {@link Buffer} containing the array size.
      */
     public static Buffer toRespBulkString(final Buffer buf, final BufferAllocator allocator) {
-        final byte[] size = toAsciiBytes(buf.getReadableBytes());
-        return allocator.newBuffer(1 + size.length + TWICE_EOL_LENGTH)
+        final int length = buf.getReadableBytes();
+        final byte[] size = toAsciiBytes(length);
+        if (length >= MIN_COMPOSED_BULK_STRING_LENGTH) {
+            // Large values are written with a single gathering write of the size, the value and the EOL.
+            return allocator.newCompositeBuffer(3)
+                    .addBuffer(allocator.newBuffer(1 + size.length + EOL_LENGTH)
+                            .writeByte('$')
+                            .writeBytes(size)
+                            .writeShort(EOL_SHORT))
+                    .addBuffer(buf.readSlice(length))
+                    .addBuffer(allocator.newBuffer(EOL_LENGTH).writeShort(EOL_SHORT));
+        }
+        final Buffer bulkString = allocator.newBuffer(1 + size.length + TWICE_EOL_LENGTH + length)
                 .writeByte('$')
                 .writeBytes(size)
                 .writeShort(EOL_SHORT)
-                .writeBytes(buf)
+                .writeBytes(buf, buf.getReaderIndex(), length)
+                .writeShort(EOL_SHORT);
+        // Consume buf like the composed path does, as required by Buffer#writeBytes(Buffer).
+        buf.skipBytes(length);
+        return bulkString;
+    }
+
+    /**
+     * Writes the passed {@link Buffer} as the last chunk of a bulk string, which is followed by an EOL.
+     *
+     * @param buf the last chunk of the bulk string, its readable bytes are consumed.
+     * @param allocator {@link BufferAllocator} to allocate the returned {@link Buffer}.
+     * @return {@link Buffer} containing the last chunk of the bulk string.
+     */
+    public static Buffer toRespBulkStringLastChunk(final Buffer buf, final BufferAllocator allocator) {
+        final int length = buf.getReadableBytes();
+        if (length >= MIN_COMPOSED_BULK_STRING_LENGTH) {
+            return allocator.newCompositeBuffer(2)
+                    .addBuffer(buf.readSlice(length))
+                    .addBuffer(allocator.newBuffer(EOL_LENGTH).writeShort(EOL_SHORT));
+        }
+        final Buffer lastChunk = allocator.newBuffer(length + EOL_LENGTH)
+                .writeBytes(buf, buf.getReaderIndex(), length)
                 .writeShort(EOL_SHORT);
+        buf.skipBytes(length);
+        return lastChunk;
     }
 
     /**
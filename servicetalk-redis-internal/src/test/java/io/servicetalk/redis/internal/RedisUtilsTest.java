@@ -0,0 +1,84 @@
+/*
+ * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.redis.internal;
+
+import io.servicetalk.buffer.api.Buffer;
+import io.servicetalk.buffer.api.CompositeBuffer;
+
+import org.junit.Test;
+
+import static io.servicetalk.buffer.netty.BufferAllocators.DEFAULT_ALLOCATOR;
+import static io.servicetalk.redis.internal.RedisUtils.toRespBulkString;
+import static io.servicetalk.redis.internal.RedisUtils.toRespBulkStringLastChunk;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+
+public class RedisUtilsTest {
+
+    @Test
+    public void testBulkStringBelowComposedLength() {
+        final String value = newValue(1023);
+        final Buffer buf = DEFAULT_ALLOCATOR.fromAscii(value);
+        final Buffer bulkString = toRespBulkString(buf, DEFAULT_ALLOCATOR);
+        assertThat(bulkString.toString(US_ASCII), is("$1023\r\n" + value + "\r\n"));
+        assertThat(buf.getReadableBytes(), is(0));
+        assertThat(bulkString, is(not(instanceOf(CompositeBuffer.class))));
+    }
+
+    @Test
+    public void testBulkStringOfComposedLength() {
+        final String value = newValue(1024);
+        final Buffer buf = DEFAULT_ALLOCATOR.fromAscii(value);
+        final Buffer bulkString = toRespBulkString(buf, DEFAULT_ALLOCATOR);
+        assertThat(bulkString.toString(US_ASCII), is("$1024\r\n" + value + "\r\n"));
+        assertThat(buf.getReadableBytes(), is(0));
+        assertThat(bulkString, is(instanceOf(CompositeBuffer.class)));
+        assertThat(bulkString.getNioBufferCount(), is(3));
+    }
+
+    @Test
+    public void testBulkStringLastChunkBelowComposedLength() {
+        final String value = newValue(1023);
+        final Buffer buf = DEFAULT_ALLOCATOR.fromAscii(value);
+        final Buffer lastChunk = toRespBulkStringLastChunk(buf, DEFAULT_ALLOCATOR);
+        assertThat(lastChunk.toString(US_ASCII), is(value + "\r\n"));
+        assertThat(buf.getReadableBytes(), is(0));
+        assertThat(lastChunk, is(not(instanceOf(CompositeBuffer.class))));
+    }
+
+    @Test
+    public void testBulkStringLastChunkOfComposedLength() {
+        final String value = newValue(1024);
+        final Buffer buf = DEFAULT_ALLOCATOR.fromAscii(value);
+        final Buffer lastChunk = toRespBulkStringLastChunk(buf, DEFAULT_ALLOCATOR);
+        assertThat(lastChunk.toString(US_ASCII), is(value + "\r\n"));
+        assertThat(buf.getReadableBytes(), is(0));
+        // The last chunk has no size prefix, only the value and the EOL.
+        assertThat(lastChunk, is(instanceOf(CompositeBuffer.class)));
+        assertThat(lastChunk.getNioBufferCount(), is(2));
+    }
+
+    private static String newValue(final int length) {
+        final StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; ++i) {
+            sb.append((char) ('a' + i % 26));
+        }
+        return sb.toString();
+    }
+}
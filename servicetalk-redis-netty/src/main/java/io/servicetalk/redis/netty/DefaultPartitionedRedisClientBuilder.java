@@ -44,6 +44,8 @@ import io.servicetalk.redis.api.RedisRequest;
 import io.servicetalk.tcp.netty.internal.TcpClientConfig;
 import io.servicetalk.transport.api.ExecutionContext;
 import io.servicetalk.transport.api.SslConfig;
+import io.servicetalk.transport.netty.internal.FlushStrategy;
+import io.servicetalk.transport.netty.internal.IdleAwareFlushStrategyHolder;
 
 import org.reactivestreams.Subscriber;
 import org.reactivestreams.Subscription;
@@ -200,6 +202,19 @@ public class DefaultPartitionedRedisClientBuilder<ResolvedAddress>
         return this;
     }
 
+    /**
+     * Sets the {@link FlushStrategy} used to flush the requests written on each connection created by this builder.
+     * {@link IdleAwareFlushStrategyHolder#flushOnIdle(int)} flushes all requests pipelined on a connection in the same
+     * event loop iteration together, as soon as the connection goes idle.
+     *
+     * @param flushStrategy the {@link FlushStrategy} to use.
+     * @return {@code this}.
+     */
+    public DefaultPartitionedRedisClientBuilder<ResolvedAddress> setFlushStrategy(final FlushStrategy flushStrategy) {
+        config.setFlushStrategy(flushStrategy);
+        return this;
+    }
+
     /**
      * Sets the maximum amount of {@link Event} objects that will be queued for each partition.
      * <p>It is assumed that the {@link Subscriber}s will process events in a timely manner (typically synchronously)
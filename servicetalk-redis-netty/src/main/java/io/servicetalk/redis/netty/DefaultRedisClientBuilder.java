@@ -31,6 +31,8 @@ import io.servicetalk.redis.api.RedisRequest;
 import io.servicetalk.tcp.netty.internal.TcpClientConfig;
 import io.servicetalk.transport.api.ExecutionContext;
 import io.servicetalk.transport.api.SslConfig;
+import io.servicetalk.transport.netty.internal.FlushStrategy;
+import io.servicetalk.transport.netty.internal.IdleAwareFlushStrategyHolder;
 
 import java.io.InputStream;
 import java.net.SocketOption;
@@ -163,6 +165,19 @@ public final class DefaultRedisClientBuilder<ResolvedAddress>
         return this;
     }
 
+    /**
+     * Sets the {@link FlushStrategy} used to flush the requests written on each connection created by this builder.
+     * {@link IdleAwareFlushStrategyHolder#flushOnIdle(int)} flushes all requests pipelined on a connection in the same
+     * event loop iteration together, as soon as the connection goes idle.
+     *
+     * @param flushStrategy the {@link FlushStrategy} to use.
+     * @return {@code this}.
+     */
+    public DefaultRedisClientBuilder<ResolvedAddress> setFlushStrategy(final FlushStrategy flushStrategy) {
+        config.setFlushStrategy(flushStrategy);
+        return this;
+    }
+
     /**
      * Set the {@link Function} which is used as a factory to filter/decorate {@link RedisConnection} created by this
      * builder.
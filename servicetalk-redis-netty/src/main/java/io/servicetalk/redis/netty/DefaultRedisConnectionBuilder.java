@@ -27,6 +27,8 @@ import io.servicetalk.transport.api.ExecutionContext;
 import io.servicetalk.transport.api.SslConfig;
 import io.servicetalk.transport.netty.internal.ChannelInitializer;
 import io.servicetalk.transport.netty.internal.Connection;
+import io.servicetalk.transport.netty.internal.FlushStrategy;
+import io.servicetalk.transport.netty.internal.IdleAwareFlushStrategyHolder;
 
 import io.netty.buffer.ByteBuf;
 
@@ -142,6 +144,19 @@ public final class DefaultRedisConnectionBuilder<ResolvedAddress> implements Red
         return this;
     }
 
+    /**
+     * Sets the {@link FlushStrategy} used to flush the requests written on each connection created by this builder.
+     * {@link IdleAwareFlushStrategyHolder#flushOnIdle(int)} flushes all requests pipelined on a connection in the same
+     * event loop iteration together, as soon as the connection goes idle.
+     *
+     * @param flushStrategy the {@link FlushStrategy} to use.
+     * @return {@code this}.
+     */
+    public DefaultRedisConnectionBuilder<ResolvedAddress> setFlushStrategy(final FlushStrategy flushStrategy) {
+        config.setFlushStrategy(flushStrategy);
+        return this;
+    }
+
     /**
      * Set the filter factory that is used to decorate {@link RedisConnection} created by this builder.
      * <p>
@@ -29,6 +29,7 @@ import io.servicetalk.redis.netty.SubscribedChannelReadStream.PubSubChannelMessa
 import io.servicetalk.transport.api.ConnectionContext;
 import io.servicetalk.transport.api.ExecutionContext;
 import io.servicetalk.transport.netty.internal.Connection;
+import io.servicetalk.transport.netty.internal.FlushStrategy;
 import io.servicetalk.transport.netty.internal.SequentialTaskQueue;
 
 import io.netty.buffer.ByteBuf;
@@ -69,6 +70,7 @@ final class InternalSubscribedRedisConnection extends AbstractRedisConnection {
     private final ReadStreamSplitter readStreamSplitter;
     private final WriteQueue writeQueue;
     private final boolean deferSubscribeTillConnect;
+    private final FlushStrategy flushStrategy;
 
     private InternalSubscribedRedisConnection(Connection<RedisData, ByteBuf> connection,
                                               ExecutionContext executionContext,
@@ -78,6 +80,7 @@ final class InternalSubscribedRedisConnection extends AbstractRedisConnection {
                 executionContext, roConfig);
         this.connection = connection;
         this.deferSubscribeTillConnect = roConfig.isDeferSubscribeTillConnect();
+        flushStrategy = roConfig.getFlushStrategy();
         writeQueue = new WriteQueue(maxPendingRequests, initialQueueCapacity);
         this.readStreamSplitter = new ReadStreamSplitter(connection, maxPendingRequests, maxBufferPerGroup,
                 redisRequest -> request0(redisRequest).ignoreElements());
@@ -109,9 +112,9 @@ final class InternalSubscribedRedisConnection extends AbstractRedisConnection {
             protected void handleSubscribe(Subscriber<? super RedisData> subscriber) {
                 Completable write;
                 if (command == QUIT) {
-                    write = writeQueue.quit(connection.write(reqContent));
+                    write = writeQueue.quit(connection.write(reqContent, flushStrategy));
                 } else {
-                    write = writeQueue.write(connection.write(reqContent), command);
+                    write = writeQueue.write(connection.write(reqContent, flushStrategy), command);
                 }
                 /*
                  We register a new command after we have written the request completely. Following is the reason:
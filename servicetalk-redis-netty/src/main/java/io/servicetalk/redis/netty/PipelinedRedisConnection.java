@@ -24,6 +24,7 @@ import io.servicetalk.transport.api.ConnectionContext;
 import io.servicetalk.transport.api.ExecutionContext;
 import io.servicetalk.transport.netty.internal.Connection;
 import io.servicetalk.transport.netty.internal.DefaultPipelinedConnection;
+import io.servicetalk.transport.netty.internal.FlushStrategy;
 import io.servicetalk.transport.netty.internal.PipelinedConnection;
 
 import io.netty.buffer.ByteBuf;
@@ -62,6 +63,7 @@ final class PipelinedRedisConnection extends AbstractRedisConnection {
             newUpdater(PipelinedRedisConnection.class, "skipQuitWhenClosed");
     private final PipelinedConnection<ByteBuf, RedisData> connection;
     private final Connection<RedisData, ByteBuf> rawConnection;
+    private final FlushStrategy flushStrategy;
 
     /**
      This is only used within the Writer while writing a request on the connection.
@@ -87,6 +89,7 @@ final class PipelinedRedisConnection extends AbstractRedisConnection {
                 executionContext, roConfig);
         this.connection = new DefaultPipelinedConnection<>(connection, maxPendingRequests);
         rawConnection = connection;
+        flushStrategy = roConfig.getFlushStrategy();
     }
 
     @SuppressWarnings("unchecked")
@@ -164,7 +167,7 @@ final class PipelinedRedisConnection extends AbstractRedisConnection {
                         return Completable.error(new PingRejectedException(potentiallyConflictingCommand));
                     }
                     return rawConnection.write(encodeRequestContent(request,
-                            connection.getExecutionContext().getBufferAllocator()));
+                            connection.getExecutionContext().getBufferAllocator()), flushStrategy);
                 }, () -> predicate)
                         .doBeforeNext(predicate::trackMessage)
                         .doBeforeFinally(() -> {
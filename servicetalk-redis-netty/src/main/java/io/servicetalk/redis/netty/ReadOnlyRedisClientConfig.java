@@ -18,10 +18,12 @@ package io.servicetalk.redis.netty;
 import io.servicetalk.redis.api.RedisConnection;
 import io.servicetalk.tcp.netty.internal.ReadOnlyTcpClientConfig;
 import io.servicetalk.tcp.netty.internal.TcpClientConfig;
+import io.servicetalk.transport.netty.internal.FlushStrategy;
 
 import java.time.Duration;
 import javax.annotation.Nullable;
 
+import static io.servicetalk.transport.netty.internal.FlushStrategy.defaultFlushStrategy;
 import static java.util.Objects.requireNonNull;
 
 class ReadOnlyRedisClientConfig {
@@ -32,6 +34,7 @@ class ReadOnlyRedisClientConfig {
     @Nullable
     protected Duration pingPeriod = Duration.ofSeconds(30);
     protected boolean deferSubscribeTillConnect;
+    protected FlushStrategy flushStrategy = defaultFlushStrategy();
 
     ReadOnlyRedisClientConfig(final ReadOnlyTcpClientConfig tcpClientConfig) {
         this.tcpClientConfig = requireNonNull(tcpClientConfig);
@@ -48,6 +51,7 @@ class ReadOnlyRedisClientConfig {
         idleConnectionTimeout = from.idleConnectionTimeout;
         pingPeriod = from.pingPeriod;
         deferSubscribeTillConnect = from.deferSubscribeTillConnect;
+        flushStrategy = from.flushStrategy;
     }
 
     /**
@@ -79,6 +83,15 @@ class ReadOnlyRedisClientConfig {
         return pingPeriod;
     }
 
+    /**
+     * Get the {@link FlushStrategy} used to flush the requests written on connections created by this builder.
+     *
+     * @return the {@link FlushStrategy}.
+     */
+    FlushStrategy getFlushStrategy() {
+        return flushStrategy;
+    }
+
     /**
      * Get the {@link TcpClientConfig}.
      *
@@ -17,10 +17,13 @@ package io.servicetalk.redis.netty;
 
 import io.servicetalk.redis.api.RedisConnection;
 import io.servicetalk.tcp.netty.internal.TcpClientConfig;
+import io.servicetalk.transport.netty.internal.FlushStrategy;
 
 import java.time.Duration;
 import javax.annotation.Nullable;
 
+import static java.util.Objects.requireNonNull;
+
 final class RedisClientConfig extends ReadOnlyRedisClientConfig {
     /**
      * New instance.
@@ -67,6 +70,17 @@ final class RedisClientConfig extends ReadOnlyRedisClientConfig {
         return this;
     }
 
+    /**
+     * Sets the {@link FlushStrategy} used to flush the requests written on connections created by this builder.
+     *
+     * @param flushStrategy the {@link FlushStrategy} to use.
+     * @return {@code this}.
+     */
+    RedisClientConfig setFlushStrategy(final FlushStrategy flushStrategy) {
+        this.flushStrategy = requireNonNull(flushStrategy);
+        return this;
+    }
+
     /**
      * Get the {@link TcpClientConfig}.
      *
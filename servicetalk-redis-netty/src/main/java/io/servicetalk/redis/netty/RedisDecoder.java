@@ -35,6 +35,7 @@ final class RedisDecoder extends ByteToMessageDecoder {
     private static final int NULL_VALUE = -1;
     private static final int REDIS_MESSAGE_MAX_LENGTH = 512 * 1024 * 1024; // 512MB
     private static final int POSITIVE_LONG_MAX_LENGTH = 19; // length of Long.MAX_VALUE
+    private static final byte LF = '\n';
 
     private static final RedisData.CompleteBulkString EMPTY_INSTANCE = new RedisData.CompleteBulkString(BufferUtil.newBufferFrom(Unpooled.EMPTY_BUFFER));
 
@@ -213,14 +214,14 @@ final class RedisDecoder extends ByteToMessageDecoder {
             readEndOfLine(in);
             resetDecoder();
             // Only call retain after readEndOfLine(...) as the method may throw an exception.
-            ctx.fireChannelRead(new RedisData.LastBulkStringChunk(BufferUtil.newBufferFrom(content.retain())));
+            ctx.fireChannelRead(new RedisData.LastBulkStringChunk(BufferUtil.newUnpooledBufferFrom(content.retain())));
             return true;
         }
 
         // chunked write.
         int toRead = Math.min(remainingBulkLength, readableBytes);
         remainingBulkLength -= toRead;
-        ctx.fireChannelRead(new RedisData.BulkStringChunk(BufferUtil.newBufferFrom(in.readSlice(toRead).retain())));
+        ctx.fireChannelRead(new RedisData.BulkStringChunk(BufferUtil.newUnpooledBufferFrom(in.readSlice(toRead).retain())));
         return true;
     }
 
@@ -254,7 +255,7 @@ final class RedisDecoder extends ByteToMessageDecoder {
         if (!in.isReadable(EOL_LENGTH)) {
             return null;
         }
-        final int lfIndex = in.forEachByte(ByteProcessor.FIND_LF);
+        final int lfIndex = BufferUtil.indexOf(in, in.readerIndex(), in.writerIndex(), LF);
         if (lfIndex < 0) {
             return null;
         }
@@ -0,0 +1,141 @@
+/*
+ * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.redis.netty;
+
+import io.servicetalk.concurrent.api.Completable;
+import io.servicetalk.concurrent.internal.ServiceTalkTestTimeout;
+import io.servicetalk.redis.api.RedisConnection;
+import io.servicetalk.redis.api.RedisData;
+import io.servicetalk.tcp.netty.internal.TcpClientConfig;
+import io.servicetalk.transport.api.ConnectionContext;
+import io.servicetalk.transport.api.DefaultExecutionContext;
+import io.servicetalk.transport.api.ExecutionContext;
+import io.servicetalk.transport.netty.internal.Connection.TerminalPredicate;
+import io.servicetalk.transport.netty.internal.NettyConnection;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalServerChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.util.ReferenceCountUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.servicetalk.buffer.netty.BufferAllocators.DEFAULT_ALLOCATOR;
+import static io.servicetalk.concurrent.api.Executors.immediate;
+import static io.servicetalk.concurrent.api.Publisher.never;
+import static io.servicetalk.redis.api.RedisProtocolSupport.Command.PING;
+import static io.servicetalk.redis.api.RedisRequests.newRequest;
+import static io.servicetalk.redis.netty.PipelinedRedisConnection.newPipelinedConnection;
+import static io.servicetalk.transport.netty.internal.IdleAwareFlushStrategyHolder.flushOnIdle;
+import static io.servicetalk.transport.netty.internal.NettyIoExecutors.fromNettyEventLoop;
+import static java.lang.Integer.MAX_VALUE;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class PipelinedRedisConnectionTest {
+
+    private static final int PIPELINED_REQUESTS = 8;
+
+    @Rule
+    public final ServiceTalkTestTimeout timeout = new ServiceTalkTestTimeout(30, SECONDS);
+
+    private final AtomicInteger flushes = new AtomicInteger();
+    // Each PING request is written as the array header followed by the command.
+    private final CountDownLatch allWritesFlushed = new CountDownLatch(2 * PIPELINED_REQUESTS);
+    private EventLoopGroup group;
+    private Channel channel;
+
+    @Before
+    public void setUp() throws Exception {
+        // Use an event loop which runs tail tasks, so that writes are flushed once the event loop goes idle.
+        group = new NioEventLoopGroup(1);
+        final LocalAddress address = new LocalAddress(PipelinedRedisConnectionTest.class.getSimpleName());
+        new ServerBootstrap().group(group).channel(LocalServerChannel.class)
+                .childHandler(new ChannelInboundHandlerAdapter()).bind(address).sync();
+        channel = new Bootstrap().group(group).channel(LocalChannel.class)
+                .handler(new ChannelOutboundHandlerAdapter() {
+                    private final List<ChannelPromise> pendingFlush = new ArrayList<>();
+
+                    @Override
+                    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+                        ReferenceCountUtil.release(msg);
+                        pendingFlush.add(promise);
+                    }
+
+                    @Override
+                    public void flush(ChannelHandlerContext ctx) {
+                        flushes.incrementAndGet();
+                        pendingFlush.forEach(promise -> {
+                            promise.trySuccess();
+                            allWritesFlushed.countDown();
+                        });
+                        pendingFlush.clear();
+                    }
+                }).connect(address).sync().channel();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        group.shutdownGracefully(0, 0, SECONDS).sync();
+    }
+
+    @Test
+    public void flushOnIdleFlushesPipelinedRequestsTogether() throws Exception {
+        final ExecutionContext executionContext = new DefaultExecutionContext(DEFAULT_ALLOCATOR,
+                fromNettyEventLoop(channel.eventLoop()), immediate());
+        final ConnectionContext context = mock(ConnectionContext.class);
+        when(context.getExecutionContext()).thenReturn(executionContext);
+        when(context.onClose()).thenReturn(Completable.never());
+        final NettyConnection<RedisData, ByteBuf> nettyConnection = new NettyConnection<>(channel, context, never(),
+                new TerminalPredicate<>(o -> false));
+        final RedisConnection connection = newPipelinedConnection(nettyConnection, executionContext,
+                new RedisClientConfig(new TcpClientConfig(true))
+                        .setMaxPipelinedRequests(PIPELINED_REQUESTS)
+                        .setPingPeriod(null)
+                        .setFlushStrategy(flushOnIdle(MAX_VALUE))
+                        .asReadOnly());
+
+        channel.eventLoop().execute(() -> {
+            for (int i = 0; i < PIPELINED_REQUESTS; i++) {
+                connection.request(newRequest(PING)).ignoreElements().subscribe();
+            }
+        });
+        allWritesFlushed.await();
+        // Let the event loop finish the iteration in which it flushed before counting.
+        channel.eventLoop().submit(() -> { }).get();
+        assertThat("Unexpected number of flushes.", flushes.get(), is(1));
+    }
+}
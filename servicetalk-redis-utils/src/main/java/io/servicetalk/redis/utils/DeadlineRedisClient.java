@@ -0,0 +1,85 @@
+/*
+ * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.redis.utils;
+
+import io.servicetalk.concurrent.api.Executor;
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.concurrent.context.AsyncContext;
+import io.servicetalk.concurrent.context.Deadlines;
+import io.servicetalk.redis.api.RedisClient;
+import io.servicetalk.redis.api.RedisRequest;
+
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A {@link RedisClient} wrapper that applies the deadline of the request which is currently processed, as stored in
+ * the {@link AsyncContext} by {@link Deadlines}, to its {@link DeadlineRedisClient#request(RedisRequest, Class)} and
+ * {@link DeadlineRedisClient#reserveConnection(RedisRequest)} methods.
+ * <p>
+ * These fail with a {@link TimeoutException} once the deadline passes, and do not send the request at all if it has
+ * already passed. A connection which is reserved after the deadline passed is released. The streaming
+ * {@link DeadlineRedisClient#request(RedisRequest)} method is not affected.
+ */
+public final class DeadlineRedisClient extends DelegatingRedisClient {
+
+    private static final Object DELIVERED = new Object();
+    private static final Object NOT_DELIVERED = new Object();
+
+    /**
+     * Creates a new instance.
+     *
+     * @param delegate the {@link RedisClient} to delegate to.
+     */
+    public DeadlineRedisClient(final RedisClient delegate) {
+        super(delegate);
+    }
+
+    @Override
+    public <R> Single<R> request(final RedisRequest request, final Class<R> responseType) {
+        return Deadlines.withDeadline(super.request(request, responseType), getExecutionContext().getExecutor());
+    }
+
+    @Override
+    public Single<? extends ReservedRedisConnection> reserveConnection(final RedisRequest request) {
+        return withDeadline(super.reserveConnection(request), getExecutionContext().getExecutor());
+    }
+
+    private static <C extends ReservedRedisConnection> Single<C> withDeadline(final Single<C> reserve,
+                                                                              final Executor timerExecutor) {
+        return Single.defer(() -> {
+            // Holds the reserved connection until it is delivered, so that it can be released if the deadline passes
+            // concurrently. Once the result is decided it holds DELIVERED or NOT_DELIVERED.
+            final AtomicReference<Object> state = new AtomicReference<>();
+            return Deadlines.withDeadline(reserve.doBeforeSuccess(connection -> {
+                if (!state.compareAndSet(null, connection)) {
+                    // The deadline passed first, the connection will never be delivered.
+                    connection.releaseAsync().subscribe();
+                }
+            }), timerExecutor)
+                    .doBeforeSuccess(__ -> state.set(DELIVERED))
+                    .doBeforeError(__ -> releaseUndelivered(state))
+                    .doBeforeCancel(() -> releaseUndelivered(state));
+        });
+    }
+
+    private static void releaseUndelivered(final AtomicReference<Object> state) {
+        final Object connection = state.getAndSet(NOT_DELIVERED);
+        if (connection instanceof ReservedRedisConnection) {
+            ((ReservedRedisConnection) connection).releaseAsync().subscribe();
+        }
+    }
+}
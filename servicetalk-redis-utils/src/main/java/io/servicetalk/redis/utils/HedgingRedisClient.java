@@ -0,0 +1,104 @@
+/*
+ * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.redis.utils;
+
+import io.servicetalk.concurrent.api.LatencyQuantileEstimator;
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.redis.api.RedisClient;
+import io.servicetalk.redis.api.RedisProtocolSupport.CommandFlag;
+import io.servicetalk.redis.api.RedisRequest;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+import javax.annotation.Nullable;
+
+import static java.lang.System.nanoTime;
+
+/**
+ * A {@link RedisClient} wrapper that sends a second copy of a {@link CommandFlag#READONLY read-only} command to its
+ * {@link HedgingRedisClient#request(RedisRequest, Class)} method if no response was received within a delay, and uses
+ * whichever response arrives first.
+ * <p>
+ * Hedging subscribes to the request again just like {@link RetryingRedisClient} does, and uses the
+ * {@link io.servicetalk.concurrent.api.Executor} of the wrapped {@link RedisClient} for its timer.
+ *
+ * @see Single#hedge(LongSupplier, io.servicetalk.concurrent.api.Executor)
+ */
+public final class HedgingRedisClient extends DelegatingRedisClient {
+
+    private final LongSupplier hedgeDelayNs;
+    @Nullable
+    private final LatencyQuantileEstimator latencyEstimator;
+
+    /**
+     * Creates a new instance which hedges after a constant delay.
+     *
+     * @param delegate   the {@link RedisClient} to delegate to.
+     * @param hedgeDelay the time to wait for a response before sending a second copy of the request.
+     */
+    public HedgingRedisClient(final RedisClient delegate, final Duration hedgeDelay) {
+        super(delegate);
+        final long hedgeDelayNs = hedgeDelay.toNanos();
+        if (hedgeDelayNs < 0) {
+            throw new IllegalArgumentException("hedgeDelay: " + hedgeDelay + " (expected >= 0)");
+        }
+        this.hedgeDelayNs = () -> hedgeDelayNs;
+        latencyEstimator = null;
+    }
+
+    /**
+     * Creates a new instance which hedges after an estimate of a quantile of the response latency, for example the
+     * p95 latency.
+     *
+     * @param delegate          the {@link RedisClient} to delegate to.
+     * @param quantile          the quantile of the response latency after which requests are hedged, for example
+     *                          {@code 0.95}.
+     * @param initialHedgeDelay the delay to use until enough responses have been received to estimate the
+     *                          {@code quantile}.
+     */
+    public HedgingRedisClient(final RedisClient delegate, final double quantile, final Duration initialHedgeDelay) {
+        super(delegate);
+        latencyEstimator = new LatencyQuantileEstimator(quantile, initialHedgeDelay);
+        hedgeDelayNs = latencyEstimator;
+    }
+
+    @Override
+    public <R> Single<R> request(final RedisRequest request, final Class<R> responseType) {
+        if (!request.getCommand().hasFlag(CommandFlag.READONLY)) {
+            return super.request(request, responseType);
+        }
+        final LatencyQuantileEstimator latencyEstimator = this.latencyEstimator;
+        if (latencyEstimator == null) {
+            return Single.defer(() -> super.request(request, responseType))
+                    .hedge(hedgeDelayNs, getExecutionContext().getExecutor());
+        }
+        return Single.defer(() -> {
+            // Only the latency of the first attempt is recorded, whether or not it wins, so that slow first attempts
+            // cancelled by their hedge are not missing from the estimate.
+            final AtomicBoolean firstAttempt = new AtomicBoolean(true);
+            return Single.defer(() -> {
+                if (!firstAttempt.compareAndSet(true, false)) {
+                    return super.request(request, responseType);
+                }
+                final long startNs = nanoTime();
+                return super.request(request, responseType)
+                        .doBeforeSuccess(response -> latencyEstimator.record(nanoTime() - startNs))
+                        .doBeforeCancel(() -> latencyEstimator.recordAtLeast(nanoTime() - startNs));
+            }).hedge(hedgeDelayNs, getExecutionContext().getExecutor());
+        });
+    }
+}
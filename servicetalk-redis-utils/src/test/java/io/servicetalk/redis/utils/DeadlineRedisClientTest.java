@@ -0,0 +1,134 @@
+/*
+ * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.redis.utils;
+
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.concurrent.api.TestSingle;
+import io.servicetalk.concurrent.context.AsyncContext;
+import io.servicetalk.concurrent.context.AsyncContextMap;
+import io.servicetalk.concurrent.context.Deadlines;
+import io.servicetalk.redis.api.RedisClient;
+import io.servicetalk.redis.api.RedisClient.ReservedRedisConnection;
+import io.servicetalk.redis.api.RedisRequest;
+import io.servicetalk.transport.api.ExecutionContext;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeoutException;
+
+import static io.servicetalk.concurrent.api.Completable.completed;
+import static io.servicetalk.concurrent.api.Executors.immediate;
+import static io.servicetalk.concurrent.api.Single.success;
+import static io.servicetalk.redis.api.RedisProtocolSupport.Command.GET;
+import static io.servicetalk.redis.api.RedisRequests.newRequest;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class DeadlineRedisClientTest {
+
+    private final RedisClient delegate = mock(RedisClient.class);
+    private final ReservedRedisConnection connection = mock(ReservedRedisConnection.class);
+    private final RedisRequest request = newRequest(GET);
+
+    @Before
+    public void setUp() {
+        ExecutionContext executionContext = mock(ExecutionContext.class);
+        when(executionContext.getExecutor()).thenReturn(immediate());
+        when(delegate.getExecutionContext()).thenReturn(executionContext);
+        when(connection.releaseAsync()).thenReturn(completed());
+    }
+
+    @Test
+    public void testRequestWithoutDeadline() throws Exception {
+        when(delegate.request(any(RedisRequest.class), eq(String.class))).thenReturn(success("OK"));
+        RedisClient client = new DeadlineRedisClient(delegate);
+        assertThat(client.request(request, String.class).toFuture().get(), is("OK"));
+    }
+
+    @Test
+    public void testRequestTimesOut() throws Exception {
+        TestSingle<String> response = new TestSingle<>();
+        when(delegate.request(any(RedisRequest.class), eq(String.class))).thenReturn(response);
+        RedisClient client = new DeadlineRedisClient(delegate);
+        assertTimeout(subscribeWithDeadline(client.request(request, String.class), 10));
+        response.verifyCancelled();
+    }
+
+    @Test
+    public void testRequestRejectedAfterDeadline() throws Exception {
+        TestSingle<String> response = new TestSingle<>();
+        when(delegate.request(any(RedisRequest.class), eq(String.class))).thenReturn(response);
+        RedisClient client = new DeadlineRedisClient(delegate);
+        assertTimeout(subscribeWithDeadline(client.request(request, String.class), 0));
+        response.verifyListenNotCalled();
+    }
+
+    @Test
+    public void testReservedConnectionDeliveredBeforeDeadline() throws Exception {
+        doReturn(success(connection)).when(delegate).reserveConnection(any());
+        RedisClient client = new DeadlineRedisClient(delegate);
+        Future<? extends ReservedRedisConnection> reserved =
+                subscribeWithDeadline(client.reserveConnection(request), 1000);
+        assertThat(reserved.get(), is(sameInstance(connection)));
+        verify(connection, never()).releaseAsync();
+    }
+
+    @Test
+    public void testReservedConnectionReleasedAfterDeadline() throws Exception {
+        // The reservation is not interrupted by the cancel, like a connection which is being established.
+        TestSingle<ReservedRedisConnection> reservation = new TestSingle<>(true);
+        doReturn(reservation).when(delegate).reserveConnection(any());
+        RedisClient client = new DeadlineRedisClient(delegate);
+        assertTimeout(subscribeWithDeadline(client.reserveConnection(request), 10));
+        verify(connection, never()).releaseAsync();
+
+        reservation.onSuccess(connection);
+        verify(connection).releaseAsync();
+    }
+
+    private static <T> Future<T> subscribeWithDeadline(Single<T> single, long deadlineMs) {
+        final AsyncContextMap saved = AsyncContext.current();
+        try {
+            Deadlines.setDeadline(deadlineMs, MILLISECONDS);
+            return single.toFuture();
+        } finally {
+            AsyncContext.replace(saved);
+        }
+    }
+
+    private static void assertTimeout(Future<?> future) throws InterruptedException {
+        try {
+            future.get();
+            fail("Expected a TimeoutException.");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), is(instanceOf(TimeoutException.class)));
+        }
+    }
+}
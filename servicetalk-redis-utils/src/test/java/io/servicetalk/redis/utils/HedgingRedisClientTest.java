@@ -0,0 +1,151 @@
+/*
+ * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.redis.utils;
+
+import io.servicetalk.concurrent.Cancellable;
+import io.servicetalk.concurrent.api.Executor;
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.concurrent.api.TestSingle;
+import io.servicetalk.redis.api.RedisClient;
+import io.servicetalk.redis.api.RedisRequest;
+import io.servicetalk.transport.api.ExecutionContext;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import static io.servicetalk.concurrent.api.DeliberateException.DELIBERATE_EXCEPTION;
+import static io.servicetalk.concurrent.api.Single.success;
+import static io.servicetalk.redis.api.RedisProtocolSupport.Command.GET;
+import static io.servicetalk.redis.api.RedisProtocolSupport.Command.SET;
+import static io.servicetalk.redis.api.RedisRequests.newRequest;
+import static java.time.Duration.ofMillis;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class HedgingRedisClientTest {
+
+    private final RedisClient delegate = mock(RedisClient.class);
+    private final Executor timerExecutor = mock(Executor.class);
+    private final Queue<Runnable> timers = new ArrayDeque<>();
+    private final Queue<Single<String>> responses = new ArrayDeque<>();
+
+    @Before
+    public void setUp() {
+        ExecutionContext executionContext = mock(ExecutionContext.class);
+        when(executionContext.getExecutor()).thenReturn(timerExecutor);
+        when(delegate.getExecutionContext()).thenReturn(executionContext);
+        when(delegate.request(any(RedisRequest.class), eq(String.class))).thenAnswer(a -> responses.poll());
+        when(timerExecutor.schedule(any(), anyLong(), any())).thenAnswer(a -> {
+            timers.add(a.getArgument(0));
+            return mock(Cancellable.class);
+        });
+    }
+
+    @Test
+    public void testReadOnlyCommandHedgedAfterDelay() throws Exception {
+        TestSingle<String> first = new TestSingle<>();
+        responses.add(first);
+        responses.add(success("hedge"));
+        RedisClient client = new HedgingRedisClient(delegate, ofMillis(10));
+        Future<String> result = client.request(newRequest(GET), String.class).toFuture();
+        verify(timerExecutor).schedule(any(), eq(MILLISECONDS.toNanos(10)), eq(NANOSECONDS));
+        verify(delegate).request(any(RedisRequest.class), eq(String.class));
+        assertFalse("Completed before the hedge.", result.isDone());
+
+        timers.poll().run();
+        assertThat(result.get(), is("hedge"));
+        verify(delegate, times(2)).request(any(RedisRequest.class), eq(String.class));
+        // The loser is cancelled.
+        first.verifyCancelled();
+    }
+
+    @Test
+    public void testFirstResultWins() throws Exception {
+        TestSingle<String> first = new TestSingle<>();
+        TestSingle<String> hedge = new TestSingle<>();
+        responses.add(first);
+        responses.add(hedge);
+        RedisClient client = new HedgingRedisClient(delegate, ofMillis(10));
+        Future<String> result = client.request(newRequest(GET), String.class).toFuture();
+        timers.poll().run();
+        hedge.verifyListenCalled();
+
+        first.onSuccess("first");
+        assertThat(result.get(), is("first"));
+        hedge.verifyCancelled();
+    }
+
+    @Test
+    public void testErrorPropagatesWithoutHedge() throws Exception {
+        responses.add(Single.error(DELIBERATE_EXCEPTION));
+        RedisClient client = new HedgingRedisClient(delegate, ofMillis(10));
+        assertDeliberateException(client.request(newRequest(GET), String.class).toFuture());
+    }
+
+    @Test
+    public void testErrorPropagatesOnceAllAttemptsFail() throws Exception {
+        TestSingle<String> first = new TestSingle<>();
+        TestSingle<String> hedge = new TestSingle<>();
+        responses.add(first);
+        responses.add(hedge);
+        RedisClient client = new HedgingRedisClient(delegate, ofMillis(10));
+        Future<String> result = client.request(newRequest(GET), String.class).toFuture();
+        timers.poll().run();
+
+        // The result of the other attempt is awaited.
+        first.onError(new IllegalStateException("first attempt failed"));
+        assertFalse("Completed while the hedge is in progress.", result.isDone());
+        hedge.onError(DELIBERATE_EXCEPTION);
+        assertDeliberateException(result);
+    }
+
+    @Test
+    public void testWriteCommandNotHedged() throws Exception {
+        responses.add(success("OK"));
+        RedisClient client = new HedgingRedisClient(delegate, ofMillis(10));
+        assertThat(client.request(newRequest(SET), String.class).toFuture().get(), is("OK"));
+        verify(timerExecutor, never()).schedule(any(), anyLong(), any());
+        assertTrue("Unexpected hedge timer.", timers.isEmpty());
+    }
+
+    private static void assertDeliberateException(Future<?> future) throws InterruptedException {
+        try {
+            future.get();
+            fail("Expected a DeliberateException.");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), is(sameInstance(DELIBERATE_EXCEPTION)));
+        }
+    }
+}
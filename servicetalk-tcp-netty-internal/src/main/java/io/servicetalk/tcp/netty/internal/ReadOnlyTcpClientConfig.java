@@ -47,6 +47,7 @@ public class ReadOnlyTcpClientConfig {
     protected long idleTimeoutMs;
     @Nullable
     protected WireLoggingInitializer wireLoggingInitializer;
+    protected boolean eventLoopAffinity;
 
     /**
      * New instance.
@@ -75,6 +76,7 @@ public class ReadOnlyTcpClientConfig {
         sslHostnameVerificationPort = from.sslHostnameVerificationPort;
         idleTimeoutMs = from.idleTimeoutMs;
         wireLoggingInitializer = from.wireLoggingInitializer;
+        eventLoopAffinity = from.eventLoopAffinity;
     }
 
     /**
@@ -154,4 +156,13 @@ public class ReadOnlyTcpClientConfig {
     public WireLoggingInitializer getWireLoggingInitializer() {
         return wireLoggingInitializer;
     }
+
+    /**
+     * Returns whether new connections are created on the I/O thread that initiates the connection, if possible.
+     *
+     * @return {@code true} if new connections prefer the I/O thread that initiates the connection.
+     */
+    public boolean isEventLoopAffinity() {
+        return eventLoopAffinity;
+    }
 }
@@ -112,6 +112,18 @@ public final class TcpClientConfig extends ReadOnlyTcpClientConfig {
         return this;
     }
 
+    /**
+     * Create new connections on the I/O thread that initiates the connection, if that thread belongs to the
+     * {@link io.servicetalk.transport.api.IoExecutor} used for the connection, instead of picking any I/O thread.
+     *
+     * @param eventLoopAffinity {@code true} to prefer the I/O thread that initiates the connection.
+     * @return {@code this}.
+     */
+    public TcpClientConfig setEventLoopAffinity(boolean eventLoopAffinity) {
+        this.eventLoopAffinity = eventLoopAffinity;
+        return this;
+    }
+
     /**
      * Returns an immutable view of this config, any changes to this config will not alter the returned view.
      *
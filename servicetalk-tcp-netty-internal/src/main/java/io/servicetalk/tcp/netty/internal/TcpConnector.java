@@ -155,7 +155,7 @@ public final class TcpConnector<Read, Write> {
             // The ConnectionContext should be given an IoExecutor which correlates to the specific thread used for IO,
             // so we select it here up front.
             EventLoopAwareNettyIoExecutor ioExecutorThread =
-                    toEventLoopAwareNettyIoExecutor(executionContext.getIoExecutor()).next();
+                    selectIoExecutorThread(toEventLoopAwareNettyIoExecutor(executionContext.getIoExecutor()));
 
             // next() of an EventLoop will just return itself, which is expected because we did the selection above.
             EventLoop loop = ioExecutorThread.getEventLoopGroup().next();
@@ -230,6 +230,16 @@ public final class TcpConnector<Read, Write> {
         }
     }
 
+    private EventLoopAwareNettyIoExecutor selectIoExecutorThread(final EventLoopAwareNettyIoExecutor ioExecutor) {
+        if (config.isEventLoopAffinity()) {
+            final EventLoopAwareNettyIoExecutor current = ioExecutor.currentThreadEventLoop();
+            if (current != null) {
+                return current;
+            }
+        }
+        return ioExecutor.next();
+    }
+
     private static ChannelFuture attachCancelSubscriber(ChannelFuture channelFuture, DelayedCancellable cancellable) {
         cancellable.setDelayedCancellable(() -> channelFuture.cancel(false));
         return channelFuture;
@@ -20,16 +20,19 @@ import io.servicetalk.transport.netty.internal.Connection;
 
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.EventLoop;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
 import java.net.ConnectException;
 import java.nio.channels.ClosedChannelException;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 
 import static io.servicetalk.concurrent.internal.Await.awaitIndefinitely;
+import static io.servicetalk.transport.netty.internal.EventLoopAwareNettyIoExecutors.toEventLoopAwareNettyIoExecutor;
 import static java.net.InetSocketAddress.createUnresolved;
 import static java.nio.charset.Charset.defaultCharset;
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -79,6 +82,24 @@ public final class TcpConnectorTest extends AbstractTcpServerTest {
         testWriteAndRead(client.connectWithFdBlocking(CLIENT_CTX, serverContext.getListenAddress()));
     }
 
+    @Test
+    public void testConnectWithEventLoopAffinity() throws Exception {
+        TcpConnector<Buffer, Buffer> connector = new TcpConnector<>(
+                new TcpClientConfig(false).setEventLoopAffinity(true).asReadOnly(), (channel, context) -> context,
+                () -> v -> true);
+        EventLoop loop = toEventLoopAwareNettyIoExecutor(CLIENT_CTX.getIoExecutor()).getEventLoopGroup().next();
+        for (int i = 0; i < 4; ++i) {
+            CompletableFuture<Connection<Buffer, Buffer>> connectionFuture = new CompletableFuture<>();
+            loop.execute(() -> connector.connect(CLIENT_CTX, serverContext.getListenAddress())
+                    .doBeforeError(connectionFuture::completeExceptionally)
+                    .subscribe(connectionFuture::complete));
+            Connection<Buffer, Buffer> connection = connectionFuture.get();
+            assertThat("Connection not bound to the connecting event loop.", toEventLoopAwareNettyIoExecutor(
+                    connection.getExecutionContext().getIoExecutor()).getEventLoopGroup(), is(loop));
+            awaitIndefinitely(connection.closeAsync());
+        }
+    }
+
     @Test
     public void testRegisteredAndActiveEventsFired() throws Exception {
         final CountDownLatch registeredLatch = new CountDownLatch(1);
@@ -39,6 +39,15 @@ public final class ServiceTalkSocketOptions {
      */
     public static final SocketOption<Long> IDLE_TIMEOUT = new ServiceTalkSocketOption<>("IDLE_TIMEOUT", Long.class);
 
+    /**
+     * The maximum size in bytes of the buffer allocated for a single read from the socket, expected to be between
+     * {@code 64} and {@code 2^30}.
+     * <p>
+     * Setting this option sizes the read buffers of each connection from the number of bytes its previous reads
+     * returned, so connections which exchange small messages settle on small buffers quickly.
+     */
+    public static final SocketOption<Integer> MAX_READ_BUFFER_SIZE = new ServiceTalkSocketOption<>("MAX_READ_BUFFER_SIZE", Integer.class);
+
     private ServiceTalkSocketOptions() {
     }
 
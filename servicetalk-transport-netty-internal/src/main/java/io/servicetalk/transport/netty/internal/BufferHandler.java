@@ -27,7 +27,7 @@ import io.netty.channel.ChannelPromise;
 import io.netty.channel.EventLoop;
 
 import static io.servicetalk.buffer.netty.BufferUtil.extractByteBufOrCreate;
-import static io.servicetalk.buffer.netty.BufferUtil.newBufferFrom;
+import static io.servicetalk.buffer.netty.BufferUtil.newUnpooledBufferFrom;
 
 /**
  * A {@link ChannelHandler} that converts does the following conversions:
@@ -39,7 +39,10 @@ import static io.servicetalk.buffer.netty.BufferUtil.newBufferFrom;
  *     <li>{@link ByteBufHolder} to {@link Buffer} for reads.</li>
  * </ul>
  *
- * This also releases any {@link ByteBuf} once converted to {@link Buffer}.
+ * This also releases any {@link ByteBuf} once converted to {@link Buffer}: read {@link ByteBuf}s which reference pooled
+ * memory are copied to memory managed by the garbage collector, so the {@link Buffer}s handed to the rest of the
+ * pipeline never need to be released. Written {@link Buffer}s are owned by the transport from then on, which releases
+ * them once written if they are reference counted.
  */
 public final class BufferHandler extends RefCountedTrapper {
 
@@ -55,12 +58,12 @@ public final class BufferHandler extends RefCountedTrapper {
     @Override
     protected Object decode(EventLoop eventLoop, BufferAllocator allocator, Object msg) {
         if (msg instanceof ByteBuf) {
-            return newBufferFrom((ByteBuf) msg);
+            return newUnpooledBufferFrom((ByteBuf) msg);
         }
         if (msg instanceof ByteBufHolder) {
             ByteBufHolder holder = (ByteBufHolder) msg;
             ByteBuf byteBuf = holder.content();
-            return newBufferFrom(byteBuf);
+            return newUnpooledBufferFrom(byteBuf);
         }
         return msg;
     }
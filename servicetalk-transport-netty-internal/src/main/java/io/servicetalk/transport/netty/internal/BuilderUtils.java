@@ -208,6 +208,8 @@ public final class BuilderUtils {
         } else if (option == ServiceTalkSocketOptions.WRITE_BUFFER_THRESHOLD) {
             Integer writeBufferThreshold = (Integer) value;
             channelOpts.put(ChannelOption.WRITE_BUFFER_WATER_MARK, new WriteBufferWaterMark(writeBufferThreshold >>> 1, writeBufferThreshold));
+        } else if (option == ServiceTalkSocketOptions.MAX_READ_BUFFER_SIZE) {
+            channelOpts.put(ChannelOption.RCVBUF_ALLOCATOR, new ReadSizePredictingRecvByteBufAllocator((Integer) value));
         } else {
             throw new IllegalArgumentException("SocketOption " + option + " not supported");
         }
@@ -92,7 +92,10 @@ public interface Connection<Read, Write> extends ConnectionContext {
      *     <li>With an error, if any item emitted can not be written successfully on the connection.</li>
      *     <li>With an error, if {@link Publisher} emits an error.</li>
      *     <li>With an error, if there is a already an active write on this connection.</li>
-     *     <li>Successfully when {@link Publisher} completes and all items emitted are written successfully.</li>
+     *     <li>Successfully when {@link Publisher} completes and all items emitted are written successfully. For
+     *     {@link IdleAwareFlushStrategyHolder idle aware} strategies, successfully when {@link Publisher} completes and
+     *     all items emitted are passed to the connection, pending writes are flushed when the connection goes idle and
+     *     a failure to write them closes the connection.</li>
      * </ul>
      */
     Completable write(Publisher<Write> write, FlushStrategy flushStrategy);
@@ -109,7 +112,10 @@ public interface Connection<Read, Write> extends ConnectionContext {
      *     <li>With an error, if any item emitted can not be written successfully on the connection.</li>
      *     <li>With an error, if {@link Publisher} emits an error.</li>
      *     <li>With an error, if there is a already an active write on this connection.</li>
-     *     <li>Successfully when {@link Publisher} completes and all items emitted are written successfully.</li>
+     *     <li>Successfully when {@link Publisher} completes and all items emitted are written successfully. For
+     *     {@link IdleAwareFlushStrategyHolder idle aware} strategies, successfully when {@link Publisher} completes and
+     *     all items emitted are passed to the connection, pending writes are flushed when the connection goes idle and
+     *     a failure to write them closes the connection.</li>
      * </ul>
      */
     Completable write(Publisher<Write> write, FlushStrategy flushStrategy, Supplier<RequestNSupplier> requestNSupplierFactory);
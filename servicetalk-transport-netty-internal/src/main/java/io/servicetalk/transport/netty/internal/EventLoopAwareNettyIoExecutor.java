@@ -18,6 +18,8 @@ package io.servicetalk.transport.netty.internal;
 import io.netty.channel.EventLoop;
 import io.netty.channel.EventLoopGroup;
 
+import javax.annotation.Nullable;
+
 /**
  * A special {@link NettyIoExecutor} that exposes the underlying netty {@link EventLoopGroup}.
  */
@@ -43,4 +45,14 @@ public interface EventLoopAwareNettyIoExecutor extends NettyIoExecutor {
      * @return {@link EventLoopAwareNettyIoExecutor} that is tied to a single {@link EventLoop} and not a {@link EventLoopGroup}.
      */
     EventLoopAwareNettyIoExecutor next();
+
+    /**
+     * Returns a {@link EventLoopAwareNettyIoExecutor} that is tied to the {@link EventLoop} of the calling thread, if
+     * the calling thread is an I/O thread managed by this {@link NettyIoExecutor}.
+     *
+     * @return {@link EventLoopAwareNettyIoExecutor} that is tied to the {@link EventLoop} of the calling thread or
+     * {@code null} if the calling thread is not an I/O thread managed by this {@link NettyIoExecutor}.
+     */
+    @Nullable
+    EventLoopAwareNettyIoExecutor currentThreadEventLoop();
 }
@@ -15,12 +15,47 @@
  */
 package io.servicetalk.transport.netty.internal;
 
+import io.netty.channel.EventLoop;
 import io.netty.channel.EventLoopGroup;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.FastThreadLocal;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import javax.annotation.Nullable;
 
 final class EventLoopGroupIoExecutor extends AbstractNettyIoExecutor<EventLoopGroup> implements EventLoopAwareNettyIoExecutor {
 
+    /**
+     * One {@link EventLoopIoExecutor} per {@link EventLoop} of the group, so {@link #next()} does not allocate.
+     */
+    private final Map<EventExecutor, EventLoopIoExecutor> executors;
+    /**
+     * The {@link EventLoopIoExecutor} of the calling thread, which is looked up only once per thread.
+     */
+    private final FastThreadLocal<EventLoopIoExecutor> currentExecutor;
+
     EventLoopGroupIoExecutor(EventLoopGroup eventLoopGroup, boolean interruptOnCancel) {
         super(eventLoopGroup, interruptOnCancel);
+        executors = new IdentityHashMap<>();
+        for (EventExecutor executor : eventLoopGroup) {
+            if (executor instanceof EventLoop) {
+                executors.put(executor, new EventLoopIoExecutor((EventLoop) executor, interruptOnCancel));
+            }
+        }
+        currentExecutor = new FastThreadLocal<EventLoopIoExecutor>() {
+            @Nullable
+            @Override
+            protected EventLoopIoExecutor initialValue() {
+                // Each event loop runs on its own thread for its whole lifetime, so the result never changes.
+                for (EventLoopIoExecutor executor : executors.values()) {
+                    if (executor.isCurrentThreadEventLoop()) {
+                        return executor;
+                    }
+                }
+                return null;
+            }
+        };
     }
 
     @Override
@@ -35,6 +70,14 @@ final class EventLoopGroupIoExecutor extends AbstractNettyIoExecutor<EventLoopGr
 
     @Override
     public EventLoopAwareNettyIoExecutor next() {
-        return new EventLoopIoExecutor(eventLoop.next(), interruptOnCancel);
+        final EventLoop next = eventLoop.next();
+        final EventLoopIoExecutor executor = executors.get(next);
+        return executor != null ? executor : new EventLoopIoExecutor(next, interruptOnCancel);
+    }
+
+    @Nullable
+    @Override
+    public EventLoopAwareNettyIoExecutor currentThreadEventLoop() {
+        return currentExecutor.get();
     }
 }
@@ -18,6 +18,8 @@ package io.servicetalk.transport.netty.internal;
 import io.netty.channel.EventLoop;
 import io.netty.channel.EventLoopGroup;
 
+import javax.annotation.Nullable;
+
 final class EventLoopIoExecutor extends AbstractNettyIoExecutor<EventLoop> implements EventLoopAwareNettyIoExecutor {
 
     EventLoopIoExecutor(EventLoop eventLoop, boolean interruptOnCancel) {
@@ -38,4 +40,10 @@ final class EventLoopIoExecutor extends AbstractNettyIoExecutor<EventLoop> imple
     public EventLoopAwareNettyIoExecutor next() {
         return this;
     }
+
+    @Nullable
+    @Override
+    public EventLoopAwareNettyIoExecutor currentThreadEventLoop() {
+        return eventLoop.inEventLoop() ? this : null;
+    }
 }
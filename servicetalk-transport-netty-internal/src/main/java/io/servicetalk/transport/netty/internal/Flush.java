@@ -21,6 +21,8 @@ import io.servicetalk.transport.netty.internal.FlushStrategyHolder.FlushSignals;
 
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelOutboundInvoker;
+import io.netty.channel.EventLoop;
+import io.netty.channel.SingleThreadEventLoop;
 import io.netty.util.concurrent.EventExecutor;
 import org.reactivestreams.Subscriber;
 import org.reactivestreams.Subscription;
@@ -52,6 +54,22 @@ final class Flush {
         return source.liftSynchronous(subscriber -> new FlushSubscriber<>(flushSignals, subscriber, channel));
     }
 
+    /**
+     * Executes {@code task} on the passed {@link EventLoop} once it has run all the tasks that are pending at the time
+     * of this call, i.e. when the {@link EventLoop} goes idle.
+     *
+     * @param eventLoop {@link EventLoop} to execute {@code task} on.
+     * @param task to execute.
+     */
+    static void executeWhenIdle(EventLoop eventLoop, Runnable task) {
+        if (eventLoop instanceof SingleThreadEventLoop) {
+            // Tail tasks run after all other pending tasks of an event loop iteration have been processed.
+            ((SingleThreadEventLoop) eventLoop).executeAfterEventLoopIteration(task);
+        } else {
+            eventLoop.execute(task);
+        }
+    }
+
     private static final class FlushSubscriber<T> implements Subscriber<T>, Runnable {
         private final FlushSignals flushSignals;
         private final Subscriber<? super T> subscriber;
@@ -0,0 +1,151 @@
+/*
+ * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.transport.netty.internal;
+
+import io.servicetalk.concurrent.api.Publisher;
+import io.servicetalk.transport.netty.internal.FlushStrategyHolder.FlushSignals;
+
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+import static java.util.Objects.requireNonNull;
+
+final class FlushOnIdleStrategy implements FlushStrategy {
+
+    private final int maxPendingWrites;
+
+    FlushOnIdleStrategy(int maxPendingWrites) {
+        if (maxPendingWrites <= 0) {
+            throw new IllegalArgumentException("maxPendingWrites: " + maxPendingWrites + " (expected > 0)");
+        }
+        this.maxPendingWrites = maxPendingWrites;
+    }
+
+    @Override
+    public <T> FlushStrategyHolder<T> apply(Publisher<T> source) {
+        requireNonNull(source);
+        return new IdleAwareFlushStrategyHolderImpl<>(source, new FlushSignals(), maxPendingWrites);
+    }
+
+    private static final class IdleAwareFlushStrategyHolderImpl<T> implements IdleAwareFlushStrategyHolder<T> {
+
+        private static final Executor IMMEDIATE = Runnable::run;
+
+        private final Publisher<T> src;
+        private final FlushSignals signals;
+        // Until an idle executor is set, flush immediately.
+        private volatile Executor idleExecutor = IMMEDIATE;
+        private volatile Runnable idleFlush;
+
+        IdleAwareFlushStrategyHolderImpl(Publisher<T> src, FlushSignals signals, int maxPendingWrites) {
+            this.src = src.liftSynchronous(subscriber -> new IdleAwareSubscriber<>(this, subscriber, signals,
+                    maxPendingWrites));
+            this.signals = signals;
+            idleFlush = signals::signalFlush;
+        }
+
+        @Override
+        public void setIdleExecutor(Executor idleExecutor, Runnable idleFlush) {
+            this.idleFlush = requireNonNull(idleFlush);
+            this.idleExecutor = requireNonNull(idleExecutor);
+        }
+
+        @Override
+        public Publisher<T> getSource() {
+            return src;
+        }
+
+        @Override
+        public FlushSignals getFlushSignals() {
+            return signals;
+        }
+    }
+
+    private static final class IdleAwareSubscriber<T> implements Subscriber<T>, Runnable {
+
+        private static final AtomicIntegerFieldUpdater<IdleAwareSubscriber> unflushedCountUpdater =
+                AtomicIntegerFieldUpdater.newUpdater(IdleAwareSubscriber.class, "unflushedCount");
+        private final IdleAwareFlushStrategyHolderImpl<T> strategy;
+        private final Subscriber<? super T> subscriber;
+        private final FlushSignals signals;
+        private final int maxPendingWrites;
+        @SuppressWarnings("unused")
+        private volatile int unflushedCount;
+
+        IdleAwareSubscriber(IdleAwareFlushStrategyHolderImpl<T> strategy, Subscriber<? super T> subscriber,
+                            FlushSignals signals, int maxPendingWrites) {
+            this.strategy = strategy;
+            this.subscriber = subscriber;
+            this.signals = signals;
+            this.maxPendingWrites = maxPendingWrites;
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            subscriber.onSubscribe(s);
+        }
+
+        @Override
+        public void onNext(T t) {
+            subscriber.onNext(t);
+            int unflushed = unflushedCountUpdater.incrementAndGet(this);
+            if (unflushed == maxPendingWrites) {
+                sendFlush();
+            } else if (unflushed == 1) {
+                // First write of a new batch, all writes that arrive before the connection goes idle join this batch.
+                strategy.idleExecutor.execute(this);
+            }
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            subscriber.onError(t);
+        }
+
+        @Override
+        public void onComplete() {
+            if (strategy.idleExecutor == IdleAwareFlushStrategyHolderImpl.IMMEDIATE) {
+                sendFlush();
+            }
+            // Otherwise pending writes are flushed by the idle task which was scheduled for the first of them, together
+            // with all other writes of this event loop iteration. Completing without waiting for that flush lets a
+            // connection start writing the next Publisher, e.g. the next pipelined request, in the same batch.
+            subscriber.onComplete();
+        }
+
+        @Override
+        public void run() {
+            // Connection is idle. Subscribers downstream stop listening for flush signals once completed, so flush the
+            // connection directly.
+            if (unflushedCountUpdater.getAndSet(this, 0) > 0) {
+                strategy.idleFlush.run();
+            }
+        }
+
+        /**
+         * Sends a flush signal, using configured {@link FlushSignals#signalFlush()}.
+         */
+        private void sendFlush() {
+            int oldUnflushedCount = unflushedCountUpdater.getAndSet(this, 0);
+            if (oldUnflushedCount > 0) {
+                signals.signalFlush();
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.transport.netty.internal;
+
+import io.servicetalk.concurrent.api.Publisher;
+
+import java.util.concurrent.Executor;
+
+/**
+ * A specialized {@link FlushStrategyHolder} that is notified when the connection, on which the {@link Publisher} inside
+ * this holder will be written, has no more pending work.
+ *
+ * @param <T> Type of elements emitted by the {@link Publisher} contained in this holder.
+ */
+public interface IdleAwareFlushStrategyHolder<T> extends FlushStrategyHolder<T> {
+
+    /**
+     * Sets the {@link Executor} that runs tasks once the I/O thread of the connection on which the {@link Publisher}
+     * inside this holder is written, has finished processing all the tasks that are pending at the time of submission.
+     * <p>
+     *     This method is called before the {@link Publisher} inside this holder is subscribed.
+     *
+     * @param idleExecutor {@link Executor} to run tasks when the connection goes idle.
+     * @param idleFlush Flushes the connection. Tasks run by {@code idleExecutor} use it instead of
+     * {@link #getFlushSignals() flush signals}, as those are not observed after the {@link Publisher} completes.
+     */
+    void setIdleExecutor(Executor idleExecutor, Runnable idleFlush);
+
+    /**
+     * Creates a {@link FlushStrategy} that adapts to the rate at which items are written:
+     * <ul>
+     *     <li>Writes are batched as long as more writes are pending on the connection, and all pending writes are
+     *     flushed together as soon as the connection has no more pending work.
+     *     A single write on an otherwise idle connection is hence flushed with no added latency.</li>
+     *     <li>If the number of unflushed writes reaches {@code maxPendingWrites}, those writes are flushed
+     *     immediately.</li>
+     *     <li>Writes which are still pending when the written {@link Publisher} completes are flushed together with
+     *     all other writes once the connection has no more pending work. The completion is propagated without
+     *     waiting for that flush.</li>
+     * </ul>
+     * Since the completion does not wait for a flush, a connection that writes one {@link Publisher} after another,
+     * like a pipelined client connection, starts writing the next {@link Publisher} right away. All requests
+     * pipelined in the same event loop iteration are hence flushed together.
+     * <p>
+     * If used on a connection that does not set an {@link #setIdleExecutor(Executor, Runnable) idle executor}, every
+     * write is flushed immediately i.e. it behaves the same as {@link FlushStrategy#flushOnEach()}.
+     *
+     * @param maxPendingWrites Maximum number of writes pending before a flush.
+     * @return New {@link FlushStrategy}.
+     */
+    static FlushStrategy flushOnIdle(int maxPendingWrites) {
+        return new FlushOnIdleStrategy(maxPendingWrites);
+    }
+}
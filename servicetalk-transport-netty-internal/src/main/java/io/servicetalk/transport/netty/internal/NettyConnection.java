@@ -47,6 +47,7 @@ import static io.servicetalk.concurrent.Cancellable.IGNORE_CANCEL;
 import static io.servicetalk.concurrent.internal.ThrowableUtil.unknownStackTrace;
 import static io.servicetalk.transport.netty.internal.CloseHandler.NOOP_CLOSE_HANDLER;
 import static io.servicetalk.transport.netty.internal.Flush.composeFlushes;
+import static io.servicetalk.transport.netty.internal.Flush.executeWhenIdle;
 import static java.util.Objects.requireNonNull;
 import static java.util.concurrent.atomic.AtomicReferenceFieldUpdater.newUpdater;
 
@@ -94,6 +95,13 @@ public class NettyConnection<Read, Write> implements Connection<Read, Write> {
     @Nullable
     private CloseEvent closeReason;
 
+    /**
+     * {@code true} if a flush is scheduled for when the event loop goes idle.
+     * <p>
+     * Always accessed from the event loop, doesn't require synchronization.
+     */
+    private boolean idleFlushPending;
+
     /**
      * Create a new instance.
      *
@@ -238,6 +246,19 @@ public class NettyConnection<Read, Write> implements Connection<Read, Write> {
         return closeReason != null ? closeReason.wrapError(t) : t;
     }
 
+    private void flushWhenIdle() {
+        assert channel.eventLoop().inEventLoop();
+        // The idle tasks of consecutive Publishers, e.g. pipelined requests, all ask for a flush. Coalesce them so the
+        // connection is flushed once.
+        if (!idleFlushPending) {
+            idleFlushPending = true;
+            executeWhenIdle(channel.eventLoop(), () -> {
+                idleFlushPending = false;
+                channel.flush();
+            });
+        }
+    }
+
     private void cleanupOnWriteTerminated() {
         readAwareFlushStrategyHolder = null;
         writableListener = PLACE_HOLDER_WRITABLE_LISTENER;
@@ -267,14 +288,21 @@ public class NettyConnection<Read, Write> implements Connection<Read, Write> {
         return cleanupStateWhenDone(new Completable() {
             @Override
             protected void handleSubscribe(Subscriber completableSubscriber) {
+                // Idle aware strategies flush pending writes after the source completes, so do not wait for the last
+                // write before completing.
                 WriteStreamSubscriber subscriber = new WriteStreamSubscriber(channel, requestNSupplierFactory.get(),
-                        completableSubscriber, closeHandler);
+                        completableSubscriber, closeHandler, !(writeWithFlush instanceof IdleAwareFlushStrategyHolder));
                 if (failIfWriteActive(subscriber, completableSubscriber)) {
                     if (writeWithFlush instanceof ReadAwareFlushStrategyHolder) {
                         ReadAwareFlushStrategyHolder<Write> holder = (ReadAwareFlushStrategyHolder<Write>) writeWithFlush;
                         holder.setReadInProgressSupplier(readInProgressSupplier);
                         readAwareFlushStrategyHolder = holder;
                     }
+                    if (writeWithFlush instanceof IdleAwareFlushStrategyHolder) {
+                        ((IdleAwareFlushStrategyHolder<Write>) writeWithFlush).setIdleExecutor(
+                                task -> executeWhenIdle(channel.eventLoop(), task),
+                                NettyConnection.this::flushWhenIdle);
+                    }
                     composeFlushes(channel, writeWithFlush.getSource(), writeWithFlush.getFlushSignals())
                             .subscribe(subscriber);
                 }
@@ -0,0 +1,97 @@
+/*
+ * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.transport.netty.internal;
+
+import io.netty.channel.AdaptiveRecvByteBufAllocator;
+import io.netty.channel.DefaultMaxMessagesRecvByteBufAllocator;
+import io.netty.channel.RecvByteBufAllocator;
+
+import static io.netty.util.internal.MathUtil.findNextPositivePowerOfTwo;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
+/**
+ * A {@link RecvByteBufAllocator} that sizes the buffer of each read from the number of bytes that previous reads of
+ * the same connection returned.
+ * <p>
+ * {@link AdaptiveRecvByteBufAllocator} only shrinks its guess by one small step after two consecutive reads that did
+ * not need the whole buffer, so a connection which exchanges small messages keeps allocating large buffers for many
+ * reads. This follows an exponentially weighted moving average of the read sizes instead, and doubles the guess as
+ * soon as a read fills its buffer.
+ */
+final class ReadSizePredictingRecvByteBufAllocator extends DefaultMaxMessagesRecvByteBufAllocator {
+    static final int MIN_READ_BUFFER_SIZE = 64;
+    static final int MAX_READ_BUFFER_SIZE = 1 << 30;
+    private static final int INITIAL_READ_BUFFER_SIZE = 1024;
+
+    private final int maxReadBufferSize;
+    private final int initialReadBufferSize;
+
+    /**
+     * New instance.
+     *
+     * @param maxReadBufferSize the maximum size of the buffer allocated for a single read.
+     */
+    ReadSizePredictingRecvByteBufAllocator(int maxReadBufferSize) {
+        if (maxReadBufferSize < MIN_READ_BUFFER_SIZE || maxReadBufferSize > MAX_READ_BUFFER_SIZE) {
+            throw new IllegalArgumentException("maxReadBufferSize: " + maxReadBufferSize + " (expected: " +
+                    MIN_READ_BUFFER_SIZE + "-" + MAX_READ_BUFFER_SIZE + ")");
+        }
+        this.maxReadBufferSize = maxReadBufferSize;
+        initialReadBufferSize = min(INITIAL_READ_BUFFER_SIZE, maxReadBufferSize);
+    }
+
+    @SuppressWarnings("deprecation")
+    @Override
+    public Handle newHandle() {
+        return new PredictingHandle();
+    }
+
+    private final class PredictingHandle extends MaxMessageHandle {
+        private int averageReadSize = initialReadBufferSize;
+        private int nextReadBufferSize = initialReadBufferSize;
+
+        @Override
+        public int guess() {
+            return nextReadBufferSize;
+        }
+
+        @Override
+        public void lastBytesRead(int bytes) {
+            super.lastBytesRead(bytes);
+            if (bytes <= 0) {
+                return;
+            }
+            if (bytes == attemptedBytesRead()) {
+                // The buffer was filled so more data is likely pending, grow right away to need less reads for it.
+                averageReadSize = max(averageReadSize, bytes);
+                nextReadBufferSize = nextReadBufferSize > maxReadBufferSize >>> 1 ? maxReadBufferSize :
+                        nextReadBufferSize << 1;
+            } else {
+                // A weight of 1/4 for the latest read lets a single outlier move the guess only a little.
+                averageReadSize += (bytes - averageReadSize) >> 2;
+                nextReadBufferSize = readBufferSizeFor(averageReadSize);
+            }
+        }
+
+        private int readBufferSizeFor(int readSize) {
+            // Leave some room above the average, so reads which are slightly larger than usual still fit.
+            final int size = readSize + (readSize >>> 1);
+            return size >= maxReadBufferSize ? maxReadBufferSize :
+                    min(maxReadBufferSize, max(MIN_READ_BUFFER_SIZE, findNextPositivePowerOfTwo(size)));
+        }
+    }
+}
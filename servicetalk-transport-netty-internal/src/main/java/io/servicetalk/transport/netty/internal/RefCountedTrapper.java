@@ -17,7 +17,9 @@ package io.servicetalk.transport.netty.internal;
 
 import io.servicetalk.buffer.api.Buffer;
 import io.servicetalk.buffer.api.BufferAllocator;
+import io.servicetalk.buffer.netty.BufferUtil;
 
+import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelDuplexHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.EventLoop;
@@ -25,10 +27,16 @@ import io.netty.util.ReferenceCounted;
 
 import static io.netty.util.ReferenceCountUtil.release;
 import static io.netty.util.ReferenceCountUtil.safeRelease;
+import static io.netty.util.ReferenceCountUtil.touch;
 import static java.util.Objects.requireNonNull;
 
 /**
  * A {@link ChannelDuplexHandler} that makes sure no {@link ReferenceCounted} objects leak from netty's pipeline.
+ * <p>
+ * This is the boundary for memory allocated from a pooled {@link BufferAllocator}: pooled memory must be released
+ * before a message leaves the pipeline, which {@link #decode(EventLoop, BufferAllocator, Object)} implementations
+ * typically do by copying it via {@link BufferUtil#newUnpooledBufferFrom(ByteBuf)}. A message which is still
+ * {@link ReferenceCounted} after decoding is released and the channel is closed.
  */
 public abstract class RefCountedTrapper extends ChannelDuplexHandler {
 
@@ -45,6 +53,8 @@ public abstract class RefCountedTrapper extends ChannelDuplexHandler {
 
     @Override
     public final void channelRead(ChannelHandlerContext ctx, Object msg) {
+        // Record the boundary in leak reports of pooled messages which are not released while decoding.
+        touch(msg, this);
         try {
             msg = decode(ctx.channel().eventLoop(), allocator, msg);
         } catch (Throwable throwable) {
@@ -89,14 +89,26 @@ final class WriteStreamSubscriber implements org.reactivestreams.Subscriber<Obje
     private boolean enqueueWrites;
     private boolean terminated;
     private final CloseHandler closeHandler;
+    /**
+     * {@code true} to complete the {@link Subscriber} once the last write has been written successfully. Otherwise it is
+     * completed as soon as all writes are issued on the channel, without waiting for them to be flushed. A failure of
+     * those writes then only closes the channel.
+     */
+    private final boolean awaitLastWrite;
 
     WriteStreamSubscriber(Channel channel, RequestNSupplier requestNSupplier, Subscriber subscriber,
                           CloseHandler closeHandler) {
+        this(channel, requestNSupplier, subscriber, closeHandler, true);
+    }
+
+    WriteStreamSubscriber(Channel channel, RequestNSupplier requestNSupplier, Subscriber subscriber,
+                          CloseHandler closeHandler, boolean awaitLastWrite) {
         this.eventLoop = requireNonNull(channel.eventLoop());
         this.subscriber = subscriber;
         this.channel = channel;
         this.requestNSupplier = requestNSupplier;
         this.closeHandler = closeHandler;
+        this.awaitLastWrite = awaitLastWrite;
     }
 
     @Override
@@ -170,8 +182,16 @@ final class WriteStreamSubscriber implements org.reactivestreams.Subscriber<Obje
 
     @Override
     public void onComplete() {
-        if (lastWritePromise != null) {
+        if (lastWritePromise != null && awaitLastWrite) {
             lastWritePromise.addListener(this::terminateAndCloseIfLastWriteFailed);
+        } else if (lastWritePromise != null) {
+            lastWritePromise.addListener(this::closeIfLastWriteFailed);
+            // Enqueued writes are issued from the event loop, terminate after them to preserve ordering.
+            if (eventLoop.inEventLoop() && !enqueueWrites) {
+                terminateListener();
+            } else {
+                eventLoop.execute(this::terminateListener);
+            }
         } else if (eventLoop.inEventLoop()) {
             // If lastWritePromise is null that means there are no writes, enqueueWrites should only be set to true if
             // there are writes.
@@ -207,6 +227,12 @@ final class WriteStreamSubscriber implements org.reactivestreams.Subscriber<Obje
         }
     }
 
+    private void closeIfLastWriteFailed(Future<?> future) {
+        if (!future.isSuccess()) {
+            closeHandler.closeChannelOutbound(channel);
+        }
+    }
+
     @Override
     public void channelClosed(Throwable closedException) {
         Subscription oldVal = subscriptionUpdater.getAndSet(this, CANCELLED);
@@ -0,0 +1,63 @@
+/*
+ * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.transport.netty.internal;
+
+import io.servicetalk.concurrent.internal.ServiceTalkTestTimeout;
+
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class EventLoopGroupIoExecutorTest {
+
+    @Rule
+    public final Timeout timeout = new ServiceTalkTestTimeout();
+
+    private final EventLoopGroup eventLoopGroup = new NioEventLoopGroup(2);
+    private final EventLoopGroupIoExecutor ioExecutor = new EventLoopGroupIoExecutor(eventLoopGroup, true);
+
+    @After
+    public void tearDown() throws Exception {
+        eventLoopGroup.shutdownGracefully(0, 0, SECONDS).sync();
+    }
+
+    @Test
+    public void testCurrentThreadEventLoopIsCachedPerEventLoop() throws Exception {
+        for (int i = 0; i < 2; ++i) {
+            EventLoopAwareNettyIoExecutor next = ioExecutor.next();
+            EventLoop eventLoop = (EventLoop) next.getEventLoopGroup();
+            EventLoopAwareNettyIoExecutor first = eventLoop.submit(ioExecutor::currentThreadEventLoop).get();
+            EventLoopAwareNettyIoExecutor second = eventLoop.submit(ioExecutor::currentThreadEventLoop).get();
+            assertThat(first, is(sameInstance(next)));
+            assertThat(second, is(sameInstance(next)));
+        }
+    }
+
+    @Test
+    public void testCurrentThreadEventLoopOutsideEventLoop() {
+        assertThat(ioExecutor.currentThreadEventLoop(), is(nullValue()));
+    }
+}
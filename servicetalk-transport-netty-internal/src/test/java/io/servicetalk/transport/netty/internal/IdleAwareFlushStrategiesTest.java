@@ -0,0 +1,152 @@
+/*
+ * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.transport.netty.internal;
+
+import io.servicetalk.concurrent.api.MockedSubscriberRule;
+import io.servicetalk.concurrent.api.TestPublisher;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+import static io.servicetalk.transport.netty.internal.IdleAwareFlushStrategyHolder.flushOnIdle;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+public class IdleAwareFlushStrategiesTest {
+
+    @Rule
+    public final MockedSubscriberRule<String> sourceSub = new MockedSubscriberRule<>();
+
+    private final Queue<Runnable> idleTasks = new ArrayDeque<>();
+    private Runnable flushListener;
+    private TestPublisher<String> source;
+
+    @Before
+    public void setUp() {
+        flushListener = mock(Runnable.class);
+        source = new TestPublisher<String>().sendOnSubscribe();
+    }
+
+    @Test
+    public void testFlushOnIdleBatchesUntilIdle() {
+        setupForIdle(10);
+        source.sendItems("Hello1", "Hello2", "Hello3");
+        verifyFlush(0);
+        assertThat("Unexpected idle tasks.", idleTasks, hasSize(1));
+        runIdleTasks();
+        verifyFlush(1);
+    }
+
+    @Test
+    public void testFlushOnIdleNewBatchAfterIdle() {
+        setupForIdle(10);
+        source.sendItems("Hello1");
+        runIdleTasks();
+        verifyFlush(1);
+        source.sendItems("Hello2");
+        assertThat("Unexpected idle tasks.", idleTasks, hasSize(1));
+        runIdleTasks();
+        verifyFlush(2);
+    }
+
+    @Test
+    public void testFlushOnIdleMaxPending() {
+        setupForIdle(2);
+        source.onNext("Hello1");
+        verifyFlush(0);
+        source.onNext("Hello2");
+        verifyFlush(1);
+        runIdleTasks();
+        verifyFlush(1);
+    }
+
+    @Test
+    public void testFlushOnIdleCompleteWithoutWaitingForFlush() {
+        setupForIdle(10);
+        source.sendItems("Hello1");
+        verifyFlush(0);
+        source.onComplete();
+        sourceSub.verifySuccess();
+        verifyFlush(0);
+        runIdleTasks();
+        verifyFlush(1);
+    }
+
+    @Test
+    public void testFlushOnIdleCompleteWithoutPendingWrites() {
+        setupForIdle(10);
+        source.sendItems("Hello1");
+        runIdleTasks();
+        verifyFlush(1);
+        source.onComplete();
+        sourceSub.verifySuccess();
+        assertThat("Unexpected idle tasks.", idleTasks, hasSize(0));
+        verifyFlush(1);
+    }
+
+    @Test
+    public void testFlushOnIdleCompleteWithoutIdleExecutor() {
+        FlushStrategyHolder<String> holder = flushOnIdle(10).apply(source);
+        setupFor(holder);
+        source.sendItems("Hello1");
+        source.onComplete();
+        verifyFlush(1);
+        sourceSub.verifySuccess();
+    }
+
+    @Test
+    public void testFlushOnIdleWithoutIdleExecutor() {
+        FlushStrategyHolder<String> holder = flushOnIdle(10).apply(source);
+        setupFor(holder);
+        source.sendItems("Hello1", "Hello2");
+        verifyFlush(2);
+    }
+
+    private void setupForIdle(int maxPendingWrites) {
+        IdleAwareFlushStrategyHolder<String> holder =
+                (IdleAwareFlushStrategyHolder<String>) flushOnIdle(maxPendingWrites).apply(source);
+        holder.setIdleExecutor(idleTasks::add, flushListener);
+        setupFor(holder);
+    }
+
+    private void setupFor(FlushStrategyHolder<String> strategy) {
+        sourceSub.subscribe(strategy.getSource()).request(Long.MAX_VALUE);
+        strategy.getFlushSignals().listen(flushListener);
+    }
+
+    private void runIdleTasks() {
+        Runnable task;
+        while ((task = idleTasks.poll()) != null) {
+            task.run();
+        }
+    }
+
+    private void verifyFlush(int flushCount) {
+        if (flushCount > 0) {
+            verify(flushListener, Mockito.times(flushCount)).run();
+        } else {
+            verifyZeroInteractions(flushListener);
+        }
+    }
+}
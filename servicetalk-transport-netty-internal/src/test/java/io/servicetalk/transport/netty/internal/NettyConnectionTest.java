@@ -25,15 +25,32 @@ import io.servicetalk.concurrent.api.TestPublisher;
 import io.servicetalk.transport.api.ConnectionContext;
 import io.servicetalk.transport.api.ExecutionContext;
 
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.channel.ChannelOutboundBuffer;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.EventLoopGroup;
 import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalServerChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.util.ReferenceCountUtil;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
 
 import java.nio.channels.ClosedChannelException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static io.servicetalk.buffer.netty.BufferAllocators.DEFAULT_ALLOCATOR;
 import static io.servicetalk.concurrent.Cancellable.IGNORE_CANCEL;
@@ -47,14 +64,17 @@ import static io.servicetalk.transport.netty.internal.CloseHandler.NOOP_CLOSE_HA
 import static io.servicetalk.transport.netty.internal.FlushStrategy.defaultFlushStrategy;
 import static io.servicetalk.transport.netty.internal.FlushStrategy.flushBeforeEnd;
 import static io.servicetalk.transport.netty.internal.FlushStrategy.flushOnEach;
+import static io.servicetalk.transport.netty.internal.IdleAwareFlushStrategyHolder.flushOnIdle;
 import static io.servicetalk.transport.netty.internal.ReadAwareFlushStrategyHolder.flushOnReadComplete;
 import static java.lang.Integer.MAX_VALUE;
 import static java.nio.charset.Charset.defaultCharset;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
 import static org.hamcrest.Matchers.nullValue;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
@@ -305,6 +325,62 @@ public class NettyConnectionTest {
         writeListener.verifyCompletion();
     }
 
+    @Test
+    public void testFlushOnIdle() {
+        writeListener.listen(conn.write(publisher, flushOnIdle(10)));
+        publisher.sendItems(newBuffer("Hello"));
+        pollChannelAndVerifyWrites();
+        channel.runPendingTasks();
+        pollChannelAndVerifyWrites("Hello");
+        publisher.onComplete();
+        writeListener.verifyCompletion();
+    }
+
+    @Test
+    public void testFlushOnIdleBatchesPipelinedResponses() throws Exception {
+        // EmbeddedChannel runs all pending tasks on every write, so use an event loop which runs tail tasks.
+        final EventLoopGroup group = new NioEventLoopGroup(1);
+        try {
+            final LocalAddress address = new LocalAddress(NettyConnectionTest.class.getSimpleName());
+            new ServerBootstrap().group(group).channel(LocalServerChannel.class)
+                    .childHandler(new ChannelInboundHandlerAdapter()).bind(address).sync();
+            final AtomicInteger flushes = new AtomicInteger();
+            final Channel localChannel = new Bootstrap().group(group).channel(LocalChannel.class)
+                    .handler(new ChannelOutboundHandlerAdapter() {
+                        private final List<ChannelPromise> pendingFlush = new ArrayList<>();
+
+                        @Override
+                        public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+                            ReferenceCountUtil.release(msg);
+                            pendingFlush.add(promise);
+                        }
+
+                        @Override
+                        public void flush(ChannelHandlerContext ctx) {
+                            flushes.incrementAndGet();
+                            pendingFlush.forEach(ChannelPromise::trySuccess);
+                            pendingFlush.clear();
+                        }
+                    }).connect(address).sync().channel();
+            final NettyConnection<Buffer, Buffer> connection =
+                    new NettyConnection<>(localChannel, context, readPublisher, terminalPredicate);
+            // A server writes the responses of all pipelined requests as a single stream.
+            final int pipelinedRequests = 8;
+            final Future<Void> written = localChannel.eventLoop().submit(() -> {
+                final Future<Void> writeFuture = connection.write(publisher, flushOnIdle(MAX_VALUE)).toFuture();
+                for (int i = 0; i < pipelinedRequests; i++) {
+                    publisher.sendItems(newBuffer("Hello" + i));
+                }
+                publisher.onComplete();
+                return writeFuture;
+            }).get();
+            written.get();
+            assertThat(flushes.get(), lessThan(pipelinedRequests));
+        } finally {
+            group.shutdownGracefully(0, 0, SECONDS).sync();
+        }
+    }
+
     @Test
     public void testRead() {
         subscriberRule.subscribe(conn.read());
@@ -0,0 +1,93 @@
+/*
+ * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.transport.netty.internal;
+
+import io.servicetalk.transport.api.ServiceTalkSocketOptions;
+
+import io.netty.channel.ChannelOption;
+import io.netty.channel.RecvByteBufAllocator.Handle;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static java.lang.Math.min;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+
+public class ReadSizePredictingRecvByteBufAllocatorTest {
+
+    private final EmbeddedChannel channel = new EmbeddedChannel();
+
+    @Test
+    public void smallReadsShrinkGuess() {
+        Handle handle = new ReadSizePredictingRecvByteBufAllocator(65536).newHandle();
+        assertThat("Unexpected initial guess.", handle.guess(), is(1024));
+        for (int i = 0; i < 16; ++i) {
+            read(handle, 100);
+        }
+        assertThat("Unexpected guess after small reads.", handle.guess(), is(256));
+    }
+
+    @Test
+    public void filledBufferGrowsGuess() {
+        Handle handle = new ReadSizePredictingRecvByteBufAllocator(4096).newHandle();
+        read(handle, 1024);
+        assertThat("Unexpected guess after a full read.", handle.guess(), is(2048));
+        read(handle, 2048);
+        read(handle, 4096);
+        assertThat("Guess exceeded the maximum.", handle.guess(), is(4096));
+    }
+
+    @Test
+    public void guessNeverBelowMinimum() {
+        Handle handle = new ReadSizePredictingRecvByteBufAllocator(65536).newHandle();
+        for (int i = 0; i < 64; ++i) {
+            read(handle, 1);
+        }
+        assertThat("Unexpected guess after tiny reads.", handle.guess(),
+                is(ReadSizePredictingRecvByteBufAllocator.MIN_READ_BUFFER_SIZE));
+    }
+
+    @Test
+    public void initialGuessBoundedByMaximum() {
+        Handle handle = new ReadSizePredictingRecvByteBufAllocator(512).newHandle();
+        assertThat("Unexpected initial guess.", handle.guess(), is(512));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void maximumBelowMinimum() {
+        new ReadSizePredictingRecvByteBufAllocator(ReadSizePredictingRecvByteBufAllocator.MIN_READ_BUFFER_SIZE - 1);
+    }
+
+    @Test
+    public void socketOptionSetsAllocator() {
+        @SuppressWarnings("rawtypes")
+        Map<ChannelOption, Object> options = new HashMap<>();
+        BuilderUtils.addOption(options, ServiceTalkSocketOptions.MAX_READ_BUFFER_SIZE, 8192);
+        assertThat("Unexpected allocator.", options.get(ChannelOption.RCVBUF_ALLOCATOR),
+                instanceOf(ReadSizePredictingRecvByteBufAllocator.class));
+    }
+
+    private void read(Handle handle, int bytesRead) {
+        handle.reset(channel.config());
+        handle.attemptedBytesRead(handle.guess());
+        handle.lastBytesRead(min(bytesRead, handle.guess()));
+        handle.readComplete();
+    }
+}
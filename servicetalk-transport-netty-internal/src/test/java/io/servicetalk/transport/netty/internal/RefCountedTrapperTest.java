@@ -15,8 +15,10 @@
  */
 package io.servicetalk.transport.netty.internal;
 
+import io.servicetalk.buffer.api.Buffer;
 import io.servicetalk.buffer.api.BufferAllocator;
 
+import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.EventLoop;
 import io.netty.channel.embedded.EmbeddedChannel;
@@ -24,6 +26,10 @@ import io.netty.util.ReferenceCounted;
 import org.junit.Test;
 
 import static io.servicetalk.buffer.netty.BufferAllocators.DEFAULT_ALLOCATOR;
+import static io.servicetalk.buffer.netty.BufferAllocators.newPooledAllocator;
+import static io.servicetalk.buffer.netty.BufferUtil.isPooled;
+import static io.servicetalk.buffer.netty.BufferUtil.toByteBuf;
+import static java.nio.charset.StandardCharsets.US_ASCII;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
@@ -60,6 +66,19 @@ public class RefCountedTrapperTest {
         assertNull(channel.readInbound());
     }
 
+    @Test
+    public void bufferHandlerCopiesPooledMemory() {
+        EmbeddedChannel channel = new EmbeddedChannel(new BufferHandler(DEFAULT_ALLOCATOR));
+        ByteBuf pooled = toByteBuf(newPooledAllocator(true).fromAscii("ServiceTalk"));
+
+        assertTrue(channel.writeInbound(pooled));
+        assertEquals(0, pooled.refCnt());
+        Buffer buffer = channel.readInbound();
+        assertEquals("ServiceTalk", buffer.toString(US_ASCII));
+        assertFalse(isPooled(toByteBuf(buffer)));
+        assertFalse(channel.finish());
+    }
+
     private static final class TestRefCountedTrapper extends RefCountedTrapper {
         TestRefCountedTrapper() {
             super(DEFAULT_ALLOCATOR);
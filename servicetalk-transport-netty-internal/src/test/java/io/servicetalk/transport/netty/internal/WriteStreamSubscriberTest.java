@@ -23,6 +23,8 @@ import static io.servicetalk.concurrent.api.DeliberateException.DELIBERATE_EXCEP
 import static io.servicetalk.transport.netty.internal.CloseHandler.NOOP_CLOSE_HANDLER;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.mock;
@@ -127,6 +129,20 @@ public class WriteStreamSubscriberTest extends AbstractWriteTest {
         verifyZeroInteractions(closeHandler);
     }
 
+    @Test
+    public void testCompleteWithoutAwaitingLastWrite() {
+        reset(completableSubscriber);
+        subscriber = new WriteStreamSubscriber(channel, requestNSupplier, completableSubscriber, closeHandler, false);
+        subscription = mock(Subscription.class);
+        subscriber.onSubscribe(subscription);
+        subscriber.onNext("Hello");
+        subscriber.onComplete();
+        assertThat("Unexpected message(s) flushed.", channel.outboundMessages(), is(empty()));
+        verify(completableSubscriber).onComplete();
+        verifyWriteSuccessful("Hello");
+        verifyZeroInteractions(closeHandler);
+    }
+
     private void verifyWrite(WriteInfo... infos) {
         for (WriteInfo info : infos) {
             verify(requestNSupplier).onItemWrite(info.getMesssage(), info.getWriteCapacityBefore(), info.getWriteCapacityAfter());